@@ -0,0 +1,45 @@
+package org.openlca.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.results.providers.FactorizationSolver;
+import org.openlca.core.results.providers.SolverContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the steps of the calculation pipeline of a synthetic product
+ * system: the linking of the processes into a technology index, the assembly
+ * of the matrices from the database, and the calculation of a full result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CalculationBenchmark {
+
+	@Benchmark
+	public TechIndex buildIndex(SyntheticSystem system) {
+		return system.buildIndex();
+	}
+
+	@Benchmark
+	public MatrixData buildMatrices(SyntheticSystem system) {
+		return system.buildMatrices();
+	}
+
+	@Benchmark
+	public double[] calculate(SyntheticSystem system) {
+		var context = SolverContext.of(system.data)
+			.solver(system.solver);
+		return FactorizationSolver.solve(context).totalImpacts();
+	}
+}
@@ -0,0 +1,81 @@
+package org.openlca.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.openlca.core.matrix.format.DenseMatrix;
+import org.openlca.core.matrix.format.Matrix;
+import org.openlca.core.matrix.format.MatrixReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the matrix operations on the technology matrix of a synthetic
+ * product system, stored in a sparse or dense format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolverBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Matrices {
+
+		/**
+		 * The storage format of the technology matrix: `sparse` (CSC) or
+		 * `dense`.
+		 */
+		@Param({"sparse", "dense"})
+		public String format;
+
+		public MatrixReader techMatrix;
+		public MatrixReader enviMatrix;
+		public MatrixReader impactMatrix;
+
+		@Setup(Level.Trial)
+		public void setup(SyntheticSystem system) {
+			var data = system.data;
+			techMatrix = convert(data.techMatrix);
+			enviMatrix = convert(data.enviMatrix);
+			impactMatrix = convert(data.impactMatrix);
+		}
+
+		private MatrixReader convert(MatrixReader m) {
+			return "dense".equals(format)
+				? DenseMatrix.of(m)
+				: CSCMatrix.of(m);
+		}
+	}
+
+	@Benchmark
+	public void factorize(SyntheticSystem system, Matrices m) {
+		system.solver.factorize(m.techMatrix).dispose();
+	}
+
+	@Benchmark
+	public double[] solve(SyntheticSystem system, Matrices m) {
+		return system.solver.solve(m.techMatrix, 0, 1.0);
+	}
+
+	@Benchmark
+	public Matrix invert(SyntheticSystem system, Matrices m) {
+		return system.solver.invert(m.techMatrix);
+	}
+
+	@Benchmark
+	public Matrix intensities(SyntheticSystem system, Matrices m) {
+		return system.solver.multiply(m.impactMatrix, m.enviMatrix);
+	}
+}
@@ -0,0 +1,175 @@
+package org.openlca.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.matrix.Demand;
+import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.cache.MatrixCache;
+import org.openlca.core.matrix.index.ImpactIndex;
+import org.openlca.core.matrix.index.TechFlow;
+import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.matrix.linking.LinkingConfig;
+import org.openlca.core.matrix.linking.ProviderLinking;
+import org.openlca.core.matrix.linking.TechIndexBuilder;
+import org.openlca.core.matrix.solvers.MatrixSolver;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.ImpactCategory;
+import org.openlca.core.model.ImpactMethod;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.UnitGroup;
+import org.openlca.nativelib.NativeLib;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A synthetic product system in an in-memory database that is shared by the
+ * benchmarks. Each process produces one product and has a number of randomly
+ * selected product inputs from other processes and elementary flow outputs.
+ * To make sure that all processes are connected to the reference process,
+ * each process `i` also has an input of the product of process `i + 1`. The
+ * input amounts are small enough so that the technology matrix is diagonally
+ * dominant and thus non-singular.
+ * <p>
+ * Native libraries are loaded from the folder given by the system property
+ * {@code olca.libs} if present; otherwise the pure Java solver is used.
+ */
+@State(Scope.Benchmark)
+public class SyntheticSystem {
+
+	/**
+	 * The number of processes in the system.
+	 */
+	@Param({"500", "2000"})
+	public int processes;
+
+	/**
+	 * The number of product inputs of each process; this controls the
+	 * sparsity of the technology matrix.
+	 */
+	@Param({"5"})
+	public int inputs;
+
+	/**
+	 * The number of elementary flows in the database.
+	 */
+	@Param({"200"})
+	public int elementaryFlows;
+
+	/**
+	 * The number of elementary flow outputs of each process; this controls
+	 * the sparsity of the intervention matrix.
+	 */
+	@Param({"20"})
+	public int emissions;
+
+	/**
+	 * The number of impact categories; each category has a characterization
+	 * factor for each elementary flow.
+	 */
+	@Param({"10"})
+	public int impacts;
+
+	public IDatabase db;
+	public MatrixSolver solver;
+	public TechFlow refFlow;
+	public ImpactIndex impactIndex;
+	public TechIndex techIndex;
+	public MatrixData data;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		var libs = System.getProperty("olca.libs");
+		if (libs != null && !NativeLib.isLoaded()) {
+			NativeLib.loadFrom(new File(libs));
+		}
+		solver = MatrixSolver.get();
+		db = Derby.createInMemory();
+		var rand = new Random(42);
+
+		var units = db.insert(UnitGroup.of("Mass units", "kg"));
+		var mass = db.insert(FlowProperty.of("Mass", units));
+		var elems = new ArrayList<Flow>(elementaryFlows);
+		for (int i = 0; i < elementaryFlows; i++) {
+			elems.add(db.insert(Flow.elementary("e" + i, mass)));
+		}
+		var products = new ArrayList<Flow>(processes);
+		for (int i = 0; i < processes; i++) {
+			products.add(db.insert(Flow.product("p" + i, mass)));
+		}
+
+		Process ref = null;
+		for (int i = 0; i < processes; i++) {
+			var process = Process.of("P" + i, products.get(i));
+			double amount = 0.5 / (inputs + 1);
+			if (i + 1 < processes) {
+				process.input(products.get(i + 1), amount * rand.nextDouble());
+			}
+			for (int k = 0; k < inputs; k++) {
+				int j = rand.nextInt(processes);
+				if (j == i)
+					continue;
+				process.input(products.get(j), amount * rand.nextDouble());
+			}
+			if (!elems.isEmpty()) {
+				for (int k = 0; k < emissions; k++) {
+					var elem = elems.get(rand.nextInt(elems.size()));
+					process.output(elem, rand.nextDouble());
+				}
+			}
+			var p = db.insert(process);
+			if (i == 0) {
+				ref = p;
+			}
+		}
+
+		var method = ImpactMethod.of("Method");
+		for (int i = 0; i < impacts; i++) {
+			var impact = ImpactCategory.of("I" + i, "kg eq.");
+			for (var elem : elems) {
+				impact.factor(elem, rand.nextDouble());
+			}
+			method.impactCategories.add(db.insert(impact));
+		}
+		method = db.insert(method);
+
+		refFlow = TechFlow.of(ref);
+		impactIndex = ImpactIndex.of(method);
+		techIndex = buildIndex();
+		data = buildMatrices();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		db.close();
+	}
+
+	/**
+	 * Builds the index of the product system by linking the processes with
+	 * their providers, starting from the reference process.
+	 */
+	public TechIndex buildIndex() {
+		var config = new LinkingConfig()
+			.providerLinking(ProviderLinking.IGNORE_DEFAULTS);
+		var cache = MatrixCache.createLazy(db);
+		return new TechIndexBuilder(cache, null, config).build(refFlow);
+	}
+
+	/**
+	 * Builds the technology, intervention, and impact matrices of the system.
+	 */
+	public MatrixData buildMatrices() {
+		return MatrixData.of(db, techIndex)
+			.withDemand(Demand.of(refFlow, 1.0))
+			.withImpacts(impactIndex)
+			.build();
+	}
+}
@@ -0,0 +1,66 @@
+package org.openlca.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openlca.core.results.UpstreamNode;
+import org.openlca.core.results.UpstreamTree;
+import org.openlca.core.results.providers.FactorizationSolver;
+import org.openlca.core.results.providers.ResultProvider;
+import org.openlca.core.results.providers.SolverContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the expansion of the upstream tree of an impact category up to a
+ * given depth, like it is done when a user expands a contribution tree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UpstreamTreeBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Result {
+
+		@Param({"3"})
+		public int depth;
+
+		public ResultProvider provider;
+
+		@Setup(Level.Trial)
+		public void setup(SyntheticSystem system) {
+			var context = SolverContext.of(system.data)
+				.solver(system.solver);
+			provider = FactorizationSolver.solve(context);
+		}
+	}
+
+	@Benchmark
+	public int expand(SyntheticSystem system, Result r) {
+		var impact = system.impactIndex.at(0);
+		var tree = UpstreamTree.of(r.provider, impact);
+		return expand(tree, tree.root, r.depth);
+	}
+
+	private int expand(UpstreamTree tree, UpstreamNode node, int depth) {
+		if (depth == 0)
+			return 1;
+		int count = 1;
+		for (var child : tree.childs(node)) {
+			count += expand(tree, child, depth - 1);
+		}
+		return count;
+	}
+}
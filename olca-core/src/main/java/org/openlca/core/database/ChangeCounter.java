@@ -0,0 +1,105 @@
+package org.openlca.core.database;
+
+import java.sql.SQLException;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * A counter of the changes of the models in a database which is stored in
+ * the database itself, in the table {@code tbl_change_counter} which is
+ * created when the counter is used the first time. It is incremented when a
+ * model is inserted, updated, or deleted via the DAOs and when
+ * {@link DatabaseListeners#fireChanged()} is called. Thus, data that are
+ * derived from a database and stored outside of it, like the snapshots of
+ * the matrix cache, can check if they are still valid, also in another
+ * process. Changes via native SQL are not counted; code that writes models
+ * directly should call {@link DatabaseListeners#fireChanged()} when it is
+ * finished.
+ * <p>
+ * The counter starts with the current time in milliseconds when it is
+ * created, so that a counter that is created again (e.g. after the database
+ * was cleared) does not repeat the values of a previous counter.
+ */
+public final class ChangeCounter {
+
+	private final IDatabase db;
+
+	ChangeCounter(IDatabase db) {
+		this.db = db;
+	}
+
+	/**
+	 * Returns the current value of the counter. Returns -1 if the counter
+	 * cannot be read.
+	 */
+	public long get() {
+		try (var con = db.createConnection();
+				 var stmt = con.createStatement()) {
+			try (var r = stmt.executeQuery(
+					"select counter from tbl_change_counter")) {
+				if (r.next())
+					return r.getLong(1);
+			} catch (SQLException e) {
+				// the table does not exist yet
+			}
+		} catch (SQLException e) {
+			LoggerFactory.getLogger(getClass())
+					.warn("failed to read the change counter", e);
+			return -1;
+		}
+		return init();
+	}
+
+	/**
+	 * Increments the counter. Errors are only logged, as this is called after
+	 * the changes were written.
+	 */
+	void increment() {
+		try (var con = db.createConnection();
+				 var stmt = con.createStatement()) {
+			int rows;
+			try {
+				rows = stmt.executeUpdate(
+						"update tbl_change_counter set counter = counter + 1");
+				con.commit();
+			} catch (SQLException e) {
+				// the table does not exist yet
+				con.rollback();
+				rows = 0;
+			}
+			if (rows == 0) {
+				init();
+			}
+		} catch (SQLException e) {
+			LoggerFactory.getLogger(getClass())
+					.warn("failed to increment the change counter", e);
+		}
+	}
+
+	private synchronized long init() {
+		long start = System.currentTimeMillis();
+		try (var con = db.createConnection();
+				 var stmt = con.createStatement()) {
+			try {
+				stmt.execute("create table tbl_change_counter (counter BIGINT)");
+				con.commit();
+			} catch (SQLException e) {
+				// the table was created by another thread or process
+				con.rollback();
+			}
+			try (var r = stmt.executeQuery(
+					"select counter from tbl_change_counter")) {
+				if (r.next())
+					return r.getLong(1);
+			}
+			stmt.executeUpdate(
+					"insert into tbl_change_counter (counter) values (" + start + ")");
+			con.commit();
+			return start;
+		} catch (SQLException e) {
+			LoggerFactory.getLogger(getClass())
+					.warn("failed to create the change counter", e);
+			return -1;
+		}
+	}
+}
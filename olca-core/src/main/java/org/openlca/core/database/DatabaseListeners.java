@@ -0,0 +1,107 @@
+package org.openlca.core.database;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import org.openlca.core.model.AbstractEntity;
+import org.openlca.core.model.RootEntity;
+import org.openlca.core.model.descriptors.Descriptor;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The registered listeners of a database. The DAOs notify these listeners
+ * when root entities are inserted, updated, or deleted. With each event, the
+ * change counter of the database is incremented. Note that changes via
+ * native SQL statements are not tracked; code that writes models in batches
+ * should call {@link #fireChanged()} when it is finished.
+ */
+public final class DatabaseListeners {
+
+	private final List<IDatabaseListener> listeners = new CopyOnWriteArrayList<>();
+	private final ChangeCounter changeCounter;
+
+	DatabaseListeners(IDatabase db) {
+		this.changeCounter = new ChangeCounter(db);
+	}
+
+	/**
+	 * Returns the persistent counter of the changes of the database.
+	 */
+	public ChangeCounter changeCounter() {
+		return changeCounter;
+	}
+
+	public void add(IDatabaseListener listener) {
+		if (listener == null || listeners.contains(listener))
+			return;
+		listeners.add(listener);
+	}
+
+	public void remove(IDatabaseListener listener) {
+		if (listener == null)
+			return;
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Returns the first registered listener of the given type, or an empty
+	 * option if there is no such listener.
+	 */
+	public <T extends IDatabaseListener> Optional<T> find(Class<T> type) {
+		if (type == null)
+			return Optional.empty();
+		for (var listener : listeners) {
+			if (type.isInstance(listener))
+				return Optional.of(type.cast(listener));
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Notifies the listeners that the database was changed without single
+	 * model events, see {@link IDatabaseListener#databaseChanged()}. This
+	 * should be called by code that writes models directly, e.g. in batch
+	 * transactions.
+	 */
+	public void fireChanged() {
+		changeCounter.increment();
+		for (var listener : listeners) {
+			try {
+				listener.databaseChanged();
+			} catch (Exception e) {
+				var log = LoggerFactory.getLogger(getClass());
+				log.error("database listener failed", e);
+			}
+		}
+	}
+
+	void fireInserted(AbstractEntity entity) {
+		fire(entity, IDatabaseListener::modelInserted);
+	}
+
+	void fireUpdated(AbstractEntity entity) {
+		fire(entity, IDatabaseListener::modelUpdated);
+	}
+
+	void fireDeleted(AbstractEntity entity) {
+		fire(entity, IDatabaseListener::modelDeleted);
+	}
+
+	private void fire(
+			AbstractEntity entity, BiConsumer<IDatabaseListener, Descriptor> fn) {
+		changeCounter.increment();
+		if (listeners.isEmpty() || !(entity instanceof RootEntity root))
+			return;
+		var descriptor = Descriptor.of(root);
+		for (var listener : listeners) {
+			try {
+				fn.accept(listener, descriptor);
+			} catch (Exception e) {
+				var log = LoggerFactory.getLogger(getClass());
+				log.error("database listener failed", e);
+			}
+		}
+	}
+}
@@ -10,4 +10,13 @@ public interface IDatabaseListener {
 
 	void modelDeleted(Descriptor descriptor);
 
+	/**
+	 * Called when the database was changed in a way that is not reported by
+	 * the single model events, e.g. by a bulk import that writes the models
+	 * directly in transactions. A listener should then assume that any model
+	 * could have been changed.
+	 */
+	default void databaseChanged() {
+	}
+
 }
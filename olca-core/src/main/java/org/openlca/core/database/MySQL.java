@@ -17,6 +17,7 @@ public class MySQL implements IDatabase {
 	private final String name;
 	private final EntityManagerFactory entityFactory;
 	private final HikariDataSource connectionPool;
+	private final DatabaseListeners listeners = new DatabaseListeners(this);
 	private File fileDir;
 
 	private MySQL(Config config) {
@@ -54,6 +55,11 @@ public class MySQL implements IDatabase {
 		this.fileDir = dir;
 	}
 
+	@Override
+	public DatabaseListeners listeners() {
+		return listeners;
+	}
+
 	@Override
 	public EntityManagerFactory getEntityFactory() {
 		return entityFactory;
@@ -79,9 +79,21 @@ public class ExchangeProviderQueue {
 		var exchanges = queue.remove(process.refId);
 		if (exchanges == null || exchanges.isEmpty())
 			return;
+
+		// exchanges that are not saved yet (e.g. when their process is in a
+		// batch that is not written yet) get the provider ID when they are
+		// saved; only exchanges that are already stored need to be updated
+		var stored = new ArrayList<Exchange>();
+		for (var exchange : exchanges) {
+			exchange.defaultProviderId = process.id;
+			if (exchange.id != 0) {
+				stored.add(exchange);
+			}
+		}
+		if (stored.isEmpty())
+			return;
 		db.transaction(em -> {
-			for (var exchange : exchanges) {
-				exchange.defaultProviderId = process.id;
+			for (var exchange : stored) {
 				em.merge(exchange);
 			}
 		});
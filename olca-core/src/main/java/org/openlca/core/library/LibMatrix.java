@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.Optional;
 
 import org.openlca.core.matrix.format.MatrixReader;
+import org.openlca.core.matrix.io.MappedCscFile;
 import org.openlca.core.matrix.io.NpyMatrix;
 import org.openlca.npy.Array2d;
 
@@ -60,7 +61,11 @@ public enum LibMatrix {
 				return Optional.of(col.data());
 			}
 
-			// sparse matrix
+			// sparse matrix; read it from the mapped CSC arrays if possible
+			var npz = new File(library.folder(), name() + ".npz");
+			var mapped = MappedCscFile.open(npz);
+			if (mapped.isPresent())
+				return Optional.of(mapped.get().column(column));
 			var matrix = readFrom(library).orElse(null);
 			return matrix == null
 				? Optional.empty()
@@ -76,6 +81,10 @@ public enum LibMatrix {
 		}
 
 		// sparse matrix
+		var npz = new File(library.folder(), name() + ".npz");
+		var mapped = MappedCscFile.open(npz);
+		if (mapped.isPresent())
+			return Optional.of(mapped.get().diag());
 		var matrix = readFrom(library).orElse(null);
 		return matrix == null
 			? Optional.empty()
@@ -12,6 +12,7 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
+import org.openlca.core.matrix.io.MappedCscFile;
 import org.openlca.jsonld.Json;
 
 public class LibraryPackage {
@@ -36,6 +37,8 @@ public class LibraryPackage {
 			if (libFiles == null)
 				return;
 			for (var libFile : libFiles) {
+				if (MappedCscFile.isSidecar(libFile))
+					continue;
 				zip.putNextEntry(new ZipEntry(libFile.getName()));
 				try (var in = new FileInputStream(libFile);
 					 var inBuff = new BufferedInputStream(in)) {
@@ -52,6 +55,8 @@ public class LibraryPackage {
 				if (depFiles == null)
 					continue;
 				for (var depFile : depFiles) {
+					if (MappedCscFile.isSidecar(depFile))
+						continue;
 					var entry = new ZipEntry(prefix + depFile.getName());
 					zip.putNextEntry(entry);
 					try (var in = new FileInputStream(depFile);
@@ -1,11 +1,41 @@
 package org.openlca.core.math;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public abstract class NumberGenerator {
 
+	/**
+	 * An optional source of random numbers that is bound to the current thread.
+	 * If it is not set, `ThreadLocalRandom` is used.
+	 */
+	private static final ThreadLocal<RandomGenerator> threadRandom =
+		new ThreadLocal<>();
+
 	public abstract double next();
 
+	/**
+	 * Binds the given source of random numbers to the current thread. All
+	 * number generators will then draw their random numbers from this source
+	 * when they are called from this thread. This makes it possible to
+	 * reproduce a sequence of generated numbers with a seeded source. Passing
+	 * `null` into this method removes such a binding.
+	 */
+	public static void setThreadRandom(RandomGenerator random) {
+		if (random == null) {
+			threadRandom.remove();
+		} else {
+			threadRandom.set(random);
+		}
+	}
+
+	private static RandomGenerator random() {
+		var random = threadRandom.get();
+		return random != null
+			? random
+			: ThreadLocalRandom.current();
+	}
+
 	public static NumberGenerator normal(double mean, double standardDeviation) {
 		return new Normal(mean, standardDeviation);
 	}
@@ -43,7 +73,7 @@ public abstract class NumberGenerator {
 
 		@Override
 		public double next() {
-			var rand = ThreadLocalRandom.current().nextGaussian();
+			var rand = random().nextGaussian();
 			return rand * std + mean;
 		}
 	}
@@ -90,7 +120,7 @@ public abstract class NumberGenerator {
 
 		@Override
 		public double next() {
-			var rand = ThreadLocalRandom.current();
+			var rand = random();
 			return min + rand.nextDouble() * range;
 		}
 	}
@@ -114,7 +144,7 @@ public abstract class NumberGenerator {
 		public double next() {
 			if (max == min)
 				return mode;
-			double u = ThreadLocalRandom.current().nextDouble();
+			double u = random().nextDouble();
 			double fMode = (mode - min) / (max - min);
 			if (u <= fMode)
 				return min + Math.sqrt(u * (max - min) * (mode - min));
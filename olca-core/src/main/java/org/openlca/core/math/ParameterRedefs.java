@@ -3,6 +3,7 @@ package org.openlca.core.math;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 
 import org.openlca.core.model.CalculationSetup;
@@ -71,6 +72,31 @@ class ParameterRedefs {
 		return params;
 	}
 
+	/**
+	 * Returns the values of the given parameter redefinitions as a set that
+	 * can be used as a key, e.g. to identify calculations with the same
+	 * parameter values. The names of the parameters are compared case
+	 * insensitive and the order of the redefinitions is ignored.
+	 */
+	static Set<Value> valuesOf(List<ParameterRedef> redefs) {
+		var values = new HashSet<Value>();
+		if (redefs == null)
+			return values;
+		for (var redef : redefs) {
+			if (redef == null || redef.name == null)
+				continue;
+			values.add(new Value(
+				redef.name.trim().toLowerCase(), redef.contextId, redef.value));
+		}
+		return values;
+	}
+
+	/**
+	 * The value of a parameter redefinition, see {@link #valuesOf(List)}.
+	 */
+	record Value(String name, Long contextId, double value) {
+	}
+
 	private static String keyOf(ParameterRedef p) {
 		var k = p.name == null
 			? ""
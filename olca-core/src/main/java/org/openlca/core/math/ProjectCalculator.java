@@ -0,0 +1,240 @@
+package org.openlca.core.math;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.library.LibraryDir;
+import org.openlca.core.matrix.Demand;
+import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.matrix.solvers.MatrixSolver;
+import org.openlca.core.matrix.solvers.SymbolicFactorization;
+import org.openlca.core.model.AllocationMethod;
+import org.openlca.core.model.CalculationSetup;
+import org.openlca.core.model.Project;
+import org.openlca.core.model.ProjectVariant;
+import org.openlca.core.results.LcaResult;
+import org.openlca.core.results.ProjectResult;
+import org.openlca.core.results.providers.FactorizationSolver;
+import org.openlca.core.results.providers.ResultProviders;
+import org.openlca.core.results.providers.SolverContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calculates the results of the variants of a project. Variants of the same
+ * product system typically only differ in their parameter redefinitions,
+ * allocation method, or demand. Thus, the variants are grouped by their
+ * product systems and the following data are shared within such a group:
+ * <ul>
+ *   <li>the index of the technosphere flows is only built once</li>
+ *   <li>for larger systems, the symbolic analysis of the technology matrix
+ *   is reused for the factorizations of the variants; small systems are
+ *   solved via full-matrix inversion like in the {@link SystemCalculator}
+ *   (see {@link ResultProviders#solve})</li>
+ *   <li>variants with the same parameter values and allocation method share
+ *   the same matrices and factorization; they only differ in their
+ *   demand</li>
+ * </ul>
+ * The groups are calculated in parallel. Variants of product systems with
+ * sub-systems are calculated with the {@link SystemCalculator} as the
+ * results of the sub-systems depend on the variant parameters.
+ */
+public class ProjectCalculator {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final IDatabase db;
+	private LibraryDir libraryDir;
+	private MatrixSolver solver;
+	private int threads;
+
+	public ProjectCalculator(IDatabase db) {
+		this.db = db;
+		this.threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+	}
+
+	public ProjectCalculator withLibraryDir(LibraryDir libraryDir) {
+		this.libraryDir = libraryDir;
+		return this;
+	}
+
+	public ProjectCalculator withSolver(MatrixSolver solver) {
+		this.solver = solver;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of product systems that are calculated in
+	 * parallel. By default, this is the number of available processors.
+	 */
+	public ProjectCalculator withThreads(int threads) {
+		this.threads = Math.max(1, threads);
+		return this;
+	}
+
+	public ProjectResult calculate(Project project) {
+		var result = new ProjectResult();
+		if (project == null)
+			return result;
+		if (solver == null) {
+			solver = MatrixSolver.get();
+		}
+
+		// group the variants by their product systems
+		var groups = new LinkedHashMap<Long, List<ProjectVariant>>();
+		for (var v : project.variants) {
+			if (v.isDisabled || v.productSystem == null)
+				continue;
+			groups.computeIfAbsent(v.productSystem.id, $ -> new ArrayList<>())
+				.add(v);
+		}
+		if (groups.isEmpty())
+			return result;
+
+		int n = Math.min(threads, groups.size());
+		ExecutorService pool = n > 1
+			? Executors.newFixedThreadPool(n)
+			: null;
+		try {
+			var tasks = new ArrayList<Future<Map<ProjectVariant, LcaResult>>>();
+			for (var group : groups.values()) {
+				Callable<Map<ProjectVariant, LcaResult>> task =
+					() -> calculate(project, group);
+				if (pool == null) {
+					result.addAll(task.call());
+				} else {
+					tasks.add(pool.submit(task));
+				}
+			}
+			for (var task : tasks) {
+				result.addAll(task.get());
+			}
+		} catch (Exception e) {
+			throw new RuntimeException("failed to calculate project", e);
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Calculates the results of the given variants that all have the same
+	 * product system.
+	 */
+	private Map<ProjectVariant, LcaResult> calculate(
+		Project project, List<ProjectVariant> variants) {
+		var results = new HashMap<ProjectVariant, LcaResult>();
+		var first = setupOf(project, variants.get(0));
+		log.info("calculate {} project variants of {}",
+			variants.size(), first.target());
+		var techIndex = TechIndex.of(db, first);
+
+		// the results of sub-systems depend on the parameters of the
+		// variants, thus, we calculate them separately
+		if (hasSubSystems(techIndex)) {
+			var calculator = new SystemCalculator(db)
+				.withLibraryDir(libraryDir)
+				.withSolver(solver);
+			for (var v : variants) {
+				results.put(v, calculator.calculate(setupOf(project, v)));
+			}
+			return results;
+		}
+
+		// variants with the same matrix values only differ in their demand
+		var matrixGroups = new LinkedHashMap<MatrixKey, List<ProjectVariant>>();
+		for (var v : variants) {
+			matrixGroups.computeIfAbsent(MatrixKey.of(v), $ -> new ArrayList<>())
+				.add(v);
+		}
+
+		SymbolicFactorization analysis = null;
+		for (var group : matrixGroups.values()) {
+			var data = MatrixData.of(db, techIndex)
+				.withSetup(setupOf(project, group.get(0)))
+				.build();
+
+			// results of library systems are calculated on demand and small
+			// systems are solved via full-matrix inversion, like in the
+			// system calculator
+			if (data.hasLibraryLinks() || ResultProviders.isSmall(data, solver)) {
+				for (var v : group) {
+					var vData = data.withDemand(demandOf(project, v));
+					var context = SolverContext.of(db, vData)
+						.libraryDir(libraryDir)
+						.solver(solver);
+					results.put(v, new LcaResult(ResultProviders.solve(context)));
+				}
+				continue;
+			}
+
+			// for larger systems, the pattern of the technology matrix is
+			// typically the same in all variants, so that the symbolic
+			// analysis can be reused
+			if (analysis == null) {
+				analysis = solver.analyze(data.techMatrix);
+			}
+			var factorization = analysis.factorize(data.techMatrix);
+			for (var v : group) {
+				var vData = data.withDemand(demandOf(project, v));
+				var context = SolverContext.of(db, vData)
+					.solver(solver)
+					.factorization(factorization);
+				results.put(v, new LcaResult(FactorizationSolver.solve(context)));
+			}
+		}
+		return results;
+	}
+
+	private boolean hasSubSystems(TechIndex techIndex) {
+		for (var techFlow : techIndex) {
+			if (techFlow.provider() != null && !techFlow.isProcess())
+				return true;
+		}
+		return false;
+	}
+
+	private Demand demandOf(Project project, ProjectVariant variant) {
+		return Demand.of(setupOf(project, variant));
+	}
+
+	private CalculationSetup setupOf(Project project, ProjectVariant v) {
+		return CalculationSetup.of(v.productSystem)
+			.withUnit(v.unit)
+			.withFlowPropertyFactor(v.flowPropertyFactor)
+			.withAmount(v.amount)
+			.withAllocation(v.allocationMethod)
+			.withImpactMethod(project.impactMethod)
+			.withNwSet(project.nwSet)
+			.withParameters(v.parameterRedefs)
+			.withCosts(project.isWithCosts)
+			.withRegionalization(project.isWithRegionalization);
+	}
+
+	/**
+	 * Variants with the same key have the same matrix values.
+	 */
+	private record MatrixKey(
+		AllocationMethod allocation, Set<ParameterRedefs.Value> redefs) {
+
+		static MatrixKey of(ProjectVariant v) {
+			var allocation = v.allocationMethod != null
+				? v.allocationMethod
+				: AllocationMethod.NONE;
+			return new MatrixKey(
+				allocation, ParameterRedefs.valuesOf(v.parameterRedefs));
+		}
+	}
+}
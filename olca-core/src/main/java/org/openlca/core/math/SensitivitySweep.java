@@ -0,0 +1,430 @@
+package org.openlca.core.math;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.matrix.FormulaCells;
+import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.format.DenseMatrix;
+import org.openlca.core.matrix.format.HashPointMatrix;
+import org.openlca.core.matrix.format.MatrixReader;
+import org.openlca.core.matrix.index.EnviIndex;
+import org.openlca.core.matrix.index.ImpactIndex;
+import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.matrix.solvers.Factorization;
+import org.openlca.core.matrix.solvers.MatrixSolver;
+import org.openlca.core.model.CalculationSetup;
+import org.openlca.core.model.ParameterRedef;
+import org.openlca.expressions.Scope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+/**
+ * Calculates the total inventory and impact results of a calculation setup
+ * for a range of values of a single parameter (a sensitivity sweep).
+ * <p>
+ * The matrices are built only once. Only the matrix entries that are
+ * calculated from formulas are evaluated again for each value of the
+ * parameter. The technology matrix is factorized once. The changes of a sweep
+ * point are applied as a low-rank update with the Sherman-Morrison-Woodbury
+ * formula. With the base matrix $A$, the $k$ rows $R$ that change in any sweep
+ * point, and the changes $G$ in these rows, the scaling vector $s'$ of the
+ * modified system $A' = A + E_R G$ is:
+ * <p>
+ * $$s' = x - W (I + G W)^{-1} G x$$
+ * <p>
+ * where $x = A^{-1} f$ is the scaling vector of the base system and
+ * $W = A^{-1} E_R$. $W$ is calculated once for all sweep points, so only a
+ * small system of size $k$ needs to be solved per point. When too many rows
+ * change, each point is calculated with a new factorization instead.
+ * <p>
+ * Note that the characterization factors of the LCIA method are not
+ * re-evaluated in a sweep. Product systems with sub-systems or library links
+ * are calculated with the {@link SystemCalculator} for each sweep point.
+ */
+public class SensitivitySweep {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final IDatabase db;
+	private final CalculationSetup setup;
+	private String parameter;
+	private Long context;
+	private double[] values;
+	private MatrixSolver solver;
+	private int maxRank = 100;
+
+	private SensitivitySweep(IDatabase db, CalculationSetup setup) {
+		this.db = Objects.requireNonNull(db);
+		this.setup = Objects.requireNonNull(setup);
+	}
+
+	public static SensitivitySweep of(IDatabase db, CalculationSetup setup) {
+		return new SensitivitySweep(db, setup);
+	}
+
+	/**
+	 * Sets the global parameter that should be varied.
+	 */
+	public SensitivitySweep parameter(String name) {
+		return parameter(name, null);
+	}
+
+	/**
+	 * Sets the parameter that should be varied. The context is the ID of the
+	 * process or LCIA category of a local parameter, or {@code null} for a
+	 * global parameter.
+	 */
+	public SensitivitySweep parameter(String name, Long context) {
+		this.parameter = name;
+		this.context = context;
+		return this;
+	}
+
+	/**
+	 * Sets the values of the parameter for which results are calculated.
+	 */
+	public SensitivitySweep values(double... values) {
+		this.values = values;
+		return this;
+	}
+
+	/**
+	 * Sets the values of the parameter to {@code n} equally spaced values
+	 * between the given start and end value (inclusive).
+	 */
+	public SensitivitySweep range(double start, double end, int n) {
+		if (n < 2) {
+			return values(start);
+		}
+		var vs = new double[n];
+		double step = (end - start) / (n - 1);
+		for (int i = 0; i < n; i++) {
+			vs[i] = start + i * step;
+		}
+		vs[n - 1] = end;
+		return values(vs);
+	}
+
+	public SensitivitySweep withSolver(MatrixSolver solver) {
+		this.solver = solver;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of changed rows of the technology matrix for
+	 * which low-rank updates are used. Above this limit, the matrix is
+	 * factorized for each sweep point. The default value is 100.
+	 */
+	public SensitivitySweep withMaxRank(int maxRank) {
+		this.maxRank = Math.max(0, maxRank);
+		return this;
+	}
+
+	public Result run() {
+		if (parameter == null)
+			throw new IllegalStateException("no parameter set");
+		if (values == null || values.length == 0)
+			throw new IllegalStateException("no parameter values set");
+		if (solver == null) {
+			solver = MatrixSolver.get();
+		}
+		log.info("run sensitivity sweep for {} with {} values",
+			parameter, values.length);
+
+		var techIndex = TechIndex.of(db, setup);
+		if (hasSubSystems(techIndex))
+			return runFull();
+		var data = MatrixData.of(db, techIndex)
+			.withSetup(setup)
+			.withFormulaCells(true)
+			.build();
+		if (data.hasLibraryLinks())
+			return runFull();
+		return new Sweep(data).run();
+	}
+
+	private boolean hasSubSystems(TechIndex techIndex) {
+		for (var techFlow : techIndex) {
+			if (techFlow.provider() != null && !techFlow.isProcess())
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Calculates each sweep point with a full calculation.
+	 */
+	private Result runFull() {
+		log.info("calculate the sweep points with full calculations");
+		var calculator = new SystemCalculator(db).withSolver(solver);
+		EnviIndex enviIndex = null;
+		ImpactIndex impactIndex = null;
+		var flows = new ArrayList<double[]>();
+		var impacts = new ArrayList<double[]>();
+		for (double value : values) {
+			var redefs = new ArrayList<>(setup.parameters());
+			redefs.add(redefOf(value));
+			var pointSetup = setup.copy().withParameters(redefs);
+			var result = calculator.calculate(pointSetup);
+			enviIndex = result.enviIndex();
+			impactIndex = result.impactIndex();
+			flows.add(result.provider().totalFlows());
+			impacts.add(result.provider().totalImpacts());
+		}
+		return new Result(values.clone(), enviIndex, impactIndex,
+			tableOf(flows), tableOf(impacts));
+	}
+
+	private ParameterRedef redefOf(double value) {
+		var redef = ParameterRedef.of(parameter);
+		redef.contextId = context;
+		redef.value = value;
+		return redef;
+	}
+
+	private DenseMatrix tableOf(List<double[]> columns) {
+		if (columns.isEmpty() || columns.get(0) == null)
+			return null;
+		int rows = columns.get(0).length;
+		var table = new DenseMatrix(rows, columns.size());
+		for (int j = 0; j < columns.size(); j++) {
+			var column = columns.get(j);
+			if (column == null)
+				continue;
+			System.arraycopy(column, 0, table.data, j * rows, rows);
+		}
+		return table;
+	}
+
+	/**
+	 * The results of a sensitivity sweep. The columns of the result tables
+	 * are the sweep points in the order of the parameter values; the rows are
+	 * the elementary flows or impact categories of the respective indices.
+	 *
+	 * @param values       the parameter values of the sweep points
+	 * @param enviIndex    the index of the elementary flows; may be null
+	 * @param impactIndex  the index of the impact categories; may be null
+	 * @param totalFlows   the inventory results, enviIndex x values; null if
+	 *                     there is no elementary flow
+	 * @param totalImpacts the LCIA results, impactIndex x values; null if
+	 *                     no LCIA method was selected
+	 */
+	public record Result(
+		double[] values,
+		EnviIndex enviIndex,
+		ImpactIndex impactIndex,
+		DenseMatrix totalFlows,
+		DenseMatrix totalImpacts) {
+
+		/**
+		 * Returns the values of the given elementary flow for the sweep
+		 * points. The values are not adjusted for the flow direction, thus
+		 * inputs are negative.
+		 */
+		public double[] curveOfFlow(int flowIdx) {
+			return rowOf(totalFlows, flowIdx);
+		}
+
+		/**
+		 * Returns the values of the given impact category for the sweep
+		 * points.
+		 */
+		public double[] curveOfImpact(int impactIdx) {
+			return rowOf(totalImpacts, impactIdx);
+		}
+
+		private double[] rowOf(DenseMatrix table, int row) {
+			if (table == null || row < 0 || row >= table.rows())
+				return new double[values.length];
+			return table.getRow(row);
+		}
+	}
+
+	private class Sweep {
+
+		private final MatrixData data;
+		private final int n;
+		private final int refIdx;
+		private final double demand;
+
+		Sweep(MatrixData data) {
+			this.data = data;
+			this.n = data.techIndex.size();
+			this.refIdx = data.techIndex.of(data.demand.techFlow());
+			this.demand = data.demand.value();
+		}
+
+		Result run() {
+
+			// calculate the matrix changes of the sweep points
+			var scope = scopeOf();
+			var techDeltas = new HashPointMatrix[values.length];
+			var enviDeltas = new HashPointMatrix[values.length];
+			for (int p = 0; p < values.length; p++) {
+				scope.bind(parameter, values[p]);
+				techDeltas[p] = deltasOf(data.techFormulas, n, n);
+				if (data.enviMatrix != null) {
+					enviDeltas[p] = deltasOf(data.enviFormulas,
+						data.enviMatrix.rows(), n);
+				}
+			}
+
+			// collect the rows of the technology matrix that change in
+			// any sweep point
+			var rows = new TIntArrayList();
+			var rowPositions = new TIntIntHashMap(16, 0.5f, -1, -1);
+			for (var deltas : techDeltas) {
+				deltas.iterate((row, col, val) -> {
+					if (!rowPositions.containsKey(row)) {
+						rowPositions.put(row, rows.size());
+						rows.add(row);
+					}
+				});
+			}
+			log.trace("{} rows of the technology matrix change", rows.size());
+
+			var factorization = solver.factorize(data.techMatrix);
+			var x = factorization.solve(refIdx, demand);
+			double[][] w = rows.size() <= maxRank
+				? columnsOf(factorization, rows)
+				: null;
+
+			var flows = new ArrayList<double[]>(values.length);
+			var impacts = new ArrayList<double[]>(values.length);
+			for (int p = 0; p < values.length; p++) {
+				var dTech = techDeltas[p];
+				double[] s;
+				if (dTech.isEmpty()) {
+					s = x;
+				} else {
+					s = w != null
+						? update(x, w, rows, rowPositions, dTech)
+						: null;
+					if (s == null) {
+						s = refactorize(dTech);
+					}
+				}
+				var g = totalFlowsOf(s, enviDeltas[p]);
+				flows.add(g);
+				impacts.add(g != null && data.impactMatrix != null
+					? solver.multiply(data.impactMatrix, g)
+					: null);
+			}
+			factorization.dispose();
+
+			return new Result(values.clone(), data.enviIndex, data.impactIndex,
+				tableOf(flows), tableOf(impacts));
+		}
+
+		private Scope scopeOf() {
+			var interpreter = data.techFormulas.interpreter();
+			return context == null
+				? interpreter.getGlobalScope()
+				: interpreter.getScopeOrGlobal(context);
+		}
+
+		private HashPointMatrix deltasOf(
+			FormulaCells cells, int rows, int cols) {
+			var deltas = new HashPointMatrix(rows, cols);
+			if (cells == null)
+				return deltas;
+			cells.eachDelta((row, col, delta) -> deltas.set(
+				row, col, deltas.get(row, col) + delta));
+			return deltas;
+		}
+
+		/**
+		 * Calculates the columns of the inverse for the given rows:
+		 * $W = A^{-1} E_R$. The columns are stored as arrays.
+		 */
+		private double[][] columnsOf(Factorization f, TIntArrayList rows) {
+			var w = new double[rows.size()][];
+			for (int j = 0; j < rows.size(); j++) {
+				w[j] = f.solve(rows.get(j), 1.0);
+			}
+			return w;
+		}
+
+		/**
+		 * Calculates the scaling vector of the updated system with the
+		 * Sherman-Morrison-Woodbury formula. Returns null, when the capacitance
+		 * matrix $I + G W$ is singular.
+		 */
+		private double[] update(double[] x, double[][] w, TIntArrayList rows,
+			TIntIntHashMap rowPositions, HashPointMatrix deltas) {
+			int k = rows.size();
+
+			// y = G x and M = I + G W
+			var y = new double[k];
+			var m = new DenseMatrix(k, k);
+			for (int i = 0; i < k; i++) {
+				m.set(i, i, 1);
+			}
+			deltas.iterate((row, col, val) -> {
+				int i = rowPositions.get(row);
+				y[i] += val * x[col];
+				for (int j = 0; j < k; j++) {
+					double wj = w[j][col];
+					if (wj != 0) {
+						m.set(i, j, m.get(i, j) + val * wj);
+					}
+				}
+			});
+
+			// t = M^-1 y
+			double[] t;
+			try {
+				var f = solver.factorize(m);
+				t = f.solve(y);
+				f.dispose();
+			} catch (Exception e) {
+				log.trace("capacitance matrix is singular", e);
+				return null;
+			}
+			for (double ti : t) {
+				if (!Double.isFinite(ti))
+					return null;
+			}
+
+			// s = x - W t
+			var s = Arrays.copyOf(x, x.length);
+			for (int j = 0; j < k; j++) {
+				double tj = t[j];
+				if (tj == 0)
+					continue;
+				var wj = w[j];
+				for (int i = 0; i < s.length; i++) {
+					s[i] -= wj[i] * tj;
+				}
+			}
+			return s;
+		}
+
+		private double[] refactorize(HashPointMatrix deltas) {
+			var a = data.techMatrix.asMutableCopy();
+			deltas.iterate((row, col, val) -> a.set(
+				row, col, a.get(row, col) + val));
+			var f = solver.factorize(a);
+			var s = f.solve(refIdx, demand);
+			f.dispose();
+			return s;
+		}
+
+		private double[] totalFlowsOf(double[] s, MatrixReader deltas) {
+			if (data.enviMatrix == null)
+				return null;
+			var g = solver.multiply(data.enviMatrix, s);
+			if (deltas != null) {
+				deltas.iterate((row, col, val) -> g[row] += val * s[col]);
+			}
+			return g;
+		}
+	}
+}
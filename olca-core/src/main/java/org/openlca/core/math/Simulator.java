@@ -8,6 +8,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
 
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.database.ImpactMethodDao;
@@ -21,6 +27,7 @@ import org.openlca.core.matrix.index.LongPair;
 import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.matrix.index.TechIndex;
 import org.openlca.core.matrix.solvers.MatrixSolver;
+import org.openlca.core.matrix.solvers.SymbolicFactorization;
 import org.openlca.core.model.CalculationSetup;
 import org.openlca.core.model.ModelType;
 import org.openlca.core.model.ProductSystem;
@@ -101,6 +108,31 @@ public class Simulator {
 	private LibraryDir libraryDir;
 	private MatrixSolver solver;
 
+	/**
+	 * The optional seed of the random numbers and the index of the next
+	 * simulation run, see `withSeed`.
+	 */
+	private Long seed;
+	private long nextRunIndex;
+
+	/**
+	 * If true, only the running statistics of the simulation results are
+	 * stored, see `withStreaming`.
+	 */
+	private boolean streaming;
+
+	/**
+	 * The number of simulation runs for which the parameters and matrix
+	 * entries are generated together, see `withBatchSize`.
+	 */
+	private int batchSize = 1;
+
+	/**
+	 * The worker that runs the simulation on the nodes of this simulator
+	 * in `nextRun`.
+	 */
+	private Worker worker;
+
 	private Simulator(IDatabase db) {
 		this.db = db;
 	}
@@ -121,13 +153,55 @@ public class Simulator {
 		return this;
 	}
 
+	/**
+	 * Sets a seed for the generation of random numbers. With a seed, the
+	 * numbers of the i-th simulation run are drawn from a random stream that is
+	 * derived from this seed and the index i. Thus, the results of a parallel
+	 * simulation (see `runParallel`) are reproducible for a seed, independent
+	 * of the number of threads that are used. Note that a sequential and a
+	 * parallel simulation can generate different numbers for the same seed.
+	 */
+	public Simulator withSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * If set to true, the simulation result only keeps the running statistics
+	 * of the results and not the results of the single simulation runs (see
+	 * {@link SimulationResult#isStreaming()}). This needs to be set before
+	 * the simulation is started.
+	 */
+	public Simulator withStreaming(boolean streaming) {
+		this.streaming = streaming;
+		return this;
+	}
+
+	/**
+	 * Sets the number of simulation runs for which the uncertain parameters
+	 * and matrix entries are generated in one batch. In a batch, the
+	 * parameters are bound to vectors of samples and the formulas of the
+	 * matrix entries are evaluated column-wise for all runs of the batch (see
+	 * {@link MatrixData#simulateBatch}), instead of evaluating the formulas
+	 * again in each run. The values of a batch are then applied run by run.
+	 * Batches are generated within the run that starts them; thus, with a
+	 * seed, the results are reproducible for the same batch size but differ
+	 * from the results of an un-batched simulation. For the same reason,
+	 * batches are not used in `runParallel` when a seed is set. A size
+	 * smaller than 2 disables batching, which is the default.
+	 */
+	public Simulator withBatchSize(int size) {
+		this.batchSize = Math.max(1, size);
+		return this;
+	}
+
 	/**
 	 * Get the result of the simulation.
 	 */
 	public SimulationResult getResult() {
 		if (result != null)
 			return result;
-		result = new SimulationResult(root.data);
+		result = new SimulationResult(root.data, streaming);
 		return result;
 	}
 
@@ -151,79 +225,285 @@ public class Simulator {
 	 * (which you get via `getResult()`, so it does not need to be cached.
 	 */
 	public LcaResult nextRun() {
-		try {
+		if (worker == null) {
+			analyzeNodes();
+			worker = new Worker(root, subNodes, nodeIndex, batchSize);
+		}
+		var next = worker.run(nextRunIndex++);
+		if (next == null)
+			return null;
+		next.appendTo(getResult());
+		return next.result;
+	}
 
-			// generate the numbers and calculate the overall result
-			for (var sub : subNodes) {
-				generateData(sub);
-				sub.lastResult = solve(sub.data);
+	/**
+	 * Runs the given number of simulation runs in parallel on the given number
+	 * of threads and appends the results to the result of this simulator (see
+	 * `getResult()`). Each thread works on its own copy of the matrix data and
+	 * parameter tables of this simulator. The results are appended in the order
+	 * of the simulation runs. Failed runs (e.g. when a matrix was singular) are
+	 * skipped, as in `nextRun()`.
+	 *
+	 * @param runs    the number of simulation runs
+	 * @param threads the number of threads that should be used
+	 * @return the result of this simulator
+	 */
+	public SimulationResult runParallel(int runs, int threads) {
+		var result = getResult();
+		if (runs <= 0)
+			return result;
+		int n = Math.max(1, Math.min(runs, threads));
+		long offset = nextRunIndex;
+		nextRunIndex += runs;
+
+		// each worker takes the next open run until all runs are done
+		analyzeNodes();
+		var template = new Worker(root, subNodes, nodeIndex,
+				seed == null ? batchSize : 1);
+		var runResults = new Run[runs];
+		var counter = new AtomicInteger();
+		var tasks = new ArrayList<Callable<Void>>(n);
+		for (int t = 0; t < n; t++) {
+			var worker = template.copy();
+			tasks.add(() -> {
+				int i;
+				while ((i = counter.getAndIncrement()) < runs) {
+					var run = worker.run(offset + i);
+					if (run != null) {
+						runResults[i] = run.detach();
+					}
+				}
+				return null;
+			});
+		}
+
+		var pool = Executors.newFixedThreadPool(n);
+		try {
+			for (var future : pool.invokeAll(tasks)) {
+				future.get();
 			}
-			generateData(root);
-			var next = solve(root.data);
-			var provider = next.provider();
-			var result = getResult();
-			result.append(next);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("parallel simulation was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("parallel simulation failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
 
-			// calculate results of possible pinned products
-			for (var product : pinnedProducts) {
-				int idx = next.techIndex().of(product);
-				if (idx < 0)
-					continue;
-				var pin = result.pin(product);
-				if (provider.hasFlows()) {
-					pin.withDirectFlows(next.provider().directFlowsOf(idx));
-					pin.withUpstreamFlows(provider.totalFlowsOf(idx));
-				}
-				if (provider.hasImpacts()) {
-					pin.withDirectImpacts(provider.directImpactsOf(idx));
-					pin.withUpstreamImpacts(provider.totalImpactsOf(idx));
-				}
-				pin.add();
+		for (var run : runResults) {
+			if (run != null) {
+				run.appendTo(result);
 			}
-			return next;
-		} catch (Throwable e) {
-			Logger log = LoggerFactory.getLogger(this.getClass());
-			log.trace("simulation run failed", e);
-			return null;
 		}
+		return result;
 	}
 
-	private LcaResult solve(MatrixData data) {
-		var context = SolverContext.of(db, data)
+	private LcaResult solve(Node node) {
+		var context = SolverContext.of(db, node.data)
 				.solver(solver)
+				.analysis(node.analysis)
 				.libraryDir(libraryDir);
 		var provider = ResultProviders.solveLazy(context);
 		return new LcaResult(provider);
 	}
 
-	private void generateData(Node node) {
-		FormulaInterpreter fi = node.parameters.simulate();
-		node.data.simulate(fi);
+	/**
+	 * Runs the symbolic analysis of the technology matrices of the nodes. The
+	 * pattern of a matrix is the union of its non-zero entries and its
+	 * uncertain entries; so that the analysis can be reused in every
+	 * simulation run (and is shared by the copies of the nodes).
+	 */
+	private void analyzeNodes() {
+		var solver = this.solver != null
+				? this.solver
+				: MatrixSolver.get();
+		for (var node : nodeIndex.values()) {
+			if (node.analysis != null)
+				continue;
+			var techMatrix = node.data.techMatrix;
+			var uncertainties = node.data.techUncertainties;
+			if (techMatrix == null)
+				continue;
+			if (uncertainties == null) {
+				node.analysis = solver.analyze(techMatrix);
+				continue;
+			}
+			var pattern = techMatrix.asMutableCopy();
+			uncertainties.each((row, col, cell) -> {
+				if (pattern.get(row, col) == 0) {
+					pattern.set(row, col, 1.0);
+				}
+			});
+			node.analysis = solver.analyze(pattern);
+		}
+	}
 
-		if (node.subSystems != null) {
-			for (TechFlow subLink : node.subSystems) {
-				// add the LCI result of the sub-system
-				Node sub = nodeIndex.get(subLink.providerId());
-				if (sub == null)
-					continue;
-				if (sub.lastResult == null || !sub.lastResult.hasEnviFlows())
-					continue; // should not happen
-				int col = node.data.techIndex.of(subLink);
-				if (col < 0)
+	private static RandomGenerator randomOf(long seed, long run) {
+		return new SplittableRandom(seed ^ (run * 0x9E3779B97F4A7C15L));
+	}
+
+	/**
+	 * A worker runs the number generation and calculation of the nodes of a
+	 * simulation graph. As the nodes are modified in each run, a worker needs
+	 * its own copy of these nodes when it runs in parallel with other workers.
+	 */
+	private class Worker {
+
+		private final Node root;
+		private final List<Node> subNodes;
+		private final Map<Long, Node> nodeIndex;
+		private final int batchSize;
+
+		Worker(Node root, List<Node> subNodes, Map<Long, Node> nodeIndex,
+				int batchSize) {
+			this.root = root;
+			this.subNodes = subNodes;
+			this.nodeIndex = nodeIndex;
+			this.batchSize = batchSize;
+		}
+
+		/**
+		 * Creates a copy of this worker with copies of its nodes. Copies of the
+		 * same worker generate the numbers for the matrix cells and parameters
+		 * in the same order; thus, they produce the same results for the same
+		 * random streams.
+		 */
+		Worker copy() {
+			var copies = new HashMap<Long, Node>();
+			nodeIndex.forEach((id, node) -> copies.put(id, node.copy()));
+			var subCopies = new ArrayList<Node>(subNodes.size());
+			for (var sub : subNodes) {
+				subCopies.add(copies.get(sub.providerId));
+			}
+			return new Worker(
+					copies.get(root.providerId), subCopies, copies, batchSize);
+		}
+
+		Run run(long index) {
+			if (seed != null) {
+				NumberGenerator.setThreadRandom(randomOf(seed, index));
+			}
+			try {
+
+				// generate the numbers and calculate the overall result
+				for (var sub : subNodes) {
+					generateData(sub);
+					sub.lastResult = solve(sub);
+				}
+				generateData(root);
+				var next = solve(root);
+				return Run.of(next, pinnedProducts);
+			} catch (Throwable e) {
+				Logger log = LoggerFactory.getLogger(Simulator.class);
+				log.trace("simulation run failed", e);
+				return null;
+			} finally {
+				NumberGenerator.setThreadRandom(null);
+			}
+		}
+
+		private void generateData(Node node) {
+			if (batchSize > 1) {
+				if (node.batch == null || node.batchRun >= batchSize) {
+					var fi = node.parameters.simulate(batchSize);
+					node.batch = node.data.simulateBatch(fi, batchSize);
+					node.batchRun = 0;
+				}
+				node.data.simulate(node.batch, node.batchRun++);
+			} else {
+				FormulaInterpreter fi = node.parameters.simulate();
+				node.data.simulate(fi);
+			}
+
+			if (node.subSystems != null) {
+				for (TechFlow subLink : node.subSystems) {
+					// add the LCI result of the sub-system
+					Node sub = nodeIndex.get(subLink.providerId());
+					if (sub == null)
+						continue;
+					if (sub.lastResult == null || !sub.lastResult.hasEnviFlows())
+						continue; // should not happen
+					int col = node.data.techIndex.of(subLink);
+					if (col < 0)
+						continue;
+					sub.lastResult.enviIndex().each((i, f) -> {
+						double val = sub.lastResult.provider().totalFlows()[i];
+						int row = node.data.enviIndex.of(f);
+						if (row >= 0) {
+							var fm = node.data.enviMatrix.asMutable();
+							fm.set(row, col, val);
+							node.data.enviMatrix = fm;
+						}
+					});
+				}
+			}
+		}
+	}
+
+	/**
+	 * The result vectors of a simulation run.
+	 */
+	private record Run(
+			LcaResult result,
+			double[] totalFlows,
+			double[] totalImpacts,
+			List<Pin> pins) {
+
+		static Run of(LcaResult r, Set<TechFlow> pinnedProducts) {
+			var provider = r.provider();
+			var totalFlows = r.hasEnviFlows()
+					? provider.totalFlows()
+					: null;
+			var totalImpacts = r.hasImpacts()
+					? provider.totalImpacts()
+					: null;
+
+			// calculate results of possible pinned products
+			var pins = new ArrayList<Pin>(pinnedProducts.size());
+			for (var product : pinnedProducts) {
+				int idx = r.techIndex().of(product);
+				if (idx < 0)
 					continue;
-				sub.lastResult.enviIndex().each((i, f) -> {
-					double val = sub.lastResult.provider().totalFlows()[i];
-					int row = node.data.enviIndex.of(f);
-					if (row >= 0) {
-						var fm = node.data.enviMatrix.asMutable();
-						fm.set(row, col, val);
-						node.data.enviMatrix = fm;
-					}
-				});
+				pins.add(new Pin(
+						product,
+						provider.hasFlows() ? provider.directFlowsOf(idx) : null,
+						provider.hasFlows() ? provider.totalFlowsOf(idx) : null,
+						provider.hasImpacts() ? provider.directImpactsOf(idx) : null,
+						provider.hasImpacts() ? provider.totalImpactsOf(idx) : null));
+			}
+			return new Run(r, totalFlows, totalImpacts, pins);
+		}
+
+		/**
+		 * Returns the vectors of this run without the reference to the full
+		 * result; so that it can be garbage collected.
+		 */
+		Run detach() {
+			return new Run(null, totalFlows, totalImpacts, pins);
+		}
+
+		void appendTo(SimulationResult result) {
+			result.append(totalFlows, totalImpacts);
+			for (var pin : pins) {
+				result.pin(pin.product)
+						.withDirectFlows(pin.directFlows)
+						.withUpstreamFlows(pin.upstreamFlows)
+						.withDirectImpacts(pin.directImpacts)
+						.withUpstreamImpacts(pin.upstreamImpacts)
+						.add();
 			}
 		}
 	}
 
+	private record Pin(
+			TechFlow product,
+			double[] directFlows,
+			double[] upstreamFlows,
+			double[] directImpacts,
+			double[] upstreamImpacts) {
+	}
+
 	private void init(IDatabase db, CalculationSetup setup) {
 
 		// if the calculation target is a process, the simulation graph
@@ -374,6 +654,25 @@ public class Simulator {
 
 		Set<TechFlow> subSystems;
 		LcaResult lastResult;
+		SymbolicFactorization analysis;
+
+		/**
+		 * The generated values of the current batch of simulation runs and
+		 * the position of the next run in this batch; a copy of a node starts
+		 * with a new batch.
+		 */
+		MatrixData.SimulationBatch batch;
+		int batchRun;
+
+		private Node(Node other) {
+			this.providerId = other.providerId;
+			this.provider = other.provider;
+			this.data = other.data.copy();
+			this.parameters = other.parameters.copy();
+			this.subSystems = other.subSystems;
+			this.lastResult = other.lastResult;
+			this.analysis = other.analysis;
+		}
 
 		Node(CalculationSetup setup, IDatabase db,
 				Map<TechFlow, LcaResult> subResults) {
@@ -409,6 +708,15 @@ public class Simulator {
 			parameters = ParameterTable.forSimulation(
 					db, paramContexts, setup.parameters());
 		}
+
+		/**
+		 * Creates a copy of this node with copies of the matrix data and
+		 * parameter table. The sub-system links and the symbolic analysis of
+		 * the technology matrix are shared.
+		 */
+		Node copy() {
+			return new Node(this);
+		}
 	}
 
 }
@@ -1,13 +1,24 @@
 package org.openlca.core.math;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.library.LibraryDir;
 import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.index.LongPair;
 import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.matrix.index.TechIndex;
 import org.openlca.core.matrix.solvers.MatrixSolver;
@@ -18,14 +29,19 @@ import org.openlca.core.results.LcaResult;
 import org.openlca.core.results.providers.ResultModelProvider;
 import org.openlca.core.results.providers.ResultProviders;
 import org.openlca.core.results.providers.SolverContext;
+import org.openlca.util.TopoSort;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Calculates the results of a calculation setup. The product systems of the
- * setups may contain sub-systems which are calculated recursively. The
- * calculator does not check if there are obvious errors like sub-system cycles
- * etc.
+ * setups may contain sub-systems which are calculated before their host
+ * systems. The sub-systems are scheduled in the topological order of their
+ * dependency graph: a sub-system is calculated as soon as the results of its
+ * own sub-systems are available, so that independent sub-systems are
+ * calculated in parallel. A sub-system that is used in multiple host systems
+ * is only calculated once for the same parameter values. An exception is
+ * thrown when there are sub-system cycles.
  */
 public class SystemCalculator {
 
@@ -38,9 +54,11 @@ public class SystemCalculator {
 	private final IDatabase db;
 	private LibraryDir libraryDir;
 	private MatrixSolver solver;
+	private int threads;
 
 	public SystemCalculator(IDatabase db) {
 		this.db = db;
+		this.threads = Runtime.getRuntime().availableProcessors();
 	}
 
 	public SystemCalculator withLibraryDir(LibraryDir libraryDir) {
@@ -53,6 +71,16 @@ public class SystemCalculator {
 		return this;
 	}
 
+	/**
+	 * Sets the maximum number of sub-systems that are calculated in parallel.
+	 * By default, this is the number of available processors. With a value of
+	 * 1, the sub-systems are calculated sequentially.
+	 */
+	public SystemCalculator withThreads(int threads) {
+		this.threads = Math.max(1, threads);
+		return this;
+	}
+
 	public LcaResult calculate(CalculationSetup setup) {
 		return solve(setup, DEFAULT);
 	}
@@ -66,10 +94,22 @@ public class SystemCalculator {
 	}
 
 	private LcaResult solve(CalculationSetup setup, int type) {
+		if (!hasSubSystemLinks(setup))
+			return solve(setup, type, null);
+		var subSystems = new SubSystems(setup);
+		try {
+			return solve(setup, type, subSystems);
+		} finally {
+			subSystems.close();
+		}
+	}
+
+	private LcaResult solve(
+			CalculationSetup setup, int type, SubSystems subSystems) {
 		log.info("calculate result for {}", setup.target());
 		var techIndex = TechIndex.of(db, setup);
-		var subs = solveSubSystems(setup, techIndex);
-		log.trace("solved {} sub-systems", subs.size());
+		var subs = subResultsOf(setup, techIndex, subSystems);
+		log.trace("collected {} sub-results", subs.size());
 		var data = MatrixData.of(db, techIndex)
 				.withSetup(setup)
 				.withSubResults(subs)
@@ -100,27 +140,33 @@ public class SystemCalculator {
 	}
 
 	/**
-	 * Calculates (recursively) the sub-systems of the product system of the
-	 * given setup. It returns an empty map when there are no subsystems. For
-	 * the sub-results, the same calculation type is performed as defined in
-	 * the original calculation setup.
+	 * Collects the results of the sub-systems and result providers of the
+	 * product system of the given setup. It returns an empty map when there
+	 * are no such providers. The results of the sub-systems are taken from
+	 * the already calculated sub-system results.
 	 */
-	private Map<TechFlow, LcaResult> solveSubSystems(
-			CalculationSetup setup, TechIndex techIndex) {
+	private Map<TechFlow, LcaResult> subResultsOf(CalculationSetup setup,
+			TechIndex techIndex, SubSystems subSystems) {
 		if (setup == null || !setup.hasProductSystem())
 			return Collections.emptyMap();
 
 		var subResults = new HashMap<TechFlow, LcaResult>();
-
-		var subSystems = new HashSet<TechFlow>();
 		for (var link : setup.productSystem().processLinks) {
 			if (link.hasProcessProvider())
 				continue;
 			var provider = techIndex.getProvider(link.providerId, link.flowId);
-			if (provider == null || provider.isProcess())
+			if (provider == null
+					|| provider.isProcess()
+					|| subResults.containsKey(provider))
 				continue;
+
 			if (provider.isProductSystem()) {
-				subSystems.add(provider);
+				var subResult = subSystems != null
+						? subSystems.resultOf(setup, provider.providerId())
+						: null;
+				if (subResult != null) {
+					subResults.put(provider, subResult);
+				}
 				continue;
 			}
 
@@ -132,26 +178,174 @@ public class SystemCalculator {
 				}
 			}
 		}
-		if (subSystems.isEmpty())
-			return subResults;
+		return subResults;
+	}
+
+	private boolean hasSubSystemLinks(CalculationSetup setup) {
+		if (setup == null || !setup.hasProductSystem())
+			return false;
+		for (var link : setup.productSystem().processLinks) {
+			if (link.hasSubSystemProvider())
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Creates the setup of a sub-system from the setup of its host system.
+	 */
+	private static CalculationSetup subSetupOf(
+			CalculationSetup hostSetup, ProductSystem subSystem) {
+		return CalculationSetup.of(subSystem)
+				.withParameters(ParameterRedefs.join(hostSetup, subSystem))
+				.withCosts(hostSetup.hasCosts())
+				.withRegionalization(hostSetup.hasRegionalization())
+				.withAllocation(hostSetup.allocation())
+				.withImpactMethod(hostSetup.impactMethod())
+				.withNwSet(hostSetup.nwSet());
+	}
+
+	/**
+	 * Calculates the sub-systems of a root setup. The setups of the
+	 * sub-systems are derived top-down from the root setup, and the
+	 * sub-systems are then calculated bottom-up in the topological order of
+	 * their dependencies. Each calculation is a task that starts when the
+	 * results of the sub-systems it depends on are available; thus, no worker
+	 * thread is blocked waiting for another task. The results are memoized by
+	 * the sub-system and its parameter values.
+	 */
+	private class SubSystems {
+
+		private final Map<Long, ProductSystem> systems = new HashMap<>();
+		private final Map<SetupKey, CompletableFuture<LcaResult>> results =
+				new ConcurrentHashMap<>();
+		private final ExecutorService pool;
+
+		SubSystems(CalculationSetup root) {
+			long rootId = root.target().id;
+			systems.put(rootId, root.productSystem());
+
+			// collect the sub-system relations as (subSystem, hostSystem)
+			var rels = new HashSet<LongPair>();
+			var subsOf = new HashMap<Long, List<Long>>();
+			var queue = new ArrayDeque<ProductSystem>();
+			queue.add(root.productSystem());
+			while (!queue.isEmpty()) {
+				var host = queue.poll();
+				for (var link : host.processLinks) {
+					if (!link.hasSubSystemProvider())
+						continue;
+					var rel = LongPair.of(link.providerId, host.id);
+					if (!rels.add(rel))
+						continue;
+					var sub = systems.get(link.providerId);
+					if (sub == null && !systems.containsKey(link.providerId)) {
+						sub = db.get(ProductSystem.class, link.providerId);
+						systems.put(link.providerId, sub);
+						if (sub != null) {
+							queue.add(sub);
+						}
+					}
+					if (sub != null) {
+						subsOf.computeIfAbsent(host.id, $ -> new ArrayList<>())
+								.add(sub.id);
+					}
+				}
+			}
 
-		// calculate the LCI results of the sub-systems
+			var order = TopoSort.of(rels);
+			if (order == null)
+				throw new RuntimeException(
+						"there are sub-system cycles in the product system");
+
+			// derive the setups top-down; a sub-system can have different
+			// setups when its host systems have different parameters
+			var setups = new HashMap<Long, Map<SetupKey, CalculationSetup>>();
+			setups.put(rootId, Map.of(SetupKey.of(root), root));
+			var dependencies = new HashMap<SetupKey, List<SetupKey>>();
+			for (int i = order.size() - 1; i >= 0; i--) {
+				long hostId = order.get(i);
+				var hostSetups = setups.get(hostId);
+				var subIds = subsOf.get(hostId);
+				if (hostSetups == null || subIds == null)
+					continue;
+				for (var host : hostSetups.entrySet()) {
+					var deps = new ArrayList<SetupKey>(subIds.size());
+					for (long subId : subIds) {
+						var subSetup = subSetupOf(host.getValue(), systems.get(subId));
+						var subKey = SetupKey.of(subSetup);
+						setups.computeIfAbsent(subId, $ -> new HashMap<>())
+								.putIfAbsent(subKey, subSetup);
+						deps.add(subKey);
+					}
+					dependencies.put(host.getKey(), deps);
+				}
+			}
+
+			// schedule the calculations bottom-up; with a single thread the
+			// tasks are executed directly in topological order
+			pool = threads > 1 && order.size() > 2
+					? new ForkJoinPool(threads)
+					: null;
+			Executor exec = pool != null ? pool : Runnable::run;
+			for (long systemId : order) {
+				if (systemId == rootId)
+					continue;
+				var systemSetups = setups.get(systemId);
+				if (systemSetups == null)
+					continue;
+				for (var e : systemSetups.entrySet()) {
+					var deps = dependencies.getOrDefault(e.getKey(), List.of())
+							.stream()
+							.map(results::get)
+							.toArray(CompletableFuture[]::new);
+					var subSetup = e.getValue();
+					var future = CompletableFuture.allOf(deps)
+							.thenApplyAsync($ -> solve(subSetup, DEFAULT, this), exec);
+					results.put(e.getKey(), future);
+				}
+			}
+		}
 
-		for (var pp : subSystems) {
-			var subSystem = db.get(ProductSystem.class, pp.providerId());
+		/**
+		 * Returns the result of the given sub-system of the given host setup.
+		 * Waits for the calculation of the sub-system if it is not finished
+		 * yet.
+		 */
+		LcaResult resultOf(CalculationSetup hostSetup, long subSystemId) {
+			var subSystem = systems.get(subSystemId);
 			if (subSystem == null)
-				continue;
+				return null;
+			var key = SetupKey.of(subSetupOf(hostSetup, subSystem));
+			var future = results.get(key);
+			if (future == null)
+				return null;
+			try {
+				return future.join();
+			} catch (CompletionException e) {
+				throw new RuntimeException(
+						"failed to calculate sub-system " + subSystem.name,
+						e.getCause());
+			}
+		}
 
-			var subSetup = CalculationSetup.of(subSystem)
-					.withParameters(ParameterRedefs.join(setup, subSystem))
-					.withCosts(setup.hasCosts())
-					.withRegionalization(setup.hasRegionalization())
-					.withAllocation(setup.allocation())
-					.withImpactMethod(setup.impactMethod())
-					.withNwSet(setup.nwSet());
-			var subResult = calculate(subSetup);
-			subResults.put(pp, subResult);
+		void close() {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Identifies the setup of a sub-system. All sub-system setups of a
+	 * calculation share the allocation method, LCIA method etc. of the root
+	 * setup; thus, they only differ in the system and the parameter values.
+	 */
+	private record SetupKey(long systemId, Set<ParameterRedefs.Value> redefs) {
+
+		static SetupKey of(CalculationSetup setup) {
+			return new SetupKey(
+					setup.target().id, ParameterRedefs.valuesOf(setup.parameters()));
 		}
-		return subResults;
 	}
 }
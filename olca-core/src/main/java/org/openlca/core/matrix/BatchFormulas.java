@@ -0,0 +1,47 @@
+package org.openlca.core.matrix;
+
+import java.util.Arrays;
+
+import org.openlca.expressions.Scope;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates the formulas of matrix entries for a batch of simulation runs in
+ * which the uncertain parameters are bound to vectors of samples (see
+ * {@link ParameterTable#simulate(int)}).
+ */
+final class BatchFormulas {
+
+	private BatchFormulas() {
+	}
+
+	/**
+	 * Evaluates the given formula column-wise for all runs of the batch. If
+	 * this fails, the formula is evaluated run by run and the runs for which
+	 * the evaluation fails get the given default value; this is the same as
+	 * in the evaluation of a single run.
+	 */
+	static double[] eval(Scope scope, String formula, int size,
+		double defaultValue, String context) {
+		if (scope == null) {
+			var values = new double[size];
+			Arrays.fill(values, defaultValue);
+			return values;
+		}
+		try {
+			return scope.evalBatch(formula, size);
+		} catch (Exception e) {
+			var values = new double[size];
+			for (int i = 0; i < size; i++) {
+				try {
+					values[i] = scope.evalSample(formula, i);
+				} catch (Exception ie) {
+					var log = LoggerFactory.getLogger(BatchFormulas.class);
+					log.error("Formula evaluation failed, " + context, ie);
+					values[i] = defaultValue;
+				}
+			}
+			return values;
+		}
+	}
+}
@@ -1,10 +1,13 @@
 package org.openlca.core.matrix;
 
+import java.util.Arrays;
+
+import org.openlca.core.model.Copyable;
 import org.openlca.expressions.FormulaInterpreter;
 import org.openlca.util.Strings;
 import org.slf4j.LoggerFactory;
 
-public class CalcAllocationFactor {
+public class CalcAllocationFactor implements Copyable<CalcAllocationFactor> {
 
 	private final long processID;
 
@@ -58,6 +61,13 @@ public class CalcAllocationFactor {
 		return amount;
 	}
 
+	/**
+	 * Returns true if the allocation factor is bound to a formula.
+	 */
+	public boolean hasFormula() {
+		return formula != null;
+	}
+
 	/**
 	 * If the allocation factor is bound to a formula, this formula is always
 	 * evaluated. No cached value is returned in contrast to the `get` method.
@@ -68,4 +78,31 @@ public class CalcAllocationFactor {
 		evaluated = false;
 		return get(interpreter);
 	}
+
+	/**
+	 * Returns the values of this allocation factor for a batch of simulation
+	 * runs in which the uncertain parameters of the given interpreter are
+	 * bound to vectors of samples. As in `force`, a formula of the factor is
+	 * always evaluated.
+	 */
+	public double[] values(FormulaInterpreter interpreter, int size) {
+		if (formula == null || interpreter == null) {
+			var values = new double[size];
+			Arrays.fill(values, amount);
+			return values;
+		}
+		var scope = interpreter.getScope(processID)
+				.orElse(interpreter.getGlobalScope());
+		return BatchFormulas.eval(scope, formula, size, amount,
+				"allocation factor: " + formula);
+	}
+
+	@Override
+	public CalcAllocationFactor copy() {
+		var copy = new CalcAllocationFactor(processID);
+		copy.amount = amount;
+		copy.evaluated = evaluated;
+		copy.formula = formula;
+		return copy;
+	}
 }
@@ -1,12 +1,15 @@
 package org.openlca.core.matrix;
 
+import java.util.Arrays;
+
+import org.openlca.core.model.Copyable;
 import org.openlca.core.model.FlowType;
 import org.openlca.core.model.UncertaintyType;
 import org.openlca.expressions.FormulaInterpreter;
 import org.openlca.util.Strings;
 import org.slf4j.LoggerFactory;
 
-public class CalcExchange {
+public class CalcExchange implements Copyable<CalcExchange> {
 
 	public long processId;
 	public long flowId;
@@ -98,8 +101,34 @@ public class CalcExchange {
 					+ exchangeId, e);
 			}
 		}
+		return matrixValueOf(a, allocationFactor);
+	}
 
-		a *= (conversionFactor * allocationFactor);
+	/**
+	 * Returns the amounts of this exchange for a batch of simulation runs in
+	 * which the uncertain parameters of the given interpreter are bound to
+	 * vectors of samples. If this exchange has a formula, it is evaluated
+	 * column-wise for all runs. Otherwise, the amount of the exchange is
+	 * returned for each run.
+	 */
+	public double[] amounts(FormulaInterpreter interpreter, int size) {
+		if (Strings.nullOrEmpty(formula) || interpreter == null) {
+			var amounts = new double[size];
+			Arrays.fill(amounts, amount);
+			return amounts;
+		}
+		var scope = interpreter.getScopeOrGlobal(processId);
+		return BatchFormulas.eval(scope, formula, size, amount,
+			"exchange " + exchangeId);
+	}
+
+	/**
+	 * Converts the given amount of this exchange into the respective matrix
+	 * value, applying the conversion and allocation factors and the sign of
+	 * the matrix entry.
+	 */
+	public double matrixValueOf(double amount, double allocationFactor) {
+		double a = amount * (conversionFactor * allocationFactor);
 		if (isAvoided) {
 			// avoided product or waste flows
 			if (flowType == FlowType.PRODUCT_FLOW)
@@ -133,4 +162,28 @@ public class CalcExchange {
 		return c;
 	}
 
+	@Override
+	public CalcExchange copy() {
+		var copy = new CalcExchange();
+		copy.processId = processId;
+		copy.flowId = flowId;
+		copy.exchangeId = exchangeId;
+		copy.isInput = isInput;
+		copy.conversionFactor = conversionFactor;
+		copy.amount = amount;
+		copy.formula = formula;
+		copy.uncertaintyType = uncertaintyType;
+		copy.parameter1 = parameter1;
+		copy.parameter2 = parameter2;
+		copy.parameter3 = parameter3;
+		copy.flowType = flowType;
+		copy.defaultProviderId = defaultProviderId;
+		copy.locationId = locationId;
+		copy.isAvoided = isAvoided;
+		copy.costValue = costValue;
+		copy.currencyFactor = currencyFactor;
+		copy.costFormula = costFormula;
+		return copy;
+	}
+
 }
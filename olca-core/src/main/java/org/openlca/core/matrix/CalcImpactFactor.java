@@ -1,11 +1,14 @@
 package org.openlca.core.matrix;
 
+import java.util.Arrays;
+
+import org.openlca.core.model.Copyable;
 import org.openlca.core.model.UncertaintyType;
 import org.openlca.expressions.FormulaInterpreter;
 import org.openlca.util.Strings;
 import org.slf4j.LoggerFactory;
 
-public class CalcImpactFactor {
+public class CalcImpactFactor implements Copyable<CalcImpactFactor> {
 
 	public long imactCategoryId;
 	public long flowId;
@@ -49,8 +52,47 @@ public class CalcImpactFactor {
 						" LCIA factor with formula: " + formula, e);
 			}
 		}
+		return matrixValueOf(a);
+	}
 
-		a *= conversionFactor;
+	/**
+	 * Returns the amounts of this factor for a batch of simulation runs in
+	 * which the uncertain parameters of the given interpreter are bound to
+	 * vectors of samples; see {@link CalcExchange#amounts}.
+	 */
+	public double[] amounts(FormulaInterpreter interpreter, int size) {
+		if (Strings.nullOrEmpty(formula) || interpreter == null) {
+			var amounts = new double[size];
+			Arrays.fill(amounts, amount);
+			return amounts;
+		}
+		var scope = interpreter.getScopeOrGlobal(imactCategoryId);
+		return BatchFormulas.eval(scope, formula, size, amount,
+				"LCIA factor with formula: " + formula);
+	}
+
+	/**
+	 * Converts the given amount of this factor into the respective matrix
+	 * value.
+	 */
+	public double matrixValueOf(double amount) {
+		double a = amount * conversionFactor;
 		return isInput ? -a : a;
 	}
+
+	@Override
+	public CalcImpactFactor copy() {
+		var copy = new CalcImpactFactor();
+		copy.imactCategoryId = imactCategoryId;
+		copy.flowId = flowId;
+		copy.isInput = isInput;
+		copy.conversionFactor = conversionFactor;
+		copy.amount = amount;
+		copy.formula = formula;
+		copy.uncertaintyType = uncertaintyType;
+		copy.parameter1 = parameter1;
+		copy.parameter2 = parameter2;
+		copy.parameter3 = parameter3;
+		return copy;
+	}
 }
@@ -0,0 +1,112 @@
+package org.openlca.core.matrix;
+
+import java.util.ArrayList;
+
+import org.openlca.core.matrix.format.EntryFunction;
+import org.openlca.core.model.Copyable;
+import org.openlca.expressions.FormulaInterpreter;
+import org.openlca.util.Strings;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Contains the entries of a matrix that are calculated from formulas: the
+ * exchanges with an amount formula or an allocation factor that is bound to a
+ * formula. Together with the formula interpreter that was used to build the
+ * matrix, it can be used to calculate the changes of these matrix entries when
+ * parameter values are rebound in that interpreter (e.g. in a sensitivity
+ * analysis), without building the matrix again.
+ * <p>
+ * Note that multiple exchanges can be mapped to the same matrix cell. Thus,
+ * an entry of this structure is the contribution of a single exchange to a
+ * matrix cell and not the value of that cell.
+ */
+public class FormulaCells implements Copyable<FormulaCells> {
+
+	private final FormulaInterpreter interpreter;
+	private final TIntArrayList rows = new TIntArrayList();
+	private final TIntArrayList columns = new TIntArrayList();
+	private final ArrayList<CalcExchange> exchanges = new ArrayList<>();
+	private final ArrayList<CalcAllocationFactor> factors = new ArrayList<>();
+	private final TDoubleArrayList values = new TDoubleArrayList();
+
+	public FormulaCells(FormulaInterpreter interpreter) {
+		this.interpreter = interpreter;
+	}
+
+	/**
+	 * Returns true if the value of the given exchange depends on a formula.
+	 */
+	public static boolean isFormula(CalcExchange e, CalcAllocationFactor f) {
+		if (e == null)
+			return false;
+		return Strings.notEmpty(e.formula)
+				|| (f != null && f.hasFormula());
+	}
+
+	/**
+	 * Adds the contribution of the given exchange to a matrix cell with the
+	 * value that was calculated when the matrix was built.
+	 */
+	public void add(int row, int col, CalcExchange e,
+			CalcAllocationFactor factor, double value) {
+		rows.add(row);
+		columns.add(col);
+		exchanges.add(e);
+		factors.add(factor);
+		values.add(value);
+	}
+
+	/**
+	 * Creates a copy of these entries. The formula interpreter is not copied
+	 * but shared with the copy, as the entries are evaluated with the
+	 * bindings of the interpreter with which the matrix was built.
+	 */
+	@Override
+	public FormulaCells copy() {
+		var copy = new FormulaCells(interpreter);
+		copy.rows.addAll(rows);
+		copy.columns.addAll(columns);
+		copy.exchanges.addAll(exchanges);
+		copy.factors.addAll(factors);
+		copy.values.addAll(values);
+		return copy;
+	}
+
+	/**
+	 * The formula interpreter with which the matrix was built.
+	 */
+	public FormulaInterpreter interpreter() {
+		return interpreter;
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	public boolean isEmpty() {
+		return rows.isEmpty();
+	}
+
+	/**
+	 * Evaluates the formulas with the current bindings of the interpreter and
+	 * calls the given function with the difference to the value that was
+	 * calculated when the matrix was built, for each entry where this
+	 * difference is not zero. Multiple calls for the same matrix cell are
+	 * possible; the differences of such calls need to be summed up.
+	 */
+	public void eachDelta(EntryFunction fn) {
+		for (int i = 0; i < rows.size(); i++) {
+			var factor = factors.get(i);
+			double af = factor != null
+					? factor.force(interpreter)
+					: 1;
+			double value = exchanges.get(i).matrixValue(interpreter, af);
+			double delta = value - values.get(i);
+			if (delta != 0) {
+				fn.value(rows.get(i), columns.get(i), delta);
+			}
+		}
+	}
+}
@@ -28,6 +28,8 @@ public class InventoryBuilder {
 	private final MatrixBuilder enviBuilder;
 	private UMatrix techUncerts;
 	private UMatrix enviUncerts;
+	private FormulaCells techFormulas;
+	private FormulaCells enviFormulas;
 	private double[] costs;
 
 	public InventoryBuilder(MatrixConfig conf) {
@@ -62,6 +64,10 @@ public class InventoryBuilder {
 			techUncerts = new UMatrix();
 			enviUncerts = new UMatrix();
 		}
+		if (conf.withFormulaCells) {
+			techFormulas = new FormulaCells(conf.interpreter);
+			enviFormulas = new FormulaCells(conf.interpreter);
+		}
 		if (conf.withCosts) {
 			costs = new double[conf.techIndex.size()];
 		}
@@ -83,6 +89,7 @@ public class InventoryBuilder {
 		techBuilder.minSize(n, n);
 		data.techMatrix = techBuilder.finish();
 		data.techUncertainties = techUncerts;
+		data.techFormulas = techFormulas;
 
 		// optional elementary flows
 		if (m > 0) {
@@ -90,6 +97,7 @@ public class InventoryBuilder {
 			enviBuilder.minSize(m, n);
 			data.enviMatrix = enviBuilder.finish();
 			data.enviUncertainties = enviUncerts;
+			data.enviFormulas = enviFormulas;
 		}
 
 		// optional costs
@@ -209,6 +217,14 @@ public class InventoryBuilder {
 			costs[col] += exchange.costValue(conf.interpreter, af);
 		}
 
+		if (conf.withFormulaCells
+			&& FormulaCells.isFormula(exchange, allocationFactor)) {
+			var cells = matrix == techBuilder
+				? techFormulas
+				: enviFormulas;
+			cells.add(row, col, exchange, allocationFactor, value);
+		}
+
 		if (conf.withUncertainties) {
 			if (matrix == techBuilder) {
 				techUncerts.add(row, col, exchange, allocationFactor);
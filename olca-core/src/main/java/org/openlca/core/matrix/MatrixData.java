@@ -90,6 +90,20 @@ public class MatrixData {
 	 */
 	public UMatrix impactUncertainties;
 
+	/**
+	 * Contains the entries of the technology matrix that are calculated from
+	 * formulas. This field is only used (not null) when this was requested
+	 * when building the matrices, e.g. for sensitivity analyses.
+	 */
+	public FormulaCells techFormulas;
+
+	/**
+	 * Contains the entries of the intervention matrix that are calculated from
+	 * formulas. This field is only used (not null) when this was requested
+	 * when building the matrices, e.g. for sensitivity analyses.
+	 */
+	public FormulaCells enviFormulas;
+
 	private Boolean _hasLibraryLinks;
 
 	public static MatrixConfig.Builder of(IDatabase db, TechIndex techIndex) {
@@ -119,6 +133,72 @@ public class MatrixData {
 			.ifPresent(m -> impactMatrix = m);
 	}
 
+	/**
+	 * Generates the values of the uncertain matrix entries for a batch of
+	 * simulation runs. The uncertain parameters of the given interpreter must
+	 * be bound to vectors of samples with the size of the batch (see
+	 * {@link ParameterTable#simulate(int)}). The matrices are not modified;
+	 * the values of a run are set via {@link #simulate(SimulationBatch, int)}.
+	 */
+	public SimulationBatch simulateBatch(FormulaInterpreter interpreter, int size) {
+		return new SimulationBatch(
+			techUncertainties != null
+				? techUncertainties.generate(interpreter, size)
+				: null,
+			enviUncertainties != null
+				? enviUncertainties.generate(interpreter, size)
+				: null,
+			impactUncertainties != null
+				? impactUncertainties.generate(interpreter, size)
+				: null);
+	}
+
+	/**
+	 * Sets the generated values of the given run of a batch to the respective
+	 * matrices. As in {@link #simulate(FormulaInterpreter)}, the matrix
+	 * instances may change.
+	 */
+	public void simulate(SimulationBatch batch, int run) {
+		if (batch == null)
+			return;
+		BiFunction<MatrixReader, UMatrix.Batch, Optional<Matrix>> next =
+			(matrix, values) -> {
+				if (matrix == null || values == null)
+					return Optional.empty();
+				var m = matrix.asMutable();
+				values.apply(m, run);
+				return Optional.of(m);
+			};
+
+		next.apply(techMatrix, batch.tech())
+			.ifPresent(m -> techMatrix = m);
+		next.apply(enviMatrix, batch.envi())
+			.ifPresent(m -> enviMatrix = m);
+		next.apply(impactMatrix, batch.impacts())
+			.ifPresent(m -> impactMatrix = m);
+	}
+
+	/**
+	 * The generated values of the uncertain matrix entries for a batch of
+	 * simulation runs.
+	 */
+	public record SimulationBatch(
+		UMatrix.Batch tech, UMatrix.Batch envi, UMatrix.Batch impacts) {
+
+		/**
+		 * Returns the number of simulation runs in this batch.
+		 */
+		public int size() {
+			if (tech != null)
+				return tech.size();
+			if (envi != null)
+				return envi.size();
+			return impacts != null
+				? impacts.size()
+				: 0;
+		}
+	}
+
 	public boolean isSparse() {
 		return techMatrix instanceof HashPointMatrix
 			|| techMatrix instanceof CSCMatrix;
@@ -161,6 +241,7 @@ public class MatrixData {
 
 	public MatrixData copy() {
 		var copy = new MatrixData();
+		copy.demand = demand;
 		copy.techIndex = Copy.of(techIndex);
 		copy.enviIndex = Copy.of(enviIndex);
 		copy.impactIndex = Copy.of(impactIndex);
@@ -173,6 +254,32 @@ public class MatrixData {
 		copy.techUncertainties = Copy.of(techUncertainties);
 		copy.enviUncertainties = Copy.of(enviUncertainties);
 		copy.impactUncertainties = Copy.of(impactUncertainties);
+		copy.techFormulas = Copy.of(techFormulas);
+		copy.enviFormulas = Copy.of(enviFormulas);
+		copy._hasLibraryLinks = _hasLibraryLinks;
+		return copy;
+	}
+
+	/**
+	 * Creates a shallow copy of this data with the given demand. The indices
+	 * and matrices are not copied but shared with this data. Thus, they must
+	 * not be modified when results for both demands are calculated.
+	 */
+	public MatrixData withDemand(Demand demand) {
+		var copy = new MatrixData();
+		copy.demand = demand;
+		copy.techIndex = techIndex;
+		copy.enviIndex = enviIndex;
+		copy.impactIndex = impactIndex;
+		copy.techMatrix = techMatrix;
+		copy.enviMatrix = enviMatrix;
+		copy.impactMatrix = impactMatrix;
+		copy.costVector = costVector;
+		copy.techUncertainties = techUncertainties;
+		copy.enviUncertainties = enviUncertainties;
+		copy.impactUncertainties = impactUncertainties;
+		copy.techFormulas = techFormulas;
+		copy.enviFormulas = enviFormulas;
 		copy._hasLibraryLinks = _hasLibraryLinks;
 		return copy;
 	}
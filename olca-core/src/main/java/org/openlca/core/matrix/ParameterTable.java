@@ -31,9 +31,14 @@ public class ParameterTable {
 	 */
 	private TLongObjectHashMap<Map<String, NumberGenerator>> numberGens;
 
-	private final FormulaInterpreter interpreter = new FormulaInterpreter();
+	private final FormulaInterpreter interpreter;
 
 	private ParameterTable() {
+		this(new FormulaInterpreter());
+	}
+
+	private ParameterTable(FormulaInterpreter interpreter) {
+		this.interpreter = interpreter;
 	}
 
 	/**
@@ -78,7 +83,10 @@ public class ParameterTable {
 	/**
 	 * Calculates new random values for the parameters in this table that have an
 	 * uncertainty distribution assigned. It re-binds the values of theses
-	 * parameters in the underlying interpreter with the generated values.
+	 * parameters in the underlying interpreter with the generated values. The
+	 * interpreter caches the values of the parameters and evaluated formulas,
+	 * so that only the parameters and formulas that depend on these parameters
+	 * are evaluated again in the next iteration.
 	 */
 	public FormulaInterpreter simulate() {
 		if (numberGens == null)
@@ -102,6 +110,65 @@ public class ParameterTable {
 		return interpreter;
 	}
 
+	/**
+	 * Generates the given number of random values for each parameter in this
+	 * table that has an uncertainty distribution assigned and binds these
+	 * parameters to the generated vectors of samples in the underlying
+	 * interpreter. The formulas that depend on these parameters can then be
+	 * evaluated column-wise for the whole batch of simulation runs, see
+	 * {@link org.openlca.expressions.Scope#evalBatch(String, int)}. Calling
+	 * {@link #simulate()} binds the parameters to single values again.
+	 */
+	public FormulaInterpreter simulate(int size) {
+		if (numberGens == null)
+			return interpreter;
+		var it = numberGens.iterator();
+		while (it.hasNext()) {
+			it.advance();
+			long context = it.key();
+			var generators = it.value();
+			var scope = context == 0
+				? interpreter.getGlobalScope()
+				: interpreter.getScopeOrGlobal(context);
+			if (generators == null || scope == null)
+				continue;
+			generators.forEach((name, gen) -> {
+				if (gen == null)
+					return;
+				var samples = new double[size];
+				for (int i = 0; i < size; i++) {
+					samples[i] = gen.next();
+				}
+				scope.bind(name, samples);
+			});
+		}
+		return interpreter;
+	}
+
+	/**
+	 * Creates a copy of this table with an own formula interpreter. The number
+	 * generators are shared with the copy as they are stateless. Copies of a
+	 * table can be used to run simulations in parallel.
+	 */
+	public ParameterTable copy() {
+		var copy = new ParameterTable(interpreter.copy());
+		if (numberGens == null)
+			return copy;
+		copy.numberGens = new TLongObjectHashMap<>(
+			Constants.DEFAULT_CAPACITY,
+			Constants.DEFAULT_LOAD_FACTOR,
+			-1L);
+		var it = numberGens.iterator();
+		while (it.hasNext()) {
+			it.advance();
+			var generators = it.value();
+			if (generators == null)
+				continue;
+			copy.numberGens.put(it.key(), new HashMap<>(generators));
+		}
+		return copy;
+	}
+
 	private void bindRedefs(Collection<ParameterRedef> redefs) {
 		if (redefs == null)
 			return;
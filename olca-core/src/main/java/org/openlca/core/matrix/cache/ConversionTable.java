@@ -39,6 +39,32 @@ public class ConversionTable {
 		this.database = db;
 	}
 
+	/**
+	 * Creates a table with the given factors, e.g. when a cache is restored
+	 * from a snapshot. The database is used when the table is reloaded.
+	 */
+	static ConversionTable of(IDatabase db, TLongDoubleHashMap unitFactors,
+			TLongDoubleHashMap propertyFactors,
+			TLongDoubleHashMap currencyFactors) {
+		var table = new ConversionTable(db);
+		table.unitFactors.putAll(unitFactors);
+		table.propertyFactors.putAll(propertyFactors);
+		table.currencyFactors.putAll(currencyFactors);
+		return table;
+	}
+
+	TLongDoubleHashMap unitFactors() {
+		return unitFactors;
+	}
+
+	TLongDoubleHashMap propertyFactors() {
+		return propertyFactors;
+	}
+
+	TLongDoubleHashMap currencyFactors() {
+		return currencyFactors;
+	}
+
 	// TODO: when we remove the matrix cache, we can also remove this
 	// reload function.
 	@Deprecated
@@ -27,6 +27,34 @@ class ExchangeCache {
 				new ExchangeLoader(database, conversionTable, flowTypes));
 	}
 
+	/**
+	 * Creates a cache that loads the exchanges from the given snapshot instead
+	 * of the database. Processes that are not contained in the snapshot have
+	 * no exchanges.
+	 */
+	static LoadingCache<Long, List<CalcExchange>> create(
+			MatrixCacheSnapshot.Exchanges snapshot) {
+		return CacheBuilder.newBuilder().build(new CacheLoader<>() {
+			@Override
+			public List<CalcExchange> load(Long key) {
+				return key == null
+						? Collections.emptyList()
+						: snapshot.get(key);
+			}
+		});
+	}
+
+	/**
+	 * Loads the exchanges of the given processes directly from the database,
+	 * without caching them.
+	 */
+	static Map<Long, List<CalcExchange>> load(
+			IDatabase database, ConversionTable conversionTable,
+			FlowTable flowTypes, Iterable<Long> processIds) {
+		return new ExchangeLoader(database, conversionTable, flowTypes)
+				.loadAll(processIds);
+	}
+
 	private static class ExchangeLoader extends
 			CacheLoader<Long, List<CalcExchange>> {
 
@@ -2,10 +2,15 @@ package org.openlca.core.matrix.cache;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -19,9 +24,24 @@ import org.openlca.core.model.UncertaintyType;
 
 public class ExchangeTable {
 
+	/**
+	 * The minimum number of processes in an index for which the exchanges are
+	 * loaded in parallel.
+	 */
+	private static final int PARALLEL_LIMIT = 1000;
+
+	/**
+	 * The number of chunks per thread into which the process IDs are
+	 * partitioned for a parallel loading; more chunks than threads balance
+	 * the load when the processes have very different numbers of exchanges.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
 	private final IDatabase db;
 	private final ConversionTable conversions;
 	private final TLongObjectHashMap<FlowType> flowTypes;
+	private int threads = Math.min(
+		4, Runtime.getRuntime().availableProcessors());
 
 	public ExchangeTable(IDatabase db) {
 		this.db = db;
@@ -29,11 +49,30 @@ public class ExchangeTable {
 		flowTypes = FlowTable.getTypes(db);
 	}
 
+	/**
+	 * Sets the number of threads (and database connections) that are used for
+	 * loading the exchanges of large indices in parallel. By default, this is
+	 * the number of available processors but not more than 4. With a value of
+	 * 1, the exchanges are always loaded sequentially.
+	 */
+	public ExchangeTable withThreads(int threads) {
+		this.threads = Math.max(1, threads);
+		return this;
+	}
+
 	/**
 	 * Calls the given function for each exchange of the processes in the given
-	 * index.
+	 * index. For large indices, the exchanges are read in parallel: the range
+	 * of process IDs is partitioned into chunks which are read on separate
+	 * connections. The given function is always called on the calling thread,
+	 * chunk by chunk in the order of the process IDs; thus, it does not need to
+	 * be thread-safe.
 	 */
 	public void each(TechIndex techIndex, Consumer<CalcExchange> fn) {
+		if (threads > 1 && techIndex.size() >= PARALLEL_LIMIT) {
+			eachParallel(techIndex, fn);
+			return;
+		}
 		String sql = query();
 		if (techIndex.size() < 1000) {
 			// avoid full table scans in LCI databases
@@ -59,6 +98,93 @@ public class ExchangeTable {
 		}
 	}
 
+	private void eachParallel(TechIndex techIndex, Consumer<CalcExchange> fn) {
+		var ranges = rangesOf(techIndex, threads * CHUNKS_PER_THREAD);
+		if (ranges.isEmpty())
+			return;
+		int workers = Math.min(threads, ranges.size());
+		var pool = Executors.newFixedThreadPool(workers);
+		try {
+			// only `workers` chunks are loaded ahead of the consumer, so that
+			// not the exchanges of the complete index are held in memory; a
+			// chunk is released when it was consumed
+			var chunks = new ArrayDeque<Future<List<CalcExchange>>>(workers);
+			int next = 0;
+			while (next < workers) {
+				chunks.add(pool.submit(chunkTask(techIndex, ranges.get(next++))));
+			}
+			while (!chunks.isEmpty()) {
+				var chunk = chunks.poll().get();
+				if (next < ranges.size()) {
+					chunks.add(pool.submit(chunkTask(techIndex, ranges.get(next++))));
+				}
+				for (var exchange : chunk) {
+					fn.accept(exchange);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while loading exchanges", e);
+		} catch (ExecutionException e) {
+			var cause = e.getCause();
+			if (cause instanceof RuntimeException re)
+				throw re;
+			throw new RuntimeException("failed to query exchange table", cause);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Creates a task that loads the exchanges of the processes of the given
+	 * index with IDs in the given range.
+	 */
+	private Callable<List<CalcExchange>> chunkTask(
+		TechIndex techIndex, long[] range) {
+		return () -> {
+			var sql = query() + " where f_owner between "
+				+ range[0] + " and " + range[1];
+			var exchanges = new ArrayList<CalcExchange>();
+			NativeSql.on(db).query(sql, r -> {
+				long owner = r.getLong(2);
+				if (techIndex.isProvider(owner)) {
+					try {
+						exchanges.add(next(owner, r));
+					} catch (Exception e) {
+						throw new RuntimeException("failed to read exchange row", e);
+					}
+				}
+				return true;
+			});
+			return exchanges;
+		};
+	}
+
+	/**
+	 * Partitions the sorted process IDs of the given index into the given
+	 * number of chunks with nearly the same number of processes. Returns the
+	 * ID ranges `[first, last]` of these chunks.
+	 */
+	private static List<long[]> rangesOf(TechIndex techIndex, int chunks) {
+		var ids = techIndex.getProcessIds()
+			.stream()
+			.mapToLong(Long::longValue)
+			.sorted()
+			.toArray();
+		if (ids.length == 0)
+			return Collections.emptyList();
+		int n = Math.max(1, Math.min(chunks, ids.length));
+		var ranges = new ArrayList<long[]>(n);
+		for (int i = 0; i < n; i++) {
+			int start = (int) ((long) i * ids.length / n);
+			int end = (int) ((long) (i + 1) * ids.length / n) - 1;
+			if (end < start)
+				continue;
+			ranges.add(new long[]{ids[start], ids[end]});
+		}
+		return ranges;
+	}
+
 	public void each(Consumer<CalcExchange> fn) {
 		try {
 			NativeSql.on(db).query(query(), r -> {
@@ -1,5 +1,7 @@
 package org.openlca.core.matrix.cache;
 
+import java.util.Collection;
+
 import gnu.trove.map.hash.TLongIntHashMap;
 import gnu.trove.set.hash.TLongHashSet;
 import org.openlca.core.database.FlowDao;
@@ -26,6 +28,25 @@ public class FlowTable {
 		init(database);
 	}
 
+	private FlowTable() {
+	}
+
+	/**
+	 * Creates a table from the given descriptors, e.g. when a cache is restored
+	 * from a snapshot.
+	 */
+	static FlowTable of(Iterable<FlowDescriptor> descriptors) {
+		var table = new FlowTable();
+		for (var d : descriptors) {
+			table.map.put(d.id, d);
+		}
+		return table;
+	}
+
+	Collection<FlowDescriptor> descriptors() {
+		return map.valueCollection();
+	}
+
 	public void reload(IDatabase db) {
 		map.clear();
 		init(db);
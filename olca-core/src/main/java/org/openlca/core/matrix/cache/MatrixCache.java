@@ -1,10 +1,13 @@
 package org.openlca.core.matrix.cache;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.matrix.CalcExchange;
 import org.openlca.core.model.ModelType;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.cache.LoadingCache;
 
@@ -19,10 +22,81 @@ public final class MatrixCache {
 
 	private LoadingCache<Long, List<CalcExchange>> exchangeCache;
 
+	/**
+	 * True if the exchange cache reads the exchanges from a snapshot.
+	 */
+	private boolean fromSnapshot;
+
 	public static MatrixCache createEager(IDatabase database) {
 		return new MatrixCache(database, false);
 	}
 
+	/**
+	 * Creates a cache from the snapshot in the default location of the given
+	 * database (see {@link #snapshotFileOf(IDatabase)}). If there is no valid
+	 * snapshot for the current state of the database, an eager cache is built
+	 * from the database and a new snapshot is written, so that the next call
+	 * of this method (e.g. in a new process) can restore the cache from it.
+	 * <p>
+	 * A snapshot is invalid after each change of the models in the database
+	 * via the DAOs or imports, as it is stamped with the change counter of
+	 * the database.
+	 */
+	public static MatrixCache createFromSnapshot(IDatabase database) {
+		var file = snapshotFileOf(database);
+		if (file == null)
+			return createEager(database);
+		var cache = readSnapshot(database, file);
+		if (cache != null)
+			return cache;
+		cache = createEager(database);
+		try {
+			cache.writeSnapshot(file);
+		} catch (Exception e) {
+			var log = LoggerFactory.getLogger(MatrixCache.class);
+			log.error("failed to write matrix cache snapshot " + file, e);
+		}
+		return cache;
+	}
+
+	/**
+	 * Restores a cache from the given snapshot file. Returns
+	 * {@code null} when the file does not exist, cannot be read, or when it was
+	 * written for another state of the database. The tables are restored in
+	 * memory and the exchanges are read on demand from a memory-mapped view of
+	 * the file. When the cache is evicted, it behaves like a lazy cache and
+	 * loads the evicted tables and exchanges from the database again.
+	 */
+	public static MatrixCache readSnapshot(IDatabase database, File file) {
+		try {
+			var tables = MatrixCacheSnapshot.read(database, file);
+			if (tables == null)
+				return null;
+			var cache = new MatrixCache(database, true);
+			cache.flowTypeTable = tables.flows();
+			cache.conversionTable = tables.conversions();
+			cache.processTable = tables.processes();
+			cache.exchangeCache = ExchangeCache.create(tables.exchanges());
+			cache.fromSnapshot = true;
+			return cache;
+		} catch (Exception e) {
+			var log = LoggerFactory.getLogger(MatrixCache.class);
+			log.warn("failed to read matrix cache snapshot " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the default location of the snapshot file of the given database
+	 * or {@code null} if the database has no file storage location.
+	 */
+	public static File snapshotFileOf(IDatabase database) {
+		var dir = database.getFileStorageLocation();
+		return dir != null
+			? new File(dir, "matrix-cache.snapshot")
+			: null;
+	}
+
 	public static MatrixCache createLazy(IDatabase database) {
 		return new MatrixCache(database, true);
 	}
@@ -68,7 +142,31 @@ public final class MatrixCache {
 		return exchangeCache;
 	}
 
+	/**
+	 * Writes a snapshot of the tables of this cache to the given file. The
+	 * snapshot contains the exchanges of all processes and is stamped with the
+	 * current state of the database, which is checked when the snapshot is
+	 * read.
+	 */
+	public synchronized void writeSnapshot(File file) throws IOException {
+		MatrixCacheSnapshot.write(database, getFlowTypeTable(),
+				getConversionTable(), getProcessTable(), file);
+	}
+
+	/**
+	 * Switches from the snapshot to the database as source of the exchanges;
+	 * this is called before the cache is evicted as the snapshot is outdated
+	 * then.
+	 */
+	private void dropSnapshot() {
+		if (!fromSnapshot)
+			return;
+		fromSnapshot = false;
+		exchangeCache = null;
+	}
+
 	public synchronized void evictAll() {
+		dropSnapshot();
 		if (flowTypeTable != null)
 			flowTypeTable.reload(database);
 		if (conversionTable != null)
@@ -81,6 +179,7 @@ public final class MatrixCache {
 	public synchronized void evict(ModelType type, long id) {
 		if (type == null)
 			return;
+		dropSnapshot();
 		switch (type) {
 		case FLOW:
 			baseEviction();
@@ -123,6 +222,7 @@ public final class MatrixCache {
 	public synchronized void registerNew(ModelType type, long id) {
 		if (type == null)
 			return;
+		dropSnapshot();
 		switch (type) {
 		case FLOW:
 			baseEviction();
@@ -140,5 +240,4 @@ public final class MatrixCache {
 			break;
 		}
 	}
-
 }
@@ -0,0 +1,585 @@
+package org.openlca.core.matrix.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.NativeSql;
+import org.openlca.core.matrix.CalcExchange;
+import org.openlca.core.model.FlowType;
+import org.openlca.core.model.ProcessType;
+import org.openlca.core.model.UncertaintyType;
+import org.openlca.core.model.descriptors.FlowDescriptor;
+import org.openlca.core.model.descriptors.ProcessDescriptor;
+import org.openlca.core.model.descriptors.RootDescriptor;
+
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TLongDoubleHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * Reads and writes binary snapshots of the tables of a matrix cache. A
+ * snapshot has the following layout:
+ *
+ * <pre>
+ * header:    magic, format version, change stamp of the database
+ * tables:    flows, conversion factors, processes, tech-flows, providers
+ * exchanges: the exchanges of the processes, process by process
+ * index:     process ID -> position and number of its exchanges
+ * trailer:   position of the exchanges, position of the index, magic
+ * </pre>
+ * <p>
+ * When a snapshot is read, the tables are restored in memory and the
+ * exchanges are decoded on demand from memory-mapped segments of the file.
+ * A snapshot is only valid when the change stamp of the database is the same
+ * as the stamp stored in the snapshot.
+ */
+final class MatrixCacheSnapshot {
+
+	private static final int MAGIC = 0x4F4C4D43; // "OLMC"
+	private static final int VERSION = 2;
+	private static final int TRAILER_SIZE = 20;
+
+	/**
+	 * The maximum size of a memory-mapped segment of the exchanges.
+	 */
+	private static final long MAX_SEGMENT = 1L << 30;
+
+	/**
+	 * The number of processes for which the exchanges are loaded with a single
+	 * query when a snapshot is written.
+	 */
+	private static final int CHUNK_SIZE = 500;
+
+	private MatrixCacheSnapshot() {
+	}
+
+	/**
+	 * Returns the stamp of the current state of the database: its version,
+	 * the ID sequence, and the value of its change counter (see
+	 * {@link org.openlca.core.database.ChangeCounter}). The change counter is
+	 * incremented with each change of a model via the DAOs and after imports,
+	 * so that a snapshot is invalid after such a change, also when the change
+	 * was done in another process. Returns {@code null} if the change counter
+	 * of the database is not available; no snapshot can be used then.
+	 */
+	static String stampOf(IDatabase db) {
+		long changes = db.listeners().changeCounter().get();
+		if (changes < 0)
+			return null;
+		var b = new StringBuilder();
+		b.append("v").append(db.getVersion());
+		NativeSql.on(db).query("select seq_count from sequence", r -> {
+			b.append(";seq=").append(r.getLong(1));
+			return false;
+		});
+		b.append(";changes=").append(changes);
+		return b.toString();
+	}
+
+	// region writing
+
+	/**
+	 * Writes a snapshot of the given tables to the given file. The snapshot is
+	 * first written to a temporary file which then replaces the given file, so
+	 * that readers never see a partially written snapshot.
+	 */
+	static void write(
+		IDatabase db,
+		FlowTable flows,
+		ConversionTable conversions,
+		ProcessTable processes,
+		File file) throws IOException {
+
+		var stamp = stampOf(db);
+		if (stamp == null)
+			throw new IOException("the database has no change counter");
+		var dir = file.getAbsoluteFile().getParentFile();
+		if (!dir.exists()) {
+			Files.createDirectories(dir.toPath());
+		}
+		// a unique temporary file, as multiple threads or processes could
+		// write a snapshot at the same time
+		var tmp = Files.createTempFile(
+			dir.toPath(), file.getName(), ".tmp").toFile();
+
+		try (var counter = new CountingStream(new FileOutputStream(tmp));
+				 var out = new DataOutputStream(
+					 new BufferedOutputStream(counter, 1 << 16))) {
+
+			// header
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			writeString(out, stamp);
+
+			// tables
+			writeFlows(out, flows.descriptors());
+			writeFactors(out, conversions.unitFactors());
+			writeFactors(out, conversions.propertyFactors());
+			writeFactors(out, conversions.currencyFactors());
+			writeProcesses(out, processes.processes().valueCollection());
+			writeFlows(out, processes.flows().valueCollection());
+			var providers = processes.flowProviders();
+			out.writeInt(providers.size());
+			for (var it = providers.iterator(); it.hasNext(); ) {
+				it.advance();
+				out.writeLong(it.key());
+				var ids = it.value();
+				out.writeInt(ids.size());
+				for (int i = 0; i < ids.size(); i++) {
+					out.writeLong(ids.get(i));
+				}
+			}
+
+			// exchanges
+			out.flush();
+			long exchangesStart = counter.count;
+			var ids = processes.processes().keys();
+			var index = new ArrayList<long[]>(ids.length);
+			for (int start = 0; start < ids.length; start += CHUNK_SIZE) {
+				int end = Math.min(ids.length, start + CHUNK_SIZE);
+				var chunk = new ArrayList<Long>(end - start);
+				for (int i = start; i < end; i++) {
+					chunk.add(ids[i]);
+				}
+				var exchanges = ExchangeCache.load(
+					db, conversions, flows, chunk);
+				for (var id : chunk) {
+					var list = exchanges.get(id);
+					if (list == null || list.isEmpty())
+						continue;
+					out.flush();
+					long pos = counter.count;
+					for (var e : list) {
+						writeExchange(out, e);
+					}
+					out.flush();
+					index.add(new long[]{id, pos, list.size(), counter.count - pos});
+				}
+			}
+
+			// index and trailer
+			out.flush();
+			long indexStart = counter.count;
+			out.writeInt(index.size());
+			for (var entry : index) {
+				out.writeLong(entry[0]);
+				out.writeLong(entry[1]);
+				out.writeInt((int) entry[2]);
+				out.writeInt((int) entry[3]);
+			}
+			out.writeLong(exchangesStart);
+			out.writeLong(indexStart);
+			out.writeInt(MAGIC);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tmp.toPath());
+			throw e;
+		}
+
+		Files.move(tmp.toPath(), file.toPath(),
+			StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void writeFactors(
+		DataOutputStream out, TLongDoubleHashMap map) throws IOException {
+		out.writeInt(map.size());
+		for (var it = map.iterator(); it.hasNext(); ) {
+			it.advance();
+			out.writeLong(it.key());
+			out.writeDouble(it.value());
+		}
+	}
+
+	private static void writeFlows(
+		DataOutputStream out, Iterable<FlowDescriptor> flows) throws IOException {
+		var list = new ArrayList<FlowDescriptor>();
+		flows.forEach(list::add);
+		out.writeInt(list.size());
+		for (var d : list) {
+			writeRoot(out, d);
+			writeOptionalLong(out, d.location);
+			writeEnum(out, d.flowType);
+			out.writeLong(d.refFlowPropertyId);
+		}
+	}
+
+	private static void writeProcesses(
+		DataOutputStream out, Iterable<ProcessDescriptor> processes)
+		throws IOException {
+		var list = new ArrayList<ProcessDescriptor>();
+		processes.forEach(list::add);
+		out.writeInt(list.size());
+		for (var d : list) {
+			writeRoot(out, d);
+			writeEnum(out, d.processType);
+			writeEnum(out, d.flowType);
+			writeOptionalLong(out, d.location);
+		}
+	}
+
+	private static void writeRoot(
+		DataOutputStream out, RootDescriptor d) throws IOException {
+		out.writeLong(d.id);
+		writeString(out, d.refId);
+		writeString(out, d.name);
+		out.writeLong(d.version);
+		out.writeLong(d.lastChange);
+		writeString(out, d.library);
+		writeString(out, d.tags);
+		writeOptionalLong(out, d.category);
+	}
+
+	private static void writeExchange(
+		DataOutputStream out, CalcExchange e) throws IOException {
+		out.writeLong(e.exchangeId);
+		out.writeLong(e.flowId);
+		writeEnum(out, e.flowType);
+		int flags = (e.isInput ? 1 : 0) | (e.isAvoided ? 2 : 0);
+		out.writeByte(flags);
+		out.writeDouble(e.conversionFactor);
+		out.writeDouble(e.amount);
+		writeString(out, e.formula);
+		out.writeLong(e.defaultProviderId);
+		out.writeLong(e.locationId);
+		out.writeDouble(e.costValue);
+		out.writeDouble(e.currencyFactor);
+		writeString(out, e.costFormula);
+		writeEnum(out, e.uncertaintyType);
+		out.writeDouble(e.parameter1);
+		out.writeDouble(e.parameter2);
+		out.writeDouble(e.parameter3);
+	}
+
+	private static void writeString(
+		DataOutputStream out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+			return;
+		}
+		var bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static void writeOptionalLong(
+		DataOutputStream out, Long value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeLong(value);
+		}
+	}
+
+	private static void writeEnum(
+		DataOutputStream out, Enum<?> value) throws IOException {
+		out.writeByte(value == null ? -1 : value.ordinal());
+	}
+
+	// endregion
+
+	// region reading
+
+	/**
+	 * Reads the tables of the given snapshot file. Returns {@code null} when
+	 * the file does not exist, has another format version, or when its change
+	 * stamp does not match the current state of the database.
+	 */
+	static Tables read(IDatabase db, File file) throws IOException {
+		if (file == null || !file.exists())
+			return null;
+		try (var channel = FileChannel.open(
+			file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < TRAILER_SIZE + 8)
+				return null;
+
+			// trailer
+			var trailer = channel.map(
+				FileChannel.MapMode.READ_ONLY, size - TRAILER_SIZE, TRAILER_SIZE);
+			long exchangesStart = trailer.getLong();
+			long indexStart = trailer.getLong();
+			if (trailer.getInt() != MAGIC
+				|| exchangesStart < 0
+				|| indexStart < exchangesStart
+				|| indexStart > size - TRAILER_SIZE)
+				return null;
+
+			// header
+			var buf = channel.map(
+				FileChannel.MapMode.READ_ONLY, 0, exchangesStart);
+			if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+				return null;
+			var stamp = readString(buf);
+			if (!stamp.equals(stampOf(db)))
+				return null;
+
+			// tables
+			var flows = FlowTable.of(readFlows(buf));
+			var conversions = ConversionTable.of(db,
+				readFactors(buf), readFactors(buf), readFactors(buf));
+			var processes = new TLongObjectHashMap<ProcessDescriptor>();
+			for (var d : readProcesses(buf)) {
+				processes.put(d.id, d);
+			}
+			var techFlows = new TLongObjectHashMap<FlowDescriptor>();
+			for (var d : readFlows(buf)) {
+				techFlows.put(d.id, d);
+			}
+			int providerCount = buf.getInt();
+			var providers = new TLongObjectHashMap<TLongArrayList>(
+				Math.max(10, providerCount));
+			for (int i = 0; i < providerCount; i++) {
+				long flowId = buf.getLong();
+				int n = buf.getInt();
+				var ids = new TLongArrayList(n);
+				for (int k = 0; k < n; k++) {
+					ids.add(buf.getLong());
+				}
+				providers.put(flowId, ids);
+			}
+			var processTable = ProcessTable.of(processes, techFlows, providers);
+
+			// exchanges
+			var index = channel.map(FileChannel.MapMode.READ_ONLY,
+				indexStart, size - TRAILER_SIZE - indexStart);
+			var exchanges = Exchanges.map(
+				channel, index, exchangesStart, indexStart);
+			return new Tables(flows, conversions, processTable, exchanges);
+		}
+	}
+
+	private static TLongDoubleHashMap readFactors(ByteBuffer buf) {
+		int n = buf.getInt();
+		var map = new TLongDoubleHashMap(Math.max(10, n));
+		for (int i = 0; i < n; i++) {
+			map.put(buf.getLong(), buf.getDouble());
+		}
+		return map;
+	}
+
+	private static List<FlowDescriptor> readFlows(ByteBuffer buf) {
+		int n = buf.getInt();
+		var list = new ArrayList<FlowDescriptor>(n);
+		for (int i = 0; i < n; i++) {
+			var d = new FlowDescriptor();
+			readRoot(buf, d);
+			d.location = readOptionalLong(buf);
+			d.flowType = readEnum(buf, FlowType.values());
+			d.refFlowPropertyId = buf.getLong();
+			list.add(d);
+		}
+		return list;
+	}
+
+	private static List<ProcessDescriptor> readProcesses(ByteBuffer buf) {
+		int n = buf.getInt();
+		var list = new ArrayList<ProcessDescriptor>(n);
+		for (int i = 0; i < n; i++) {
+			var d = new ProcessDescriptor();
+			readRoot(buf, d);
+			d.processType = readEnum(buf, ProcessType.values());
+			d.flowType = readEnum(buf, FlowType.values());
+			d.location = readOptionalLong(buf);
+			list.add(d);
+		}
+		return list;
+	}
+
+	private static void readRoot(ByteBuffer buf, RootDescriptor d) {
+		d.id = buf.getLong();
+		d.refId = readString(buf);
+		d.name = readString(buf);
+		d.version = buf.getLong();
+		d.lastChange = buf.getLong();
+		d.library = readString(buf);
+		d.tags = readString(buf);
+		d.category = readOptionalLong(buf);
+	}
+
+	private static CalcExchange readExchange(ByteBuffer buf, long processId) {
+		var e = new CalcExchange();
+		e.processId = processId;
+		e.exchangeId = buf.getLong();
+		e.flowId = buf.getLong();
+		e.flowType = readEnum(buf, FlowType.values());
+		int flags = buf.get();
+		e.isInput = (flags & 1) != 0;
+		e.isAvoided = (flags & 2) != 0;
+		e.conversionFactor = buf.getDouble();
+		e.amount = buf.getDouble();
+		e.formula = readString(buf);
+		e.defaultProviderId = buf.getLong();
+		e.locationId = buf.getLong();
+		e.costValue = buf.getDouble();
+		e.currencyFactor = buf.getDouble();
+		e.costFormula = readString(buf);
+		e.uncertaintyType = readEnum(buf, UncertaintyType.values());
+		e.parameter1 = buf.getDouble();
+		e.parameter2 = buf.getDouble();
+		e.parameter3 = buf.getDouble();
+		return e;
+	}
+
+	private static String readString(ByteBuffer buf) {
+		int length = buf.getInt();
+		if (length < 0)
+			return null;
+		var bytes = new byte[length];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static Long readOptionalLong(ByteBuffer buf) {
+		return buf.get() != 0
+			? buf.getLong()
+			: null;
+	}
+
+	private static <T extends Enum<T>> T readEnum(ByteBuffer buf, T[] values) {
+		int i = buf.get();
+		return i >= 0 && i < values.length
+			? values[i]
+			: null;
+	}
+
+	// endregion
+
+	/**
+	 * The tables that were restored from a snapshot.
+	 */
+	record Tables(
+		FlowTable flows,
+		ConversionTable conversions,
+		ProcessTable processes,
+		Exchanges exchanges) {
+	}
+
+	/**
+	 * The exchanges of a snapshot. They are stored in read-only memory-mapped
+	 * segments of the snapshot file and decoded when they are requested. The
+	 * exchanges of a process are never split over two segments. Instances of
+	 * this class are thread-safe.
+	 */
+	static final class Exchanges {
+
+		private final MappedByteBuffer[] segments;
+		private final TLongIntHashMap slots;
+		private final int[] segmentOf;
+		private final int[] positions;
+		private final int[] counts;
+
+		private Exchanges(
+			MappedByteBuffer[] segments, TLongIntHashMap slots,
+			int[] segmentOf, int[] positions, int[] counts) {
+			this.segments = segments;
+			this.slots = slots;
+			this.segmentOf = segmentOf;
+			this.positions = positions;
+			this.counts = counts;
+		}
+
+		private static Exchanges map(
+			FileChannel channel, ByteBuffer index, long start, long end)
+			throws IOException {
+
+			int n = index.getInt();
+			var slots = new TLongIntHashMap(
+				Math.max(10, n), 0.5f, -1L, -1);
+			var segmentOf = new int[n];
+			var positions = new int[n];
+			var counts = new int[n];
+			var segments = new ArrayList<MappedByteBuffer>();
+
+			// the exchanges are written in the order of the index; a new
+			// segment is started when the current segment would get too large
+			long segmentStart = start;
+			long segmentEnd = start;
+			for (int i = 0; i < n; i++) {
+				long processId = index.getLong();
+				long pos = index.getLong();
+				int count = index.getInt();
+				int length = index.getInt();
+				if (pos < start || pos + length > end)
+					throw new IOException("invalid exchange index in snapshot");
+				if (pos + length - segmentStart > MAX_SEGMENT) {
+					segments.add(channel.map(FileChannel.MapMode.READ_ONLY,
+						segmentStart, segmentEnd - segmentStart));
+					segmentStart = pos;
+				}
+				segmentEnd = pos + length;
+				slots.put(processId, i);
+				segmentOf[i] = segments.size();
+				positions[i] = (int) (pos - segmentStart);
+				counts[i] = count;
+			}
+			if (segmentEnd > segmentStart) {
+				segments.add(channel.map(FileChannel.MapMode.READ_ONLY,
+					segmentStart, segmentEnd - segmentStart));
+			}
+			return new Exchanges(segments.toArray(new MappedByteBuffer[0]),
+				slots, segmentOf, positions, counts);
+		}
+
+		/**
+		 * Returns the number of processes with exchanges in the snapshot.
+		 */
+		int size() {
+			return counts.length;
+		}
+
+		List<CalcExchange> get(long processId) {
+			int slot = slots.get(processId);
+			if (slot < 0)
+				return Collections.emptyList();
+			var buf = segments[segmentOf[slot]].duplicate();
+			buf.position(positions[slot]);
+			int count = counts[slot];
+			var list = new ArrayList<CalcExchange>(count);
+			for (int i = 0; i < count; i++) {
+				list.add(readExchange(buf, processId));
+			}
+			return list;
+		}
+	}
+
+	/**
+	 * Counts the bytes that were written to the underlying stream. Unlike
+	 * {@link DataOutputStream#size()}, this also works for files larger than
+	 * 2 GB.
+	 */
+	private static class CountingStream extends FilterOutputStream {
+
+		private long count;
+
+		CountingStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+}
@@ -35,6 +35,36 @@ public class ProcessTable {
 		return new ProcessTable(db);
 	}
 
+	private ProcessTable() {
+	}
+
+	/**
+	 * Creates a table from the given data, e.g. when a cache is restored from
+	 * a snapshot.
+	 */
+	static ProcessTable of(
+		TLongObjectHashMap<ProcessDescriptor> processes,
+		TLongObjectHashMap<FlowDescriptor> flows,
+		TLongObjectHashMap<TLongArrayList> flowProviders) {
+		var table = new ProcessTable();
+		table.processes.putAll(processes);
+		table.flows.putAll(flows);
+		table.flowProviders.putAll(flowProviders);
+		return table;
+	}
+
+	TLongObjectHashMap<ProcessDescriptor> processes() {
+		return processes;
+	}
+
+	TLongObjectHashMap<FlowDescriptor> flows() {
+		return flows;
+	}
+
+	TLongObjectHashMap<TLongArrayList> flowProviders() {
+		return flowProviders;
+	}
+
 	private ProcessTable(IDatabase db) {
 		var log = LoggerFactory.getLogger(getClass());
 		log.trace("build process index table");
@@ -19,11 +19,12 @@ public final class MatrixConverter {
 			return d;
 		}
 
-		// default implementation
-		for (int row = 0; row < rows; row++) {
-			for (int col = 0; col < cols; col++) {
-				d.set(row, col, m.get(row, col));
-			}
+		// default implementation; read the matrix column by column so that
+		// readers with a column-major layout can copy their data in bulk
+		var column = new double[rows];
+		for (int col = 0; col < cols; col++) {
+			m.readColumn(col, column);
+			System.arraycopy(column, 0, d.data, col * rows, rows);
 		}
 		return d;
 	}
@@ -0,0 +1,201 @@
+package org.openlca.core.matrix.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A memory mapped, uncompressed copy of the CSC arrays of a sparse matrix that
+ * is stored in a npz file. Reading a single column or the diagonal from a npz
+ * file requires to decompress the whole matrix. Thus, we write the arrays of
+ * the matrix into a sidecar file next to the npz file (with the extension
+ * {@code .csc}) when the matrix is accessed the first time in this way. Single
+ * columns are then read directly from the mapped arrays of this file. The
+ * sidecar file stores the size and modification time of its npz file, so that
+ * it is created again when the npz file changes.
+ * <p>
+ * The file format is: a header with the magic number, the number of rows and
+ * columns, the number of non-zero values, and the size and modification time
+ * of the npz file; followed by the column pointers, the row indices, and the
+ * values of the matrix.
+ */
+public final class MappedCscFile {
+
+	private static final int MAGIC = 0x4f435343; // OCSC
+	private static final int HEADER_SIZE = 32;
+
+	private final int rows;
+	private final int columns;
+	private final IntBuffer columnPointers;
+	private final IntBuffer rowIndices;
+	private final DoubleBuffer values;
+
+	private MappedCscFile(int rows, int columns, IntBuffer columnPointers,
+		IntBuffer rowIndices, DoubleBuffer values) {
+		this.rows = rows;
+		this.columns = columns;
+		this.columnPointers = columnPointers;
+		this.rowIndices = rowIndices;
+		this.values = values;
+	}
+
+	/**
+	 * Returns the sidecar file of the given npz file.
+	 */
+	public static File sidecarOf(File npz) {
+		var name = npz.getName();
+		int dot = name.lastIndexOf('.');
+		var base = dot > 0 ? name.substring(0, dot) : name;
+		return new File(npz.getParentFile(), base + ".csc");
+	}
+
+	/**
+	 * Returns true if the given file is a sidecar file of a npz file.
+	 */
+	public static boolean isSidecar(File file) {
+		return file != null
+			&& file.isFile()
+			&& file.getName().toLowerCase().endsWith(".csc");
+	}
+
+	/**
+	 * Opens the sidecar file of the given npz file. If the sidecar file does
+	 * not exist yet or is outdated, it is created from the npz file. Returns
+	 * an empty option if this fails (e.g. when the folder is not writable or
+	 * the npz file does not contain a CSC matrix); the matrix then needs to
+	 * be read from the npz file.
+	 */
+	public static Optional<MappedCscFile> open(File npz) {
+		if (npz == null
+			|| !npz.exists()
+			|| !npz.getName().toLowerCase().endsWith(".npz"))
+			return Optional.empty();
+		var sidecar = sidecarOf(npz);
+		try {
+			var mapped = map(sidecar, npz);
+			if (mapped != null)
+				return Optional.of(mapped);
+			var matrix = NpyMatrix.read(npz);
+			if (!(matrix instanceof CSCMatrix csc))
+				return Optional.empty();
+			write(csc, npz, sidecar);
+			return Optional.ofNullable(map(sidecar, npz));
+		} catch (Exception e) {
+			var log = LoggerFactory.getLogger(MappedCscFile.class);
+			log.warn("failed to create sidecar file " + sidecar, e);
+			return Optional.empty();
+		}
+	}
+
+	private static MappedCscFile map(File file, File npz) throws IOException {
+		if (!file.exists())
+			return null;
+		try (var channel = FileChannel.open(
+			file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE)
+				return null;
+			var header = channel.map(
+				FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt() != MAGIC)
+				return null;
+			int rows = header.getInt();
+			int columns = header.getInt();
+			int nnz = header.getInt();
+			if (header.getLong() != npz.length()
+				|| header.getLong() != npz.lastModified())
+				return null;
+
+			long pointersStart = HEADER_SIZE;
+			long indicesStart = pointersStart + 4L * (columns + 1);
+			long valuesStart = indicesStart + 4L * nnz;
+			if (size != valuesStart + 8L * nnz)
+				return null;
+			var pointers = channel.map(FileChannel.MapMode.READ_ONLY,
+				pointersStart, 4L * (columns + 1)).asIntBuffer();
+			var indices = channel.map(FileChannel.MapMode.READ_ONLY,
+				indicesStart, 4L * nnz).asIntBuffer();
+			var values = channel.map(FileChannel.MapMode.READ_ONLY,
+				valuesStart, 8L * nnz).asDoubleBuffer();
+			return new MappedCscFile(rows, columns, pointers, indices, values);
+		}
+	}
+
+	private static void write(CSCMatrix csc, File npz, File sidecar)
+		throws IOException {
+		var tmp = Files.createTempFile(
+			npz.getParentFile().toPath(), sidecar.getName(), ".tmp");
+		try (var fileOut = new FileOutputStream(tmp.toFile());
+				 var buffer = new BufferedOutputStream(fileOut, 1 << 16);
+				 var out = new DataOutputStream(buffer)) {
+			int nnz = csc.columnPointers[csc.columns];
+			out.writeInt(MAGIC);
+			out.writeInt(csc.rows);
+			out.writeInt(csc.columns);
+			out.writeInt(nnz);
+			out.writeLong(npz.length());
+			out.writeLong(npz.lastModified());
+			for (int i = 0; i <= csc.columns; i++) {
+				out.writeInt(csc.columnPointers[i]);
+			}
+			for (int i = 0; i < nnz; i++) {
+				out.writeInt(csc.rowIndices[i]);
+			}
+			for (int i = 0; i < nnz; i++) {
+				out.writeDouble(csc.values[i]);
+			}
+		}
+		Files.move(tmp, sidecar.toPath(),
+			StandardCopyOption.REPLACE_EXISTING,
+			StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public int rows() {
+		return rows;
+	}
+
+	public int columns() {
+		return columns;
+	}
+
+	/**
+	 * Reads the column with the given index into a dense vector.
+	 */
+	public double[] column(int j) {
+		var column = new double[rows];
+		int end = columnPointers.get(j + 1);
+		for (int k = columnPointers.get(j); k < end; k++) {
+			column[rowIndices.get(k)] += values.get(k);
+		}
+		return column;
+	}
+
+	/**
+	 * Reads the diagonal of the matrix.
+	 */
+	public double[] diag() {
+		int n = Math.min(rows, columns);
+		var diag = new double[n];
+		for (int j = 0; j < n; j++) {
+			int end = columnPointers.get(j + 1);
+			for (int k = columnPointers.get(j); k < end; k++) {
+				if (rowIndices.get(k) == j) {
+					diag[j] += values.get(k);
+				}
+			}
+		}
+		return diag;
+	}
+}
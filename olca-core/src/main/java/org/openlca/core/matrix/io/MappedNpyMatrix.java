@@ -0,0 +1,258 @@
+package org.openlca.core.matrix.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import org.openlca.core.matrix.format.EntryFunction;
+import org.openlca.core.matrix.format.MatrixReader;
+import org.openlca.npy.NpyDataType;
+import org.openlca.npy.NpyHeader;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read-only dense matrix that is backed by the memory mapped data of a npy
+ * file. The values are not copied into the heap but are read directly from
+ * the mapped file. Thus, the OS page cache of a matrix file is shared between
+ * all processes that map the same file (e.g. the inverse of a library in
+ * multiple worker processes on the same host).
+ * <p>
+ * As a single mapped buffer is limited to 2 GB, the data are mapped in
+ * segments of complete columns (or rows when the file is stored in row-major
+ * order). Values are only read with absolute positions from the buffers, so
+ * that the matrix can be read from multiple threads.
+ */
+public final class MappedNpyMatrix implements MatrixReader {
+
+	/**
+	 * The maximum size of a mapped segment in bytes.
+	 */
+	private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE - 7;
+
+	private final int rows;
+	private final int columns;
+	private final boolean columnMajor;
+
+	/**
+	 * The length of a line (a column in column-major order or a row in
+	 * row-major order).
+	 */
+	private final int lineLength;
+	private final int linesPerSegment;
+	private final DoubleBuffer[] segments;
+
+	private MappedNpyMatrix(int rows, int columns, boolean columnMajor,
+		int linesPerSegment, DoubleBuffer[] segments) {
+		this.rows = rows;
+		this.columns = columns;
+		this.columnMajor = columnMajor;
+		this.lineLength = columnMajor ? rows : columns;
+		this.linesPerSegment = linesPerSegment;
+		this.segments = segments;
+	}
+
+	/**
+	 * Maps the matrix stored in the given npy file. Returns an empty option if
+	 * the file could not be mapped (e.g. when it does not contain a matrix of
+	 * 64-bit floating point numbers); the matrix then needs to be read with
+	 * {@link NpyMatrix#read(File)}.
+	 */
+	public static Optional<MappedNpyMatrix> open(File npy) {
+		if (npy == null
+			|| !npy.exists()
+			|| !npy.getName().toLowerCase().endsWith(".npy"))
+			return Optional.empty();
+		try {
+			return Optional.ofNullable(map(npy, MAX_SEGMENT_SIZE));
+		} catch (Exception e) {
+			var log = LoggerFactory.getLogger(MappedNpyMatrix.class);
+			log.warn("failed to map matrix file " + npy, e);
+			return Optional.empty();
+		}
+	}
+
+	static MappedNpyMatrix map(File npy, long maxSegmentSize)
+		throws IOException {
+		try (var channel = FileChannel.open(
+			npy.toPath(), StandardOpenOption.READ)) {
+
+			var header = NpyHeader.read(channel);
+			var dict = header.dict();
+			if (dict.dataType() != NpyDataType.f8 || dict.dimensions() != 2)
+				return null;
+			int rows = dict.sizeOfDimension(0);
+			int columns = dict.sizeOfDimension(1);
+			boolean columnMajor = dict.hasFortranOrder();
+			int lines = columnMajor ? columns : rows;
+			long lineSize = 8L * (columnMajor ? rows : columns);
+			if (lineSize > maxSegmentSize)
+				return null;
+			long dataSize = lineSize * lines;
+			if (channel.size() < header.dataOffset() + dataSize)
+				return null;
+
+			// map the data in segments of complete lines
+			int linesPerSegment = lineSize == 0
+				? Math.max(1, lines)
+				: (int) Math.min(lines, maxSegmentSize / lineSize);
+			int segmentCount = linesPerSegment == 0 || lines == 0
+				? 0
+				: (lines + linesPerSegment - 1) / linesPerSegment;
+			var segments = new DoubleBuffer[segmentCount];
+			for (int s = 0; s < segmentCount; s++) {
+				int firstLine = s * linesPerSegment;
+				int lineCount = Math.min(linesPerSegment, lines - firstLine);
+				long offset = header.dataOffset() + lineSize * firstLine;
+				segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+						offset, lineSize * lineCount)
+					.order(header.byteOrder())
+					.asDoubleBuffer();
+			}
+			return new MappedNpyMatrix(
+				rows, columns, columnMajor, linesPerSegment, segments);
+		}
+	}
+
+	@Override
+	public int rows() {
+		return rows;
+	}
+
+	@Override
+	public int columns() {
+		return columns;
+	}
+
+	@Override
+	public boolean isSparse() {
+		return false;
+	}
+
+	/**
+	 * Returns this matrix as it is read-only.
+	 */
+	@Override
+	public MatrixReader copy() {
+		return this;
+	}
+
+	@Override
+	public double get(int row, int col) {
+		return columnMajor
+			? valueOf(col, row)
+			: valueOf(row, col);
+	}
+
+	@Override
+	public double[] getColumn(int i) {
+		var column = new double[rows];
+		readColumn(i, column);
+		return column;
+	}
+
+	@Override
+	public double[] getRow(int i) {
+		var row = new double[columns];
+		readRow(i, row);
+		return row;
+	}
+
+	@Override
+	public void readColumn(int column, double[] buffer) {
+		if (columnMajor) {
+			readLine(column, buffer);
+			return;
+		}
+		int n = Math.min(rows, buffer.length);
+		for (int row = 0; row < n; row++) {
+			buffer[row] = valueOf(row, column);
+		}
+	}
+
+	@Override
+	public void readRow(int row, double[] buffer) {
+		if (!columnMajor) {
+			readLine(row, buffer);
+			return;
+		}
+		int n = Math.min(columns, buffer.length);
+		for (int col = 0; col < n; col++) {
+			buffer[col] = valueOf(col, row);
+		}
+	}
+
+	@Override
+	public double[] diag() {
+		int n = Math.min(rows, columns);
+		var diag = new double[n];
+		for (int i = 0; i < n; i++) {
+			diag[i] = valueOf(i, i);
+		}
+		return diag;
+	}
+
+	@Override
+	public void iterate(EntryFunction fn) {
+		if (fn == null)
+			return;
+		var buffer = new double[lineLength];
+		int lines = columnMajor ? columns : rows;
+		for (int line = 0; line < lines; line++) {
+			readLine(line, buffer);
+			for (int pos = 0; pos < lineLength; pos++) {
+				double val = buffer[pos];
+				if (val == 0)
+					continue;
+				if (columnMajor) {
+					fn.value(pos, line, val);
+				} else {
+					fn.value(line, pos, val);
+				}
+			}
+		}
+	}
+
+	@Override
+	public double[] multiply(double[] v) {
+		var r = new double[rows];
+		if (columnMajor) {
+			var column = new double[rows];
+			int n = Math.min(columns, v.length);
+			for (int col = 0; col < n; col++) {
+				double vj = v[col];
+				if (vj == 0)
+					continue;
+				readLine(col, column);
+				for (int row = 0; row < rows; row++) {
+					r[row] += column[row] * vj;
+				}
+			}
+			return r;
+		}
+		var row = new double[columns];
+		int n = Math.min(columns, v.length);
+		for (int i = 0; i < rows; i++) {
+			readLine(i, row);
+			double sum = 0;
+			for (int col = 0; col < n; col++) {
+				sum += row[col] * v[col];
+			}
+			r[i] = sum;
+		}
+		return r;
+	}
+
+	private double valueOf(int line, int pos) {
+		var segment = segments[line / linesPerSegment];
+		return segment.get((line % linesPerSegment) * lineLength + pos);
+	}
+
+	private void readLine(int line, double[] buffer) {
+		var segment = segments[line / linesPerSegment];
+		int offset = (line % linesPerSegment) * lineLength;
+		segment.get(offset, buffer, 0, Math.min(lineLength, buffer.length));
+	}
+}
@@ -3,9 +3,17 @@ package org.openlca.core.matrix.linking;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.openlca.core.matrix.CalcExchange;
 import org.openlca.core.matrix.cache.MatrixCache;
@@ -16,18 +24,59 @@ import org.openlca.core.model.ProductSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Builds the index of a product system by a breadth-first expansion of the
+ * provider links, starting from the reference flow. In each step, the
+ * providers of the product inputs and waste outputs of the current block of
+ * processes are searched; the new providers form the next block.
+ * <p>
+ * The providers of a block are searched in parallel when the block is large
+ * enough and no linking callback is set (a callback can interact with a user
+ * and is thus always called from the calling thread). The parallel search
+ * runs in a shared fork-join pool, by default the common pool, so that
+ * multiple builds do not create their own threads. The links that are found
+ * are then added to the index in the order of the block, so that the index
+ * is the same as in a sequential build. While the links of a block are
+ * searched in parallel, the exchanges of the new providers are already
+ * loaded into the exchange cache so that they are available when the next
+ * block is processed.
+ */
 public class TechIndexBuilder implements ITechIndexBuilder {
 
+	/**
+	 * The maximum number of processes for which the exchanges are prefetched
+	 * in one query.
+	 */
+	private static final int PREFETCH_BATCH = 1000;
+
+	/**
+	 * The minimum size of a block for which the providers are searched in
+	 * parallel. Smaller blocks are linked faster in the calling thread.
+	 */
+	private static final int PARALLEL_BLOCK_SIZE = 64;
+
 	private final Logger log = LoggerFactory.getLogger(getClass());
 	private final ProviderSearch providers;
 	private final MatrixCache cache;
 	private final ProductSystem system;
+	private ForkJoinPool pool;
 
 	public TechIndexBuilder(MatrixCache cache, ProductSystem system,
 			LinkingConfig config) {
 		this.cache = cache;
 		this.system = system;
 		this.providers = new ProviderSearch(cache.getProcessTable(), config);
+		this.pool = ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * Sets the pool in which the providers of large blocks are searched in
+	 * parallel. By default, this is the common fork-join pool. With
+	 * {@code null}, the index is built sequentially.
+	 */
+	public TechIndexBuilder withPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
 	}
 
 	@Override
@@ -35,35 +84,82 @@ public class TechIndexBuilder implements ITechIndexBuilder {
 		log.trace("build product index for {}", refFlow);
 		var index = new TechIndex(refFlow);
 		addSystemLinks(index);
-		List<TechFlow> block = new ArrayList<>();
-		block.add(refFlow);
-		var handled = new HashSet<TechFlow>();
-		while (!block.isEmpty()) {
-			var nextBlock = new ArrayList<TechFlow>();
-			log.trace("fetch next block with {} entries", block.size());
-			Map<Long, List<CalcExchange>> exchanges = fetchExchanges(block);
-			for (TechFlow recipient : block) {
-				handled.add(recipient);
-				List<CalcExchange> all = exchanges.get(recipient.providerId());
-				List<CalcExchange> candidates = providers
-						.getLinkCandidates(all);
-				for (CalcExchange linkExchange : candidates) {
-					TechFlow provider = providers.find(linkExchange);
-					if (provider == null)
-						continue;
-					LongPair exchange = new LongPair(recipient.providerId(),
-							linkExchange.exchangeId);
-					index.putLink(exchange, provider);
-					if (!handled.contains(provider)
-							&& !nextBlock.contains(provider))
-						nextBlock.add(provider);
+
+		boolean canParallel = pool != null
+				&& providers.config().callback() == null;
+		Prefetch prefetch = null;
+
+		try {
+			List<TechFlow> block = List.of(refFlow);
+			var handled = new HashSet<TechFlow>();
+			handled.add(refFlow);
+			while (!block.isEmpty()) {
+				log.trace("fetch next block with {} entries", block.size());
+				var current = block;
+				var exchanges = fetchExchanges(current);
+				List<List<Link>> links;
+				if (canParallel && current.size() >= PARALLEL_BLOCK_SIZE) {
+					if (prefetch == null) {
+						prefetch = new Prefetch();
+					}
+					var pf = prefetch;
+					links = pool.invoke(ForkJoinTask.adapt(
+							() -> current.parallelStream()
+									.map(recipient -> linksOf(recipient, exchanges, pf))
+									.toList()));
+				} else {
+					links = current.stream()
+							.map(recipient -> linksOf(recipient, exchanges, null))
+							.toList();
+				}
+
+				// add the links in the order of the block; the next block
+				// contains the new providers in the order they were found
+				var nextBlock = new LinkedHashSet<TechFlow>();
+				for (var recipientLinks : links) {
+					for (var link : recipientLinks) {
+						index.putLink(link.exchange, link.provider);
+						if (handled.add(link.provider)) {
+							nextBlock.add(link.provider);
+						}
+					}
 				}
+				block = new ArrayList<>(nextBlock);
+			}
+		} catch (Exception e) {
+			throw new RuntimeException("failed to build product index", e);
+		} finally {
+			if (prefetch != null) {
+				prefetch.close();
 			}
-			block = nextBlock;
 		}
 		return index;
 	}
 
+	/**
+	 * Searches the providers of the linkable exchanges of the given recipient.
+	 */
+	private List<Link> linksOf(TechFlow recipient,
+			Map<Long, List<CalcExchange>> exchanges, Prefetch prefetch) {
+		var all = exchanges.get(recipient.providerId());
+		var candidates = providers.getLinkCandidates(all);
+		if (candidates.isEmpty())
+			return Collections.emptyList();
+		var links = new ArrayList<Link>(candidates.size());
+		for (var linkExchange : candidates) {
+			var provider = providers.find(linkExchange);
+			if (provider == null)
+				continue;
+			var exchange = new LongPair(
+					recipient.providerId(), linkExchange.exchangeId);
+			links.add(new Link(exchange, provider));
+			if (prefetch != null) {
+				prefetch.add(provider.providerId());
+			}
+		}
+		return links;
+	}
+
 	private void addSystemLinks(TechIndex index) {
 		if (system == null)
 			return;
@@ -92,4 +188,67 @@ public class TechIndexBuilder implements ITechIndexBuilder {
 		}
 	}
 
+	private record Link(LongPair exchange, TechFlow provider) {
+	}
+
+	/**
+	 * Loads the exchanges of providers into the exchange cache in the
+	 * background. The IDs of the processes are collected in a queue from
+	 * which a single thread loads them in batches.
+	 */
+	private class Prefetch {
+
+		private final Set<Long> seen = ConcurrentHashMap.newKeySet();
+		private final ConcurrentLinkedQueue<Long> queue =
+				new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+		private final ExecutorService exec =
+				Executors.newSingleThreadExecutor(r -> {
+					var thread = new Thread(r, "TechIndexBuilder:prefetch");
+					thread.setDaemon(true);
+					return thread;
+				});
+
+		void add(long processId) {
+			if (!seen.add(processId))
+				return;
+			queue.add(processId);
+			if (scheduled.compareAndSet(false, true)) {
+				exec.submit(this::drain);
+			}
+		}
+
+		private void drain() {
+			while (true) {
+				var batch = new ArrayList<Long>();
+				Long next;
+				while (batch.size() < PREFETCH_BATCH
+						&& (next = queue.poll()) != null) {
+					batch.add(next);
+				}
+				if (batch.isEmpty()) {
+					scheduled.set(false);
+					// an ID could be added after the last poll but before
+					// the flag was reset
+					if (queue.isEmpty() || !scheduled.compareAndSet(false, true))
+						return;
+					continue;
+				}
+				try {
+					cache.getExchangeCache().getAll(batch);
+				} catch (Exception e) {
+					log.warn("failed to prefetch exchanges", e);
+				}
+			}
+		}
+
+		/**
+		 * Stops the prefetching; a batch that is currently loaded is still
+		 * added to the cache.
+		 */
+		void close() {
+			queue.clear();
+			exec.shutdown();
+		}
+	}
 }
@@ -2,6 +2,7 @@ package org.openlca.core.matrix.solvers;
 
 import org.openlca.core.matrix.format.DenseMatrix;
 import org.openlca.core.matrix.format.Matrix;
+import org.openlca.core.matrix.format.MatrixReader;
 
 /**
  * Stores the factorization of a square matrix `A` (e.g. a LU decomposition)
@@ -50,6 +51,17 @@ public interface Factorization {
 		return x;
 	}
 
+	/**
+	 * Updates this factorization in place with the values of the given matrix.
+	 * This matrix must have the same non-zero pattern as the matrix of this
+	 * factorization (or a subset of that pattern). Returns `false` when such an
+	 * update is not supported or possible; the factorization is then not
+	 * modified. By default, this returns `false`.
+	 */
+	default boolean refactorize(MatrixReader matrix) {
+		return false;
+	}
+
 	/**
 	 * Disposes the factorization (e.g. clears native memory etc.).
 	 */
@@ -4,6 +4,8 @@ import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.LUDecomposition;
 import org.apache.commons.math3.linear.RealMatrix;
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.openlca.core.matrix.format.HashPointMatrix;
 import org.openlca.core.matrix.format.Matrix;
 import org.openlca.core.matrix.format.JavaMatrix;
 import org.openlca.core.matrix.format.MatrixReader;
@@ -12,7 +14,7 @@ public class JavaSolver implements MatrixSolver {
 
 	@Override
 	public boolean hasSparseSupport() {
-		return false;
+		return true;
 	}
 
 	@Override
@@ -22,6 +24,8 @@ public class JavaSolver implements MatrixSolver {
 
 	@Override
 	public double[] solve(MatrixReader a, int idx, double d) {
+		if (isSparse(a))
+			return SparseLU.of(a).solve(idx, d);
 		var A = unwrap(a);
 		var b = new ArrayRealVector(a.rows());
 		b.setEntry(idx, d);
@@ -31,10 +35,7 @@ public class JavaSolver implements MatrixSolver {
 
 	@Override
 	public double[] multiply(MatrixReader m, double[] v) {
-		var A = unwrap(m);
-		var b = new Array2DRowRealMatrix(v.length, 1);
-		b.setColumn(0, v);
-		return A.multiply(b).getColumn(0);
+		return MatrixKernels.multiply(m, v);
 	}
 
 	@Override
@@ -46,6 +47,8 @@ public class JavaSolver implements MatrixSolver {
 
 	@Override
 	public Matrix multiply(MatrixReader a, MatrixReader b) {
+		if (!(a instanceof JavaMatrix) || !(b instanceof JavaMatrix))
+			return MatrixKernels.multiply(a, b, true);
 		RealMatrix _a = unwrap(a);
 		RealMatrix _b = unwrap(b);
 		RealMatrix c = _a.multiply(_b);
@@ -63,7 +66,24 @@ public class JavaSolver implements MatrixSolver {
 
 	@Override
 	public Factorization factorize(MatrixReader matrix) {
-		return LU.of(matrix);
+		return isSparse(matrix)
+			? SparseLU.of(matrix)
+			: LU.of(matrix);
+	}
+
+	@Override
+	public SymbolicFactorization analyze(MatrixReader matrix) {
+		return isSparse(matrix)
+			? SparseLU.analyze(matrix)
+			: SymbolicFactorization.none(this);
+	}
+
+	/**
+	 * Returns true if the given matrix is stored in a sparse format that can
+	 * be directly passed into a sparse factorization.
+	 */
+	private static boolean isSparse(MatrixReader m) {
+		return m instanceof HashPointMatrix || m instanceof CSCMatrix;
 	}
 
 	private static class LU implements Factorization {
@@ -0,0 +1,356 @@
+package org.openlca.core.matrix.solvers;
+
+import java.util.stream.IntStream;
+
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.openlca.core.matrix.format.DenseMatrix;
+import org.openlca.core.matrix.format.HashPointMatrix;
+import org.openlca.core.matrix.format.Matrix;
+import org.openlca.core.matrix.format.MatrixConverter;
+import org.openlca.core.matrix.format.MatrixReader;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Pure Java kernels for matrix-vector and matrix-matrix products that are
+ * selected by the storage formats of the operands. Sparse operands
+ * ({@link CSCMatrix} and {@link HashPointMatrix}) are never densified: the
+ * kernels only visit their non-zero entries. The matrix-matrix products can
+ * be calculated in parallel, where each thread calculates a block of columns
+ * of the result. This is only done when the product is large enough so that
+ * it is worth the overhead of the parallelization.
+ */
+public final class MatrixKernels {
+
+	/**
+	 * The minimum number of multiply-add operations of a product for which a
+	 * parallel calculation is used.
+	 */
+	private static final long PARALLEL_WORK = 1L << 22;
+
+	/**
+	 * The density of a sparse product above which it is stored in a dense
+	 * matrix.
+	 */
+	private static final double DENSE_FILL = 0.25;
+
+	private MatrixKernels() {
+	}
+
+	/**
+	 * Calculates the matrix-vector product {@code m * v}.
+	 */
+	public static double[] multiply(MatrixReader m, double[] v) {
+		if (m == null || v == null)
+			return null;
+		if (m instanceof CSCMatrix csc)
+			return cscVector(csc, v);
+		if (m instanceof HashPointMatrix)
+			return m.multiply(v);
+		int rows = m.rows();
+		int cols = Math.min(m.columns(), v.length);
+		var r = new double[rows];
+		if (m instanceof DenseMatrix d) {
+			for (int col = 0; col < cols; col++) {
+				double vj = v[col];
+				if (vj == 0)
+					continue;
+				int offset = col * rows;
+				for (int row = 0; row < rows; row++) {
+					r[row] += d.data[offset + row] * vj;
+				}
+			}
+			return r;
+		}
+		var column = new double[rows];
+		for (int col = 0; col < cols; col++) {
+			double vj = v[col];
+			if (vj == 0)
+				continue;
+			m.readColumn(col, column);
+			for (int row = 0; row < rows; row++) {
+				r[row] += column[row] * vj;
+			}
+		}
+		return r;
+	}
+
+	private static double[] cscVector(CSCMatrix m, double[] v) {
+		var r = new double[m.rows];
+		int cols = Math.min(m.columns, v.length);
+		for (int col = 0; col < cols; col++) {
+			double vj = v[col];
+			if (vj == 0)
+				continue;
+			int end = end(m, col);
+			for (int i = m.columnPointers[col]; i < end; i++) {
+				r[m.rowIndices[i]] += m.values[i] * vj;
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Calculates the matrix product {@code a * b} sequentially.
+	 */
+	public static Matrix multiply(MatrixReader a, MatrixReader b) {
+		return multiply(a, b, false);
+	}
+
+	/**
+	 * Calculates the matrix product {@code a * b}. The kernel is selected by
+	 * the storage formats of the operands. The result is a dense matrix,
+	 * except both operands are sparse and the result is sparse too; then a
+	 * {@link HashPointMatrix} is returned.
+	 *
+	 * @param parallel if true, large products are calculated in parallel
+	 *                 using the common fork-join pool
+	 */
+	public static Matrix multiply(
+		MatrixReader a, MatrixReader b, boolean parallel) {
+		if (a == null || b == null)
+			return null;
+		if (a.columns() != b.rows())
+			throw new IllegalArgumentException("a.columns != b.rows");
+		var sa = sparse(a);
+		var sb = sparse(b);
+		if (sa != null && sb != null)
+			return cscCsc(sa, sb, parallel);
+		if (sa != null)
+			return cscDense(sa, MatrixConverter.dense(b), parallel);
+		if (sb != null)
+			return denseCsc(MatrixConverter.dense(a), sb, parallel);
+		return denseDense(
+			MatrixConverter.dense(a), MatrixConverter.dense(b), parallel);
+	}
+
+	/**
+	 * Returns the given matrix in CSC format if it is stored in a sparse
+	 * format, otherwise {@code null}.
+	 */
+	private static CSCMatrix sparse(MatrixReader m) {
+		if (m instanceof CSCMatrix csc)
+			return csc;
+		if (m instanceof HashPointMatrix hpm)
+			return hpm.compress();
+		return null;
+	}
+
+	private static DenseMatrix cscDense(
+		CSCMatrix a, DenseMatrix b, boolean parallel) {
+		int m = a.rows;
+		int n = b.columns;
+		int k = b.rows;
+		var c = new DenseMatrix(m, n);
+		long work = (long) a.values.length * n;
+		columnBlocks(n, parallel && work >= PARALLEL_WORK, (start, end) -> {
+			for (int j = start; j < end; j++) {
+				int bOffset = j * k;
+				int cOffset = j * m;
+				for (int col = 0; col < k; col++) {
+					double bkj = b.data[bOffset + col];
+					if (bkj == 0)
+						continue;
+					int colEnd = end(a, col);
+					for (int i = a.columnPointers[col]; i < colEnd; i++) {
+						c.data[cOffset + a.rowIndices[i]] += a.values[i] * bkj;
+					}
+				}
+			}
+		});
+		return c;
+	}
+
+	private static DenseMatrix denseCsc(
+		DenseMatrix a, CSCMatrix b, boolean parallel) {
+		int m = a.rows;
+		int n = b.columns;
+		var c = new DenseMatrix(m, n);
+		long work = (long) b.values.length * m;
+		columnBlocks(n, parallel && work >= PARALLEL_WORK, (start, end) -> {
+			for (int j = start; j < end; j++) {
+				int cOffset = j * m;
+				int colEnd = end(b, j);
+				for (int i = b.columnPointers[j]; i < colEnd; i++) {
+					double bkj = b.values[i];
+					if (bkj == 0)
+						continue;
+					int aOffset = b.rowIndices[i] * m;
+					for (int row = 0; row < m; row++) {
+						c.data[cOffset + row] += a.data[aOffset + row] * bkj;
+					}
+				}
+			}
+		});
+		return c;
+	}
+
+	private static DenseMatrix denseDense(
+		DenseMatrix a, DenseMatrix b, boolean parallel) {
+		int m = a.rows;
+		int n = b.columns;
+		int k = a.columns;
+		var c = new DenseMatrix(m, n);
+		long work = (long) m * n * k;
+		columnBlocks(n, parallel && work >= PARALLEL_WORK, (start, end) -> {
+			for (int j = start; j < end; j++) {
+				int bOffset = j * k;
+				int cOffset = j * m;
+				for (int col = 0; col < k; col++) {
+					double bkj = b.data[bOffset + col];
+					if (bkj == 0)
+						continue;
+					int aOffset = col * m;
+					for (int row = 0; row < m; row++) {
+						c.data[cOffset + row] += a.data[aOffset + row] * bkj;
+					}
+				}
+			}
+		});
+		return c;
+	}
+
+	/**
+	 * The sparse product of two CSC matrices (Gustavson's algorithm): each
+	 * column {@code j} of the result is the linear combination of the columns
+	 * of {@code a} with the non-zero entries of column {@code j} of {@code b}
+	 * as coefficients. Each block of result columns is calculated into its own
+	 * buffers which are concatenated at the end.
+	 */
+	private static Matrix cscCsc(CSCMatrix a, CSCMatrix b, boolean parallel) {
+		int m = a.rows;
+		int n = b.columns;
+		long work = (long) b.values.length * Math.max(1,
+			a.values.length / Math.max(1, a.columns));
+		boolean inParallel = parallel && work >= PARALLEL_WORK;
+		int blockCount = inParallel ? blockCountOf(n) : 1;
+		int blockSize = (n + blockCount - 1) / Math.max(1, blockCount);
+		var blocks = new SparseBlock[blockCount];
+
+		var range = IntStream.range(0, blockCount);
+		if (inParallel) {
+			range = range.parallel();
+		}
+		range.forEach(block -> {
+			int start = block * blockSize;
+			int end = Math.min(n, start + blockSize);
+			var buffer = new double[m];
+			var marks = new int[m];
+			var rows = new TIntArrayList();
+			var values = new TDoubleArrayList();
+			var counts = new int[Math.max(0, end - start)];
+			var pattern = new TIntArrayList();
+			for (int j = start; j < end; j++) {
+				pattern.resetQuick();
+				int mark = j + 1;
+				int colEnd = end(b, j);
+				for (int i = b.columnPointers[j]; i < colEnd; i++) {
+					double bkj = b.values[i];
+					if (bkj == 0)
+						continue;
+					int col = b.rowIndices[i];
+					int aEnd = end(a, col);
+					for (int p = a.columnPointers[col]; p < aEnd; p++) {
+						int row = a.rowIndices[p];
+						if (marks[row] != mark) {
+							marks[row] = mark;
+							buffer[row] = 0;
+							pattern.add(row);
+						}
+						buffer[row] += a.values[p] * bkj;
+					}
+				}
+				pattern.sort();
+				int count = 0;
+				for (int p = 0; p < pattern.size(); p++) {
+					int row = pattern.getQuick(p);
+					double val = buffer[row];
+					if (val == 0)
+						continue;
+					rows.add(row);
+					values.add(val);
+					count++;
+				}
+				counts[j - start] = count;
+			}
+			blocks[block] = new SparseBlock(start, counts, rows, values);
+		});
+
+		// concatenate the blocks
+		int nnz = 0;
+		for (var block : blocks) {
+			nnz += block.values.size();
+		}
+		if (nnz > DENSE_FILL * m * n) {
+			var c = new DenseMatrix(m, n);
+			for (var block : blocks) {
+				int pos = 0;
+				for (int j = 0; j < block.counts.length; j++) {
+					int offset = (block.start + j) * m;
+					for (int p = 0; p < block.counts[j]; p++) {
+						c.data[offset + block.rows.getQuick(pos)]
+							= block.values.getQuick(pos);
+						pos++;
+					}
+				}
+			}
+			return c;
+		}
+		var c = new HashPointMatrix(m, n);
+		for (var block : blocks) {
+			int pos = 0;
+			for (int j = 0; j < block.counts.length; j++) {
+				int col = block.start + j;
+				for (int p = 0; p < block.counts[j]; p++) {
+					c.set(block.rows.getQuick(pos), col,
+						block.values.getQuick(pos));
+					pos++;
+				}
+			}
+		}
+		return c;
+	}
+
+	private record SparseBlock(
+		int start, int[] counts, TIntArrayList rows, TDoubleArrayList values) {
+	}
+
+	private interface BlockFn {
+		void apply(int start, int end);
+	}
+
+	/**
+	 * Calls the given function for blocks of the column range {@code [0, n)},
+	 * in parallel if requested.
+	 */
+	private static void columnBlocks(int n, boolean parallel, BlockFn fn) {
+		if (!parallel || n < 2) {
+			fn.apply(0, n);
+			return;
+		}
+		int blockCount = blockCountOf(n);
+		int blockSize = (n + blockCount - 1) / blockCount;
+		IntStream.range(0, blockCount).parallel().forEach(block -> {
+			int start = block * blockSize;
+			int end = Math.min(n, start + blockSize);
+			if (start < end) {
+				fn.apply(start, end);
+			}
+		});
+	}
+
+	private static int blockCountOf(int n) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		return Math.max(1, Math.min(n, 4 * threads));
+	}
+
+	/**
+	 * Returns the end (exclusive) of the entries of the given column.
+	 */
+	private static int end(CSCMatrix m, int col) {
+		return col < (m.columns - 1)
+			? m.columnPointers[col + 1]
+			: m.values.length;
+	}
+}
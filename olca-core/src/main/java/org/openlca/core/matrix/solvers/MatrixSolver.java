@@ -15,9 +15,10 @@ public interface MatrixSolver {
 	/**
 	 * Returns the best available matrix solver. If a native libraries are loaded
 	 * it will create a solver using these libraries, otherwise it will fall back
-	 * to a pure Java implementation which can be very slow for large matrices.
-	 * Thus, you should try to always load native libraries before calling this
-	 * function.
+	 * to a pure Java implementation. The Java implementation can factorize
+	 * sparse matrices (see {@link SparseLU}) but is still much slower than the
+	 * native libraries, especially for dense matrices. Thus, you should try to
+	 * always load native libraries before calling this function.
 	 */
 	static MatrixSolver get() {
 		return NativeLib.isLoaded()
@@ -55,24 +56,13 @@ public interface MatrixSolver {
 	Matrix invert(MatrixReader a);
 
 	/**
-	 * Returns the matrix product of the given matrices.
+	 * Returns the matrix product of the given matrices. By default, this uses
+	 * the format-aware kernels of {@link MatrixKernels} which only visit the
+	 * non-zero entries of sparse operands; large products are calculated in
+	 * parallel by blocks of columns.
 	 */
 	default Matrix multiply(MatrixReader a, MatrixReader b) {
-		if (a == null || b == null)
-			return null;
-		if (a.columns() != b.rows())
-			throw new IllegalArgumentException("a.columns != b.rows");
-		Matrix r = matrix(a.rows(), b.columns());
-		for (int row = 0; row < a.rows(); row++) {
-			for (int col = 0; col < b.columns(); col++) {
-				double val = 0;
-				for (int k = 0; k < a.columns(); k++) {
-					val += a.get(row, k) * b.get(k, col);
-				}
-				r.set(row, col, val);
-			}
-		}
-		return r;
+		return MatrixKernels.multiply(a, b, true);
 	}
 
 	/**
@@ -80,21 +70,21 @@ public interface MatrixSolver {
 	 * when we calculate the inventory result: g = B * s
 	 */
 	default double[] multiply(MatrixReader m, double[] v) {
-		if (m == null || v == null)
-			return null;
-		int cols = Math.min(m.columns(), v.length);
-		int rows = m.rows();
-		double[] r = new double[rows];
-		for (int row = 0; row < rows; row++) {
-			for (int col = 0; col < cols; col++) {
-				r[row] += (m.get(row, col) * v[col]);
-			}
-		}
-		return r;
+		return MatrixKernels.multiply(m, v);
 	}
 
 	Factorization factorize(MatrixReader matrix);
 
+	/**
+	 * Runs the symbolic analysis of the given matrix (e.g. a fill-reducing
+	 * ordering). The returned analysis can be used to factorize matrices with
+	 * the same non-zero pattern without repeating this analysis. By default, no
+	 * analysis is done and the factorization is delegated to this solver.
+	 */
+	default SymbolicFactorization analyze(MatrixReader matrix) {
+		return SymbolicFactorization.none(this);
+	}
+
 	/**
 	 * Returns true if this is a native solver. That is a solver linked to a
 	 * platform native high-performance math-library.
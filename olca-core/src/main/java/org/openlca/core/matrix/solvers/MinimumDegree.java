@@ -0,0 +1,139 @@
+package org.openlca.core.matrix.solvers;
+
+import java.util.PriorityQueue;
+
+import org.openlca.core.matrix.format.CSCMatrix;
+
+import gnu.trove.set.hash.TIntHashSet;
+
+/**
+ * Calculates a fill-reducing ordering of the columns of a sparse square
+ * matrix `A`. It runs a minimum degree ordering on the elimination graph of
+ * the symmetric pattern of `A + A'`. Nodes with a very high degree are removed
+ * from the graph first and placed at the end of the ordering; otherwise, the
+ * cliques of these nodes would dominate the run time of the ordering. This is
+ * a simple variant of the ordering in AMD / CSparse (without quotient graphs
+ * and approximate degrees) which works well for the very sparse technology
+ * matrices in LCA.
+ */
+final class MinimumDegree {
+
+	private MinimumDegree() {
+	}
+
+	/**
+	 * Returns the column ordering `q` of the given matrix: `q[k]` is the
+	 * column of `A` that should be processed in the k-th step of the
+	 * factorization.
+	 */
+	static int[] order(CSCMatrix a) {
+		int n = a.columns;
+		if (n == 0)
+			return new int[0];
+		var graph = graphOf(a);
+
+		// remove dense nodes; see the `dense` parameter in AMD
+		int denseLimit = Math.max(16, (int) (10 * Math.sqrt(n)));
+		denseLimit = Math.min(n - 2, denseLimit);
+		var isDense = new boolean[n];
+		int denseCount = 0;
+		for (int i = 0; i < n; i++) {
+			if (graph[i].size() > denseLimit) {
+				isDense[i] = true;
+				denseCount++;
+			}
+		}
+		if (denseCount > 0) {
+			for (int i = 0; i < n; i++) {
+				if (!isDense[i])
+					continue;
+				for (int j : graph[i].toArray()) {
+					if (graph[j] != null) {
+						graph[j].remove(i);
+					}
+				}
+				graph[i] = null;
+			}
+		}
+
+		// heap entries are encoded as (degree << 32) | node so that nodes
+		// with the same degree are processed in a deterministic order;
+		// outdated entries are skipped when they are polled
+		var heap = new PriorityQueue<Long>(n);
+		var degree = new int[n];
+		for (int i = 0; i < n; i++) {
+			if (isDense[i])
+				continue;
+			degree[i] = graph[i].size();
+			heap.add(entryOf(degree[i], i));
+		}
+
+		var q = new int[n];
+		int k = 0;
+		var eliminated = new boolean[n];
+		while (!heap.isEmpty()) {
+			long entry = heap.poll();
+			int node = (int) entry;
+			int deg = (int) (entry >>> 32);
+			if (eliminated[node] || degree[node] != deg)
+				continue;
+			eliminated[node] = true;
+			q[k++] = node;
+
+			// eliminate the node: its neighbours form a clique
+			var neighbours = graph[node].toArray();
+			graph[node] = null;
+			for (int u : neighbours) {
+				graph[u].remove(node);
+			}
+			for (int u : neighbours) {
+				var adj = graph[u];
+				for (int w : neighbours) {
+					if (u != w) {
+						adj.add(w);
+					}
+				}
+				if (adj.size() != degree[u]) {
+					degree[u] = adj.size();
+					heap.add(entryOf(degree[u], u));
+				}
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			if (isDense[i]) {
+				q[k++] = i;
+			}
+		}
+		return q;
+	}
+
+	private static long entryOf(int degree, int node) {
+		return ((long) degree << 32) | node;
+	}
+
+	/**
+	 * Creates the adjacency sets of the pattern of `A + A'` without the
+	 * diagonal.
+	 */
+	private static TIntHashSet[] graphOf(CSCMatrix a) {
+		int n = a.columns;
+		var graph = new TIntHashSet[n];
+		for (int j = 0; j < n; j++) {
+			int start = a.columnPointers[j];
+			int end = a.columnPointers[j + 1];
+			graph[j] = new TIntHashSet(Math.max(end - start, 4) * 2);
+		}
+		for (int j = 0; j < n; j++) {
+			int end = a.columnPointers[j + 1];
+			for (int p = a.columnPointers[j]; p < end; p++) {
+				int i = a.rowIndices[p];
+				if (i == j || a.values[p] == 0)
+					continue;
+				graph[i].add(j);
+				graph[j].add(i);
+			}
+		}
+		return graph;
+	}
+}
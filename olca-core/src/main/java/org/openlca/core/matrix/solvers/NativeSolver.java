@@ -63,11 +63,12 @@ public class NativeSolver implements MatrixSolver {
 
 	@Override
 	public double[] multiply(MatrixReader m, double[] x) {
-		if (m instanceof HashPointMatrix
-				|| m instanceof CSCMatrix) {
-			return m.multiply(x);
-		}
-		var a = MatrixConverter.dense(m);
+		// converting other formats into a dense matrix would take as long as
+		// the multiplication itself (and copy memory mapped matrices into the
+		// heap), thus we only pass dense matrices to the native kernel
+		if (!(m instanceof DenseMatrix))
+			return MatrixKernels.multiply(m, x);
+		var a = (DenseMatrix) m;
 		double[] y = new double[m.rows()];
 		Julia.mvmult(m.rows(), m.columns(), a.data, x, y);
 		return y;
@@ -89,6 +90,9 @@ public class NativeSolver implements MatrixSolver {
 
 	@Override
 	public DenseMatrix multiply(MatrixReader a, MatrixReader b) {
+		// sparse operands are not densified
+		if (isSparse(a) || isSparse(b))
+			return MatrixConverter.dense(MatrixKernels.multiply(a, b, true));
 		DenseMatrix _a = MatrixConverter.dense(a);
 		DenseMatrix _b = MatrixConverter.dense(b);
 		int rowsA = _a.rows();
@@ -115,4 +119,8 @@ public class NativeSolver implements MatrixSolver {
 		}
 		return DenseFactorization.of(matrix);
 	}
+
+	private static boolean isSparse(MatrixReader m) {
+		return m instanceof HashPointMatrix || m instanceof CSCMatrix;
+	}
 }
@@ -0,0 +1,592 @@
+package org.openlca.core.matrix.solvers;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.apache.commons.math3.linear.NonSquareMatrixException;
+import org.apache.commons.math3.linear.SingularMatrixException;
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.openlca.core.matrix.format.DenseMatrix;
+import org.openlca.core.matrix.format.HashPointMatrix;
+import org.openlca.core.matrix.format.Matrix;
+import org.openlca.core.matrix.format.MatrixReader;
+
+/**
+ * A sparse LU factorization in pure Java: `L * U = P * A * Q`. It is a
+ * left-looking LU factorization with threshold partial pivoting (see
+ * `cs_lu` in CSparse by T. Davis). The column permutation `Q` is a fill-reducing
+ * ordering of `A + A'` (see {@link MinimumDegree}); as the technology matrices
+ * in LCA typically have their largest values on the diagonal, the diagonal
+ * entry is preferred as pivot when its absolute value is at least
+ * {@link #PIVOT_TOLERANCE} times the largest entry of the column.
+ * <p>
+ * The ordering is calculated in a separate symbolic analysis (see
+ * {@link #analyze(MatrixReader)}) that can be reused for matrices with the
+ * same non-zero pattern. A factorization can be also updated in place with
+ * new values (see {@link #refactorize(MatrixReader)}); this reuses the pivot
+ * sequence and the non-zero pattern of the factors.
+ * <p>
+ * This is the fallback for sparse matrices when the native libraries are not
+ * available.
+ */
+public class SparseLU implements Factorization {
+
+	/**
+	 * The threshold for accepting the diagonal entry as pivot.
+	 */
+	public static final double PIVOT_TOLERANCE = 0.001;
+
+	private final Symbolic symbolic;
+	private final int n;
+
+	/** The inverse row permutation: `pinv[i]` is the row of `i` in `P * A`. */
+	private int[] pinv;
+
+	// L is unit lower triangular, stored in CSC format with the diagonal
+	// entry first in each column
+	private int[] lp;
+	private int[] li;
+	private double[] lx;
+
+	// U is upper triangular, stored in CSC format with the diagonal entry
+	// last in each column
+	private int[] up;
+	private int[] ui;
+	private double[] ux;
+
+	private boolean isDisposed;
+
+	private SparseLU(Symbolic symbolic) {
+		this.symbolic = symbolic;
+		this.n = symbolic.n;
+	}
+
+	/**
+	 * Creates the factorization of the given matrix. Matrices that are not in
+	 * the CSC format are converted into this format first.
+	 */
+	public static SparseLU of(MatrixReader matrix) {
+		var csc = cscOf(matrix);
+		var symbolic = Symbolic.of(csc);
+		var lu = new SparseLU(symbolic);
+		lu.factorize(csc);
+		return lu;
+	}
+
+	/**
+	 * Runs the symbolic analysis of the given matrix; the values of the matrix
+	 * are not used.
+	 */
+	public static Symbolic analyze(MatrixReader matrix) {
+		return Symbolic.of(cscOf(matrix));
+	}
+
+	private static CSCMatrix cscOf(MatrixReader matrix) {
+		if (!matrix.isSquare())
+			throw new NonSquareMatrixException(matrix.rows(), matrix.columns());
+		if (matrix instanceof CSCMatrix csc)
+			return csc;
+		if (matrix instanceof HashPointMatrix hpm)
+			return hpm.compress();
+		return CSCMatrix.of(matrix);
+	}
+
+	/**
+	 * Calculates the factorization of the given matrix with the pattern of the
+	 * symbolic analysis of this factorization.
+	 */
+	private void factorize(CSCMatrix a) {
+		int[] q = symbolic.q;
+		int nnz = a.columnPointers[n];
+		var l = new Triangle(n, 4 * nnz + n);
+		var u = new Triangle(n, 4 * nnz + n);
+		var pinv = new int[n];
+		Arrays.fill(pinv, -1);
+
+		var x = new double[n];
+		var xi = new int[n];
+		var stack = new int[n];
+		var pstack = new int[n];
+		var marks = new int[n];
+
+		int lnz = 0;
+		int unz = 0;
+		for (int k = 0; k < n; k++) {
+			l.p[k] = lnz;
+			u.p[k] = unz;
+			if (lnz + n > l.i.length) {
+				l.grow(2 * l.i.length + n);
+			}
+			if (unz + n > u.i.length) {
+				u.grow(2 * u.i.length + n);
+			}
+
+			// x = L \ A(:, col)
+			int col = q[k];
+			int top = spsolve(l, a, col, x, xi, stack, pstack, marks, k + 1, pinv);
+
+			// find the pivot and store the entries of U
+			int ipiv = -1;
+			double max = -1;
+			for (int p = top; p < n; p++) {
+				int i = xi[p];
+				if (pinv[i] < 0) {
+					double t = Math.abs(x[i]);
+					if (t > max) {
+						max = t;
+						ipiv = i;
+					}
+				} else {
+					u.i[unz] = pinv[i];
+					u.x[unz++] = x[i];
+				}
+			}
+			if (ipiv == -1 || max <= 0)
+				throw new SingularMatrixException();
+			if (pinv[col] < 0 && Math.abs(x[col]) >= max * PIVOT_TOLERANCE) {
+				ipiv = col;
+			}
+
+			double pivot = x[ipiv];
+			u.i[unz] = k;
+			u.x[unz++] = pivot;
+			pinv[ipiv] = k;
+			l.i[lnz] = ipiv;
+			l.x[lnz++] = 1;
+			for (int p = top; p < n; p++) {
+				int i = xi[p];
+				if (pinv[i] < 0) {
+					l.i[lnz] = i;
+					l.x[lnz++] = x[i] / pivot;
+				}
+				x[i] = 0;
+			}
+		}
+		l.p[n] = lnz;
+		u.p[n] = unz;
+
+		// map the row indices of L to the pivot rows
+		for (int p = 0; p < lnz; p++) {
+			l.i[p] = pinv[l.i[p]];
+		}
+		l.trim();
+		u.trim();
+
+		this.pinv = pinv;
+		this.lp = l.p;
+		this.li = l.i;
+		this.lx = l.x;
+		this.up = u.p;
+		this.ui = u.i;
+		this.ux = u.x;
+	}
+
+	/**
+	 * Solves `L * x = A(:, col)` where `L` is the partially filled factor of
+	 * the first `k` columns. The non-zero pattern of `x` is returned in
+	 * `xi[top:n]` in topological order; `top` is returned.
+	 */
+	private static int spsolve(Triangle l, CSCMatrix a, int col, double[] x,
+		int[] xi, int[] stack, int[] pstack, int[] marks, int mark, int[] pinv) {
+		int n = a.rows;
+		int top = n;
+		int start = a.columnPointers[col];
+		int end = a.columnPointers[col + 1];
+
+		// the reach of A(:, col) in the graph of L
+		for (int p = start; p < end; p++) {
+			int i = a.rowIndices[p];
+			if (marks[i] != mark) {
+				top = dfs(i, l.p, l.i, top, xi, stack, pstack, marks, mark, pinv);
+			}
+		}
+
+		for (int p = top; p < n; p++) {
+			x[xi[p]] = 0;
+		}
+		for (int p = start; p < end; p++) {
+			x[a.rowIndices[p]] = a.values[p];
+		}
+
+		for (int px = top; px < n; px++) {
+			int j = xi[px];
+			int jj = pinv[j];
+			if (jj < 0)
+				continue;
+			double xj = x[j]; // the diagonal of L is 1
+			int pEnd = l.p[jj + 1];
+			for (int p = l.p[jj] + 1; p < pEnd; p++) {
+				x[l.i[p]] -= l.x[p] * xj;
+			}
+		}
+		return top;
+	}
+
+	/**
+	 * A non-recursive depth first search starting at node `j` in the graph
+	 * of `L`. The visited nodes are added in topological order to `xi`. Node
+	 * `j` has the column `pinv[j]` in `L`; it has no outgoing edges when this
+	 * value is negative. When `pinv` is `null`, the nodes are the columns of
+	 * `L`.
+	 */
+	private static int dfs(int j, int[] lp, int[] li, int top, int[] xi,
+		int[] stack, int[] pstack, int[] marks, int mark, int[] pinv) {
+		int head = 0;
+		stack[0] = j;
+		while (head >= 0) {
+			j = stack[head];
+			int jj = pinv != null ? pinv[j] : j;
+			if (marks[j] != mark) {
+				marks[j] = mark;
+				pstack[head] = jj < 0 ? 0 : lp[jj] + 1;
+			}
+			boolean done = true;
+			int end = jj < 0 ? 0 : lp[jj + 1];
+			for (int p = pstack[head]; p < end; p++) {
+				int i = li[p];
+				if (marks[i] == mark)
+					continue;
+				pstack[head] = p;
+				stack[++head] = i;
+				done = false;
+				break;
+			}
+			if (done) {
+				head--;
+				xi[--top] = j;
+			}
+		}
+		return top;
+	}
+
+	@Override
+	public boolean refactorize(MatrixReader matrix) {
+		if (isDisposed || matrix == null || !matrix.isSquare())
+			return false;
+		var a = symbolic.align(cscOf(matrix));
+		if (a == null)
+			return false;
+		if (!refactorizeWithPivots(a)) {
+			// the old pivots are numerically not acceptable anymore
+			factorize(a);
+		}
+		return true;
+	}
+
+	/**
+	 * Calculates the values of the factors for the given matrix with the
+	 * pivot sequence and non-zero pattern of the current factorization. The
+	 * factors are modified in place. This works in the permuted row space of
+	 * `P * A * Q`. Returns false if a pivot is not acceptable anymore; the
+	 * factors are then in an invalid state.
+	 */
+	private boolean refactorizeWithPivots(CSCMatrix a) {
+		int[] q = symbolic.q;
+		var x = new double[n];
+		var xi = new int[n];
+		var stack = new int[n];
+		var pstack = new int[n];
+		var marks = new int[n];
+
+		// in the permuted space, row r is a pivot row in step k if r < k;
+		// the graph of L contains only the columns r < k then
+		int lnz = 0;
+		int unz = 0;
+		for (int k = 0; k < n; k++) {
+			int col = q[k];
+			int start = a.columnPointers[col];
+			int end = a.columnPointers[col + 1];
+			lp[k] = lnz;
+			up[k] = unz;
+
+			// the reach of A(:, col) in the graph of L
+			int top = n;
+			int mark = k + 1;
+			for (int p = start; p < end; p++) {
+				int r = pinv[a.rowIndices[p]];
+				if (marks[r] != mark) {
+					top = dfsPermuted(r, k, top, xi, stack, pstack, marks, mark);
+				}
+			}
+
+			// x = L \ A(:, col)
+			for (int p = top; p < n; p++) {
+				x[xi[p]] = 0;
+			}
+			for (int p = start; p < end; p++) {
+				x[pinv[a.rowIndices[p]]] = a.values[p];
+			}
+			double max = 0;
+			for (int px = top; px < n; px++) {
+				int r = xi[px];
+				if (r >= k) {
+					max = Math.max(max, Math.abs(x[r]));
+					continue;
+				}
+				double xr = x[r];
+				int pEnd = lp[r + 1];
+				for (int p = lp[r] + 1; p < pEnd; p++) {
+					x[li[p]] -= lx[p] * xr;
+				}
+			}
+
+			// check the pivot
+			double pivot = x[k];
+			if (pivot == 0 || Math.abs(pivot) < max * PIVOT_TOLERANCE)
+				return false;
+			int reach = n - top;
+			if (lnz + reach > li.length || unz + reach > ui.length)
+				return false;
+
+			// store the entries of U and L
+			for (int px = top; px < n; px++) {
+				int r = xi[px];
+				if (r < k) {
+					ui[unz] = r;
+					ux[unz++] = x[r];
+				}
+			}
+			ui[unz] = k;
+			ux[unz++] = pivot;
+			li[lnz] = k;
+			lx[lnz++] = 1;
+			for (int px = top; px < n; px++) {
+				int r = xi[px];
+				if (r > k) {
+					li[lnz] = r;
+					lx[lnz++] = x[r] / pivot;
+				}
+				x[r] = 0;
+			}
+		}
+		lp[n] = lnz;
+		up[n] = unz;
+		return true;
+	}
+
+	/**
+	 * A depth first search in the graph of the first `k` columns of `L` in
+	 * the permuted row space. Only the nodes `r < k` have outgoing edges.
+	 */
+	private int dfsPermuted(int r, int k, int top, int[] xi, int[] stack,
+		int[] pstack, int[] marks, int mark) {
+		int head = 0;
+		stack[0] = r;
+		while (head >= 0) {
+			int j = stack[head];
+			if (marks[j] != mark) {
+				marks[j] = mark;
+				pstack[head] = j < k ? lp[j] + 1 : 0;
+			}
+			boolean done = true;
+			int end = j < k ? lp[j + 1] : 0;
+			for (int p = pstack[head]; p < end; p++) {
+				int i = li[p];
+				if (marks[i] == mark)
+					continue;
+				pstack[head] = p;
+				stack[++head] = i;
+				done = false;
+				break;
+			}
+			if (done) {
+				head--;
+				xi[--top] = j;
+			}
+		}
+		return top;
+	}
+
+	@Override
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * Returns the number of non-zero entries in the factors `L` and `U`.
+	 */
+	public long nonZeros() {
+		return (long) lp[n] + (long) up[n];
+	}
+
+	@Override
+	public double[] solve(double[] b) {
+		var x = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[pinv[i]] = b[i];
+		}
+
+		// L * y = P * b
+		for (int j = 0; j < n; j++) {
+			double xj = x[j];
+			if (xj == 0)
+				continue;
+			int end = lp[j + 1];
+			for (int p = lp[j] + 1; p < end; p++) {
+				x[li[p]] -= lx[p] * xj;
+			}
+		}
+
+		// U * z = y
+		for (int j = n - 1; j >= 0; j--) {
+			int diag = up[j + 1] - 1;
+			x[j] /= ux[diag];
+			double xj = x[j];
+			if (xj == 0)
+				continue;
+			for (int p = up[j]; p < diag; p++) {
+				x[ui[p]] -= ux[p] * xj;
+			}
+		}
+
+		var q = symbolic.q;
+		var r = new double[n];
+		for (int k = 0; k < n; k++) {
+			r[q[k]] = x[k];
+		}
+		return r;
+	}
+
+	/**
+	 * Solves the columns of the given matrix. As the solution of a column
+	 * does not modify the factorization, the columns are solved in parallel
+	 * when there are more than a few of them.
+	 */
+	@Override
+	public Matrix solve(Matrix b) {
+		int cols = b.columns();
+		var x = new DenseMatrix(n, cols);
+		var range = IntStream.range(0, cols);
+		if (cols > 4) {
+			range = range.parallel();
+		}
+		range.forEach(j -> {
+			var xj = solve(b.getColumn(j));
+			System.arraycopy(xj, 0, x.data, j * n, n);
+		});
+		return x;
+	}
+
+	@Override
+	public void dispose() {
+		isDisposed = true;
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return isDisposed;
+	}
+
+	/**
+	 * The symbolic analysis of a sparse LU factorization. It contains the
+	 * non-zero pattern of the analyzed matrix and its fill-reducing column
+	 * ordering. It is immutable and can be shared between threads.
+	 */
+	public static final class Symbolic implements SymbolicFactorization {
+
+		private final int n;
+		private final int[] columnPointers;
+		private final int[] rowIndices;
+
+		/** The column permutation: `q[k]` is the k-th column of `A * Q`. */
+		private final int[] q;
+
+		private Symbolic(CSCMatrix pattern, int[] q) {
+			this.n = pattern.columns;
+			this.columnPointers = pattern.columnPointers;
+			this.rowIndices = pattern.rowIndices;
+			this.q = q;
+		}
+
+		private static Symbolic of(CSCMatrix a) {
+			var q = MinimumDegree.order(a);
+			return new Symbolic(a, q);
+		}
+
+		@Override
+		public SparseLU factorize(MatrixReader matrix) {
+			var a = align(cscOf(matrix));
+			if (a == null)
+				return SparseLU.of(matrix);
+			var lu = new SparseLU(this);
+			lu.factorize(a);
+			return lu;
+		}
+
+		@Override
+		public boolean matches(MatrixReader matrix) {
+			return matrix != null
+				&& matrix.isSquare()
+				&& align(cscOf(matrix)) != null;
+		}
+
+		/**
+		 * Maps the values of the given matrix into the pattern of this analysis.
+		 * Entries of the pattern that are not present in the matrix are set to
+		 * zero. Returns `null` if the matrix has entries that are not in the
+		 * pattern.
+		 */
+		private CSCMatrix align(CSCMatrix a) {
+			if (a.rows != n || a.columns != n)
+				return null;
+			if (a.columnPointers == columnPointers && a.rowIndices == rowIndices)
+				return a;
+			var values = new double[rowIndices.length];
+			var pos = new int[n];
+			Arrays.fill(pos, -1);
+			for (int j = 0; j < n; j++) {
+				int start = columnPointers[j];
+				int end = columnPointers[j + 1];
+				for (int p = start; p < end; p++) {
+					pos[rowIndices[p]] = p;
+				}
+				boolean fits = true;
+				int aEnd = a.columnPointers[j + 1];
+				for (int p = a.columnPointers[j]; p < aEnd; p++) {
+					int idx = pos[a.rowIndices[p]];
+					if (idx < 0) {
+						if (a.values[p] == 0)
+							continue;
+						fits = false;
+						break;
+					}
+					values[idx] = a.values[p];
+				}
+				for (int p = start; p < end; p++) {
+					pos[rowIndices[p]] = -1;
+				}
+				if (!fits)
+					return null;
+			}
+			return new CSCMatrix(n, n, values, columnPointers, rowIndices);
+		}
+	}
+
+	/**
+	 * A growable CSC storage of a triangular factor.
+	 */
+	private static class Triangle {
+
+		final int[] p;
+		int[] i;
+		double[] x;
+
+		Triangle(int n, int capacity) {
+			p = new int[n + 1];
+			i = new int[capacity];
+			x = new double[capacity];
+		}
+
+		void grow(int capacity) {
+			i = Arrays.copyOf(i, capacity);
+			x = Arrays.copyOf(x, capacity);
+		}
+
+		void trim() {
+			int nnz = p[p.length - 1];
+			if (nnz < i.length) {
+				grow(nnz);
+			}
+		}
+	}
+}
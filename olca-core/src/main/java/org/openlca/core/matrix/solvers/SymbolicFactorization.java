@@ -0,0 +1,46 @@
+package org.openlca.core.matrix.solvers;
+
+import org.openlca.core.matrix.format.MatrixReader;
+
+/**
+ * The symbolic analysis of a matrix `A` (e.g. a fill-reducing ordering of a
+ * sparse matrix) that only depends on the non-zero pattern of `A`. It can be
+ * used to calculate the numeric factorizations of matrices with the same
+ * pattern but other values (like in a Monte-Carlo simulation) without
+ * repeating this analysis.
+ */
+public interface SymbolicFactorization {
+
+	/**
+	 * Calculates the numeric factorization of the given matrix. If the
+	 * non-zero pattern of the matrix does not fit into the pattern of this
+	 * analysis, a full factorization, including a new analysis, is calculated.
+	 */
+	Factorization factorize(MatrixReader matrix);
+
+	/**
+	 * Returns true if the non-zero pattern of the given matrix fits into the
+	 * pattern of this analysis, thus, if the analysis can be reused for that
+	 * matrix. Entries of the analyzed pattern can be zero in the given matrix.
+	 */
+	boolean matches(MatrixReader matrix);
+
+	/**
+	 * Returns an "analysis" that just delegates the factorization to the given
+	 * solver. This is used for solvers that cannot separate the symbolic
+	 * analysis from the numeric factorization.
+	 */
+	static SymbolicFactorization none(MatrixSolver solver) {
+		return new SymbolicFactorization() {
+			@Override
+			public Factorization factorize(MatrixReader matrix) {
+				return solver.factorize(matrix);
+			}
+
+			@Override
+			public boolean matches(MatrixReader matrix) {
+				return false;
+			}
+		};
+	}
+}
@@ -18,6 +18,15 @@ public interface UCell extends Copyable<UCell> {
 	 */
 	double next(FormulaInterpreter interpreter);
 
+	/**
+	 * Generates the values of this matrix cell for a batch of simulation runs.
+	 * The uncertain parameters of the given interpreter are bound to vectors
+	 * of samples with the same size as the batch (see
+	 * {@link org.openlca.core.matrix.ParameterTable#simulate(int)}), so that
+	 * the formulas of the cell can be evaluated for all runs in one step.
+	 */
+	double[] next(FormulaInterpreter interpreter, int size);
+
 	/**
 	 * Get the uncertainty distribution type of the cell;
 	 */
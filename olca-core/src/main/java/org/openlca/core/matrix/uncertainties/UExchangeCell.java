@@ -50,6 +50,36 @@ class UExchangeCell implements UCell {
 		return amount;
 	}
 
+	@Override
+	public double[] next(FormulaInterpreter interpreter, int size) {
+		double[] amounts;
+		if (gen != null) {
+			amounts = new double[size];
+			for (int i = 0; i < size; i++) {
+				amounts[i] = gen.next();
+			}
+		} else {
+			amounts = exchange.amounts(interpreter, size);
+		}
+		var factors = allocationFactor != null
+			? allocationFactor.values(interpreter, size)
+			: null;
+		var values = new double[size];
+		for (int i = 0; i < size; i++) {
+			double af = factors != null ? factors[i] : 1;
+			values[i] = exchange.matrixValueOf(amounts[i], af);
+		}
+		if (overlay != null) {
+			for (UCell u : overlay) {
+				var next = u.next(interpreter, size);
+				for (int i = 0; i < size; i++) {
+					values[i] += next[i];
+				}
+			}
+		}
+		return values;
+	}
+
 	private static NumberGenerator generator(CalcExchange e) {
 		UncertaintyType t = e.uncertaintyType;
 		if (t == null) {
@@ -98,7 +128,9 @@ class UExchangeCell implements UCell {
 
 	@Override
 	public UExchangeCell copy() {
-		var copy = new UExchangeCell(exchange, allocationFactor);
+		var copy = new UExchangeCell(
+			exchange.copy(),
+			allocationFactor != null ? allocationFactor.copy() : null);
 		if (overlay != null) {
 			copy.overlay = new ArrayList<>(overlay.size());
 			for (var o : overlay) {
@@ -25,6 +25,22 @@ class UImpactCell implements UCell {
 		return factor.matrixValue(interpreter);
 	}
 
+	@Override
+	public double[] next(FormulaInterpreter interpreter, int size) {
+		if (gen == null) {
+			var amounts = factor.amounts(interpreter, size);
+			for (int i = 0; i < size; i++) {
+				amounts[i] = factor.matrixValueOf(amounts[i]);
+			}
+			return amounts;
+		}
+		var values = new double[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = factor.matrixValueOf(gen.next());
+		}
+		return values;
+	}
+
 	private static NumberGenerator generator(CalcImpactFactor e) {
 		UncertaintyType t = e.uncertaintyType;
 		if (t == null) {
@@ -73,6 +89,6 @@ class UImpactCell implements UCell {
 
 	@Override
 	public UCell copy() {
-		return new UImpactCell(factor);
+		return new UImpactCell(factor.copy());
 	}
 }
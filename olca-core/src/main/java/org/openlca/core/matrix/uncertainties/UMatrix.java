@@ -10,6 +10,7 @@ import org.openlca.core.model.Copyable;
 import org.openlca.expressions.FormulaInterpreter;
 
 import gnu.trove.impl.Constants;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
 /**
@@ -104,6 +105,42 @@ public class UMatrix implements Copyable<UMatrix> {
 		each((row, col, cell) -> m.set(row, col, cell.next(interpreter)));
 	}
 
+	/**
+	 * Generates the values of the cells of this matrix for the given number of
+	 * simulation runs, see {@link UCell#next(FormulaInterpreter, int)}. The
+	 * values of a run can be then set to a matrix via
+	 * {@link Batch#apply(Matrix, int)}.
+	 */
+	public Batch generate(FormulaInterpreter interpreter, int size) {
+		var rows = new TIntArrayList();
+		var cols = new TIntArrayList();
+		var values = new ArrayList<double[]>();
+		each((row, col, cell) -> {
+			rows.add(row);
+			cols.add(col);
+			values.add(cell.next(interpreter, size));
+		});
+		return new Batch(size, rows.toArray(), cols.toArray(),
+				values.toArray(new double[0][]));
+	}
+
+	/**
+	 * The generated values of the cells of an uncertainty matrix for a batch
+	 * of simulation runs: {@code values[i][run]} is the value of the cell
+	 * {@code (rows[i], columns[i])} in the respective run.
+	 */
+	public record Batch(int size, int[] rows, int[] columns, double[][] values) {
+
+		/**
+		 * Sets the values of the given run to the given matrix.
+		 */
+		public void apply(Matrix m, int run) {
+			for (int i = 0; i < rows.length; i++) {
+				m.set(rows[i], columns[i], values[i][run]);
+			}
+		}
+	}
+
 	/**
 	 * Iterate over the cells of this matrix.
 	 */
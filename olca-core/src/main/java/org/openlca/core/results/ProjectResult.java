@@ -3,12 +3,12 @@ package org.openlca.core.results;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.openlca.core.database.IDatabase;
-import org.openlca.core.math.SystemCalculator;
+import org.openlca.core.math.ProjectCalculator;
 import org.openlca.core.matrix.index.EnviFlow;
-import org.openlca.core.model.CalculationSetup;
 import org.openlca.core.model.Project;
 import org.openlca.core.model.ProjectVariant;
 import org.openlca.core.model.descriptors.ImpactDescriptor;
@@ -21,28 +21,18 @@ public class ProjectResult {
 
 	private final HashMap<ProjectVariant, LcaResult> results = new HashMap<>();
 
+	/**
+	 * Calculates the project with the default settings of the
+	 * {@link ProjectCalculator}.
+	 */
 	public static ProjectResult calculate(Project project, IDatabase db) {
-		var result = new ProjectResult();
-		if (project == null)
-			return result;
-		var calculator = new SystemCalculator(db);
-		for (var v : project.variants) {
-			if (v.isDisabled)
-				continue;
-			var setup = CalculationSetup.of(v.productSystem)
-				.withUnit(v.unit)
-				.withFlowPropertyFactor(v.flowPropertyFactor)
-				.withAmount(v.amount)
-				.withAllocation(v.allocationMethod)
-				.withImpactMethod(project.impactMethod)
-				.withNwSet(project.nwSet)
-				.withParameters(v.parameterRedefs)
-				.withCosts(project.isWithCosts)
-				.withRegionalization(project.isWithRegionalization);
-			var variantResult = calculator.calculate(setup);
-			result.results.put(v, variantResult);
-		}
-		return result;
+		return new ProjectCalculator(db).calculate(project);
+	}
+
+	public void addAll(Map<ProjectVariant, LcaResult> results) {
+		if (results == null)
+			return;
+		this.results.putAll(results);
 	}
 
 	public Set<ProjectVariant> getVariants() {
@@ -0,0 +1,189 @@
+package org.openlca.core.results;
+
+import java.util.Arrays;
+
+/**
+ * Calculates the statistics of the entries of a vector over a series of
+ * values of that vector (e.g. the total result vectors of the runs of a
+ * Monte-Carlo simulation) without storing these values. The mean and variance
+ * are updated with Welford's algorithm. The quantiles are estimated with the
+ * extended P² algorithm (Jain & Chlamtac 1985; Raatikainen 1987) which keeps a
+ * fixed number of markers per vector entry. For the 5%, 25%, 50%, 75%, and 95%
+ * quantiles these are 13 markers, including the minimum and maximum. As long
+ * as the number of added vectors is not larger than the number of markers, the
+ * statistics are exact.
+ */
+public class RunningStatistics {
+
+	/**
+	 * The quantiles that are estimated.
+	 */
+	private static final double[] QUANTILES = {0.05, 0.25, 0.5, 0.75, 0.95};
+
+	/**
+	 * The probabilities of the markers: the quantiles, the middle points
+	 * between them, and the minimum and maximum.
+	 */
+	private static final double[] MARKERS = markersOf(QUANTILES);
+
+	private final int size;
+	private int count;
+
+	private final double[] mean;
+	private final double[] m2;
+
+	/**
+	 * The heights and actual (1-based) positions of the markers; the markers
+	 * of entry `i` are stored in the range `[i * m, (i + 1) * m)` where `m` is
+	 * the number of markers.
+	 */
+	private final double[] heights;
+	private final int[] positions;
+
+	public RunningStatistics(int size) {
+		this.size = size;
+		this.mean = new double[size];
+		this.m2 = new double[size];
+		this.heights = new double[size * MARKERS.length];
+		this.positions = new int[size * MARKERS.length];
+	}
+
+	private static double[] markersOf(double[] quantiles) {
+		var markers = new double[2 * quantiles.length + 3];
+		markers[0] = 0;
+		double last = 0;
+		int i = 1;
+		for (double q : quantiles) {
+			markers[i++] = (last + q) / 2;
+			markers[i++] = q;
+			last = q;
+		}
+		markers[i++] = (last + 1) / 2;
+		markers[i] = 1;
+		return markers;
+	}
+
+	/**
+	 * Returns the number of entries of the vector.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of values that were added.
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Adds the given values of the vector. Missing values (when the given
+	 * array is shorter than the vector) are treated as zeros.
+	 */
+	public void add(double[] values) {
+		if (values == null)
+			return;
+		count++;
+		int m = MARKERS.length;
+		for (int i = 0; i < size; i++) {
+			double x = i < values.length ? values[i] : 0;
+
+			// Welford's update of mean and variance
+			double delta = x - mean[i];
+			mean[i] += delta / count;
+			m2[i] += delta * (x - mean[i]);
+
+			int offset = i * m;
+			if (count < m) {
+				heights[offset + count - 1] = x;
+			} else if (count == m) {
+				heights[offset + count - 1] = x;
+				Arrays.sort(heights, offset, offset + m);
+				for (int k = 0; k < m; k++) {
+					positions[offset + k] = k + 1;
+				}
+			} else {
+				updateMarkers(offset, x);
+			}
+		}
+	}
+
+	/**
+	 * The P² update of the markers of a vector entry with a new value.
+	 */
+	private void updateMarkers(int offset, double x) {
+		int m = MARKERS.length;
+		double[] h = heights;
+		int[] n = positions;
+		int last = offset + m - 1;
+
+		// find the cell k of x and update the extreme values
+		int k;
+		if (x < h[offset]) {
+			h[offset] = x;
+			k = offset;
+		} else if (x >= h[last]) {
+			h[last] = x;
+			k = last - 1;
+		} else {
+			k = offset;
+			while (k < last - 1 && x >= h[k + 1]) {
+				k++;
+			}
+		}
+		for (int j = k + 1; j <= last; j++) {
+			n[j]++;
+		}
+
+		// adjust the heights of the inner markers
+		for (int j = offset + 1; j < last; j++) {
+			double desired = 1 + (count - 1) * MARKERS[j - offset];
+			double d = desired - n[j];
+			if ((d >= 1 && n[j + 1] - n[j] > 1)
+					|| (d <= -1 && n[j - 1] - n[j] < -1)) {
+				int s = d > 0 ? 1 : -1;
+				double hp = parabolic(j, s);
+				h[j] = h[j - 1] < hp && hp < h[j + 1]
+						? hp
+						: linear(j, s);
+				n[j] += s;
+			}
+		}
+	}
+
+	private double parabolic(int j, int s) {
+		double[] h = heights;
+		int[] n = positions;
+		double a = (double) s / (n[j + 1] - n[j - 1]);
+		double b = (n[j] - n[j - 1] + s)
+				* (h[j + 1] - h[j]) / (n[j + 1] - n[j]);
+		double c = (n[j + 1] - n[j] - s)
+				* (h[j] - h[j - 1]) / (n[j] - n[j - 1]);
+		return h[j] + a * (b + c);
+	}
+
+	private double linear(int j, int s) {
+		double[] h = heights;
+		int[] n = positions;
+		return h[j] + s * (h[j + s] - h[j]) / (n[j + s] - n[j]);
+	}
+
+	/**
+	 * Returns the statistics of the entry with the given index.
+	 */
+	public Statistics get(int i) {
+		if (i < 0 || i >= size || count == 0)
+			return Statistics.empty();
+		int m = MARKERS.length;
+		int offset = i * m;
+		if (count <= m) {
+			var values = Arrays.copyOfRange(heights, offset, offset + count);
+			return Statistics.of(values);
+		}
+		double sd = Math.sqrt(m2[i] / (count - 1));
+		var quantiles = Arrays.copyOfRange(heights, offset, offset + m);
+		return Statistics.ofEstimates(
+				count, mean[i], sd, MARKERS.clone(), quantiles);
+	}
+}
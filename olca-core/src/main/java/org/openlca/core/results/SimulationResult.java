@@ -20,11 +20,20 @@ import org.openlca.core.results.providers.ResultProvider;
  * simulation runs are stored in an array of lists where the flow- and LCIA
  * category indices are mapped to the respective array rows and the result
  * values to the respective list entries.
+ * <p>
+ * In streaming mode, the result vectors of the simulation runs are not stored
+ * but only the running statistics of their entries (see
+ * {@link RunningStatistics}). The memory usage of the result is then
+ * independent of the number of simulation runs; but the values of single
+ * runs are not available: the respective methods return zeros or empty
+ * arrays then. Use the `get*Statistics` methods to get the statistics of the
+ * results in both modes.
  */
 public class SimulationResult implements IResult {
 
-	private final List<double[]> flowResults = new ArrayList<>();
-	private final List<double[]> impactResults = new ArrayList<>();
+	private final boolean streaming;
+	private final Samples flowResults;
+	private final Samples impactResults;
 	private final HashMap<TechFlow, PinnedContributions> pinned = new HashMap<>();
 
 	private final Demand demand;
@@ -33,12 +42,34 @@ public class SimulationResult implements IResult {
 	private final ImpactIndex impactIndex;
 
 	public SimulationResult(MatrixData data) {
+		this(data, false);
+	}
+
+	/**
+	 * Creates a new simulation result for the given data.
+	 *
+	 * @param data      the matrix data of the simulated system
+	 * @param streaming if true, only the running statistics of the results are
+	 *                  stored and not the results of the single runs
+	 */
+	public SimulationResult(MatrixData data, boolean streaming) {
+		this.streaming = streaming;
+		this.flowResults = Samples.of(streaming);
+		this.impactResults = Samples.of(streaming);
 		this.demand = data.demand;
 		this.techIndex = data.techIndex;
 		this.flowIndex = data.enviIndex;
 		this.impactIndex = data.impactIndex;
 	}
 
+	/**
+	 * Returns true if this result only stores the running statistics of the
+	 * simulation results.
+	 */
+	public boolean isStreaming() {
+		return streaming;
+	}
+
 	@Override
 	public Demand demand() {
 		return demand;
@@ -66,11 +97,22 @@ public class SimulationResult implements IResult {
 	public void append(LcaResult r) {
 		if (r == null)
 			return;
-		if (r.hasEnviFlows()) {
-			flowResults.add(r.provider().totalFlows());
+		append(
+			r.hasEnviFlows() ? r.provider().totalFlows() : null,
+			r.hasImpacts() ? r.provider().totalImpacts() : null);
+	}
+
+	/**
+	 * Append the given total LCI and LCIA result vectors of a simulation run to
+	 * this result. A vector can be `null` when the respective result is not
+	 * available.
+	 */
+	public void append(double[] totalFlows, double[] totalImpacts) {
+		if (totalFlows != null) {
+			flowResults.add(totalFlows);
 		}
-		if (r.hasImpacts()) {
-			impactResults.add(r.provider().totalImpacts());
+		if (totalImpacts != null) {
+			impactResults.add(totalImpacts);
 		}
 	}
 
@@ -95,7 +137,7 @@ public class SimulationResult implements IResult {
 		if (flowIndex == null)
 			return 0;
 		int arrayIdx = flowIndex.of(flow);
-		double value = val(flowResults, i, arrayIdx);
+		double value = flowResults.get(i, arrayIdx);
 		return ResultProvider.flowValueView(flow, value);
 	}
 
@@ -108,7 +150,7 @@ public class SimulationResult implements IResult {
 		if (pc == null || flowIndex == null)
 			return 0;
 		int arrayIdx = flowIndex.of(flow);
-		double value = val(pc.directFlows, i, arrayIdx);
+		double value = pc.directFlows.get(i, arrayIdx);
 		return ResultProvider.flowValueView(flow, value);
 	}
 
@@ -117,7 +159,7 @@ public class SimulationResult implements IResult {
 	 * all iterations.
 	 */
 	public double[] getAllDirect(TechFlow product, EnviFlow flow) {
-		int count = getNumberOfRuns();
+		int count = storedRuns();
 		double[] values = new double[count];
 		for (int i = 0; i < count; i++) {
 			values[i] = getDirect(product, flow, i);
@@ -135,7 +177,7 @@ public class SimulationResult implements IResult {
 		if (pc == null || flowIndex == null)
 			return 0;
 		int arrayIdx = flowIndex.of(flow);
-		double value = val(pc.upstreamFlows, i, arrayIdx);
+		double value = pc.upstreamFlows.get(i, arrayIdx);
 		return ResultProvider.flowValueView(flow, value);
 	}
 
@@ -145,7 +187,7 @@ public class SimulationResult implements IResult {
 	 */
 	public double[] getAllUpstream(
 			TechFlow product, EnviFlow flow) {
-		int count = getNumberOfRuns();
+		int count = storedRuns();
 		double[] vals = new double[count];
 		for (int i = 0; i < count; i++) {
 			vals[i] = getUpstream(product, flow, i);
@@ -157,8 +199,8 @@ public class SimulationResult implements IResult {
 	 * Get all simulation results of the given flow.
 	 */
 	public double[] getAll(EnviFlow flow) {
-		double[] vals = new double[flowResults.size()];
-		for (int i = 0; i < flowResults.size(); i++) {
+		double[] vals = new double[storedRuns()];
+		for (int i = 0; i < vals.length; i++) {
 			vals[i] = get(flow, i);
 		}
 		return vals;
@@ -172,7 +214,7 @@ public class SimulationResult implements IResult {
 		if (impactIndex == null)
 			return 0;
 		int arrayIdx = impactIndex.of(impact);
-		return val(impactResults, i, arrayIdx);
+		return impactResults.get(i, arrayIdx);
 	}
 
 	/**
@@ -185,7 +227,7 @@ public class SimulationResult implements IResult {
 		if (pc == null || impactIndex == null)
 			return 0;
 		int arrayIdx = impactIndex.of(impact);
-		return val(pc.directImpacts, i, arrayIdx);
+		return pc.directImpacts.get(i, arrayIdx);
 	}
 
 	/**
@@ -194,7 +236,7 @@ public class SimulationResult implements IResult {
 	 */
 	public double[] getAllDirect(
 			TechFlow product, ImpactDescriptor impact) {
-		int count = getNumberOfRuns();
+		int count = storedRuns();
 		double[] vals = new double[count];
 		for (int i = 0; i < count; i++) {
 			vals[i] = getDirect(product, impact, i);
@@ -212,7 +254,7 @@ public class SimulationResult implements IResult {
 		if (pc == null || impactIndex == null)
 			return 0;
 		int arrayIdx = impactIndex.of(impact);
-		return val(pc.upstreamImpacts, i, arrayIdx);
+		return pc.upstreamImpacts.get(i, arrayIdx);
 	}
 
 	/**
@@ -221,7 +263,7 @@ public class SimulationResult implements IResult {
 	 */
 	public double[] getAllUpstream(TechFlow product,
 			ImpactDescriptor impact) {
-		int count = getNumberOfRuns();
+		int count = storedRuns();
 		double[] vals = new double[count];
 		for (int i = 0; i < count; i++) {
 			vals[i] = getUpstream(product, impact, i);
@@ -233,27 +275,97 @@ public class SimulationResult implements IResult {
 	 * Get all simulation results of the given LCIA category.
 	 */
 	public double[] getAll(ImpactDescriptor impact) {
-		double[] vals = new double[impactResults.size()];
-		for (int i = 0; i < impactResults.size(); i++) {
+		double[] vals = new double[storedRuns()];
+		for (int i = 0; i < vals.length; i++) {
 			vals[i] = get(impact, i);
 		}
 		return vals;
 	}
 
+	/**
+	 * Get the statistics of the simulation results of the given flow.
+	 */
+	public Statistics getStatistics(EnviFlow flow) {
+		if (flowIndex == null)
+			return Statistics.empty();
+		var stats = flowResults.statisticsOf(flowIndex.of(flow));
+		return flowStatisticsView(flow, stats);
+	}
+
+	/**
+	 * Get the statistics of the direct contributions of the given product to
+	 * the given flow.
+	 */
+	public Statistics getDirectStatistics(TechFlow product, EnviFlow flow) {
+		var pc = pinned.get(product);
+		if (pc == null || flowIndex == null)
+			return Statistics.empty();
+		var stats = pc.directFlows.statisticsOf(flowIndex.of(flow));
+		return flowStatisticsView(flow, stats);
+	}
+
+	/**
+	 * Get the statistics of the upstream contributions of the given product to
+	 * the given flow.
+	 */
+	public Statistics getUpstreamStatistics(TechFlow product, EnviFlow flow) {
+		var pc = pinned.get(product);
+		if (pc == null || flowIndex == null)
+			return Statistics.empty();
+		var stats = pc.upstreamFlows.statisticsOf(flowIndex.of(flow));
+		return flowStatisticsView(flow, stats);
+	}
+
+	/**
+	 * Get the statistics of the simulation results of the given LCIA category.
+	 */
+	public Statistics getStatistics(ImpactDescriptor impact) {
+		if (impactIndex == null)
+			return Statistics.empty();
+		return impactResults.statisticsOf(impactIndex.of(impact));
+	}
+
+	/**
+	 * Get the statistics of the direct contributions of the given product to
+	 * the given LCIA category.
+	 */
+	public Statistics getDirectStatistics(
+			TechFlow product, ImpactDescriptor impact) {
+		var pc = pinned.get(product);
+		if (pc == null || impactIndex == null)
+			return Statistics.empty();
+		return pc.directImpacts.statisticsOf(impactIndex.of(impact));
+	}
+
+	/**
+	 * Get the statistics of the upstream contributions of the given product to
+	 * the given LCIA category.
+	 */
+	public Statistics getUpstreamStatistics(
+			TechFlow product, ImpactDescriptor impact) {
+		var pc = pinned.get(product);
+		if (pc == null || impactIndex == null)
+			return Statistics.empty();
+		return pc.upstreamImpacts.statisticsOf(impactIndex.of(impact));
+	}
+
+	private static Statistics flowStatisticsView(
+			EnviFlow flow, Statistics stats) {
+		return flow != null && flow.isInput()
+				? stats.negate()
+				: stats;
+	}
+
 	public int getNumberOfRuns() {
-		return flowResults.size();
+		return flowResults.count();
 	}
 
-	private static double val(List<double[]> list, int listIdx, int arrayIdx) {
-		if (list == null
-				|| listIdx < 0
-				|| arrayIdx < 0
-				|| list.size() <= listIdx)
-			return 0;
-		double[] vec = list.get(listIdx);
-		if (vec == null || vec.length <= arrayIdx)
-			return 0;
-		return vec[arrayIdx];
+	/**
+	 * Returns the number of runs for which the single results are stored;
+	 * this is 0 in streaming mode.
+	 */
+	private int storedRuns() {
+		return streaming ? 0 : getNumberOfRuns();
 	}
 
 	// TODO: no LCC for Monte Carlo simulations ?
@@ -263,10 +375,113 @@ public class SimulationResult implements IResult {
 	}
 
 	private static class PinnedContributions {
-		private final List<double[]> directFlows = new ArrayList<>();
-		private final List<double[]> upstreamFlows = new ArrayList<>();
-		private final List<double[]> directImpacts = new ArrayList<>();
-		private final List<double[]> upstreamImpacts = new ArrayList<>();
+		private final Samples directFlows;
+		private final Samples upstreamFlows;
+		private final Samples directImpacts;
+		private final Samples upstreamImpacts;
+
+		PinnedContributions(boolean streaming) {
+			directFlows = Samples.of(streaming);
+			upstreamFlows = Samples.of(streaming);
+			directImpacts = Samples.of(streaming);
+			upstreamImpacts = Samples.of(streaming);
+		}
+	}
+
+	/**
+	 * Stores the result vectors of the simulation runs, or only their running
+	 * statistics in streaming mode.
+	 */
+	private interface Samples {
+
+		void add(double[] values);
+
+		/**
+		 * Returns the number of added result vectors.
+		 */
+		int count();
+
+		/**
+		 * Returns the value with the given index of the given run, or 0 if it
+		 * is not available.
+		 */
+		double get(int run, int idx);
+
+		Statistics statisticsOf(int idx);
+
+		static Samples of(boolean streaming) {
+			return streaming
+					? new RunningSamples()
+					: new StoredSamples();
+		}
+	}
+
+	private static class StoredSamples implements Samples {
+
+		private final List<double[]> vectors = new ArrayList<>();
+
+		@Override
+		public void add(double[] values) {
+			vectors.add(values);
+		}
+
+		@Override
+		public int count() {
+			return vectors.size();
+		}
+
+		@Override
+		public double get(int run, int idx) {
+			if (run < 0 || idx < 0 || vectors.size() <= run)
+				return 0;
+			double[] vec = vectors.get(run);
+			if (vec == null || vec.length <= idx)
+				return 0;
+			return vec[idx];
+		}
+
+		@Override
+		public Statistics statisticsOf(int idx) {
+			if (idx < 0)
+				return Statistics.empty();
+			var values = new double[vectors.size()];
+			for (int run = 0; run < values.length; run++) {
+				values[run] = get(run, idx);
+			}
+			return Statistics.of(values);
+		}
+	}
+
+	private static class RunningSamples implements Samples {
+
+		private RunningStatistics stats;
+
+		@Override
+		public void add(double[] values) {
+			if (stats == null) {
+				stats = new RunningStatistics(values.length);
+			}
+			stats.add(values);
+		}
+
+		@Override
+		public int count() {
+			return stats != null
+					? stats.count()
+					: 0;
+		}
+
+		@Override
+		public double get(int run, int idx) {
+			return 0;
+		}
+
+		@Override
+		public Statistics statisticsOf(int idx) {
+			return stats != null
+					? stats.get(idx)
+					: Statistics.empty();
+		}
 	}
 
 	public static class PinnedContribution {
@@ -308,7 +523,7 @@ public class SimulationResult implements IResult {
 
 		public void add() {
 			var pinned = result.pinned.computeIfAbsent(
-					product, p -> new PinnedContributions());
+					product, p -> new PinnedContributions(result.streaming));
 			if (directFlows != null) {
 				pinned.directFlows.add(directFlows);
 			}
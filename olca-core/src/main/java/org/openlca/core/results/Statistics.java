@@ -4,12 +4,22 @@ import java.util.Arrays;
 
 /**
  * Calculates statistic parameters for a set of numbers. This is mainly used for
- * presenting results of a Monte-Carlo-Simulation.
+ * presenting results of a Monte-Carlo-Simulation. The statistics can be also
+ * created from estimates of a streaming calculation (see
+ * {@link RunningStatistics}); the percentile values are then interpolated
+ * between the estimated quantiles and a histogram is not available.
  */
 public class Statistics {
 
 	private final double[] values;
 
+	/**
+	 * The probabilities (0..1) and values of estimated quantiles, in ascending
+	 * order; `null` when the statistics are calculated from the values.
+	 */
+	private final double[] probabilities;
+	private final double[] quantiles;
+
 	public final double min;
 	public final double max;
 	public final int count;
@@ -74,6 +84,8 @@ public class Statistics {
 	}
 
 	private Statistics(double[] values) {
+		this.probabilities = null;
+		this.quantiles = null;
 		if (values == null || values.length == 0) {
 			// empty statistics with no values
 			this.values = new double[0];
@@ -125,10 +137,65 @@ public class Statistics {
 		}
 	}
 
+	private Statistics(int count, double mean, double sd,
+			double[] probabilities, double[] quantiles) {
+		this.values = new double[0];
+		this.probabilities = probabilities;
+		this.quantiles = quantiles;
+		this.count = count;
+		this.mean = mean;
+		this.standardDeviation = sd;
+		this.min = quantiles[0];
+		this.max = quantiles[quantiles.length - 1];
+		this.range = max - min;
+		this.median = interpolate(0.5);
+	}
+
 	public static Statistics of(double[] vals) {
 		return new Statistics(vals);
 	}
 
+	/**
+	 * Creates statistics from estimated values of a streaming calculation.
+	 *
+	 * @param count         the number of values
+	 * @param mean          the mean of the values
+	 * @param sd            the standard deviation of the values
+	 * @param probabilities the probabilities (0..1) of the estimated quantiles
+	 *                      in ascending order; the first and last probabilities
+	 *                      must be 0 and 1 (the minimum and maximum)
+	 * @param quantiles     the estimated values of these quantiles
+	 */
+	static Statistics ofEstimates(int count, double mean, double sd,
+			double[] probabilities, double[] quantiles) {
+		return new Statistics(count, mean, sd, probabilities, quantiles);
+	}
+
+	/**
+	 * Returns the statistics of the negated values.
+	 */
+	Statistics negate() {
+		if (probabilities == null) {
+			var negated = new double[values.length];
+			for (int i = 0; i < values.length; i++) {
+				negated[i] = neg(values[i]);
+			}
+			return new Statistics(negated);
+		}
+		int n = quantiles.length;
+		var probs = new double[n];
+		var qs = new double[n];
+		for (int i = 0; i < n; i++) {
+			probs[i] = 1 - probabilities[n - 1 - i];
+			qs[i] = neg(quantiles[n - 1 - i]);
+		}
+		return new Statistics(count, neg(mean), standardDeviation, probs, qs);
+	}
+
+	private static double neg(double value) {
+		return value == 0 ? 0 : -value;
+	}
+
 	public static Statistics empty() {
 		return new Statistics(null);
 	}
@@ -140,6 +207,8 @@ public class Statistics {
 	 *            the percentage value (0..100)
 	 */
 	public double getPercentileValue(int percentile) {
+		if (probabilities != null)
+			return interpolate(percentile / 100.0);
 		if (values.length == 0)
 			return 0;
 		int index = percentile * values.length / 100;
@@ -147,4 +216,22 @@ public class Statistics {
 			return values[index];
 		return (values[index] + values[index - 1]) / 2;
 	}
+
+	/**
+	 * Interpolates the value at the given probability between the estimated
+	 * quantiles.
+	 */
+	private double interpolate(double p) {
+		if (p <= probabilities[0])
+			return quantiles[0];
+		for (int i = 1; i < probabilities.length; i++) {
+			double upper = probabilities[i];
+			if (p > upper)
+				continue;
+			double lower = probabilities[i - 1];
+			double share = (p - lower) / (upper - lower);
+			return quantiles[i - 1] + share * (quantiles[i] - quantiles[i - 1]);
+		}
+		return quantiles[quantiles.length - 1];
+	}
 }
@@ -2,12 +2,13 @@ package org.openlca.core.results;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.IntToDoubleFunction;
 
 import org.openlca.core.matrix.index.EnviFlow;
 import org.openlca.core.model.descriptors.ImpactDescriptor;
 import org.openlca.core.results.providers.ResultProvider;
 
+import gnu.trove.list.array.TIntArrayList;
+
 /**
  * Maps the upstream results of the product system graph to a tree where the
  * root is the reference process of the product system.
@@ -22,11 +23,11 @@ public class UpstreamTree {
 	 */
 	public final Object ref;
 
-	private final IntToDoubleFunction intensity;
+	private final Intensity intensity;
 	private final ResultProvider r;
 
 	private UpstreamTree(
-			Object ref, ResultProvider r, double total, IntToDoubleFunction intensity) {
+			Object ref, ResultProvider r, double total, Intensity intensity) {
 		this.ref = ref;
 		this.r = r;
 		this.intensity = intensity;
@@ -40,25 +41,37 @@ public class UpstreamTree {
 	public static UpstreamTree of(ResultProvider provider, EnviFlow flow) {
 		int flowIdx = provider.indexOf(flow);
 		double total = provider.totalFlows()[flowIdx];
-		return new UpstreamTree(flow, provider, total,
-				techIdx -> provider.totalFlowOfOne(flowIdx, techIdx));
+		return new UpstreamTree(flow, provider, total, (techIdx, solution) -> {
+			if (solution == null)
+				return provider.totalFlowOfOne(flowIdx, techIdx);
+			var totals = provider.totalFlowsOfOne(techIdx, solution);
+			return provider.isEmpty(totals) ? 0 : totals[flowIdx];
+		});
 	}
 
 	public static UpstreamTree of(ResultProvider provider, ImpactDescriptor impact) {
 		int impactIdx = provider.indexOf(impact);
 		double total = provider.totalImpacts()[impactIdx];
-		return new UpstreamTree(impact, provider, total,
-				techIdx -> provider.totalImpactOfOne(impactIdx, techIdx));
+		return new UpstreamTree(impact, provider, total, (techIdx, solution) -> {
+			if (solution == null)
+				return provider.totalImpactOfOne(impactIdx, techIdx);
+			var totals = provider.totalImpactsOfOne(techIdx, solution);
+			return provider.isEmpty(totals) ? 0 : totals[impactIdx];
+		});
 	}
 
 	public static UpstreamTree costsOf(ResultProvider provider) {
 		return new UpstreamTree(null, provider, provider.totalCosts(),
-				provider::totalCostsOfOne);
+				(techIdx, solution) -> solution != null
+						? provider.totalCostsOfOne(techIdx, solution)
+						: provider.totalCostsOfOne(techIdx));
 	}
 
 	public static UpstreamTree addedValuesOf(ResultProvider provider) {
 		return new UpstreamTree(null, provider, -provider.totalCosts(),
-				techIdx -> -provider.totalCostsOfOne(techIdx));
+				(techIdx, solution) -> solution != null
+						? -provider.totalCostsOfOne(techIdx, solution)
+						: -provider.totalCostsOfOne(techIdx));
 	}
 
 	public List<UpstreamNode> childs(UpstreamNode parent) {
@@ -68,14 +81,24 @@ public class UpstreamTree {
 		if (parent.scaling == 0)
 			return parent.childs;
 
+		// the results of the child nodes are calculated from the solutions
+		// of their providers; if the result provider solves the system on
+		// demand, we request these solutions together, which is much faster
+		// than solving them one by one
 		var requirements = r.techColumnOf(parent.index);
+		var childIndices = new TIntArrayList();
 		for (int i = 0; i < requirements.length; i++) {
-			if (i == parent.index)
-				continue;
-			double aij = requirements[i];
-			if (aij == 0)
-				continue;
-			aij *= parent.scaling;
+			if (i != parent.index && requirements[i] != 0) {
+				childIndices.add(i);
+			}
+		}
+		var solutions = childIndices.size() > 1 && r.hasBlockSolves()
+				? r.solutionsOf(childIndices.toArray())
+				: null;
+
+		for (int k = 0; k < childIndices.size(); k++) {
+			int i = childIndices.get(k);
+			double aij = requirements[i] * parent.scaling;
 			double aii = r.techValueOf(i, i);
 			double scaling = -aij / aii;
 			double amount = aii * scaling;
@@ -83,7 +106,8 @@ public class UpstreamTree {
 			var child = UpstreamNode.of(i, r.techIndex());
 			child.scaling = scaling;
 			setRequiredAmount(child, amount);
-			child.result = adopt(intensity.applyAsDouble(i) * amount);
+			var solution = solutions != null ? solutions[k] : null;
+			child.result = adopt(intensity.of(i, solution) * amount);
 			parent.childs.add(child);
 		}
 
@@ -110,4 +134,13 @@ public class UpstreamTree {
 				? -value
 				: value;
 	}
+
+	/**
+	 * Calculates the intensity of a technosphere flow, the result related to
+	 * 1 unit of that flow, optionally from its solution if already available.
+	 */
+	@FunctionalInterface
+	private interface Intensity {
+		double of(int techIdx, double[] solution);
+	}
 }
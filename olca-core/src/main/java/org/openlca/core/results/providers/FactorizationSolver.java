@@ -2,13 +2,16 @@ package org.openlca.core.results.providers;
 
 import org.openlca.core.matrix.Demand;
 import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.format.DenseMatrix;
 import org.openlca.core.matrix.format.Matrix;
 import org.openlca.core.matrix.index.EnviIndex;
 import org.openlca.core.matrix.index.ImpactIndex;
 import org.openlca.core.matrix.index.TechIndex;
 import org.openlca.core.matrix.solvers.Factorization;
 import org.openlca.core.matrix.solvers.MatrixSolver;
+import org.openlca.core.results.providers.VectorCache.Slot;
 
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
 public class FactorizationSolver implements ResultProvider {
@@ -19,16 +22,14 @@ public class FactorizationSolver implements ResultProvider {
 	private final Factorization factorization;
 
 	private final double[] scalingVector;
-	private double[] totalRequirements;
-	private final TIntObjectHashMap<double[]> solutions;
+	private volatile double[] totalRequirements;
+	private final VectorCache cache;
 
-	private Matrix directFlows;
+	private volatile Matrix directFlows;
 	private final double[] totalFlows;
-	private final TIntObjectHashMap<double[]> totalFlowsOfOne;
 
-	private Matrix directImpacts;
+	private volatile Matrix directImpacts;
 	private double[] totalImpacts;
-	private final TIntObjectHashMap<double[]> totalImpactsOfOne;
 
 	private final double[] directCosts;
 	private final double totalCosts;
@@ -37,15 +38,16 @@ public class FactorizationSolver implements ResultProvider {
 		this.demand = context.demand();
 		this.data = context.data();
 		this.solver = context.solver();
-		this.factorization = solver.factorize(data.techMatrix);
+		var analysis = context.analysis();
+		if (context.factorization() != null) {
+			this.factorization = context.factorization();
+		} else {
+			this.factorization = analysis != null
+				? analysis.factorize(data.techMatrix)
+				: solver.factorize(data.techMatrix);
+		}
 
-		solutions = new TIntObjectHashMap<>();
-		totalFlowsOfOne = hasFlows()
-			? new TIntObjectHashMap<>()
-			: null;
-		totalImpactsOfOne = hasImpacts()
-			? new TIntObjectHashMap<>()
-			: null;
+		cache = context.newVectorCache();
 
 		// calculate the scaling vector
 		var refIdx = data.techIndex.of(demand.techFlow());
@@ -148,12 +150,68 @@ public class FactorizationSolver implements ResultProvider {
 
 	@Override
 	public double[] solutionOfOne(int techFlow) {
-		var s = solutions.get(techFlow);
+		var s = cache.get(Slot.SOLUTION, techFlow);
 		if (s != null)
 			return s;
 		s = factorization.solve(techFlow, 1.0);
-		solutions.put(techFlow, s);
-		return s;
+		return cache.put(Slot.SOLUTION, techFlow, s);
+	}
+
+	@Override
+	public double[][] solutionsOf(int[] techFlows) {
+
+		// collect the distinct tech. flows that are not cached yet
+		var solutions = new double[techFlows.length][];
+		var missing = new TIntArrayList();
+		var solved = new TIntObjectHashMap<double[]>();
+		for (int k = 0; k < techFlows.length; k++) {
+			int techFlow = techFlows[k];
+			var s = cache.get(Slot.SOLUTION, techFlow);
+			if (s != null) {
+				solutions[k] = s;
+			} else if (!solved.containsKey(techFlow)) {
+				solved.put(techFlow, null);
+				missing.add(techFlow);
+			}
+		}
+		if (missing.isEmpty())
+			return solutions;
+
+		// solve the unit vectors of the missing solutions in blocks; the
+		// size of a block is limited so that the right-hand sides and
+		// solutions of a block take not more than ~32 MB each
+		int n = factorization.size();
+		int blockSize = Math.max(1, Math.min(missing.size(), (1 << 22) / n));
+		for (int start = 0; start < missing.size(); start += blockSize) {
+			int end = Math.min(start + blockSize, missing.size());
+			if (end - start == 1) {
+				int techFlow = missing.get(start);
+				solved.put(techFlow, solutionOfOne(techFlow));
+				continue;
+			}
+			var b = new DenseMatrix(n, end - start);
+			for (int col = 0; col < b.columns; col++) {
+				b.set(missing.get(start + col), col, 1.0);
+			}
+			var x = factorization.solve(b);
+			for (int col = 0; col < b.columns; col++) {
+				int techFlow = missing.get(start + col);
+				solved.put(techFlow,
+					cache.put(Slot.SOLUTION, techFlow, x.getColumn(col)));
+			}
+		}
+
+		for (int k = 0; k < techFlows.length; k++) {
+			if (solutions[k] == null) {
+				solutions[k] = solved.get(techFlows[k]);
+			}
+		}
+		return solutions;
+	}
+
+	@Override
+	public boolean hasBlockSolves() {
+		return true;
 	}
 
 	@Override
@@ -205,15 +263,23 @@ public class FactorizationSolver implements ResultProvider {
 
 	@Override
 	public double[] totalFlowsOfOne(int techFlow) {
-		if (totalFlowsOfOne == null)
+		if (!hasFlows())
+			return EMPTY_VECTOR;
+		var totals = cache.get(Slot.TOTAL_FLOWS, techFlow);
+		if (totals != null)
+			return totals;
+		return totalFlowsOfOne(techFlow, solutionOfOne(techFlow));
+	}
+
+	@Override
+	public double[] totalFlowsOfOne(int techFlow, double[] solution) {
+		if (!hasFlows())
 			return EMPTY_VECTOR;
-		var totals = totalFlowsOfOne.get(techFlow);
+		var totals = cache.get(Slot.TOTAL_FLOWS, techFlow);
 		if (totals != null)
 			return totals;
-		var s = solutionOfOne(techFlow);
-		totals = solver.multiply(data.enviMatrix, s);
-		totalFlowsOfOne.put(techFlow, totals);
-		return totals;
+		totals = solver.multiply(data.enviMatrix, solution);
+		return cache.put(Slot.TOTAL_FLOWS, techFlow, totals);
 	}
 
 	@Override
@@ -283,18 +349,30 @@ public class FactorizationSolver implements ResultProvider {
 
 	@Override
 	public double[] totalImpactsOfOne(int techFlow) {
-		if (totalImpactsOfOne == null)
+		if (!hasImpacts())
+			return EMPTY_VECTOR;
+		var h = cache.get(Slot.TOTAL_IMPACTS, techFlow);
+		return h != null
+			? h
+			: impactsOf(techFlow, totalFlowsOfOne(techFlow));
+	}
+
+	@Override
+	public double[] totalImpactsOfOne(int techFlow, double[] solution) {
+		if (!hasImpacts())
 			return EMPTY_VECTOR;
-		var h = totalImpactsOfOne.get(techFlow);
-		if (h != null)
-			return h;
+		var h = cache.get(Slot.TOTAL_IMPACTS, techFlow);
+		return h != null
+			? h
+			: impactsOf(techFlow, totalFlowsOfOne(techFlow, solution));
+	}
+
+	private double[] impactsOf(int techFlow, double[] totalFlows) {
 		var impactFactors = data.impactMatrix;
-		var g = totalFlowsOfOne(techFlow);
-		if (impactFactors == null || g.length == 0)
+		if (impactFactors == null || totalFlows.length == 0)
 			return new double[impactIndex().size()];
-		h = solver.multiply(impactFactors, g);
-		totalImpactsOfOne.put(techFlow, h);
-		return h;
+		var h = solver.multiply(impactFactors, totalFlows);
+		return cache.put(Slot.TOTAL_IMPACTS, techFlow, h);
 	}
 
 	@Override
@@ -316,12 +394,18 @@ public class FactorizationSolver implements ResultProvider {
 
 	@Override
 	public double totalCostsOfOne(int techFlow) {
+		return data.costVector != null
+			? totalCostsOfOne(techFlow, solutionOfOne(techFlow))
+			: 0;
+	}
+
+	@Override
+	public double totalCostsOfOne(int techFlow, double[] solution) {
 		if (data.costVector == null)
 			return 0;
-		var s = solutionOfOne(techFlow);
 		double c = 0.0;
-		for (int j = 0; j < s.length; j++) {
-			c += s[j] * data.costVector[j];
+		for (int j = 0; j < solution.length; j++) {
+			c += solution[j] * data.costVector[j];
 		}
 		return c;
 	}
@@ -330,4 +414,9 @@ public class FactorizationSolver implements ResultProvider {
 	public double totalCosts() {
 		return totalCosts;
 	}
+
+	@Override
+	public long cachedBytes() {
+		return cache.heapBytes();
+	}
 }
@@ -22,8 +22,7 @@ import org.openlca.core.matrix.index.TechIndex;
 import org.openlca.core.matrix.solvers.MatrixSolver;
 import org.openlca.util.Pair;
 
-import gnu.trove.impl.Constants;
-import gnu.trove.map.hash.TIntObjectHashMap;
+import org.openlca.core.results.providers.VectorCache.Slot;
 
 public class LazyLibrarySolver implements ResultProvider {
 
@@ -37,20 +36,13 @@ public class LazyLibrarySolver implements ResultProvider {
 	private final ResultProvider foregroundSolution;
 	private final MatrixData fullData;
 
-	private double[] scalingVector;
-	private double[] totalRequirements;
-	private final TIntObjectHashMap<double[]> solutions = newCache();
-	private final TIntObjectHashMap<double[]> techColumns = newCache();
-
-	private double[] totalFlows;
-	private final TIntObjectHashMap<double[]> flowColumns = newCache();
-	private final TIntObjectHashMap<double[]> directFlows = newCache();
-	private final TIntObjectHashMap<double[]> totalFlowsOfOne = newCache();
+	private final VectorCache cache;
 
-	private double[] totalImpacts;
-	private Matrix flowImpacts;
-	private final TIntObjectHashMap<double[]> directImpacts = newCache();
-	private final TIntObjectHashMap<double[]> totalImpactsOfOne = newCache();
+	private double[] scalingVector;
+	private volatile double[] totalRequirements;
+	private volatile double[] totalFlows;
+	private volatile double[] totalImpacts;
+	private volatile Matrix flowImpacts;
 
 	private LazyLibrarySolver(SolverContext context) {
 		this.db = context.db();
@@ -61,23 +53,12 @@ public class LazyLibrarySolver implements ResultProvider {
 		this.fullData = new MatrixData();
 		this.fullData.demand = demand;
 		this.fullData.impactIndex = foregroundData.impactIndex;
+		this.cache = context.newVectorCache();
 		this.foregroundSolution = InversionResult.of(context)
 			.calculate()
 			.provider();
 	}
 
-	private static TIntObjectHashMap<double[]> newCache() {
-		return new TIntObjectHashMap<>(
-				Constants.DEFAULT_CAPACITY,
-				Constants.DEFAULT_LOAD_FACTOR,
-				-1);
-	}
-
-	private double[] put(int key, TIntObjectHashMap<double[]> cache, double[] v) {
-		cache.put(key, v);
-		return v;
-	}
-
 	public static ResultProvider solve(SolverContext context) {
 
 		var provider = new LazyLibrarySolver(context);
@@ -224,7 +205,7 @@ public class LazyLibrarySolver implements ResultProvider {
 
 	@Override
 	public double[] techColumnOf(int techFlow) {
-		var column = techColumns.get(techFlow);
+		var column = cache.get(Slot.TECH_COLUMN, techFlow);
 		if (column != null)
 			return column;
 
@@ -241,7 +222,7 @@ public class LazyLibrarySolver implements ResultProvider {
 		if (libID == null) {
 			var colF = foregroundData.techMatrix.getColumn(techFlow);
 			System.arraycopy(colF, 0, column, 0, colF.length);
-			return put(techFlow, techColumns, column);
+			return cache.put(Slot.TECH_COLUMN, techFlow, column);
 		}
 
 		// in case of a library product, we need to map
@@ -263,12 +244,12 @@ public class LazyLibrarySolver implements ResultProvider {
 				continue;
 			column[i] = val;
 		}
-		return put(techFlow, techColumns, column);
+		return cache.put(Slot.TECH_COLUMN, techFlow, column);
 	}
 
 	@Override
 	public double[] solutionOfOne(int techFlow) {
-		var solution = solutions.get(techFlow);
+		var solution = cache.get(Slot.SOLUTION, techFlow);
 		if (solution != null)
 			return solution;
 
@@ -335,7 +316,7 @@ public class LazyLibrarySolver implements ResultProvider {
 			}
 		}
 
-		return put(techFlow, solutions, solution);
+		return cache.put(Slot.SOLUTION, techFlow, solution);
 	}
 
 	@Override
@@ -350,7 +331,7 @@ public class LazyLibrarySolver implements ResultProvider {
 
 	@Override
 	public double[] unscaledFlowsOf(int techFlow) {
-		var column = flowColumns.get(techFlow);
+		var column = cache.get(Slot.FLOW_COLUMN, techFlow);
 		if (column != null)
 			return column;
 
@@ -373,7 +354,7 @@ public class LazyLibrarySolver implements ResultProvider {
 				var colF = flowMatrixF.getColumn(techFlow);
 				System.arraycopy(colF, 0, column, 0, colF.length);
 			}
-			return put(techFlow, flowColumns, column);
+			return cache.put(Slot.FLOW_COLUMN, techFlow, column);
 		}
 
 		// in case of a library product, we need to map
@@ -381,11 +362,11 @@ public class LazyLibrarySolver implements ResultProvider {
 		var flowIdxB = libs.enviIndexOf(libId);
 		var techIdxB = libs.techIndexOf(libId);
 		if (flowIdxB == null || techIdxB == null)
-			return put(techFlow, flowColumns, column);
+			return cache.put(Slot.FLOW_COLUMN, techFlow, column);
 		var jB = techIdxB.of(product);
 		var colB = libs.columnOf(libId, LibMatrix.B, jB);
 		if (colB == null)
-			return put(techFlow, flowColumns, column);
+			return cache.put(Slot.FLOW_COLUMN, techFlow, column);
 
 		for (int iB = 0; iB < colB.length; iB++) {
 			double val = colB[iB];
@@ -398,7 +379,7 @@ public class LazyLibrarySolver implements ResultProvider {
 			column[i] = val;
 		}
 
-		return put(techFlow, flowColumns, column);
+		return cache.put(Slot.FLOW_COLUMN, techFlow, column);
 	}
 
 	@Override
@@ -411,7 +392,7 @@ public class LazyLibrarySolver implements ResultProvider {
 
 	@Override
 	public double[] directFlowsOf(int techFlow) {
-		var flows = directFlows.get(techFlow);
+		var flows = cache.get(Slot.DIRECT_FLOWS, techFlow);
 		if (flows != null)
 			return flows;
 		var unscaled = unscaledFlowsOf(techFlow);
@@ -419,7 +400,7 @@ public class LazyLibrarySolver implements ResultProvider {
 			return EMPTY_VECTOR;
 		var factor = scalingFactorOf(techFlow);
 		flows = scale(unscaled, factor);
-		return put(techFlow, directFlows, flows);
+		return cache.put(Slot.DIRECT_FLOWS, techFlow, flows);
 	}
 
 	@Override
@@ -432,7 +413,7 @@ public class LazyLibrarySolver implements ResultProvider {
 
 	@Override
 	public double[] totalFlowsOfOne(int techFlow) {
-		var totals = totalFlowsOfOne.get(techFlow);
+		var totals = cache.get(Slot.TOTAL_FLOWS, techFlow);
 		if (totals != null)
 			return totals;
 
@@ -483,7 +464,7 @@ public class LazyLibrarySolver implements ResultProvider {
 				totals[i] += gB[iB];
 			}
 		}
-		return put(techFlow, totalFlowsOfOne, totals);
+		return cache.put(Slot.TOTAL_FLOWS, techFlow, totals);
 	}
 
 	@Override
@@ -502,9 +483,11 @@ public class LazyLibrarySolver implements ResultProvider {
 
 	/**
 	 * Returns the characterization factors of the combined system.
-	 * we cache this matrix in the `fullData` object.
+	 * we cache this matrix in the `fullData` object. This method is
+	 * synchronized as the matrix is expensive to build and the provider can be
+	 * read by multiple threads.
 	 */
-	private MatrixReader impactFactors() {
+	private synchronized MatrixReader impactFactors() {
 		if (fullData.impactMatrix != null)
 			return fullData.impactMatrix;
 		if (!hasFlows() || !hasImpacts())
@@ -628,7 +611,7 @@ public class LazyLibrarySolver implements ResultProvider {
 
 	@Override
 	public double[] directImpactsOf(int techFlow) {
-		var impacts = directImpacts.get(techFlow);
+		var impacts = cache.get(Slot.DIRECT_IMPACTS, techFlow);
 		if (impacts != null)
 			return impacts;
 		var factors = impactFactors();
@@ -636,12 +619,12 @@ public class LazyLibrarySolver implements ResultProvider {
 		if (factors == null || isEmpty(flows))
 			return EMPTY_VECTOR;
 		impacts = solver.multiply(factors, flows);
-		return put(techFlow, directImpacts, impacts);
+		return cache.put(Slot.DIRECT_IMPACTS, techFlow, impacts);
 	}
 
 	@Override
 	public double[] totalImpactsOfOne(int techFlow) {
-		var impacts = totalImpactsOfOne.get(techFlow);
+		var impacts = cache.get(Slot.TOTAL_IMPACTS, techFlow);
 		if (impacts != null)
 			return impacts;
 		var factors = impactFactors();
@@ -649,7 +632,7 @@ public class LazyLibrarySolver implements ResultProvider {
 		if (factors == null || isEmpty(flows))
 			return EMPTY_VECTOR;
 		impacts = solver.multiply(factors, flows);
-		return put(techFlow, totalImpactsOfOne, impacts);
+		return cache.put(Slot.TOTAL_IMPACTS, techFlow, impacts);
 	}
 
 	@Override
@@ -679,4 +662,9 @@ public class LazyLibrarySolver implements ResultProvider {
 	public double totalCosts() {
 		return 0;
 	}
+
+	@Override
+	public long cachedBytes() {
+		return cache.heapBytes();
+	}
 }
@@ -12,6 +12,8 @@ import org.openlca.core.matrix.format.MatrixReader;
 import org.openlca.core.matrix.index.EnviIndex;
 import org.openlca.core.matrix.index.ImpactIndex;
 import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.matrix.io.MappedCscFile;
+import org.openlca.core.matrix.io.MappedNpyMatrix;
 import org.openlca.core.matrix.io.NpyMatrix;
 import org.openlca.npy.Array2d;
 
@@ -32,6 +34,8 @@ public class LibraryCache {
 	private final HashMap<String, TIntObjectHashMap<double[]>> columns = new HashMap<>();
 	private final HashMap<String, double[]> diagonals = new HashMap<>();
 	private final HashMap<String, Optional<double[]>> costVectors = new HashMap<>();
+	private final HashMap<String, Optional<MappedCscFile>> mappedFiles = new HashMap<>();
+	private boolean mapDenseMatrices = true;
 
 	public LibraryCache(LibraryDir dir, IDatabase db) {
 		this.dir = dir;
@@ -42,6 +46,19 @@ public class LibraryCache {
 		return dir;
 	}
 
+	/**
+	 * Dense library matrices (e.g. the inverse INV or the intensities M) are
+	 * memory mapped by default instead of reading them into the heap. The OS
+	 * page cache of these matrices is then shared between all processes that
+	 * use the same library. When this is disabled, the dense matrices are
+	 * read into heap matrices which can be passed directly to native solver
+	 * functions.
+	 */
+	public LibraryCache withMappedMatrices(boolean b) {
+		this.mapDenseMatrices = b;
+		return this;
+	}
+
 	/**
 	 * Collects and synchronizes the linked technosphere indices of the given
 	 * foreground index.
@@ -95,7 +112,10 @@ public class LibraryCache {
 			var lib = dir.getLibrary(libId).orElse(null);
 			if (lib == null)
 				return null;
-			return lib.getMatrix(matrix).orElse(null);
+			var mapped = mappedDenseOf(MatrixFile.of(dir, libId, matrix));
+			return mapped != null
+				? mapped
+				: lib.getMatrix(matrix).orElse(null);
 		});
 	}
 
@@ -126,6 +146,12 @@ public class LibraryCache {
 			return new double[0];
 
 		if (file.isSparse()) {
+			var mapped = mappedOf(key, file);
+			if (mapped != null) {
+				diag = mapped.diag();
+				diagonals.put(key, diag);
+				return diag;
+			}
 			fullMatrix = file.readFull();
 			if (fullMatrix == null)
 				return new double[0];
@@ -135,6 +161,14 @@ public class LibraryCache {
 			return diag;
 		}
 
+		var mapped = mappedDenseOf(file);
+		if (mapped != null) {
+			matrices.put(key, mapped);
+			diag = mapped.diag();
+			diagonals.put(key, diag);
+			return diag;
+		}
+
 		diag = Array2d.readDiag(file.file)
 			.asDoubleArray()
 			.data();
@@ -162,6 +196,9 @@ public class LibraryCache {
 			return new double[0];
 
 		if (file.isSparse()) {
+			var mapped = mappedOf(key, file);
+			if (mapped != null)
+				return mapped.column(j);
 			fullMatrix = file.readFull();
 			if (fullMatrix == null)
 				return new double[0];
@@ -169,6 +206,12 @@ public class LibraryCache {
 			return fullMatrix.getColumn(j);
 		}
 
+		var mappedDense = mappedDenseOf(file);
+		if (mappedDense != null) {
+			matrices.put(key, mappedDense);
+			return mappedDense.getColumn(j);
+		}
+
 		col = Array2d.readColumn(file.file, j)
 			.asDoubleArray()
 			.data();
@@ -183,6 +226,26 @@ public class LibraryCache {
 		return col;
 	}
 
+	/**
+	 * Returns the memory mapped arrays of a sparse matrix file, from which
+	 * single columns can be read without loading the full matrix. Returns
+	 * {@code null} if the file could not be mapped.
+	 */
+	private MappedCscFile mappedOf(String key, MatrixFile file) {
+		return mappedFiles
+			.computeIfAbsent(key, k -> MappedCscFile.open(file.file))
+			.orElse(null);
+	}
+
+	/**
+	 * Maps the given file if it is a dense matrix file and memory mapping is
+	 * enabled. Returns {@code null} otherwise or if mapping failed.
+	 */
+	private MappedNpyMatrix mappedDenseOf(MatrixFile file) {
+		if (!mapDenseMatrices || file.isEmpty() || file.isSparse())
+			return null;
+		return MappedNpyMatrix.open(file.file).orElse(null);
+	}
 
 	private String keyOf(String libId, LibMatrix matrix) {
 		return libId + "::" + matrix.name();
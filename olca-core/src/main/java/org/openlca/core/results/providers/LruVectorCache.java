@@ -0,0 +1,106 @@
+package org.openlca.core.results.providers;
+
+import java.util.LinkedHashMap;
+
+/**
+ * A vector cache that removes the least recently used vectors when the bytes
+ * of the cached vectors exceed a limit. Optionally, the removed vectors are
+ * moved into a {@link SpillArea}.
+ * <p>
+ * The map of the cache is access-ordered, so that also a read modifies its
+ * structure. Thus, all methods are synchronized, as a result provider and
+ * with this its cache can be read by multiple threads (e.g. by the request
+ * threads of a server).
+ */
+class LruVectorCache implements VectorCache {
+
+	private final long maxBytes;
+	private final long spillBytes;
+	private final LinkedHashMap<Long, double[]> vectors;
+	private long heapBytes;
+	private SpillArea spill;
+
+	LruVectorCache(long maxBytes, long spillBytes) {
+		this.maxBytes = maxBytes;
+		this.spillBytes = spillBytes;
+		this.vectors = new LinkedHashMap<>(64, 0.75f, true);
+	}
+
+	private static long keyOf(Slot slot, int index) {
+		return ((long) slot.ordinal() << 32) | (index & 0xffffffffL);
+	}
+
+	@Override
+	public synchronized double[] get(Slot slot, int index) {
+		long key = keyOf(slot, index);
+		var vector = vectors.get(key);
+		if (vector != null || spill == null)
+			return vector;
+		vector = spill.get(key);
+		if (vector != null) {
+			store(key, vector);
+		}
+		return vector;
+	}
+
+	@Override
+	public synchronized double[] put(Slot slot, int index, double[] vector) {
+		if (vector == null)
+			return null;
+		store(keyOf(slot, index), vector);
+		return vector;
+	}
+
+	private void store(long key, double[] vector) {
+		var old = vectors.put(key, vector);
+		heapBytes += VectorCache.bytesOf(vector) - VectorCache.bytesOf(old);
+		if (heapBytes <= maxBytes)
+			return;
+		var it = vectors.entrySet().iterator();
+		while (heapBytes > maxBytes && it.hasNext()) {
+			var eldest = it.next();
+			if (eldest.getKey() == key)
+				continue;
+			it.remove();
+			heapBytes -= VectorCache.bytesOf(eldest.getValue());
+			spill(eldest.getKey(), eldest.getValue());
+		}
+	}
+
+	private void spill(long key, double[] vector) {
+		if (spillBytes <= 0)
+			return;
+		if (spill == null) {
+			spill = SpillArea.create(spillBytes);
+			if (spill == null)
+				return;
+		}
+		spill.put(key, vector);
+	}
+
+	@Override
+	public synchronized int size() {
+		return vectors.size();
+	}
+
+	@Override
+	public synchronized long heapBytes() {
+		return heapBytes;
+	}
+
+	@Override
+	public synchronized long spilledBytes() {
+		return spill != null
+			? spill.bytes()
+			: 0;
+	}
+
+	@Override
+	public synchronized void clear() {
+		vectors.clear();
+		heapBytes = 0;
+		if (spill != null) {
+			spill.clear();
+		}
+	}
+}
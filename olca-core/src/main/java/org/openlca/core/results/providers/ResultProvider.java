@@ -196,6 +196,32 @@ public interface ResultProvider {
 	 */
 	double[] solutionOfOne(int techFlow);
 
+	/**
+	 * Returns the solutions of the given technosphere flows, in the same order
+	 * as these flows are given: {@code solutionsOf(js)[k] == solutionOfOne(js[k])}.
+	 * This should be used when the solutions of many flows are needed at once
+	 * (e.g. when expanding a node of an upstream tree) as implementations that
+	 * solve the system on demand can then solve the required unit vectors
+	 * together in blocks.
+	 */
+	default double[][] solutionsOf(int[] techFlows) {
+		var solutions = new double[techFlows.length][];
+		for (int k = 0; k < techFlows.length; k++) {
+			solutions[k] = solutionOfOne(techFlows[k]);
+		}
+		return solutions;
+	}
+
+	/**
+	 * Returns true if this provider solves the system on demand and solves
+	 * multiple flows in {@link #solutionsOf(int[])} faster than one by one.
+	 * For other providers, like providers with a pre-calculated inverse,
+	 * requesting the solutions together has no benefit.
+	 */
+	default boolean hasBlockSolves() {
+		return false;
+	}
+
 	/**
 	 * Get the loop factor for the given technosphere flow. The loop factor `lf[j]`
 	 * describes the faction of the total requirements of a technosphere flow `j`
@@ -320,6 +346,15 @@ public interface ResultProvider {
 	 */
 	double[] totalFlowsOfOne(int techFlow);
 
+	/**
+	 * Same as {@link #totalFlowsOfOne(int)} but calculated from the given
+	 * solution of the technosphere flow `j`, e.g. from the solutions of
+	 * {@link #solutionsOf(int[])}.
+	 */
+	default double[] totalFlowsOfOne(int techFlow, double[] solution) {
+		return totalFlowsOfOne(techFlow);
+	}
+
 	/**
 	 * Returns the total result (direct + upstream) of the given elementary
 	 * flow `i` related to 1 unit of the technosphere flow `j` in the system. It
@@ -448,6 +483,15 @@ public interface ResultProvider {
 	 */
 	double[] totalImpactsOfOne(int techFlow);
 
+	/**
+	 * Same as {@link #totalImpactsOfOne(int)} but calculated from the given
+	 * solution of the technosphere flow `j`, e.g. from the solutions of
+	 * {@link #solutionsOf(int[])}.
+	 */
+	default double[] totalImpactsOfOne(int techFlow, double[] solution) {
+		return totalImpactsOfOne(techFlow);
+	}
+
 	/**
 	 * Returns the total result (direct + upstream) of the impact category `k`
 	 * related to 1 unit of the technosphere flow `j` in the system. This is the
@@ -511,6 +555,15 @@ public interface ResultProvider {
 	 */
 	double totalCostsOfOne(int techFlow);
 
+	/**
+	 * Same as {@link #totalCostsOfOne(int)} but calculated from the given
+	 * solution of the technosphere flow `j`, e.g. from the solutions of
+	 * {@link #solutionsOf(int[])}.
+	 */
+	default double totalCostsOfOne(int techFlow, double[] solution) {
+		return totalCostsOfOne(techFlow);
+	}
+
 	/**
 	 * Returns the total cost result (direct + upstream) related to the total
 	 * requirements of the technosphere flow `j` in the system. This is the entry
@@ -530,6 +583,16 @@ public interface ResultProvider {
 	 */
 	double totalCosts();
 
+	/**
+	 * Returns the (estimated) number of bytes of the vectors that this
+	 * provider currently keeps on the heap in its caches of results that
+	 * are calculated on demand (see {@link VectorCache}). This does not
+	 * include the matrices and vectors that the provider always holds.
+	 */
+	default long cachedBytes() {
+		return 0;
+	}
+
 	/**
 	 * Returns {@code true} if the given array is {@code null} or empty (has a
 	 * length of 0).
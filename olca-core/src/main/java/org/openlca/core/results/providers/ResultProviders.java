@@ -1,5 +1,7 @@
 package org.openlca.core.results.providers;
 
+import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.solvers.MatrixSolver;
 import org.openlca.core.results.providers.libblocks.LibraryInversionSolver;
 
 public final class ResultProviders {
@@ -16,20 +18,26 @@ public final class ResultProviders {
 		if (context.hasLibraryLinks())
 			return LazyLibrarySolver.solve(context);
 
-		var data = context.data();
-		var solver = context.solver();
-
 		// small systems can be quickly calculated with full-matrix inversion
-		var smallLimit = solver.isNative()
-			? 5000
-			: 500;
-		if (data.techMatrix.rows() < smallLimit)
+		if (isSmall(context.data(), context.solver()))
 			return InversionResult.of(context).calculate().provider();
 
 		// solve via factorization by default
 		return FactorizationSolver.solve(context);
 	}
 
+	/**
+	 * Returns true if the technology matrix of the given data is small enough
+	 * to be quickly inverted with the given solver. Such systems are solved
+	 * via full-matrix inversion in {@link #solve(SolverContext)}.
+	 */
+	public static boolean isSmall(MatrixData data, MatrixSolver solver) {
+		var smallLimit = solver.isNative()
+			? 5000
+			: 500;
+		return data.techMatrix.rows() < smallLimit;
+	}
+
 	/**
 	 * Solves the context eagerly. This means it calculates all possible results
 	 * for a system. This typically includes a full matrix inversion.
@@ -0,0 +1,131 @@
+package org.openlca.core.results.providers;
+
+import java.util.LinkedHashMap;
+
+/**
+ * A vector cache that stores its vectors in a pool that is shared with other
+ * caches. The pool has a single limit of bytes for the vectors of all its
+ * caches; when this limit is exceeded, the least recently used vectors of
+ * all caches are removed first. Thus, the memory that the caches of the
+ * result providers use does not grow with the number of open results. The
+ * vectors of a cache that is not used anymore are removed from the pool over
+ * time, as they are not accessed again.
+ */
+class SharedVectorCache implements VectorCache {
+
+	private static Pool defaultPool;
+
+	private final Pool pool;
+
+	// guarded by the pool
+	private int size;
+	private long heapBytes;
+
+	SharedVectorCache(Pool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Returns the pool of the caches created with {@link VectorCache#create()}.
+	 * It can use up to an eighth of the maximum heap size, but at least 32 MB.
+	 */
+	static synchronized Pool defaultPool() {
+		if (defaultPool == null) {
+			long max = Runtime.getRuntime().maxMemory() / 8;
+			defaultPool = new Pool(Math.max(max, 32L * 1024 * 1024));
+		}
+		return defaultPool;
+	}
+
+	private Key keyOf(Slot slot, int index) {
+		long key = ((long) slot.ordinal() << 32) | (index & 0xffffffffL);
+		return new Key(this, key);
+	}
+
+	@Override
+	public double[] get(Slot slot, int index) {
+		synchronized (pool) {
+			return pool.vectors.get(keyOf(slot, index));
+		}
+	}
+
+	@Override
+	public double[] put(Slot slot, int index, double[] vector) {
+		if (vector == null)
+			return null;
+		synchronized (pool) {
+			pool.store(keyOf(slot, index), vector);
+		}
+		return vector;
+	}
+
+	@Override
+	public int size() {
+		synchronized (pool) {
+			return size;
+		}
+	}
+
+	@Override
+	public long heapBytes() {
+		synchronized (pool) {
+			return heapBytes;
+		}
+	}
+
+	@Override
+	public void clear() {
+		synchronized (pool) {
+			pool.vectors.keySet().removeIf(key -> key.owner == this);
+			pool.bytes -= heapBytes;
+			size = 0;
+			heapBytes = 0;
+		}
+	}
+
+	private record Key(SharedVectorCache owner, long key) {
+	}
+
+	/**
+	 * The shared store of the vectors of multiple caches.
+	 */
+	static class Pool {
+
+		private final long maxBytes;
+		private final LinkedHashMap<Key, double[]> vectors =
+			new LinkedHashMap<>(64, 0.75f, true);
+		private long bytes;
+
+		Pool(long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		synchronized long bytes() {
+			return bytes;
+		}
+
+		private void store(Key key, double[] vector) {
+			var old = vectors.put(key, vector);
+			long diff = VectorCache.bytesOf(vector) - VectorCache.bytesOf(old);
+			bytes += diff;
+			key.owner.heapBytes += diff;
+			if (old == null) {
+				key.owner.size++;
+			}
+			if (bytes <= maxBytes)
+				return;
+			var it = vectors.entrySet().iterator();
+			while (bytes > maxBytes && it.hasNext()) {
+				var eldest = it.next();
+				if (eldest.getKey().equals(key))
+					continue;
+				it.remove();
+				long removed = VectorCache.bytesOf(eldest.getValue());
+				bytes -= removed;
+				var owner = eldest.getKey().owner;
+				owner.heapBytes -= removed;
+				owner.size--;
+			}
+		}
+	}
+}
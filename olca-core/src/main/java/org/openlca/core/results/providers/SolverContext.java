@@ -1,11 +1,15 @@
 package org.openlca.core.results.providers;
 
+import java.util.function.Supplier;
+
 import org.openlca.core.DataDir;
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.library.LibraryDir;
 import org.openlca.core.matrix.Demand;
 import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.solvers.Factorization;
 import org.openlca.core.matrix.solvers.MatrixSolver;
+import org.openlca.core.matrix.solvers.SymbolicFactorization;
 
 public class SolverContext {
 
@@ -14,6 +18,9 @@ public class SolverContext {
 	private LibraryDir libDir;
 	private LibraryCache libraries;
 	private MatrixSolver solver;
+	private SymbolicFactorization analysis;
+	private Factorization factorization;
+	private Supplier<VectorCache> vectorCaches;
 
 	private SolverContext(IDatabase db, MatrixData matrixData) {
 		this.db = db;
@@ -79,4 +86,63 @@ public class SolverContext {
 		}
 		return solver;
 	}
+
+	/**
+	 * Sets the symbolic analysis of the technology matrix that should be used
+	 * for the factorization of that matrix. This is useful when matrices with
+	 * the same non-zero pattern are solved many times (e.g. in a Monte-Carlo
+	 * simulation); see {@link MatrixSolver#analyze}.
+	 */
+	public SolverContext analysis(SymbolicFactorization analysis) {
+		this.analysis = analysis;
+		return this;
+	}
+
+	/**
+	 * Returns the symbolic analysis of the technology matrix if it was set,
+	 * otherwise `null`.
+	 */
+	public SymbolicFactorization analysis() {
+		return analysis;
+	}
+
+	/**
+	 * Sets an existing factorization of the technology matrix of this context.
+	 * This is useful when results for different demands of the same matrices
+	 * are calculated (e.g. for project variants that only differ in their
+	 * amount). The factorization is then shared between the result providers
+	 * and must not be disposed while these are in use.
+	 */
+	public SolverContext factorization(Factorization factorization) {
+		this.factorization = factorization;
+		return this;
+	}
+
+	/**
+	 * Returns the factorization of the technology matrix if it was set,
+	 * otherwise `null`.
+	 */
+	public Factorization factorization() {
+		return factorization;
+	}
+
+	/**
+	 * Sets the factory of the caches in which a result provider stores the
+	 * vectors that it calculates on demand. Each provider that is created
+	 * with this context gets its own cache from this factory. By default,
+	 * bounded caches are used, see {@link VectorCache#create()}.
+	 */
+	public SolverContext vectorCaches(Supplier<VectorCache> factory) {
+		this.vectorCaches = factory;
+		return this;
+	}
+
+	/**
+	 * Creates a new vector cache for a result provider.
+	 */
+	public VectorCache newVectorCache() {
+		return vectorCaches != null
+			? vectorCaches.get()
+			: VectorCache.create();
+	}
 }
@@ -0,0 +1,94 @@
+package org.openlca.core.results.providers;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+
+/**
+ * A memory mapped area outside of the heap into which a vector cache moves
+ * the vectors that it removes from the heap. The vectors are appended to the
+ * area; when it is full, it is reset. The area is backed by a temporary file
+ * that is deleted when the area is created; the memory of the mapping is
+ * released when the area is garbage collected.
+ */
+class SpillArea {
+
+	private final MappedByteBuffer buffer;
+
+	/**
+	 * Maps the cache keys to the positions of the vectors in the buffer:
+	 * {@code offset << 32 | length}.
+	 */
+	private final TLongLongHashMap positions = new TLongLongHashMap(
+		64, 0.75f, -1L, -1L);
+	private int next;
+
+	private SpillArea(MappedByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Creates a new spill area with the given capacity in bytes, which is
+	 * limited to 2 GB. Returns {@code null} if the area could not be created.
+	 */
+	static SpillArea create(long bytes) {
+		int capacity = (int) Math.min(bytes, Integer.MAX_VALUE - 7) & ~7;
+		if (capacity <= 0)
+			return null;
+		try {
+			var file = Files.createTempFile("olca_vectors_", ".bin");
+			try (var channel = FileChannel.open(file,
+				StandardOpenOption.READ,
+				StandardOpenOption.WRITE,
+				StandardOpenOption.DELETE_ON_CLOSE)) {
+				var buffer = channel.map(
+					FileChannel.MapMode.READ_WRITE, 0, capacity);
+				return new SpillArea(buffer);
+			}
+		} catch (Exception e) {
+			var log = LoggerFactory.getLogger(SpillArea.class);
+			log.warn("failed to create spill area for result vectors", e);
+			return null;
+		}
+	}
+
+	void put(long key, double[] vector) {
+		int bytes = vector.length * 8;
+		if (bytes > buffer.capacity())
+			return;
+		if (next + bytes > buffer.capacity()) {
+			clear();
+		}
+		buffer.slice(next, bytes).asDoubleBuffer().put(vector);
+		positions.put(key, ((long) next << 32) | vector.length);
+		next += bytes;
+	}
+
+	double[] get(long key) {
+		long pos = positions.get(key);
+		if (pos < 0)
+			return null;
+		int offset = (int) (pos >>> 32);
+		int length = (int) pos;
+		var vector = new double[length];
+		buffer.slice(offset, length * 8).asDoubleBuffer().get(vector);
+		return vector;
+	}
+
+	/**
+	 * Returns the number of bytes that are currently used in this area.
+	 */
+	long bytes() {
+		return next;
+	}
+
+	void clear() {
+		positions.clear();
+		next = 0;
+	}
+}
@@ -0,0 +1,115 @@
+package org.openlca.core.results.providers;
+
+/**
+ * A store for the result vectors that a result provider calculates on demand,
+ * like the solutions of single technosphere flows or the total flows of a
+ * unit of a product. Such vectors are typically requested again when a user
+ * browses a result (e.g. in contribution trees), but for large systems they
+ * cannot be all kept in memory. A cache can thus drop vectors at any time and
+ * the provider just calculates them again when they are requested the next
+ * time. The vectors in a cache must not be modified.
+ * <p>
+ * The implementations are thread-safe, as a result provider can be read by
+ * multiple threads at the same time.
+ */
+public interface VectorCache {
+
+	/**
+	 * The kinds of vectors that are cached. The same index can be used as
+	 * key for vectors of different kinds.
+	 */
+	enum Slot {
+		SOLUTION,
+		TECH_COLUMN,
+		FLOW_COLUMN,
+		DIRECT_FLOWS,
+		TOTAL_FLOWS,
+		DIRECT_IMPACTS,
+		TOTAL_IMPACTS
+	}
+
+	/**
+	 * Returns the cached vector of the given slot and index or {@code null}
+	 * if there is no such vector in the cache.
+	 */
+	double[] get(Slot slot, int index);
+
+	/**
+	 * Puts the given vector into the cache and returns it.
+	 */
+	double[] put(Slot slot, int index, double[] vector);
+
+	/**
+	 * Returns the number of vectors that are currently stored in the cache.
+	 */
+	int size();
+
+	/**
+	 * Returns the (estimated) number of bytes of the vectors that are
+	 * currently stored on the heap.
+	 */
+	long heapBytes();
+
+	/**
+	 * Returns the number of bytes of the vectors that are stored outside of
+	 * the heap, see {@link #bounded(long, long)}.
+	 */
+	default long spilledBytes() {
+		return 0;
+	}
+
+	/**
+	 * Removes all vectors from the cache.
+	 */
+	void clear();
+
+	/**
+	 * Creates a cache that keeps all vectors. This was the behaviour of the
+	 * result providers before the caches were bounded; it is fine for smaller
+	 * systems.
+	 */
+	static VectorCache unbounded() {
+		return new LruVectorCache(Long.MAX_VALUE, 0);
+	}
+
+	/**
+	 * Creates a cache that holds at most the given number of bytes on the
+	 * heap. When this limit is exceeded, the least recently used vectors are
+	 * removed from the cache.
+	 */
+	static VectorCache bounded(long maxBytes) {
+		return new LruVectorCache(maxBytes, 0);
+	}
+
+	/**
+	 * Creates a cache that holds at most the given number of bytes on the
+	 * heap. The least recently used vectors are moved into a memory mapped
+	 * area outside of the heap with the given capacity in bytes. When this
+	 * area is full, it is reset and the vectors in it need to be calculated
+	 * again.
+	 */
+	static VectorCache bounded(long maxBytes, long spillBytes) {
+		return new LruVectorCache(maxBytes, spillBytes);
+	}
+
+	/**
+	 * Creates a cache with the default bounds: all caches that are created
+	 * with this method share one budget of an eighth of the maximum heap size
+	 * (but at least 32 MB), in which the least recently used vectors of all
+	 * these caches are removed first. Thus, the number of open results does
+	 * not multiply the memory that is used by their caches.
+	 */
+	static VectorCache create() {
+		return new SharedVectorCache(SharedVectorCache.defaultPool());
+	}
+
+	/**
+	 * Returns the estimated number of bytes that the given vector occupies on
+	 * the heap.
+	 */
+	static long bytesOf(double[] vector) {
+		return vector == null
+			? 0
+			: 16L + 8L * vector.length;
+	}
+}
@@ -22,6 +22,7 @@ public class CalculationQueue {
 	private final ExecutorService threads;
 	private LibraryDir libDir;
 	private Cleaner cleaner;
+	private ResultCache cache;
 
 	public CalculationQueue(IDatabase db, int threadCount) {
 		this.db = db;
@@ -34,12 +35,32 @@ public class CalculationQueue {
 		return this;
 	}
 
+	/**
+	 * Sets a cache for the results of this queue. Calculations of setups for
+	 * which a result is in the cache are then not performed again. The cache
+	 * is registered as listener of the database so that it is invalidated when
+	 * the database changes.
+	 */
+	public CalculationQueue withCache(ResultCache cache) {
+		if (this.cache != null) {
+			db.listeners().remove(this.cache);
+		}
+		this.cache = cache;
+		if (cache != null) {
+			db.listeners().add(cache);
+		}
+		return this;
+	}
+
 	public static CalculationQueue of(ServerConfig config) {
 		var queue = new CalculationQueue(config.db(), config.threadCount());
 		queue.withLibraryDir(config.dataDir().getLibraryDir());
 		if (config.timeout() > 0) {
 			queue.withTimeout(config.timeout(), TimeUnit.MINUTES);
 		}
+		if (config.cacheSize() > 0) {
+			queue.withCache(new ResultCache(config.cacheSize()));
+		}
 		return queue;
 	}
 
@@ -66,6 +87,9 @@ public class CalculationQueue {
 		if (cleaner != null) {
 			cleaner.halt();
 		}
+		if (cache != null) {
+			db.listeners().remove(cache);
+		}
 		threads.shutdown();
 		return threads;
 	}
@@ -91,10 +115,20 @@ public class CalculationQueue {
 	}
 
 	/**
-	 * Schedules a calculation and returns immediately.
+	 * Schedules a calculation and returns immediately. If a result cache is
+	 * set and contains a result for the setup, the returned state is already
+	 * finished with that result.
 	 */
 	public ResultState schedule(CalculationSetup setup) {
 		var state = ResultState.schedule(Objects.requireNonNull(setup));
+		var cached = cache != null
+				? cache.get(setup)
+				: null;
+		if (cached != null) {
+			var ready = state.updateResult(cached);
+			states.put(ready.id(), ready);
+			return ready;
+		}
 		states.put(state.id(), state);
 		submit(state.id());
 		return state;
@@ -138,9 +172,15 @@ public class CalculationQueue {
 				if (state.simulator() != null) {
 					result = state.simulator().nextRun();
 				} else {
+					var key = cache != null
+							? cache.keyOf(state.setup())
+							: null;
 					result = new SystemCalculator(db)
 							.withLibraryDir(libDir)
 							.calculate(state.setup());
+					if (cache != null) {
+						cache.put(key, result);
+					}
 				}
 				var nextState = state.updateResult(result);
 				states.put(state.id(), nextState);
@@ -20,6 +20,7 @@ import org.openlca.core.model.FlowProperty;
 import org.openlca.core.model.ImpactCategory;
 import org.openlca.core.model.ImpactMethod;
 import org.openlca.core.model.Location;
+import org.openlca.core.model.ModelType;
 import org.openlca.core.model.Parameter;
 import org.openlca.core.model.ParameterizedEntity;
 import org.openlca.core.model.Process;
@@ -132,6 +133,34 @@ public record JsonDataService(IDatabase db) {
 		}
 	}
 
+	/**
+	 * Searches the descriptors that match the given query with the search index
+	 * of the database and returns a page of the ranked results.
+	 *
+	 * @param query    the search query
+	 * @param type     an optional type filter; can be {@code null}
+	 * @param page     the page of the results, starting with 1
+	 * @param pageSize the number of results per page
+	 */
+	public Response<JsonArray> search(
+			String query, ModelType type, int page, int pageSize) {
+		if (Strings.nullOrEmpty(query))
+			return Response.error("no search query provided");
+		try {
+			int size = Math.max(1, pageSize);
+			int offset = (Math.max(1, page) - 1) * size;
+			var descriptors = SearchIndex.of(db).search(query, type, offset, size);
+			var array = new JsonArray();
+			var refs = JsonRefs.of(db);
+			for (var d : descriptors) {
+				array.add(refs.asRef(d));
+			}
+			return Response.of(array);
+		} catch (Exception e) {
+			return Response.error(e);
+		}
+	}
+
 	/**
 	 * Get the descriptor for the given type and ID. Returns an empty response if
 	 * no such descriptor exists.
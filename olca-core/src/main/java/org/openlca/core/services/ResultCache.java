@@ -0,0 +1,201 @@
+package org.openlca.core.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openlca.core.database.IDatabaseListener;
+import org.openlca.core.model.AbstractEntity;
+import org.openlca.core.model.CalculationSetup;
+import org.openlca.core.model.RootEntity;
+import org.openlca.core.model.descriptors.Descriptor;
+import org.openlca.core.results.LcaResult;
+
+/**
+ * A cache of calculation results. The results are stored under a key that is
+ * a canonical hash of the calculation setup combined with a change counter of
+ * the database. The cache is registered as listener of the database: each
+ * change of a model increments the counter and clears the cache. When the
+ * number of cached results exceeds the maximum size, the least recently used
+ * results are removed. Bulk imports notify the listeners via
+ * {@link org.openlca.core.database.DatabaseListeners#fireChanged()}, which
+ * also clears the cache. Note that changes of the database via native SQL are
+ * not tracked; call {@link #invalidate()} in this case.
+ * <p>
+ * A cached result is shared by all clients that calculated an equal setup.
+ * Thus, the results must be safe for concurrent reads: the result providers
+ * only compute values on demand in synchronized vector caches or in fields
+ * that are published safely (at worst, such a value is computed twice).
+ */
+public class ResultCache implements IDatabaseListener {
+
+	private final int maxSize;
+	private final AtomicLong dbChanges = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final LinkedHashMap<Key, LcaResult> results;
+
+	/**
+	 * Creates a new result cache.
+	 *
+	 * @param maxSize the maximum number of results that are kept in the cache.
+	 */
+	public ResultCache(int maxSize) {
+		this.maxSize = Math.max(1, maxSize);
+		this.results = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, LcaResult> e) {
+				return size() > ResultCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Creates the key of the given setup for the current state of the database.
+	 * Create the key before the calculation starts, so that a result is not
+	 * cached under the key of a database state that was changed during the
+	 * calculation.
+	 */
+	public Key keyOf(CalculationSetup setup) {
+		return new Key(hashOf(setup), dbChanges.get());
+	}
+
+	/**
+	 * Returns the cached result of the given setup, or {@code null} if there is
+	 * no such result in the cache.
+	 */
+	public LcaResult get(CalculationSetup setup) {
+		if (setup == null)
+			return null;
+		var key = keyOf(setup);
+		LcaResult result;
+		synchronized (results) {
+			result = results.get(key);
+		}
+		if (result == null) {
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the given result under the given key. The result is not stored
+	 * when the database was changed since the key was created.
+	 */
+	public void put(Key key, LcaResult result) {
+		if (key == null || result == null)
+			return;
+		synchronized (results) {
+			if (key.dbChanges != dbChanges.get())
+				return;
+			results.put(key, result);
+		}
+	}
+
+	/**
+	 * Removes all results from the cache. Results that are currently calculated
+	 * will not be added to the cache.
+	 */
+	public void invalidate() {
+		synchronized (results) {
+			dbChanges.incrementAndGet();
+			results.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (results) {
+			return results.size();
+		}
+	}
+
+	public long hits() {
+		return hits.get();
+	}
+
+	public long misses() {
+		return misses.get();
+	}
+
+	@Override
+	public void modelInserted(Descriptor descriptor) {
+		invalidate();
+	}
+
+	@Override
+	public void modelUpdated(Descriptor descriptor) {
+		invalidate();
+	}
+
+	@Override
+	public void modelDeleted(Descriptor descriptor) {
+		invalidate();
+	}
+
+	@Override
+	public void databaseChanged() {
+		invalidate();
+	}
+
+	/**
+	 * Calculates a canonical hash of the given setup. Two setups have the same
+	 * hash when they have the same calculation target, method, parameter
+	 * redefinitions (independent of their order), and other calculation
+	 * properties.
+	 */
+	static String hashOf(CalculationSetup setup) {
+		var b = new StringBuilder();
+		b.append("target=").append(refOf(setup.target()))
+				.append(";method=").append(refOf(setup.impactMethod()))
+				.append(";nwSet=").append(refOf(setup.nwSet()))
+				.append(";allocation=").append(setup.allocation())
+				.append(";costs=").append(setup.hasCosts())
+				.append(";regionalized=").append(setup.hasRegionalization())
+				.append(";unit=").append(refOf(setup.unit()))
+				.append(";property=").append(refOf(setup.flowPropertyFactor()))
+				.append(";amount=").append(setup.amount())
+				.append(";parameters=");
+
+		var params = new ArrayList<String>();
+		for (var p : setup.parameters()) {
+			params.add(p.contextType + "/" + p.contextId
+					+ "/" + p.name + "=" + p.value);
+		}
+		params.sort(null);
+		b.append(String.join(",", params));
+
+		try {
+			var digest = MessageDigest.getInstance("SHA-256");
+			var hash = digest.digest(
+					b.toString().getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(hash);
+		} catch (NoSuchAlgorithmException e) {
+			// should not happen; SHA-256 is always available
+			return b.toString();
+		}
+	}
+
+	private static String refOf(AbstractEntity e) {
+		if (e == null)
+			return "null";
+		return e instanceof RootEntity re
+				? re.refId + "@" + re.id + ":" + re.version + ":" + re.lastChange
+				: Long.toString(e.id);
+	}
+
+	/**
+	 * The key of a cached result.
+	 *
+	 * @param setupHash the canonical hash of the calculation setup
+	 * @param dbChanges the change counter of the database
+	 */
+	public record Key(String setupHash, long dbChanges) {
+	}
+}
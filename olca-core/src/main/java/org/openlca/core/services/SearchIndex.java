@@ -0,0 +1,528 @@
+package org.openlca.core.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.openlca.core.database.Daos;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.IDatabaseListener;
+import org.openlca.core.database.NativeSql;
+import org.openlca.core.database.ParameterDao;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.ParameterScope;
+import org.openlca.core.model.descriptors.Descriptor;
+import org.openlca.core.model.descriptors.RootDescriptor;
+import org.openlca.util.Strings;
+
+/**
+ * An in-memory full-text index of the descriptors of a database. The names,
+ * the synonyms of flows, and the names of the categories of the descriptors
+ * are split into lower-case tokens which are stored in a sorted map of
+ * posting lists. A query is tokenized in the same way and each query token
+ * matches the indexed tokens that are equal to it or start with it. The hits
+ * are ranked by the number of matched query tokens, the fields in which they
+ * were found (names count more than synonyms and categories), and whether the
+ * matches were exact or prefix matches. A query that is equal to the ID of a
+ * data set returns that data set first.
+ * <p>
+ * The index is built on the first search and is then maintained
+ * incrementally: it is registered as listener of the database and updates
+ * the entries of the models that are inserted, updated, or deleted. Bulk
+ * writes like the JSON-LD and protocol buffer imports fire a change event
+ * of the database when they are finished; the index is then cleared and
+ * built again on the next search. Changes of the database via native SQL
+ * are not tracked; call {@link #invalidate()} in this case.
+ */
+public class SearchIndex implements IDatabaseListener {
+
+	private static final int NAME = 1;
+	private static final int SYNONYM = 2;
+	private static final int CATEGORY = 4;
+
+	/**
+	 * The types of the data sets that are indexed; parameters are only indexed
+	 * when they are global parameters.
+	 */
+	private static final ModelType[] TYPES = {
+			ModelType.CATEGORY,
+			ModelType.PROJECT,
+			ModelType.PRODUCT_SYSTEM,
+			ModelType.IMPACT_METHOD,
+			ModelType.IMPACT_CATEGORY,
+			ModelType.PROCESS,
+			ModelType.FLOW,
+			ModelType.SOCIAL_INDICATOR,
+			ModelType.PARAMETER,
+			ModelType.FLOW_PROPERTY,
+			ModelType.UNIT_GROUP,
+			ModelType.CURRENCY,
+			ModelType.ACTOR,
+			ModelType.SOURCE,
+			ModelType.LOCATION,
+			ModelType.DQ_SYSTEM
+	};
+
+	private final IDatabase db;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<Key, Entry> entries = new HashMap<>();
+	private final Map<String, Set<Entry>> refIds = new HashMap<>();
+	private final TreeMap<String, Map<Entry, Integer>> postings = new TreeMap<>();
+	private final Map<Long, String> categoryNames = new HashMap<>();
+	private boolean built;
+
+	private SearchIndex(IDatabase db) {
+		this.db = db;
+	}
+
+	/**
+	 * Returns the search index of the given database. The index is created and
+	 * registered as listener of the database when it is requested for the
+	 * first time; the same index is returned for subsequent calls.
+	 */
+	public static SearchIndex of(IDatabase db) {
+		synchronized (SearchIndex.class) {
+			var existing = db.listeners().find(SearchIndex.class);
+			if (existing.isPresent())
+				return existing.get();
+			var index = new SearchIndex(db);
+			db.listeners().add(index);
+			return index;
+		}
+	}
+
+	/**
+	 * Returns all descriptors that match the given query in ranked order.
+	 *
+	 * @param query the search query
+	 * @param type  an optional type filter; can be {@code null}
+	 */
+	public List<RootDescriptor> search(String query, ModelType type) {
+		return search(query, type, 0, 0);
+	}
+
+	/**
+	 * Returns a page of the descriptors that match the given query in ranked
+	 * order.
+	 *
+	 * @param query  the search query
+	 * @param type   an optional type filter; can be {@code null}
+	 * @param offset the position of the first hit that should be returned
+	 * @param limit  the maximum number of hits that should be returned; all
+	 *               hits after the offset are returned if this is {@code <= 0}
+	 */
+	public List<RootDescriptor> search(
+			String query, ModelType type, int offset, int limit) {
+		var terms = tokensOf(query);
+		if (terms.isEmpty())
+			return Collections.emptyList();
+		ensureBuilt();
+
+		lock.readLock().lock();
+		try {
+			var hits = new HashMap<Entry, Hit>();
+
+			// a query can be the ID of a data set
+			var refMatches = refIds.get(query.trim().toLowerCase());
+			if (refMatches != null) {
+				for (var e : refMatches) {
+					if (type == null || e.descriptor.type == type) {
+						hits.put(e, new Hit(e, true));
+					}
+				}
+			}
+
+			for (int i = 0; i < terms.size(); i++) {
+				var term = terms.get(i);
+				var matches = postings.subMap(term, true, term + Character.MAX_VALUE, true);
+				for (var m : matches.entrySet()) {
+					boolean exact = m.getKey().equals(term);
+					for (var p : m.getValue().entrySet()) {
+						var e = p.getKey();
+						if (type != null && e.descriptor.type != type)
+							continue;
+						hits.computeIfAbsent(e, $ -> new Hit($, false))
+								.add(i, scoreOf(p.getValue(), exact));
+					}
+				}
+			}
+
+			var ranked = new ArrayList<>(hits.values());
+			ranked.sort(null);
+			int start = Math.max(0, offset);
+			int end = limit > 0
+					? Math.min(ranked.size(), start + limit)
+					: ranked.size();
+			if (start >= end)
+				return Collections.emptyList();
+			var page = new ArrayList<RootDescriptor>(end - start);
+			for (int i = start; i < end; i++) {
+				page.add(ranked.get(i).entry.descriptor);
+			}
+			return page;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of indexed data sets. This builds the index if this
+	 * was not done yet.
+	 */
+	public int size() {
+		ensureBuilt();
+		lock.readLock().lock();
+		try {
+			return entries.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Clears the index so that it is built again on the next search.
+	 */
+	public void invalidate() {
+		lock.writeLock().lock();
+		try {
+			entries.clear();
+			refIds.clear();
+			postings.clear();
+			categoryNames.clear();
+			built = false;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void modelInserted(Descriptor d) {
+		update(d);
+	}
+
+	@Override
+	public void modelUpdated(Descriptor d) {
+		update(d);
+	}
+
+	@Override
+	public void databaseChanged() {
+		invalidate();
+	}
+
+	@Override
+	public void modelDeleted(Descriptor d) {
+		if (!isIndexed(d))
+			return;
+		lock.writeLock().lock();
+		try {
+			if (!built)
+				return;
+			remove(Key.of(d));
+			if (d.type == ModelType.CATEGORY) {
+				categoryNames.remove(d.id);
+				reindexCategory(d.id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void update(Descriptor descriptor) {
+		if (!isIndexed(descriptor)
+				|| !(descriptor instanceof RootDescriptor d))
+			return;
+		// the descriptors of the events do not contain the synonyms and
+		// scopes, so we need to query them
+		if (d.type == ModelType.PARAMETER && !isGlobalParameter(d.id)) {
+			modelDeleted(d);
+			return;
+		}
+		var synonyms = d.type == ModelType.FLOW
+				? synonymsOf(d.id)
+				: null;
+
+		lock.writeLock().lock();
+		try {
+			if (!built)
+				return;
+			remove(Key.of(d));
+			add(d, synonyms);
+			if (d.type == ModelType.CATEGORY) {
+				categoryNames.put(d.id, d.name);
+				reindexCategory(d.id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private boolean isIndexed(Descriptor d) {
+		if (d == null || d.type == null)
+			return false;
+		for (var type : TYPES) {
+			if (type == d.type)
+				return true;
+		}
+		return false;
+	}
+
+	private void ensureBuilt() {
+		lock.readLock().lock();
+		try {
+			if (built)
+				return;
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		lock.writeLock().lock();
+		try {
+			if (built)
+				return;
+			var synonyms = new HashMap<Long, String>();
+			var sql = "select id, synonyms from tbl_flows where synonyms is not null";
+			NativeSql.on(db).query(sql, r -> {
+				synonyms.put(r.getLong(1), r.getString(2));
+				return true;
+			});
+
+			for (var type : TYPES) {
+				var descriptors = type == ModelType.PARAMETER
+						? new ParameterDao(db).getGlobalDescriptors()
+						: descriptorsOf(type);
+				for (var d : descriptors) {
+					if (type == ModelType.CATEGORY) {
+						categoryNames.put(d.id, d.name);
+					}
+					add(d, type == ModelType.FLOW
+							? synonyms.get(d.id)
+							: null);
+				}
+			}
+			built = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private List<? extends RootDescriptor> descriptorsOf(ModelType type) {
+		var dao = Daos.root(db, type);
+		return dao == null
+				? Collections.emptyList()
+				: dao.getDescriptors();
+	}
+
+	/**
+	 * Updates the category tokens of the entries in the given category. The
+	 * categories are indexed first, so that this is only required when a
+	 * category is renamed or deleted.
+	 */
+	private void reindexCategory(long categoryId) {
+		var affected = new ArrayList<Entry>();
+		for (var e : entries.values()) {
+			if (e.descriptor.category != null
+					&& e.descriptor.category == categoryId) {
+				affected.add(e);
+			}
+		}
+		for (var e : affected) {
+			remove(e.key);
+			add(e.descriptor, e.synonyms);
+		}
+	}
+
+	private void add(RootDescriptor d, String synonyms) {
+		var fields = new HashMap<String, Integer>();
+		for (var token : tokensOf(d.name)) {
+			fields.merge(token, NAME, (a, b) -> a | b);
+		}
+		for (var token : tokensOf(synonyms)) {
+			fields.merge(token, SYNONYM, (a, b) -> a | b);
+		}
+		if (d.category != null) {
+			for (var token : tokensOf(categoryNames.get(d.category))) {
+				fields.merge(token, CATEGORY, (a, b) -> a | b);
+			}
+		}
+
+		var entry = new Entry(Key.of(d), d, synonyms, fields);
+		entries.put(entry.key, entry);
+		for (var f : fields.entrySet()) {
+			postings.computeIfAbsent(f.getKey(), $ -> new HashMap<>())
+					.put(entry, f.getValue());
+		}
+		if (d.refId != null) {
+			refIds.computeIfAbsent(d.refId.toLowerCase(), $ -> new HashSet<>())
+					.add(entry);
+		}
+	}
+
+	private void remove(Key key) {
+		var entry = entries.remove(key);
+		if (entry == null)
+			return;
+		for (var token : entry.fields.keySet()) {
+			var posting = postings.get(token);
+			if (posting == null)
+				continue;
+			posting.remove(entry);
+			if (posting.isEmpty()) {
+				postings.remove(token);
+			}
+		}
+		if (entry.descriptor.refId != null) {
+			var refId = entry.descriptor.refId.toLowerCase();
+			var set = refIds.get(refId);
+			if (set != null) {
+				set.remove(entry);
+				if (set.isEmpty()) {
+					refIds.remove(refId);
+				}
+			}
+		}
+	}
+
+	private String synonymsOf(long flowId) {
+		var sql = "select synonyms from tbl_flows where id = " + flowId;
+		var synonyms = new String[1];
+		NativeSql.on(db).query(sql, r -> {
+			synonyms[0] = r.getString(1);
+			return false;
+		});
+		return synonyms[0];
+	}
+
+	private boolean isGlobalParameter(long id) {
+		var sql = "select scope from tbl_parameters where id = " + id;
+		var global = new boolean[1];
+		NativeSql.on(db).query(sql, r -> {
+			global[0] = ParameterScope.GLOBAL.name().equals(r.getString(1));
+			return false;
+		});
+		return global[0];
+	}
+
+	/**
+	 * Splits the given text into lower-case tokens of letters and digits.
+	 */
+	static List<String> tokensOf(String text) {
+		if (Strings.nullOrEmpty(text))
+			return Collections.emptyList();
+		var tokens = new ArrayList<String>();
+		var s = text.toLowerCase();
+		int start = -1;
+		for (int i = 0; i <= s.length(); i++) {
+			boolean isPart = i < s.length()
+					&& Character.isLetterOrDigit(s.charAt(i));
+			if (isPart) {
+				if (start < 0) {
+					start = i;
+				}
+				continue;
+			}
+			if (start >= 0) {
+				tokens.add(s.substring(start, i));
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Calculates the score of a token match in the given fields.
+	 */
+	private static int scoreOf(int fields, boolean exact) {
+		int score = 0;
+		if ((fields & NAME) != 0) {
+			score = 8;
+		} else if ((fields & SYNONYM) != 0) {
+			score = 4;
+		} else if ((fields & CATEGORY) != 0) {
+			score = 2;
+		}
+		return exact ? score : score / 2;
+	}
+
+	private record Key(ModelType type, long id) {
+
+		static Key of(Descriptor d) {
+			return new Key(d.type, d.id);
+		}
+	}
+
+	private record Entry(
+			Key key,
+			RootDescriptor descriptor,
+			String synonyms,
+			Map<String, Integer> fields) {
+
+		// entries are used as keys in the posting lists; they are compared by
+		// identity so that the hash of the fields is not calculated
+
+		@Override
+		public boolean equals(Object obj) {
+			return this == obj;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this);
+		}
+	}
+
+	/**
+	 * Collects the best scores of the query tokens for an entry.
+	 */
+	private static class Hit implements Comparable<Hit> {
+
+		private static final Comparator<String> names = Comparator.nullsLast(
+				Comparator.comparingInt(String::length)
+						.thenComparing(String.CASE_INSENSITIVE_ORDER));
+
+		final Entry entry;
+		final boolean isRefId;
+		final Map<Integer, Integer> scores = new HashMap<>();
+
+		Hit(Entry entry, boolean isRefId) {
+			this.entry = entry;
+			this.isRefId = isRefId;
+		}
+
+		void add(int term, int score) {
+			scores.merge(term, score, Math::max);
+		}
+
+		int score() {
+			int sum = 0;
+			for (var s : scores.values()) {
+				sum += s;
+			}
+			return sum;
+		}
+
+		@Override
+		public int compareTo(Hit other) {
+			if (isRefId != other.isRefId)
+				return isRefId ? -1 : 1;
+			int c = Integer.compare(other.scores.size(), scores.size());
+			if (c != 0)
+				return c;
+			c = Integer.compare(other.score(), score());
+			if (c != 0)
+				return c;
+			c = names.compare(entry.descriptor.name, other.entry.descriptor.name);
+			if (c != 0)
+				return c;
+			return Long.compare(entry.descriptor.id, other.entry.descriptor.id);
+		}
+	}
+}
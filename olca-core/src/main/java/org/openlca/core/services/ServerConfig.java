@@ -51,6 +51,12 @@ import org.slf4j.LoggerFactory;
  * 	disposed by the user. A value of <=0 means that no timeout should be
  * 	applied; defaults to 0.
  *
+ * 	-cache <maximum number of cached results>
+ * 	The maximum number of calculation results that are cached; calculations
+ * 	of the same setup are then served from that cache as long as the database
+ * 	was not changed. A value of <=0 means that no results are cached; defaults
+ * 	to 0.
+ *
  *  --readonly <true | false>?
  *  If this flag is set, the server will run in readonly mode and modifying the
  *  database will not be possible.
@@ -97,6 +103,25 @@ public record ServerConfig(
 		return parser.parseArgs();
 	}
 
+	/**
+	 * Returns the maximum number of cached calculation results as defined by
+	 * the {@code -cache} argument; 0 if no results should be cached.
+	 */
+	public int cacheSize() {
+		if (args == null)
+			return 0;
+		var value = args.get("-cache");
+		if (value == null)
+			return 0;
+		try {
+			return Math.max(Integer.parseInt(value.strip()), 0);
+		} catch (NumberFormatException e) {
+			var log = LoggerFactory.getLogger(getClass());
+			log.error("invalid value for -cache: {} is not an integer", value);
+			return 0;
+		}
+	}
+
 	private static class Parser {
 
 		private final Logger log = LoggerFactory.getLogger(getClass());
@@ -3,9 +3,11 @@ package org.openlca.geo.calc;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
 import org.openlca.geo.geojson.Feature;
 import org.openlca.geo.geojson.FeatureCollection;
 import org.openlca.geo.geojson.Geometry;
@@ -17,6 +19,14 @@ import org.openlca.util.Pair;
  * with characterization factors of an LCIA category). A specific projection can
  * be applied when calculating the intersections. By default the Mollweide
  * projection is used.
+ * <p>
+ * When the calculator is created, the features are stored in an STR-tree
+ * with their bounding boxes. Thus, a geometry is only tested against the
+ * features with an overlapping bounding box. Also, the feature geometries are
+ * prepared for repeated intersection tests. A calculator can be used from
+ * multiple threads; for calculating the intersections of many geometries
+ * with the same feature collection, the batch method
+ * {@link #shares(List)} can be used.
  */
 public class IntersectionCalculator {
 
@@ -31,6 +41,17 @@ public class IntersectionCalculator {
 	 */
 	private final org.locationtech.jts.geom.Geometry[] geometries;
 
+	/**
+	 * The prepared geometries of the features for fast intersection tests.
+	 */
+	private final PreparedGeometry[] prepared;
+
+	/**
+	 * A spatial index that contains the positions of the features in the
+	 * arrays above, indexed by their bounding boxes.
+	 */
+	private final STRtree index;
+
 	private final Projection projection;
 
 	private IntersectionCalculator(
@@ -40,6 +61,15 @@ public class IntersectionCalculator {
 		this.features = features;
 		this.geometries = geometries;
 		this.projection = projection;
+		this.prepared = new PreparedGeometry[geometries.length];
+		this.index = new STRtree();
+		for (int i = 0; i < geometries.length; i++) {
+			prepared[i] = PreparedGeometryFactory.prepare(geometries[i]);
+			index.insert(geometries[i].getEnvelopeInternal(), i);
+		}
+		// building the tree is not thread-safe, so we do it here; queries
+		// on a built tree can then run in parallel
+		index.build();
 	}
 
 	public static IntersectionCalculator on(FeatureCollection coll) {
@@ -85,7 +115,7 @@ public class IntersectionCalculator {
 	 * with the given geometry.
 	 */
 	public List<Pair<Feature, Geometry>> calculate(Geometry g) {
-		return jts(g).map(p -> Pair.of(p.first, JTS.toGeoJSON(p.second)))
+		return jts(g, true).map(p -> Pair.of(p.first, JTS.toGeoJSON(p.second)))
 				.filter(p -> p.second != null)
 				.collect(Collectors.toList());
 	}
@@ -102,7 +132,25 @@ public class IntersectionCalculator {
 	 * </ol>
 	 */
 	public List<Pair<Feature, Double>> shares(Geometry g) {
-		List<Pair<Feature, org.locationtech.jts.geom.Geometry>> s = jts(g).toList();
+		return sharesOf(jts(g, true).toList());
+	}
+
+	/**
+	 * Calculates the intersection shares for each of the given geometries in
+	 * parallel; see {@link #shares(Geometry)}. The returned list contains the
+	 * shares in the same order as the given geometries.
+	 */
+	public List<List<Pair<Feature, Double>>> shares(
+			List<? extends Geometry> gs) {
+		if (gs == null || gs.isEmpty())
+			return new ArrayList<>();
+		return gs.parallelStream()
+				.map(g -> sharesOf(jts(g, false).toList()))
+				.collect(Collectors.toList());
+	}
+
+	private List<Pair<Feature, Double>> sharesOf(
+			List<Pair<Feature, org.locationtech.jts.geom.Geometry>> s) {
 
 		// get the maximum dimension
 		int maxDim = s.stream().reduce(0,
@@ -112,7 +160,7 @@ public class IntersectionCalculator {
 
 		// calculate the shares
 		List<Pair<Feature, Double>> shares = s
-				.parallelStream()
+				.stream()
 				.map(p -> {
 					double a = switch (maxDim) {
 						case 0 -> p.second.getNumGeometries();
@@ -142,10 +190,11 @@ public class IntersectionCalculator {
 
 	/**
 	 * Calculates the intersection geometries based on JTS geometries and
-	 * returns the non-empty intersections.
+	 * returns the non-empty intersections. Only the features with a bounding
+	 * box that overlaps with the bounding box of the geometry are tested.
 	 */
 	private Stream<Pair<Feature, org.locationtech.jts.geom.Geometry>> jts(
-			Geometry g) {
+			Geometry g, boolean parallel) {
 		if (g == null)
 			return Stream.empty();
 		org.locationtech.jts.geom.Geometry jts;
@@ -156,13 +205,37 @@ public class IntersectionCalculator {
 			projection.project(clone);
 			jts = JTS.fromGeoJSON(clone);
 		}
-		if (jts == null)
+		if (jts == null || jts.isEmpty())
 			return Stream.empty();
-		return IntStream.range(0, features.length)
-				.parallel()
-				.mapToObj(i -> Pair.of(
-						features[i], geometries[i].intersection(jts)))
+
+		List<Integer> candidates = new ArrayList<>();
+		index.query(jts.getEnvelopeInternal(),
+				item -> candidates.add((Integer) item));
+		if (candidates.isEmpty())
+			return Stream.empty();
+		var prepJts = PreparedGeometryFactory.prepare(jts);
+		var stream = parallel && candidates.size() > 1
+				? candidates.parallelStream()
+				: candidates.stream();
+		return stream
+				.map(i -> Pair.of(features[i], intersectionOf(i, jts, prepJts)))
 				.filter(p -> p.second != null && !p.second.isEmpty());
 	}
 
+	private org.locationtech.jts.geom.Geometry intersectionOf(
+			int i,
+			org.locationtech.jts.geom.Geometry jts,
+			PreparedGeometry prepJts) {
+		var feature = prepared[i];
+		if (!feature.intersects(jts))
+			return null;
+		// no need to calculate the intersection geometry when one geometry
+		// completely covers the other one
+		if (feature.covers(jts))
+			return jts;
+		if (prepJts.covers(geometries[i]))
+			return geometries[i];
+		return geometries[i].intersection(jts);
+	}
+
 }
@@ -17,6 +17,11 @@ import org.openlca.util.Strings;
  */
 public record FileStoreReader(File root) implements JsonStoreReader {
 
+	@Override
+	public boolean supportsParallelReads() {
+		return true;
+	}
+
 	@Override
 	public byte[] getBytes(String path) {
 		if (Strings.nullOrEmpty(path))
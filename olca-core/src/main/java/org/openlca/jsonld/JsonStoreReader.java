@@ -72,6 +72,15 @@ public interface JsonStoreReader {
 		return new Gson().fromJson(json, JsonElement.class);
 	}
 
+	/**
+	 * Returns true if the JSON objects and files of this store can be read
+	 * from multiple threads concurrently. Imports can then read and parse
+	 * JSON objects in parallel.
+	 */
+	default boolean supportsParallelReads() {
+		return false;
+	}
+
 	/**
 	 * Get the raw bytes of the JSON or binary file that is stored under the
 	 * given path.
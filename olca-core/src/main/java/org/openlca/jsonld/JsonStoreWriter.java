@@ -35,4 +35,13 @@ public interface JsonStoreWriter {
 
 	void put(String path, byte[] data);
 
+	/**
+	 * Returns true if data can be put into this store from multiple threads
+	 * concurrently. Otherwise, exports that run in parallel need to
+	 * synchronize the calls to this store.
+	 */
+	default boolean supportsParallelWrites() {
+		return false;
+	}
+
 }
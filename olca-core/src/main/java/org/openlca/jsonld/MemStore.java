@@ -71,6 +71,11 @@ public class MemStore implements JsonStoreReader, JsonStoreWriter {
 		return jsonData.get(path);
 	}
 
+	@Override
+	public boolean supportsParallelReads() {
+		return true;
+	}
+
 	@Override
 	public byte[] getBytes(String path) {
 		return byteData.get(path);
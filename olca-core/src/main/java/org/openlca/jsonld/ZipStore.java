@@ -58,6 +58,11 @@ public class ZipStore implements JsonStoreWriter, JsonStoreReader, AutoCloseable
 		}
 	}
 
+	@Override
+	public boolean supportsParallelReads() {
+		return true;
+	}
+
 	@Override
 	public byte[] getBytes(String path) {
 		if (Strings.nullOrEmpty(path))
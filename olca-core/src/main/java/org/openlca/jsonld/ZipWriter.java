@@ -0,0 +1,139 @@
+package org.openlca.jsonld;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.openlca.util.Strings;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A write-only store that streams the entries directly into a new zip file.
+ * Other than the {@link ZipStore}, which writes into a zip file system, this
+ * writer can be used from multiple threads: the data are put into a bounded
+ * queue from which a single thread writes them into the zip file. When the
+ * queue is full, the threads that put data into this store are blocked until
+ * there is space again. Thus, the memory that is used for pending entries is
+ * bounded.
+ * <p>
+ * Entries cannot be replaced in a zip stream. If an entry is put multiple
+ * times into this store, only the first one is written. The store must be
+ * closed to finish the zip file.
+ */
+public class ZipWriter implements JsonStoreWriter, AutoCloseable {
+
+	private static final Entry END = new Entry(null, null);
+
+	private final ZipOutputStream zip;
+	private final BlockingQueue<Entry> queue;
+	private final Thread thread;
+	private volatile Exception error;
+	private volatile boolean closed;
+
+	private ZipWriter(File file, int queueSize) throws IOException {
+		zip = new ZipOutputStream(
+			new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+		thread = new Thread(this::writeEntries, "ZipWriter:" + file.getName());
+		thread.setDaemon(true);
+		thread.start();
+		PackageInfo.create().writeTo(this);
+	}
+
+	/**
+	 * Creates a new zip file. An existing file is overwritten.
+	 */
+	public static ZipWriter open(File file) throws IOException {
+		return new ZipWriter(file, 1024);
+	}
+
+	/**
+	 * Creates a new zip file with the given maximum number of entries that
+	 * can wait to be written.
+	 */
+	public static ZipWriter open(File file, int queueSize) throws IOException {
+		return new ZipWriter(file, queueSize);
+	}
+
+	@Override
+	public boolean supportsParallelWrites() {
+		return true;
+	}
+
+	@Override
+	public void put(String path, byte[] data) {
+		if (Strings.nullOrEmpty(path) || data == null)
+			return;
+		if (closed)
+			throw new IllegalStateException("the zip writer is closed");
+		try {
+			queue.put(new Entry(path, data));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while writing " + path, e);
+		}
+	}
+
+	private void writeEntries() {
+		var names = new HashSet<String>();
+		while (true) {
+			Entry next;
+			try {
+				next = queue.take();
+			} catch (InterruptedException e) {
+				error = e;
+				return;
+			}
+			if (next == END)
+				return;
+
+			// when writing failed, we still take the entries from the queue
+			// so that the producers are not blocked
+			if (error != null)
+				continue;
+			if (!names.add(next.path)) {
+				LoggerFactory.getLogger(getClass())
+					.warn("duplicate zip entry ignored: {}", next.path);
+				continue;
+			}
+			try {
+				zip.putNextEntry(new ZipEntry(next.path));
+				zip.write(next.data);
+				zip.closeEntry();
+			} catch (Exception e) {
+				error = e;
+			}
+		}
+	}
+
+	/**
+	 * Waits until all pending entries are written and closes the zip file.
+	 * Throws an exception if writing an entry failed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			queue.put(END);
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while closing zip file", e);
+		} finally {
+			zip.close();
+		}
+		if (error != null)
+			throw new IOException("failed to write zip file", error);
+	}
+
+	private record Entry(String path, byte[] data) {
+	}
+}
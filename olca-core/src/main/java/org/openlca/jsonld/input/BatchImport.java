@@ -2,20 +2,42 @@ package org.openlca.jsonld.input;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
+import com.google.gson.JsonObject;
 import org.openlca.core.model.ModelType;
 import org.openlca.core.model.RootEntity;
 
+/**
+ * Imports the data sets of a type in batches. The import is pipelined: while
+ * the data sets of a batch are read and their references are resolved on the
+ * calling thread, the JSON objects of the next batch are read in parallel
+ * (when the store supports this) and the previous batches are written into
+ * the database by a set of workers. Each worker writes its batch in an own
+ * transaction and entity manager; the IDs of the new entities are allocated
+ * from the entity sequence which is thread-safe.
+ * <p>
+ * The state of the import (the cache of visited entities and the queue of
+ * exchanges that wait for their providers) is only modified on the calling
+ * thread. When all workers are busy, we wait for them and mark their written
+ * entities as visited before the next batch is submitted. Thus, all entities
+ * that were written are marked as visited before the import continues with
+ * the next type. This keeps the order of the types in the import: reference
+ * data are always written before the data sets that link to them.
+ */
 class BatchImport<T extends RootEntity> {
 
 	private final JsonImport imp;
 	private final Class<T> clazz;
 	private final ModelType type;
 	private final int batchSize;
-	private final Writer writer = new Writer();
+	private final Writer writer;
+	private final ExecutorService prefetch;
 
 	private final ArrayList<RootEntity> inserts = new ArrayList<>();
 	private final ArrayList<RootEntity> updates = new ArrayList<>();
@@ -25,6 +47,10 @@ class BatchImport<T extends RootEntity> {
 		this.type = imp.types.get(type);
 		this.clazz = type;
 		this.batchSize = batchSize;
+		this.writer = new Writer(imp.workers);
+		this.prefetch = imp.workers > 1 && imp.reader.supportsParallelReads()
+			? Executors.newSingleThreadExecutor()
+			: null;
 	}
 
 	static int batchSizeOf(ModelType type) {
@@ -37,30 +63,75 @@ class BatchImport<T extends RootEntity> {
 
 	@SuppressWarnings("unchecked")
 	void run() {
-		for (var refId : imp.reader.getRefIds(type)) {
-			var item = imp.fetch(clazz, refId);
-			if (item.isVisited() || item.isError())
-				continue;
-			var reader = (EntityReader<T>) imp.readerFor(type);
-			if (item.isNew()) {
-				insert(reader.read(item.json()));
-			} else {
-				T model = item.entity();
-				reader.update(model, item.json());
-				update(model);
+		try {
+			var refIds = imp.reader.getRefIds(type);
+			var next = prefetch(refIds, 0);
+			for (int start = 0; start < refIds.size(); start += batchSize) {
+				var jsons = next != null
+					? next.get()
+					: Map.<String, JsonObject>of();
+				next = prefetch(refIds, start + batchSize);
+
+				int end = Math.min(start + batchSize, refIds.size());
+				for (var refId : refIds.subList(start, end)) {
+					var item = imp.fetch(clazz, refId, jsons.get(refId));
+					if (item.isVisited() || item.isError())
+						continue;
+					var reader = (EntityReader<T>) imp.readerFor(type);
+					if (item.isNew()) {
+						insert(reader.read(item.json()));
+					} else {
+						T model = item.entity();
+						reader.update(model, item.json());
+						update(model);
+					}
+					imp.copyBinaryFilesOf(type, refId);
+				}
+			}
+			if (inserts.size() > 0) {
+				flushInserts();
+			}
+			if (updates.size() > 0) {
+				flushUpdates();
+			}
+			writer.sync();
+		} catch (Exception e) {
+			throw new RuntimeException("failed to import " + type, e);
+		} finally {
+			writer.close();
+			if (prefetch != null) {
+				prefetch.shutdownNow();
 			}
-			imp.copyBinaryFilesOf(type, refId);
-		}
-		if (inserts.size() > 0) {
-			flushInserts();
-		}
-		if (updates.size() > 0) {
-			flushUpdates();
 		}
-		writer.close();
+	}
+
+	/**
+	 * Reads the JSON objects of the batch that starts at the given position
+	 * in parallel. Returns {@code null} when the store does not support
+	 * parallel reads or when there is no such batch; the objects are then
+	 * read on demand.
+	 */
+	private Future<Map<String, JsonObject>> prefetch(
+		List<String> refIds, int start) {
+		if (prefetch == null || start >= refIds.size())
+			return null;
+		var batch = refIds.subList(
+			start, Math.min(start + batchSize, refIds.size()));
+		return prefetch.submit(() -> {
+			var jsons = new ConcurrentHashMap<String, JsonObject>();
+			batch.parallelStream().forEach(refId -> {
+				var json = imp.reader.get(type, refId);
+				if (json != null) {
+					jsons.put(refId, json);
+				}
+			});
+			return jsons;
+		});
 	}
 
 	private void insert(RootEntity entity) {
+		if (entity == null)
+			return;
 		inserts.add(entity);
 		if (inserts.size() >= batchSize) {
 			flushInserts();
@@ -75,58 +146,70 @@ class BatchImport<T extends RootEntity> {
 	}
 
 	private void flushInserts() {
-		writer.insert(inserts);
+		writer.insert(new ArrayList<>(inserts));
 		inserts.clear();
 	}
 
 	private void flushUpdates() {
-		writer.update(updates);
+		writer.update(new ArrayList<>(updates));
 		updates.clear();
 	}
 
 	private class Writer {
 
-		private final ExecutorService exec = Executors.newFixedThreadPool(1);
-		private final ArrayList<RootEntity> buffer = new ArrayList<>();
-		private volatile Future<?> task;
+		private final int workers;
+		private final ExecutorService exec;
+		private final List<Future<List<RootEntity>>> tasks = new ArrayList<>();
+
+		Writer(int workers) {
+			this.workers = workers;
+			this.exec = Executors.newFixedThreadPool(workers);
+		}
 
 		void insert(List<RootEntity> batch) {
-			next(batch);
-			task = exec.submit(() -> {
-				imp.db().transaction(em -> buffer.forEach(em::persist));
-				buffer.forEach(imp::visited);
-				buffer.clear();
+			submit(() -> {
+				imp.db().transaction(em -> batch.forEach(em::persist));
+				return batch;
 			});
 		}
 
 		void update(List<RootEntity> batch) {
-			next(batch);
-			task = exec.submit(() -> {
-				imp.db().transaction(em -> buffer.replaceAll(em::merge));
-				buffer.forEach(imp::visited);
-				buffer.clear();
+			submit(() -> {
+				imp.db().transaction(em -> batch.replaceAll(em::merge));
+				return batch;
 			});
 		}
 
-		private void next(List<RootEntity> batch) {
-			flush();
-			buffer.clear();
-			buffer.addAll(batch);
+		private void submit(Callable<List<RootEntity>> task) {
+			if (tasks.size() >= workers) {
+				sync();
+			}
+			tasks.add(exec.submit(task));
 		}
 
-		private void flush() {
-			if (task != null) {
-				try {
-					task.get();
-					task = null;
-				} catch (Exception e) {
-					throw new RuntimeException("failed to wait for worker", e);
+		/**
+		 * Waits for all running tasks and then marks the written entities as
+		 * visited in the order in which the batches were submitted. Note that
+		 * we need to wait for all tasks first, as marking an entity as visited
+		 * can update other entities that could be still in a running task
+		 * (e.g. exchanges that wait for a provider).
+		 */
+		void sync() {
+			try {
+				var batches = new ArrayList<List<RootEntity>>(tasks.size());
+				for (var task : tasks) {
+					batches.add(task.get());
+				}
+				tasks.clear();
+				for (var batch : batches) {
+					batch.forEach(imp::visited);
 				}
+			} catch (Exception e) {
+				throw new RuntimeException("failed to wait for worker", e);
 			}
 		}
 
 		private void close() {
-			flush();
 			exec.shutdown();
 		}
 	}
@@ -68,6 +68,16 @@ class ImportCache {
 	}
 
 	<T extends RootEntity> ImportItem<T> fetch(Class<T> type, String refId) {
+		return fetch(type, refId, null);
+	}
+
+	/**
+	 * Same as {@code fetch(type, refId)} but with a JSON object that was
+	 * already read from the store (e.g. in a batch import). If this object is
+	 * {@code null}, it is read from the store when needed.
+	 */
+	<T extends RootEntity> ImportItem<T> fetch(
+		Class<T> type, String refId, JsonObject prefetched) {
 		if (type == null || refId == null)
 			return ImportItem.error();
 		var modelType = imp.types.get(type);
@@ -96,7 +106,9 @@ class ImportCache {
 			}
 		}
 
-		var json = imp.reader.get(modelType, refId);
+		var json = prefetched != null
+			? prefetched
+			: imp.reader.get(modelType, refId);
 		if (json == null) {
 			if (model == null)
 				return ImportItem.error();
@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import com.google.gson.JsonObject;
 import org.openlca.core.database.FileStore;
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.io.CategorySync;
@@ -31,6 +32,8 @@ public class JsonImport implements Runnable, EntityResolver {
 	private final IDatabase db;
 	final JsonStoreReader reader;
 	UpdateMode updateMode = UpdateMode.NEVER;
+	int workers = Math.max(
+			1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
 	private Consumer<RefEntity> callback;
 	final CategorySync categories;
 	final Map<Class<?>, ModelType> types = new HashMap<>();
@@ -58,6 +61,17 @@ public class JsonImport implements Runnable, EntityResolver {
 		return this;
 	}
 
+	/**
+	 * Sets the number of worker threads that write batches of data sets into
+	 * the database concurrently (and read JSON objects in advance when the
+	 * store supports parallel reads). With 1 worker, the batches are written
+	 * one after another.
+	 */
+	public JsonImport setWorkers(int workers) {
+		this.workers = Math.max(1, workers);
+		return this;
+	}
+
 	@Override
 	public IDatabase db() {
 		return db;
@@ -88,35 +102,41 @@ public class JsonImport implements Runnable, EntityResolver {
 
 	@Override
 	public void run() {
-		new UnitGroupImport(this).importAll();
-		var typeOrder = new ModelType[]{
-				ModelType.ACTOR,
-				ModelType.SOURCE,
-				ModelType.CURRENCY,
-				ModelType.DQ_SYSTEM,
-				ModelType.LOCATION,
-				ModelType.FLOW_PROPERTY,
-				ModelType.FLOW,
-				ModelType.SOCIAL_INDICATOR,
-				ModelType.PARAMETER,
-				ModelType.PROCESS,
-				ModelType.IMPACT_CATEGORY,
-				ModelType.IMPACT_METHOD,
-				ModelType.PRODUCT_SYSTEM,
-				ModelType.PROJECT,
-				ModelType.RESULT,
-				ModelType.EPD,
-		};
-		for (var type : typeOrder) {
-			var batchSize = BatchImport.batchSizeOf(type);
-			if (batchSize > 1) {
-				var clazz = (Class<? extends RootEntity>) type.getModelClass();
-				new BatchImport<>(this, clazz, batchSize).run();
-			} else {
-				for (var id : reader.getRefIds(type)) {
-					run(type, id);
+		try {
+			new UnitGroupImport(this).importAll();
+			var typeOrder = new ModelType[]{
+					ModelType.ACTOR,
+					ModelType.SOURCE,
+					ModelType.CURRENCY,
+					ModelType.DQ_SYSTEM,
+					ModelType.LOCATION,
+					ModelType.FLOW_PROPERTY,
+					ModelType.FLOW,
+					ModelType.SOCIAL_INDICATOR,
+					ModelType.PARAMETER,
+					ModelType.PROCESS,
+					ModelType.IMPACT_CATEGORY,
+					ModelType.IMPACT_METHOD,
+					ModelType.PRODUCT_SYSTEM,
+					ModelType.PROJECT,
+					ModelType.RESULT,
+					ModelType.EPD,
+			};
+			for (var type : typeOrder) {
+				var batchSize = BatchImport.batchSizeOf(type);
+				if (batchSize > 1) {
+					var clazz = (Class<? extends RootEntity>) type.getModelClass();
+					new BatchImport<>(this, clazz, batchSize).run();
+				} else {
+					for (var id : reader.getRefIds(type)) {
+						run(type, id);
+					}
 				}
 			}
+		} finally {
+			// the batch imports write the models directly, without events
+			// for the listeners of the database
+			db.listeners().fireChanged();
 		}
 	}
 
@@ -174,6 +194,11 @@ public class JsonImport implements Runnable, EntityResolver {
 		return cache.fetch(type, refId);
 	}
 
+	<T extends RootEntity> ImportItem<T> fetch(
+			Class<T> type, String refId, JsonObject prefetched) {
+		return cache.fetch(type, refId, prefetched);
+	}
+
 	@Override
 	public Category getCategory(ModelType type, String path) {
 		return categories.get(type, path);
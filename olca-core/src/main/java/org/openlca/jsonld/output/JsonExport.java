@@ -7,12 +7,16 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.openlca.core.database.Daos;
 import org.openlca.core.database.FileStore;
@@ -40,6 +44,7 @@ import org.openlca.core.model.SocialIndicator;
 import org.openlca.core.model.Source;
 import org.openlca.core.model.Unit;
 import org.openlca.core.model.UnitGroup;
+import org.openlca.core.model.descriptors.RootDescriptor;
 import org.openlca.jsonld.Json;
 import org.openlca.jsonld.JsonStoreWriter;
 import org.openlca.jsonld.MemStore;
@@ -80,6 +85,9 @@ public class JsonExport {
 		this.dbRefs = db != null
 				? JsonRefs.of(db)
 				: null;
+		for (var type : ModelType.values()) {
+			visited.put(type, ConcurrentHashMap.newKeySet());
+		}
 	}
 
 	/**
@@ -108,14 +116,12 @@ public class JsonExport {
 		return this;
 	}
 
-	private void setVisited(RootEntity entity) {
-		if (entity == null || entity.refId == null)
-			return;
-		var type = ModelType.of(entity);
-		if (type == null)
-			return;
-		var set = visited.computeIfAbsent(type, k -> new HashSet<>());
-		set.add(entity.refId);
+	/**
+	 * Marks the given entity as visited. Returns false if it was already
+	 * visited before (e.g. by another thread of a parallel export).
+	 */
+	private boolean setVisited(ModelType type, RootEntity entity) {
+		return visited.get(type).add(entity.refId);
 	}
 
 	private boolean hasVisited(ModelType type, String refId) {
@@ -175,9 +181,8 @@ public class JsonExport {
 			warn(cb, "no refId; or type is unknown", entity);
 			return;
 		}
-		if (hasVisited(type, entity.refId))
+		if (!setVisited(type, entity))
 			return;
-		setVisited(entity);
 
 		// check skip library data
 		if (skipLibraryData && Strings.notEmpty(entity.library)) {
@@ -191,7 +196,7 @@ public class JsonExport {
 		}
 		try {
 			var obj = w.write(entity);
-			writer.put(type, obj);
+			put(type, obj);
 			if (!skipExternalFiles) {
 				writeExternalFiles(entity, type, cb);
 			}
@@ -203,6 +208,64 @@ public class JsonExport {
 		}
 	}
 
+	/**
+	 * Writes the data sets of the given descriptors with the given number of
+	 * threads. The data sets are loaded and converted to JSON in parallel
+	 * (including their references when this is enabled). When the store does
+	 * not support parallel writes, the calls to the store are synchronized.
+	 * For large exports into a zip file, a {@link org.openlca.jsonld.ZipWriter}
+	 * should be used which streams the entries into the file. Note that the
+	 * callback is called from multiple threads.
+	 */
+	public void writeAll(
+			Collection<? extends RootDescriptor> descriptors,
+			int threads,
+			Callback cb) {
+		if (descriptors == null || descriptors.isEmpty() || db == null)
+			return;
+		if (threads <= 1) {
+			for (var d : descriptors) {
+				write(load(d), cb);
+			}
+			return;
+		}
+		var pool = Executors.newFixedThreadPool(threads);
+		try {
+			var tasks = new ArrayList<Future<?>>(descriptors.size());
+			for (var d : descriptors) {
+				tasks.add(pool.submit(() -> write(load(d), cb)));
+			}
+			for (var task : tasks) {
+				task.get();
+			}
+		} catch (Exception e) {
+			throw new RuntimeException("parallel export failed", e);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private RootEntity load(RootDescriptor d) {
+		if (d == null || d.type == null)
+			return null;
+		if (hasVisited(d.type, d.refId))
+			return null;
+		var dao = Daos.root(db, d.type);
+		return dao != null
+				? dao.getForId(d.id)
+				: null;
+	}
+
+	private void put(ModelType type, JsonObject obj) {
+		if (writer.supportsParallelWrites()) {
+			writer.put(type, obj);
+			return;
+		}
+		synchronized (writer) {
+			writer.put(type, obj);
+		}
+	}
+
 	private void warn(Callback cb, String message, RefEntity entity) {
 		if (cb == null)
 			return;
@@ -307,7 +370,13 @@ public class JsonExport {
 				throws IOException {
 			String path = dbDir.relativize(file).toString().replace('\\', '/');
 			byte[] data = Files.readAllBytes(file);
-			writer.putBin(type, refId, path, data);
+			if (writer.supportsParallelWrites()) {
+				writer.putBin(type, refId, path, data);
+			} else {
+				synchronized (writer) {
+					writer.putBin(type, refId, path, data);
+				}
+			}
 			return FileVisitResult.CONTINUE;
 		}
 
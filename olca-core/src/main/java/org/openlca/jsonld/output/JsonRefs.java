@@ -24,7 +24,8 @@ import java.util.Map;
  * JsonRefs helps to create data set references when no full-entities are
  * available. An instance of this class maintains an internal cache and can be
  * reused when multiple references should be created. For full-entities,
- * {@code Json.asRef} could be used instead.
+ * {@code Json.asRef} could be used instead. The methods of this class are
+ * synchronized so that it can be shared by the threads of an export.
  */
 public class JsonRefs {
 
@@ -44,7 +45,7 @@ public class JsonRefs {
 		return new JsonRefs(db);
 	}
 
-	public JsonObject asRef(RootDescriptor d) {
+	public synchronized JsonObject asRef(RootDescriptor d) {
 		if (d == null)
 			return null;
 		var ref = new JsonObject();
@@ -89,7 +90,7 @@ public class JsonRefs {
 		return asRef(d);
 	}
 
-	RootDescriptor descriptorOf(ModelType type, long id) {
+	synchronized RootDescriptor descriptorOf(ModelType type, long id) {
 		if (type == null)
 			return null;
 		var map = cache.computeIfAbsent(
@@ -97,7 +98,7 @@ public class JsonRefs {
 		return map.get(id);
 	}
 
-	private String locationCodeOf(Long id) {
+	private synchronized String locationCodeOf(Long id) {
 		if (id == null)
 			return null;
 		if (_locationCodes == null) {
@@ -106,7 +107,7 @@ public class JsonRefs {
 		return _locationCodes.get(id);
 	}
 
-	private String refUnitOf(Long propId) {
+	private synchronized String refUnitOf(Long propId) {
 		if (propId == null)
 			return null;
 		if (_refUnits == null) {
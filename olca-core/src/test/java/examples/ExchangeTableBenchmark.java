@@ -0,0 +1,99 @@
+package examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.matrix.cache.ExchangeTable;
+import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.UnitGroup;
+
+/**
+ * Compares the sequential and parallel loading of the exchanges of all
+ * processes for the matrix building on a synthetic in-memory database. By
+ * default, the database contains 20k processes where each process has 5
+ * product inputs from random providers and 20 elementary outputs.
+ */
+public class ExchangeTableBenchmark {
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+		try (var db = Derby.createInMemory()) {
+			System.out.printf("create database with %d processes%n", n);
+			long start = System.nanoTime();
+			createProcesses(db, n, 5, 20);
+			System.out.printf("created database in %.3f seconds%n",
+				(System.nanoTime() - start) / 1e9);
+
+			var techIndex = TechIndex.of(db);
+			System.out.printf("loading exchanges of %d providers%n",
+				techIndex.size());
+			int cores = Runtime.getRuntime().availableProcessors();
+			for (int run = 0; run < 3; run++) {
+				for (int threads : IntStream.of(1, 2, 4, cores).distinct().toArray()) {
+					var table = new ExchangeTable(db).withThreads(threads);
+					var count = new long[1];
+					start = System.nanoTime();
+					table.each(techIndex, e -> count[0]++);
+					double secs = (System.nanoTime() - start) / 1e9;
+					System.out.printf(
+						"run %d: %d threads, %d exchanges in %.3f seconds%n",
+						run + 1, threads, count[0], secs);
+				}
+			}
+		} catch (Exception e) {
+			throw new RuntimeException("benchmark failed", e);
+		}
+	}
+
+	private static void createProcesses(
+		IDatabase db, int n, int inputs, int emissions) {
+		var units = UnitGroup.of("Mass units", "kg");
+		var mass = FlowProperty.of("Mass", units);
+		db.insert(units, mass);
+
+		var elemFlows = new ArrayList<Flow>(100);
+		for (int i = 0; i < 100; i++) {
+			elemFlows.add(Flow.elementary("emission " + i, mass));
+		}
+		var products = new ArrayList<Flow>(n);
+		var processes = new ArrayList<Process>(n);
+		for (int i = 0; i < n; i++) {
+			var product = Flow.product("product " + i, mass);
+			products.add(product);
+			processes.add(Process.of("process " + i, product));
+		}
+		var rand = new Random(42);
+		for (int i = 0; i < n; i++) {
+			var process = processes.get(i);
+			for (int k = 0; k < inputs; k++) {
+				int j = rand.nextInt(n);
+				if (j != i) {
+					process.input(products.get(j), rand.nextDouble());
+				}
+			}
+			for (int k = 0; k < emissions; k++) {
+				var flow = elemFlows.get(rand.nextInt(elemFlows.size()));
+				process.output(flow, rand.nextDouble());
+			}
+		}
+
+		persist(db, elemFlows);
+		persist(db, products);
+		persist(db, processes);
+	}
+
+	private static void persist(IDatabase db, List<?> entities) {
+		int batch = 1000;
+		for (int i = 0; i < entities.size(); i += batch) {
+			var chunk = entities.subList(i, Math.min(i + batch, entities.size()));
+			db.transaction(em -> chunk.forEach(em::persist));
+		}
+	}
+}
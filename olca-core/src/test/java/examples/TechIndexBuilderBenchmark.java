@@ -0,0 +1,97 @@
+package examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.matrix.cache.MatrixCache;
+import org.openlca.core.matrix.index.TechFlow;
+import org.openlca.core.matrix.linking.LinkingConfig;
+import org.openlca.core.matrix.linking.TechIndexBuilder;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.UnitGroup;
+
+/**
+ * Compares the sequential and parallel building of a product system index
+ * with the TechIndexBuilder on a synthetic in-memory database. By default,
+ * the database contains 30k processes where each process has 5 product inputs
+ * from random providers.
+ */
+public class TechIndexBuilderBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 30_000;
+		try (var db = Derby.createInMemory()) {
+			System.out.printf("create database with %d processes%n", n);
+			long start = System.nanoTime();
+			var ref = createProcesses(db, n, 5);
+			System.out.printf("created database in %.3f seconds%n",
+				(System.nanoTime() - start) / 1e9);
+
+			int cores = Runtime.getRuntime().availableProcessors();
+			for (int run = 0; run < 3; run++) {
+				for (int threads : new int[]{1, 2, 4, cores}) {
+					// use a new cache, so that the exchanges are loaded in
+					// each run
+					var cache = MatrixCache.createLazy(db);
+					var pool = threads > 1
+						? new ForkJoinPool(threads)
+						: null;
+					start = System.nanoTime();
+					var index = new TechIndexBuilder(cache, null, new LinkingConfig())
+						.withPool(pool)
+						.build(ref);
+					double secs = (System.nanoTime() - start) / 1e9;
+					if (pool != null) {
+						pool.shutdown();
+					}
+					System.out.printf(
+						"run %d: %d threads, %d providers in %.3f seconds%n",
+						run + 1, threads, index.size(), secs);
+				}
+			}
+		}
+	}
+
+	private static TechFlow createProcesses(IDatabase db, int n, int inputs) {
+		var units = UnitGroup.of("Mass units", "kg");
+		var mass = FlowProperty.of("Mass", units);
+		db.insert(units, mass);
+
+		var products = new ArrayList<Flow>(n);
+		var processes = new ArrayList<Process>(n);
+		for (int i = 0; i < n; i++) {
+			var product = Flow.product("product " + i, mass);
+			products.add(product);
+			processes.add(Process.of("process " + i, product));
+		}
+		var rand = new Random(42);
+		for (int i = 0; i < n; i++) {
+			var process = processes.get(i);
+			for (int k = 0; k < inputs; k++) {
+				int j = rand.nextInt(n);
+				if (j != i) {
+					process.input(products.get(j), rand.nextDouble());
+				}
+			}
+		}
+
+		persist(db, products);
+		persist(db, processes);
+		var ref = processes.get(0);
+		return TechFlow.of(ref, ref.quantitativeReference.flow);
+	}
+
+	private static void persist(IDatabase db, List<?> entities) {
+		int batch = 1000;
+		for (int i = 0; i < entities.size(); i += batch) {
+			var chunk = entities.subList(i, Math.min(i + batch, entities.size()));
+			db.transaction(em -> chunk.forEach(em::persist));
+		}
+	}
+}
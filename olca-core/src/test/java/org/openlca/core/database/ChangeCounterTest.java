@@ -0,0 +1,31 @@
+package org.openlca.core.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.openlca.core.Tests;
+import org.openlca.core.model.Actor;
+
+public class ChangeCounterTest {
+
+	private final IDatabase db = Tests.getDb();
+
+	@Test
+	public void testCount() {
+		var counter = db.listeners().changeCounter();
+		long start = counter.get();
+		assertTrue(start > 0);
+
+		var actor = db.insert(Actor.of("counted actor"));
+		assertEquals(start + 1, counter.get());
+		actor.description = "updated";
+		actor = db.update(actor);
+		assertEquals(start + 2, counter.get());
+		db.delete(actor);
+		assertEquals(start + 3, counter.get());
+
+		db.listeners().fireChanged();
+		assertEquals(start + 4, counter.get());
+	}
+}
@@ -1,6 +1,9 @@
 package org.openlca.core.math;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -9,9 +12,11 @@ import org.openlca.core.TestProcess;
 import org.openlca.core.TestSystem;
 import org.openlca.core.Tests;
 import org.openlca.core.matrix.index.EnviFlow;
+import org.openlca.core.model.ParameterRedef;
 import org.openlca.core.model.Process;
 import org.openlca.core.model.Project;
 import org.openlca.core.model.ProjectVariant;
+import org.openlca.core.results.LcaResult;
 import org.openlca.core.results.ProjectResult;
 import org.openlca.core.results.ResultItemOrder;
 
@@ -60,4 +65,53 @@ public class ProjectCalculationTest {
 		}
 		assertEquals(4, icount.get());
 	}
+
+	@Test
+	public void testSharedVariants() {
+		var p = TestProcess
+				.refProduct("pv_p", 1, "kg")
+				.param("q", 2.0)
+				.elemOut("pv_e", 1.0, "kg")
+				.with(process -> TestProcess.findExchange(process, "pv_e").formula = "q")
+				.get();
+		var system = TestSystem.of(p).get();
+		var q = p.parameters.get(0);
+
+		var project = new Project();
+		var v1 = ProjectVariant.of("v1", system);
+		v1.amount = 1.0;
+		var v2 = ProjectVariant.of("v2", system);
+		v2.amount = 3.0;
+		var v3 = ProjectVariant.of("v3", system);
+		v3.amount = 2.0;
+		v3.parameterRedefs.add(ParameterRedef.of(q, p, 5.0));
+		var v4 = ProjectVariant.of("v4", system);
+		v4.amount = 2.0;
+		v4.isDisabled = true;
+
+		// a variant of another system that is calculated in parallel
+		var w = TestProcess
+				.refProduct("pv_w", 1, "kg")
+				.elemOut("pv_e", 4.0, "kg")
+				.get();
+		var v5 = ProjectVariant.of("v5", TestSystem.of(w).get());
+		v5.amount = 0.5;
+		project.variants.addAll(List.of(v1, v2, v3, v4, v5));
+
+		var result = new ProjectCalculator(Tests.getDb())
+				.withThreads(2)
+				.calculate(project);
+		assertEquals(4, result.getVariants().size());
+		assertNull(result.getResult(v4));
+		assertEquals(2.0, totalOf(result.getResult(v1)), 1e-10);
+		assertEquals(6.0, totalOf(result.getResult(v2)), 1e-10);
+		assertEquals(10.0, totalOf(result.getResult(v3)), 1e-10);
+		assertEquals(2.0, totalOf(result.getResult(v5)), 1e-10);
+	}
+
+	private double totalOf(LcaResult result) {
+		var flows = result.getTotalFlows();
+		assertEquals(1, flows.size());
+		return result.getTotalFlowValueOf(flows.get(0).enviFlow());
+	}
 }
@@ -0,0 +1,120 @@
+package org.openlca.core.math;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openlca.core.TestProcess;
+import org.openlca.core.TestSystem;
+import org.openlca.core.Tests;
+import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.model.CalculationSetup;
+import org.openlca.core.model.Parameter;
+import org.openlca.core.model.ParameterRedef;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.ProductSystem;
+
+public class SensitivitySweepTest {
+
+	private static Parameter global;
+	private static Process p1;
+	private static ProductSystem system;
+
+	@BeforeClass
+	public static void prepare() {
+		var db = Tests.getDb();
+		global = db.insert(Parameter.global("sw_q", 2.0));
+		p1 = TestProcess
+			.refProduct("sw_p1", 1, "kg")
+			.prodIn("sw_p2", 1, "kg")
+			.elemOut("sw_e", 1, "kg")
+			.param("sw_l", 1.0)
+			.with(p -> {
+				TestProcess.findExchange(p, "sw_p2").formula = "sw_q";
+				TestProcess.findExchange(p, "sw_e").formula = "sw_l";
+			})
+			.get();
+		var p2 = TestProcess
+			.refProduct("sw_p2", 1, "kg")
+			.elemOut("sw_e", 1, "kg")
+			.with(p -> {
+				TestProcess.findExchange(p, "sw_p2").formula = "1 + 0.1 * sw_q";
+				TestProcess.findExchange(p, "sw_e").formula = "2 * sw_q";
+			})
+			.get();
+		system = TestSystem.of(p1).link(p2).get();
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		Tests.getDb().delete(global);
+	}
+
+	@Test
+	public void testGlobalParameter() {
+		var values = new double[]{0.5, 1.0, 2.0, 3.0, 4.5};
+		for (int maxRank : new int[]{100, 0}) {
+			var result = SensitivitySweep.of(Tests.getDb(), setup())
+				.parameter("sw_q")
+				.values(values)
+				.withMaxRank(maxRank)
+				.run();
+			check(result, values, null, "sw_q");
+		}
+	}
+
+	@Test
+	public void testLocalParameter() {
+		var result = SensitivitySweep.of(Tests.getDb(), setup())
+			.parameter("sw_l", p1.id)
+			.range(0, 2, 5)
+			.run();
+		assertArrayEquals(
+			new double[]{0, 0.5, 1.0, 1.5, 2.0}, result.values(), 1e-16);
+		check(result, result.values(), p1.id, "sw_l");
+	}
+
+	@Test
+	public void testCopyFormulaCells() {
+		var db = Tests.getDb();
+		var data = MatrixData.of(db, TechIndex.of(db, setup()))
+			.withSetup(setup())
+			.withFormulaCells(true)
+			.build();
+		assertEquals(2, data.techFormulas.size());
+		assertEquals(2, data.enviFormulas.size());
+
+		var copy = data.copy();
+		assertNotSame(data.techFormulas, copy.techFormulas);
+		assertNotSame(data.enviFormulas, copy.enviFormulas);
+		assertEquals(2, copy.techFormulas.size());
+		assertEquals(2, copy.enviFormulas.size());
+		assertSame(data.techFormulas.interpreter(),
+			copy.techFormulas.interpreter());
+	}
+
+	private CalculationSetup setup() {
+		return CalculationSetup.of(system).withAmount(2.0);
+	}
+
+	private void check(SensitivitySweep.Result result, double[] values,
+		Long context, String param) {
+		assertEquals(values.length, result.totalFlows().columns());
+		var flowIdx = 0;
+		var curve = result.curveOfFlow(flowIdx);
+		var flow = result.enviIndex().at(flowIdx);
+		for (int i = 0; i < values.length; i++) {
+			var redef = ParameterRedef.of(param);
+			redef.contextId = context;
+			redef.value = values[i];
+			var expected = new SystemCalculator(Tests.getDb())
+				.calculate(setup().withParameters(List.of(redef)))
+				.getTotalFlowValueOf(flow);
+			assertEquals(expected, curve[i], 1e-10);
+		}
+	}
+}
@@ -1,9 +1,12 @@
 package org.openlca.core.math;
 
+import java.util.function.Function;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.openlca.core.Tests;
 import org.openlca.core.database.IDatabase;
+import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.matrix.solvers.JavaSolver;
 import org.openlca.core.model.CalculationSetup;
 import org.openlca.core.model.Flow;
@@ -15,6 +18,7 @@ import org.openlca.core.model.Process;
 import org.openlca.core.model.ProductSystem;
 import org.openlca.core.model.Uncertainty;
 import org.openlca.core.model.UnitGroup;
+import org.openlca.core.results.SimulationResult;
 
 public class SimulatorTest {
 
@@ -64,4 +68,122 @@ public class SimulatorTest {
 		db.delete(method, gwp, system, process, p, ch4, mass, units);
 	}
 
+	@Test
+	public void testParallelRuns() {
+		var units = db.insert(UnitGroup.of("Mass units", "kg"));
+		var mass = db.insert(FlowProperty.of("Mass", units));
+		var co2 = db.insert(Flow.elementary("CO2", mass));
+		var p = db.insert(Flow.product("p", mass));
+		var q = db.insert(Flow.product("q", mass));
+
+		var processQ = Process.of("Q", q);
+		var e = processQ.output(co2, 1);
+		e.uncertainty = Uncertainty.uniform(1, 2);
+		db.insert(processQ);
+
+		var processP = Process.of("P", p);
+		processP.input(q, 2);
+		var param = Parameter.process("param", 1);
+		param.uncertainty = Uncertainty.uniform(3, 4);
+		processP.parameters.add(param);
+		processP.output(co2, 1).formula = "param";
+		db.insert(processP);
+
+		var system = ProductSystem.of(processP).link(processQ, processP);
+		db.insert(system);
+
+		var setup = CalculationSetup.of(system).withSimulationRuns(50);
+		var qFlow = TechFlow.of(processQ);
+		Function<Integer, SimulationResult> run = threads -> {
+			var simulator = Simulator.create(setup, db)
+					.withSolver(new JavaSolver())
+					.withSeed(42);
+			simulator.pinnedProducts.add(qFlow);
+			return simulator.runParallel(50, threads);
+		};
+		var r1 = run.apply(1);
+		var r4 = run.apply(4);
+
+		// the results of the same seed are reproducible
+		var enviFlow = r1.enviIndex().at(0);
+		var vals1 = r1.getAll(enviFlow);
+		var vals4 = r4.getAll(enviFlow);
+		Assert.assertEquals(50, r1.getNumberOfRuns());
+		Assert.assertEquals(50, r4.getNumberOfRuns());
+		Assert.assertArrayEquals(vals1, vals4, 1e-16);
+		for (double val : vals1) {
+			Assert.assertTrue(val >= 5 && val <= 8);
+		}
+
+		// pinned products are tracked for each run
+		var upstream = r4.getAllUpstream(qFlow, enviFlow);
+		Assert.assertArrayEquals(
+				r1.getAllUpstream(qFlow, enviFlow), upstream, 1e-16);
+		for (double val : upstream) {
+			Assert.assertTrue(val >= 2 && val <= 4);
+		}
+
+		// a streaming result has the same statistics but no single values
+		var streamed = Simulator.create(setup, db)
+				.withSolver(new JavaSolver())
+				.withSeed(42)
+				.withStreaming(true)
+				.runParallel(50, 2);
+		Assert.assertTrue(streamed.isStreaming());
+		Assert.assertEquals(50, streamed.getNumberOfRuns());
+		Assert.assertEquals(0, streamed.getAll(enviFlow).length);
+		var expected = r1.getStatistics(enviFlow);
+		var stats = streamed.getStatistics(enviFlow);
+		Assert.assertEquals(expected.mean, stats.mean, 1e-10);
+		Assert.assertEquals(expected.standardDeviation,
+				stats.standardDeviation, 1e-10);
+		Assert.assertEquals(expected.min, stats.min, 1e-16);
+		Assert.assertEquals(expected.max, stats.max, 1e-16);
+
+		db.delete(system, processP, processQ, q, p, co2, mass, units);
+	}
+
+	@Test
+	public void testBatchRuns() {
+		var units = db.insert(UnitGroup.of("Mass units", "kg"));
+		var mass = db.insert(FlowProperty.of("Mass", units));
+		var co2 = db.insert(Flow.elementary("CO2", mass));
+		var p = db.insert(Flow.product("p", mass));
+
+		var process = Process.of("P", p);
+		var param = Parameter.process("param", 1);
+		param.uncertainty = Uncertainty.uniform(3, 4);
+		process.parameters.add(param);
+		process.parameters.add(Parameter.process("double_param", "2 * param"));
+		process.output(co2, 1).formula = "if(param > 3.5; double_param; param)";
+		var e = process.output(co2, 1);
+		e.uncertainty = Uncertainty.uniform(1, 2);
+		db.insert(process);
+		var system = db.insert(ProductSystem.of(process));
+
+		var setup = CalculationSetup.of(system).withSimulationRuns(25);
+		Function<Integer, double[]> run = batchSize -> {
+			var simulator = Simulator.create(setup, db)
+					.withSolver(new JavaSolver())
+					.withSeed(42)
+					.withBatchSize(batchSize);
+			for (int i = 0; i < 25; i++) {
+				Assert.assertNotNull(simulator.nextRun());
+			}
+			var r = simulator.getResult();
+			return r.getAll(r.enviIndex().at(0));
+		};
+
+		// batches of runs generate values in the same ranges
+		var vals = run.apply(10);
+		Assert.assertEquals(25, vals.length);
+		for (double val : vals) {
+			Assert.assertTrue((val >= 4 && val <= 5.5)
+					|| (val >= 8 && val <= 10));
+		}
+		Assert.assertArrayEquals(vals, run.apply(10), 1e-16);
+
+		db.delete(system, process, p, co2, mass, units);
+	}
+
 }
@@ -1,6 +1,7 @@
 package org.openlca.core.math;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.util.List;
 import java.util.stream.Stream;
@@ -130,4 +131,82 @@ public class SubResultsTest {
 			prodA, prodB, prodC,
 			co2, mass, units);
 	}
+
+	/**
+	 * Calculate a diamond of sub-systems where A is a sub-system of B and C:
+	 * <pre>
+	 * {@code
+	 * 		A [1] -> [1] B [1] -> [1] D
+	 * 		A [1] -> [2] C [1] -> [1] D
+	 *
+	 * 		expected total CO2 result:
+	 * 		D: 1 kg, B: 1 kg, C: 1 kg, A: 3 kg
+	 * 		----------------
+	 * 		6 kg CO2
+	 * }
+	 * </pre>
+	 * The shared sub-system A should be only calculated once.
+	 */
+	@Test
+	public void testSharedSubSystem() {
+		var units = UnitGroup.of("Mass units", "kg");
+		var mass = FlowProperty.of("Mass", units);
+		var co2 = Flow.elementary("CO2", mass);
+		var prodA = Flow.product("dA", mass);
+		var prodB = Flow.product("dB", mass);
+		var prodC = Flow.product("dC", mass);
+		var prodD = Flow.product("dD", mass);
+
+		var procA = Process.of("dA", prodA);
+		var procB = Process.of("dB", prodB);
+		procB.input(prodA, 1);
+		var procC = Process.of("dC", prodC);
+		procC.input(prodA, 2);
+		var procD = Process.of("dD", prodD);
+		procD.input(prodB, 1);
+		procD.input(prodC, 1);
+		List.of(procA, procB, procC, procD).forEach(p -> p.output(co2, 1));
+
+		db.insert(
+			units, mass, co2,
+			prodA, prodB, prodC, prodD,
+			procA, procB, procC, procD);
+
+		var systems = Stream.of(procA, procB, procC, procD)
+			.map(p -> {
+				var linker = new SubSystemLinker(db);
+				var system = new ProductSystemBuilder(linker)
+					.build(p);
+				return db.insert(system);
+			}).toList();
+		var techFlowA = TechFlow.of(systems.get(0));
+		var techFlowB = TechFlow.of(systems.get(1));
+		var techFlowC = TechFlow.of(systems.get(2));
+
+		var setup = CalculationSetup.of(systems.get(3));
+		for (int threads : new int[]{1, 4}) {
+			var resultD = new SystemCalculator(db)
+				.withThreads(threads)
+				.calculate(setup);
+			var co2Idx = resultD.enviIndex().at(0);
+			assertEquals(6, resultD.getTotalFlowValueOf(co2Idx), 1e-10);
+
+			var resultB = resultD.subResultOf(techFlowB);
+			var resultC = resultD.subResultOf(techFlowC);
+			assertEquals(2, resultB.getTotalFlowValueOf(co2Idx), 1e-10);
+			assertEquals(3, resultC.getTotalFlowValueOf(co2Idx), 1e-10);
+			assertEquals(2, resultC.getScalingFactorOf(techFlowA), 1e-10);
+
+			// A is shared by B and C
+			var resultA = resultB.subResultOf(techFlowA);
+			assertSame(resultA, resultC.subResultOf(techFlowA));
+			assertEquals(1, resultA.getTotalFlowValueOf(co2Idx), 1e-10);
+		}
+
+		db.delete(systems.get(3), systems.get(2), systems.get(1), systems.get(0));
+		db.delete(
+			procA, procB, procC, procD,
+			prodA, prodB, prodC, prodD,
+			co2, mass, units);
+	}
 }
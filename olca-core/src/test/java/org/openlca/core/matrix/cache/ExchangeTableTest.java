@@ -0,0 +1,82 @@
+package org.openlca.core.matrix.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlca.core.Tests;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.matrix.index.TechFlow;
+import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.RootEntity;
+import org.openlca.core.model.UnitGroup;
+import org.openlca.core.model.descriptors.FlowDescriptor;
+import org.openlca.core.model.descriptors.ProcessDescriptor;
+
+public class ExchangeTableTest {
+
+	private final IDatabase db = Tests.getDb();
+	private final List<RootEntity> entities = new ArrayList<>();
+	private final List<Process> processes = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		var units = db.insert(UnitGroup.of("Mass units", "kg"));
+		var mass = db.insert(FlowProperty.of("Mass", units));
+		var co2 = db.insert(Flow.elementary("CO2", mass));
+		entities.addAll(List.of(co2, mass, units));
+		for (int i = 0; i < 20; i++) {
+			var product = db.insert(Flow.product("p" + i, mass));
+			var process = Process.of("P" + i, product);
+			process.output(co2, i);
+			processes.add(db.insert(process));
+			entities.add(0, product);
+			entities.add(0, process);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		for (var e : entities) {
+			db.delete(e);
+		}
+	}
+
+	@Test
+	public void testParallelLoading() {
+		// a large index with providers that are not in the database
+		var index = new TechIndex();
+		for (int i = 0; i < processes.size(); i += 2) {
+			index.add(TechFlow.of(processes.get(i)));
+		}
+		for (int i = 0; i < 1000; i++) {
+			var process = new ProcessDescriptor();
+			process.id = -1 - i;
+			var flow = new FlowDescriptor();
+			flow.id = -1 - i;
+			index.add(TechFlow.of(process, flow));
+		}
+
+		var sequential = new ArrayList<Long>();
+		new ExchangeTable(db)
+			.withThreads(1)
+			.each(index, e -> sequential.add(e.exchangeId));
+		var parallel = new ArrayList<Long>();
+		new ExchangeTable(db)
+			.withThreads(3)
+			.each(index, e -> parallel.add(e.exchangeId));
+
+		// reference flow and CO2 output of each indexed process
+		assertEquals(20, sequential.size());
+		sequential.sort(null);
+		parallel.sort(null);
+		assertEquals(sequential, parallel);
+	}
+}
@@ -0,0 +1,155 @@
+package org.openlca.core.matrix.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlca.core.Tests;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.matrix.CalcExchange;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.RootEntity;
+import org.openlca.core.model.Uncertainty;
+import org.openlca.core.model.UnitGroup;
+
+public class MatrixCacheSnapshotTest {
+
+	private final IDatabase db = Tests.getDb();
+	private final List<RootEntity> entities = new ArrayList<>();
+	private Process process;
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		var units = db.insert(UnitGroup.of("Mass units", "kg"));
+		var mass = db.insert(FlowProperty.of("Mass", units));
+		var co2 = db.insert(Flow.elementary("CO2", mass));
+		var product = db.insert(Flow.product("p", mass));
+		var p = Process.of("P", product);
+		var e = p.output(co2, 2);
+		e.formula = "1 + 1";
+		e.uncertainty = Uncertainty.normal(2, 0.5);
+		process = db.insert(p);
+		entities.addAll(List.of(process, product, co2, mass, units));
+		file = Files.createTempFile("_olca_", ".snapshot").toFile();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (var e : entities) {
+			db.delete(e);
+		}
+		Files.deleteIfExists(file.toPath());
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		var cache = MatrixCache.createEager(db);
+		cache.writeSnapshot(file);
+		var restored = MatrixCache.readSnapshot(db, file);
+		assertNotNull(restored);
+
+		// exchanges
+		var expected = sorted(cache.getExchangeCache().get(process.id));
+		var actual = sorted(restored.getExchangeCache().get(process.id));
+		assertEquals(2, actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			var e = expected.get(i);
+			var a = actual.get(i);
+			assertEquals(e.exchangeId, a.exchangeId);
+			assertEquals(e.processId, a.processId);
+			assertEquals(e.flowId, a.flowId);
+			assertEquals(e.flowType, a.flowType);
+			assertEquals(e.isInput, a.isInput);
+			assertEquals(e.amount, a.amount, 1e-16);
+			assertEquals(e.formula, a.formula);
+			assertEquals(e.conversionFactor, a.conversionFactor, 1e-16);
+			assertEquals(e.uncertaintyType, a.uncertaintyType);
+			assertEquals(e.parameter1, a.parameter1, 1e-16);
+			assertEquals(e.parameter2, a.parameter2, 1e-16);
+		}
+		assertTrue(restored.getExchangeCache().get(-42L).isEmpty());
+
+		// providers
+		var providers = restored.getProcessTable()
+			.getProviders(process.quantitativeReference.flow.id);
+		assertEquals(1, providers.size());
+		var provider = providers.get(0);
+		assertEquals(process.id, provider.providerId());
+		assertEquals("P", provider.provider().name);
+		assertEquals(process.processType,
+			restored.getProcessTable().getType(process.id));
+	}
+
+	@Test
+	public void testOutdatedSnapshot() throws Exception {
+		MatrixCache.createEager(db).writeSnapshot(file);
+		assertNotNull(MatrixCache.readSnapshot(db, file));
+
+		var flow = db.insert(Flow.product("q", process.quantitativeReference
+			.flow.referenceFlowProperty));
+		entities.add(0, flow);
+		assertNull(MatrixCache.readSnapshot(db, file));
+	}
+
+	@Test
+	public void testUpdatedExchange() throws Exception {
+		MatrixCache.createEager(db).writeSnapshot(file);
+		assertNotNull(MatrixCache.readSnapshot(db, file));
+
+		// the IDs and the version of the process do not change
+		process.exchanges.stream()
+			.filter(e -> !e.equals(process.quantitativeReference))
+			.forEach(e -> e.amount = 3);
+		process = db.update(process);
+		entities.set(0, process);
+		assertNull(MatrixCache.readSnapshot(db, file));
+	}
+
+	@Test
+	public void testDefaultSnapshot() throws Exception {
+		var defaultFile = MatrixCache.snapshotFileOf(db);
+		try {
+			var cache = MatrixCache.createFromSnapshot(db);
+			assertTrue(defaultFile.exists());
+			var restored = MatrixCache.createFromSnapshot(db);
+			assertEquals(
+				cache.getExchangeCache().get(process.id).size(),
+				restored.getExchangeCache().get(process.id).size());
+
+			// updates invalidate the snapshot
+			process.description = "updated";
+			process = db.update(process);
+			entities.set(0, process);
+			assertNull(MatrixCache.readSnapshot(db, defaultFile));
+		} finally {
+			Files.deleteIfExists(defaultFile.toPath());
+		}
+	}
+
+	@Test
+	public void testInvalidFile() throws Exception {
+		Files.writeString(file.toPath(), "not a snapshot");
+		assertNull(MatrixCache.readSnapshot(db, file));
+		assertNull(MatrixCache.readSnapshot(
+			db, new File(file.getParentFile(), "_olca_missing_")));
+	}
+
+	private List<CalcExchange> sorted(List<CalcExchange> exchanges) {
+		var list = new ArrayList<>(exchanges);
+		list.sort(Comparator.comparingLong(e -> e.exchangeId));
+		return list;
+	}
+}
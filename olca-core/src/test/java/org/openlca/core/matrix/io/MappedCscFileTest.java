@@ -0,0 +1,104 @@
+package org.openlca.core.matrix.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openlca.core.library.LibMatrix;
+import org.openlca.core.library.Library;
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.openlca.core.matrix.format.DenseMatrix;
+import org.openlca.util.Dirs;
+
+public class MappedCscFileTest {
+
+	@Test
+	public void testColumnsAndDiagonal() throws IOException {
+		var m = CSCMatrix.of(new double[][]{
+			{1.0, 0.0, 0.0, -2.0},
+			{0.0, 4.0, 0.0, 0.0},
+			{-0.5, 0.0, 0.0, 1.0},
+			{0.0, -3.0, 0.0, 7.0},
+			{0.0, 0.0, 0.0, 9.0},
+		});
+		var dir = Files.createTempDirectory("_npy_olca").toFile();
+		var npz = NpyMatrix.write(dir, "M", m);
+
+		var mapped = MappedCscFile.open(npz).orElseThrow();
+		Assert.assertTrue(MappedCscFile.sidecarOf(npz).exists());
+		Assert.assertEquals(5, mapped.rows());
+		Assert.assertEquals(4, mapped.columns());
+		for (int j = 0; j < m.columns; j++) {
+			Assert.assertArrayEquals(m.getColumn(j), mapped.column(j), 1e-16);
+		}
+		Assert.assertArrayEquals(m.diag(), mapped.diag(), 1e-16);
+
+		// the existing sidecar file is mapped again
+		var reopened = MappedCscFile.open(npz).orElseThrow();
+		Assert.assertArrayEquals(m.getColumn(3), reopened.column(3), 1e-16);
+		Dirs.delete(dir);
+	}
+
+	@Test
+	public void testUpdateSidecar() throws Exception {
+		var dir = Files.createTempDirectory("_npy_olca").toFile();
+		var npz = NpyMatrix.write(dir, "M", CSCMatrix.of(new double[][]{
+			{1.0, 0.0},
+			{0.0, 2.0},
+		}));
+		var first = MappedCscFile.open(npz).orElseThrow();
+		Assert.assertArrayEquals(new double[]{1.0, 2.0}, first.diag(), 1e-16);
+
+		// overwrite the npz file; the sidecar file is then outdated
+		Thread.sleep(10);
+		npz = NpyMatrix.write(dir, "M", CSCMatrix.of(new double[][]{
+			{3.0, 0.0, 0.0},
+			{0.0, 4.0, 0.0},
+			{1.0, 0.0, 5.0},
+		}));
+		var second = MappedCscFile.open(npz).orElseThrow();
+		Assert.assertEquals(3, second.columns());
+		Assert.assertArrayEquals(new double[]{3.0, 4.0, 5.0}, second.diag(), 1e-16);
+		Assert.assertArrayEquals(
+			new double[]{3.0, 0.0, 1.0}, second.column(0), 1e-16);
+		Dirs.delete(dir);
+	}
+
+	@Test
+	public void testLibMatrix() throws Exception {
+		var dir = Files.createTempDirectory("_npy_olca").toFile();
+		var library = Library.of(dir);
+		LibMatrix.A.write(library, CSCMatrix.of(new double[][]{
+			{1.0, 0.0},
+			{-1.0, 2.0},
+		}));
+		Assert.assertArrayEquals(new double[]{1.0, -1.0},
+			LibMatrix.A.readColumnFrom(library, 0).orElseThrow(), 1e-16);
+		Assert.assertArrayEquals(new double[]{1.0, 2.0},
+			LibMatrix.A.readDiagonalFrom(library).orElseThrow(), 1e-16);
+
+		// the new values are read when the matrix changes
+		var npz = NpyMatrix.write(dir, "A", CSCMatrix.of(new double[][]{
+			{3.0, 0.0},
+			{0.0, 4.0},
+		}));
+		Assert.assertTrue(npz.setLastModified(npz.lastModified() + 2000));
+		Assert.assertArrayEquals(new double[]{3.0, 0.0},
+			LibMatrix.A.readColumnFrom(library, 0).orElseThrow(), 1e-16);
+		Assert.assertArrayEquals(new double[]{3.0, 4.0},
+			LibMatrix.A.readDiagonalFrom(library).orElseThrow(), 1e-16);
+		Dirs.delete(dir);
+	}
+
+	@Test
+	public void testNoSidecarForDenseMatrix() throws IOException {
+		var dir = Files.createTempDirectory("_npy_olca").toFile();
+		var npy = NpyMatrix.write(dir, "M", DenseMatrix.of(new double[][]{
+			{1.0, 0.0},
+			{0.0, 2.0},
+		}));
+		Assert.assertTrue(MappedCscFile.open(npy).isEmpty());
+		Dirs.delete(dir);
+	}
+}
@@ -0,0 +1,95 @@
+package org.openlca.core.matrix.io;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openlca.core.matrix.format.DenseMatrix;
+import org.openlca.core.matrix.format.HashPointMatrix;
+import org.openlca.core.matrix.format.MatrixConverter;
+import org.openlca.core.matrix.format.MatrixReader;
+import org.openlca.core.matrix.solvers.MatrixKernels;
+import org.openlca.npy.Npy;
+import org.openlca.npy.NpyDoubleArray;
+
+public class MappedNpyMatrixTest {
+
+	private final DenseMatrix matrix = DenseMatrix.of(new double[][]{
+		{1.0, 2.0, 0.0, 4.0},
+		{5.0, 0.0, 7.0, 8.0},
+		{9.0, 10.0, 11.0, 0.0},
+	});
+
+	@Test
+	public void testColumnOrder() throws Exception {
+		var dir = Files.createTempDirectory("_npy_olca").toFile();
+		var file = NpyMatrix.write(dir, "M", matrix);
+		var mapped = MappedNpyMatrix.open(file).orElseThrow();
+		check(mapped);
+	}
+
+	@Test
+	public void testRowOrder() throws Exception {
+		var file = Files.createTempFile("_npy_olca", ".npy").toFile();
+		var data = new double[]{
+			1.0, 2.0, 0.0, 4.0,
+			5.0, 0.0, 7.0, 8.0,
+			9.0, 10.0, 11.0, 0.0};
+		Npy.write(file, NpyDoubleArray.rowOrderOf(data, 3, 4));
+		var mapped = MappedNpyMatrix.open(file).orElseThrow();
+		check(mapped);
+	}
+
+	@Test
+	public void testSegments() throws Exception {
+		var dir = Files.createTempDirectory("_npy_olca").toFile();
+		var file = NpyMatrix.write(dir, "M", matrix);
+		// a segment can hold one column with 3 values
+		var mapped = MappedNpyMatrix.map(file, 30);
+		Assert.assertNotNull(mapped);
+		check(mapped);
+	}
+
+	@Test
+	public void testNoMatrix() throws Exception {
+		var dir = Files.createTempDirectory("_npy_olca").toFile();
+		var npz = NpyMatrix.write(dir, "M", HashPointMatrix.of(new double[][]{
+			{1.0, 0.0},
+			{0.0, 2.0},
+		}));
+		Assert.assertTrue(MappedNpyMatrix.open(npz).isEmpty());
+		Assert.assertTrue(MappedNpyMatrix.open(new File(dir, "X.npy")).isEmpty());
+	}
+
+	private void check(MatrixReader mapped) {
+		Assert.assertEquals(3, mapped.rows());
+		Assert.assertEquals(4, mapped.columns());
+		Assert.assertTrue(mapped.isDense());
+		for (int row = 0; row < 3; row++) {
+			Assert.assertArrayEquals(
+				matrix.getRow(row), mapped.getRow(row), 1e-16);
+			for (int col = 0; col < 4; col++) {
+				Assert.assertEquals(
+					matrix.get(row, col), mapped.get(row, col), 1e-16);
+			}
+		}
+		for (int col = 0; col < 4; col++) {
+			Assert.assertArrayEquals(
+				matrix.getColumn(col), mapped.getColumn(col), 1e-16);
+		}
+		Assert.assertArrayEquals(matrix.diag(), mapped.diag(), 1e-16);
+
+		var v = new double[]{1.0, -1.0, 0.5, 2.0};
+		Assert.assertArrayEquals(
+			matrix.multiply(v), mapped.multiply(v), 1e-16);
+		Assert.assertArrayEquals(
+			matrix.multiply(v), MatrixKernels.multiply(mapped, v), 1e-16);
+
+		var copy = new DenseMatrix(3, 4);
+		mapped.iterate(copy::set);
+		Assert.assertArrayEquals(matrix.data, copy.data, 1e-16);
+		Assert.assertArrayEquals(
+			matrix.data, MatrixConverter.dense(mapped).data, 1e-16);
+	}
+}
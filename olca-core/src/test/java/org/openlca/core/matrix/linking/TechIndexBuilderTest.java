@@ -0,0 +1,92 @@
+package org.openlca.core.matrix.linking;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.matrix.cache.MatrixCache;
+import org.openlca.core.matrix.index.TechFlow;
+import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.UnitGroup;
+
+public class TechIndexBuilderTest {
+
+	// we use a separate database as this test writes many entities
+	private final IDatabase db = Derby.createInMemory();
+
+	@After
+	public void cleanup() throws Exception {
+		db.close();
+	}
+
+	@Test
+	public void testParallelBuild() {
+		int n = 200;
+		var units = UnitGroup.of("Mass units", "kg");
+		var mass = FlowProperty.of("Mass", units);
+		db.insert(units, mass);
+		var products = new ArrayList<Flow>();
+		var processes = new ArrayList<Process>();
+		for (int i = 0; i < n; i++) {
+			var product = Flow.product("p" + i, mass);
+			products.add(product);
+			processes.add(Process.of("proc" + i, product));
+		}
+
+		// each process has 3 random inputs; this gives many processes that
+		// are linked to the same provider in a block
+		var rand = new Random(42);
+		for (var process : processes) {
+			for (int k = 0; k < 3; k++) {
+				var input = products.get(rand.nextInt(n));
+				if (input == process.quantitativeReference.flow)
+					continue;
+				process.input(input, 1.0);
+			}
+		}
+		db.transaction(em -> {
+			products.forEach(em::persist);
+			processes.forEach(em::persist);
+		});
+
+		var ref = TechFlow.of(
+			processes.get(0), processes.get(0).quantitativeReference.flow);
+		var config = new LinkingConfig();
+		var seq = new TechIndexBuilder(MatrixCache.createLazy(db), null, config)
+			.withPool(null)
+			.build(ref);
+		var pool = new ForkJoinPool(4);
+		var par = new TechIndexBuilder(MatrixCache.createLazy(db), null, config)
+			.withPool(pool)
+			.build(ref);
+		pool.shutdown();
+		check(seq, par);
+		check(seq, new TechIndexBuilder(MatrixCache.createLazy(db), null, config)
+			.build(ref));
+		assertTrue(seq.size() > 100);
+	}
+
+	private void check(TechIndex expected, TechIndex actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.at(i), actual.at(i));
+		}
+		assertEquals(
+			expected.getLinkedExchanges().size(),
+			actual.getLinkedExchanges().size());
+		for (var exchange : expected.getLinkedExchanges()) {
+			assertEquals(
+				expected.getLinkedProvider(exchange),
+				actual.getLinkedProvider(exchange));
+		}
+	}
+}
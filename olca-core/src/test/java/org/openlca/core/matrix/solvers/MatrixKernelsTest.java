@@ -0,0 +1,138 @@
+package org.openlca.core.matrix.solvers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.openlca.core.matrix.format.DenseMatrix;
+import org.openlca.core.matrix.format.HashPointMatrix;
+import org.openlca.core.matrix.format.JavaMatrix;
+import org.openlca.core.matrix.format.MatrixReader;
+
+public class MatrixKernelsTest {
+
+	private final Random rand = new Random(42);
+
+	@Test
+	public void testMatrixVector() {
+		var a = randomSparse(50, 40, 0.05);
+		var v = new double[40];
+		for (int i = 0; i < v.length; i++) {
+			v[i] = rand.nextDouble();
+		}
+		var expected = reference(DenseMatrix.of(a), v);
+		assertArrayEquals(expected, MatrixKernels.multiply(a, v), 1e-12);
+		assertArrayEquals(expected, MatrixKernels.multiply(a.compress(), v), 1e-12);
+		assertArrayEquals(expected, MatrixKernels.multiply(DenseMatrix.of(a), v), 1e-12);
+		assertArrayEquals(expected, new JavaSolver().multiply(a, v), 1e-12);
+	}
+
+	@Test
+	public void testMatrixMatrix() {
+		var a = randomSparse(30, 40, 0.05);
+		var b = randomSparse(40, 20, 0.1);
+		var expected = reference(DenseMatrix.of(a), DenseMatrix.of(b));
+
+		MatrixReader[] as = {a, a.compress(), DenseMatrix.of(a)};
+		MatrixReader[] bs = {b, b.compress(), DenseMatrix.of(b)};
+		for (var x : as) {
+			for (var y : bs) {
+				check(expected, MatrixKernels.multiply(x, y, false));
+				check(expected, MatrixKernels.multiply(x, y, true));
+			}
+		}
+		check(expected, new JavaSolver().multiply(a, b));
+		check(expected, new JavaSolver().multiply(
+			JavaMatrix.of(toArray(a)), JavaMatrix.of(toArray(b))));
+	}
+
+	@Test
+	public void testSparseResult() {
+		var a = randomSparse(200, 200, 0.005);
+		var b = randomSparse(200, 200, 0.005);
+		var c = MatrixKernels.multiply(a, b);
+		assertTrue(c instanceof HashPointMatrix);
+		check(reference(DenseMatrix.of(a), DenseMatrix.of(b)), c);
+	}
+
+	@Test
+	public void testLargeParallel() {
+		// large enough to run in parallel
+		var a = randomSparse(400, 300, 0.2);
+		var b = DenseMatrix.of(randomSparse(300, 200, 1.0));
+		var expected = reference(DenseMatrix.of(a), b);
+		check(expected, MatrixKernels.multiply(a, b, true));
+		check(expected, MatrixKernels.multiply(DenseMatrix.of(a), b, true));
+		check(expected, MatrixKernels.multiply(a, randomSparseOf(b), true));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDimensionMismatch() {
+		MatrixKernels.multiply(new CSCMatrix(2, 3, new double[0],
+			new int[4], new int[0]), new DenseMatrix(2, 2));
+	}
+
+	private HashPointMatrix randomSparse(int rows, int cols, double fill) {
+		var m = new HashPointMatrix(rows, cols);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				if (rand.nextDouble() < fill) {
+					m.set(row, col, rand.nextDouble() - 0.5);
+				}
+			}
+		}
+		return m;
+	}
+
+	private HashPointMatrix randomSparseOf(DenseMatrix m) {
+		var s = new HashPointMatrix(m.rows, m.columns);
+		m.iterate(s::set);
+		return s;
+	}
+
+	private double[][] toArray(MatrixReader m) {
+		var array = new double[m.rows()][m.columns()];
+		for (int row = 0; row < m.rows(); row++) {
+			array[row] = m.getRow(row);
+		}
+		return array;
+	}
+
+	private double[] reference(DenseMatrix a, double[] v) {
+		var r = new double[a.rows];
+		for (int row = 0; row < a.rows; row++) {
+			for (int col = 0; col < a.columns; col++) {
+				r[row] += a.get(row, col) * v[col];
+			}
+		}
+		return r;
+	}
+
+	private DenseMatrix reference(DenseMatrix a, DenseMatrix b) {
+		var c = new DenseMatrix(a.rows, b.columns);
+		for (int row = 0; row < a.rows; row++) {
+			for (int col = 0; col < b.columns; col++) {
+				double sum = 0;
+				for (int k = 0; k < a.columns; k++) {
+					sum += a.get(row, k) * b.get(k, col);
+				}
+				c.set(row, col, sum);
+			}
+		}
+		return c;
+	}
+
+	private void check(DenseMatrix expected, MatrixReader actual) {
+		assertEquals(expected.rows, actual.rows());
+		assertEquals(expected.columns, actual.columns());
+		for (int row = 0; row < expected.rows; row++) {
+			for (int col = 0; col < expected.columns; col++) {
+				assertEquals(expected.get(row, col), actual.get(row, col), 1e-12);
+			}
+		}
+	}
+}
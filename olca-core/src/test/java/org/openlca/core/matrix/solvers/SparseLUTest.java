@@ -0,0 +1,230 @@
+package org.openlca.core.matrix.solvers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.commons.math3.linear.SingularMatrixException;
+import org.junit.Test;
+import org.openlca.core.matrix.format.CSCMatrix;
+import org.openlca.core.matrix.format.DenseMatrix;
+import org.openlca.core.matrix.format.HashPointMatrix;
+
+public class SparseLUTest {
+
+	@Test
+	public void testSingleSolution() {
+		var m = HashPointMatrix.of(new double[][]{
+			{2.0, 3.0, 0.0, 0.0, 0.0},
+			{3.0, 0.0, 4.0, 0.0, 6.0},
+			{0.0, -1.0, -3.0, 2.0, 0.0},
+			{0.0, 0.0, 1.0, 0.0, 0.0},
+			{0.0, 4.0, 2.0, 0.0, 1.0}});
+		var lu = SparseLU.of(CSCMatrix.of(m));
+		double[] b = {8., 45., -3., 3., 19.};
+		double[] x = lu.solve(b);
+		assertArrayEquals(new double[]{1d, 2d, 3d, 4d, 5d}, x, 1e-8);
+	}
+
+	@Test
+	public void testIdentity() {
+		var m = new HashPointMatrix(100, 100);
+		for (int i = 0; i < 100; i++) {
+			m.set(i, i, 1.0);
+		}
+		var lu = SparseLU.of(m);
+		for (int i = 0; i < 100; i++) {
+			var x = lu.solve(i, 1.0);
+			var expected = new double[100];
+			expected[i] = 1.0;
+			assertArrayEquals(expected, x, 1e-10);
+		}
+	}
+
+	@Test
+	public void testRandomSystem() {
+		int n = 500;
+		var rand = new Random(42);
+		var m = new HashPointMatrix(n, n);
+		for (int j = 0; j < n; j++) {
+			m.set(j, j, 1.0);
+			for (int k = 0; k < 4; k++) {
+				int i = rand.nextInt(n);
+				if (i != j) {
+					m.set(i, j, -0.2 * rand.nextDouble());
+				}
+			}
+		}
+		// add a dense row and column like a market or waste treatment
+		for (int i = 1; i < n; i++) {
+			m.set(0, i, -0.001);
+			m.set(i, 0, -0.001);
+		}
+
+		var lu = SparseLU.of(m);
+		var expected = new JavaSolver().factorize(DenseMatrix.of(toArray(m)));
+		for (int idx : new int[]{0, 1, 42, 250, n - 1}) {
+			var x = lu.solve(idx, 1.0);
+			assertArrayEquals(expected.solve(idx, 1.0), x, 1e-10);
+			var b = m.multiply(x);
+			assertArrayEquals(unit(n, idx), b, 1e-10);
+		}
+		assertTrue(lu.nonZeros() > 0);
+	}
+
+	@Test
+	public void testSolveMatrix() {
+		int n = 200;
+		var m = randomSystem(n, 1);
+		var lu = SparseLU.of(m);
+		var b = new DenseMatrix(n, 20);
+		for (int j = 0; j < b.columns; j++) {
+			b.set(j * 10, j, 1.0);
+			b.set(n - 1 - j, j, 2.0);
+		}
+		var x = lu.solve(b);
+		for (int j = 0; j < b.columns; j++) {
+			assertArrayEquals(lu.solve(b.getColumn(j)), x.getColumn(j), 1e-12);
+		}
+	}
+
+	@Test
+	public void testPivoting() {
+		// a zero on the diagonal requires row exchanges
+		var m = HashPointMatrix.of(new double[][]{
+			{0.0, 1.0, 0.0},
+			{1.0, 0.0, 2.0},
+			{0.0, 3.0, 1.0}});
+		var x = SparseLU.of(m).solve(new double[]{1, 7, 5});
+		assertArrayEquals(new double[]{3, 1, 2}, x, 1e-12);
+	}
+
+	@Test
+	public void testJavaSolver() {
+		var m = HashPointMatrix.of(new double[][]{
+			{1.0, 0.0},
+			{-5.0, 4.0}});
+		var solver = new JavaSolver();
+		assertTrue(solver.factorize(m) instanceof SparseLU);
+		assertArrayEquals(new double[]{1, 1.25}, solver.solve(m, 0, 1), 1e-14);
+	}
+
+	@Test(expected = SingularMatrixException.class)
+	public void testSingular() {
+		var m = HashPointMatrix.of(new double[][]{
+			{1.0, -2.0, 0.0},
+			{-1.0, 2.0, 0.0},
+			{0.0, 0.0, 1.0}});
+		SparseLU.of(m);
+	}
+
+	@Test
+	public void testReuseAnalysis() {
+		var analysis = SparseLU.analyze(randomSystem(300, 1));
+		for (int seed = 2; seed < 6; seed++) {
+			var m = randomSystem(300, seed);
+			assertTrue(analysis.matches(m));
+			var lu = analysis.factorize(m);
+			var x = lu.solve(7, 1.0);
+			assertArrayEquals(unit(300, 7), m.multiply(x), 1e-10);
+		}
+	}
+
+	@Test
+	public void testRefactorize() {
+		var lu = SparseLU.of(randomSystem(300, 1));
+		for (int seed = 2; seed < 6; seed++) {
+			var m = randomSystem(300, seed);
+			assertTrue(lu.refactorize(m));
+			for (int idx : new int[]{0, 42, 299}) {
+				var x = lu.solve(idx, 1.0);
+				assertArrayEquals(unit(300, idx), m.multiply(x), 1e-10);
+			}
+		}
+	}
+
+	@Test
+	public void testRefactorizeWithNewPivots() {
+		// the initial pivot order is not acceptable for the second matrix
+		var lu = SparseLU.of(HashPointMatrix.of(new double[][]{
+			{4.0, 1.0, 0.0},
+			{1.0, 3.0, 1.0},
+			{0.0, 1.0, 2.0}}));
+		var m = HashPointMatrix.of(new double[][]{
+			{1e-12, 1.0, 0.0},
+			{1.0, 3.0, 1.0},
+			{0.0, 1.0, 2.0}});
+		assertTrue(lu.refactorize(m));
+		var x = lu.solve(new double[]{1, 5, 3});
+		assertArrayEquals(new double[]{1, 5, 3}, m.multiply(x), 1e-10);
+	}
+
+	@Test
+	public void testPatternSubset() {
+		// entries of the analyzed pattern can be zero
+		var analysis = SparseLU.analyze(HashPointMatrix.of(new double[][]{
+			{1.0, -0.5, -0.2},
+			{-0.3, 1.0, 0.0},
+			{0.0, -0.1, 1.0}}));
+		var m = HashPointMatrix.of(new double[][]{
+			{1.0, -0.5, 0.0},
+			{0.0, 1.0, 0.0},
+			{0.0, -0.1, 1.0}});
+		assertTrue(analysis.matches(m));
+		var x = analysis.factorize(m).solve(new double[]{1, 1, 1});
+		assertArrayEquals(new double[]{1.5, 1, 1.1}, x, 1e-12);
+	}
+
+	@Test
+	public void testPatternMismatch() {
+		var analysis = SparseLU.analyze(HashPointMatrix.of(new double[][]{
+			{1.0, 0.0},
+			{-0.5, 1.0}}));
+		var m = HashPointMatrix.of(new double[][]{
+			{1.0, -0.5},
+			{0.0, 1.0}});
+		assertFalse(analysis.matches(m));
+		assertFalse(SparseLU.of(HashPointMatrix.of(new double[][]{
+			{1.0, 0.0},
+			{-0.5, 1.0}})).refactorize(m));
+
+		// falls back to a full factorization
+		var x = analysis.factorize(m).solve(new double[]{1, 1});
+		assertArrayEquals(new double[]{1.5, 1}, x, 1e-12);
+	}
+
+	/**
+	 * Creates a random system with the same non-zero pattern for each seed.
+	 */
+	private HashPointMatrix randomSystem(int n, int seed) {
+		var pattern = new Random(42);
+		var values = new Random(seed);
+		var m = new HashPointMatrix(n, n);
+		for (int j = 0; j < n; j++) {
+			m.set(j, j, 0.5 + values.nextDouble());
+			for (int k = 0; k < 3; k++) {
+				int i = pattern.nextInt(n);
+				if (i != j) {
+					m.set(i, j, -0.2 - 0.1 * values.nextDouble());
+				}
+			}
+		}
+		return m;
+	}
+
+	private double[][] toArray(HashPointMatrix m) {
+		var a = new double[m.rows()][];
+		for (int i = 0; i < m.rows(); i++) {
+			a[i] = m.getRow(i);
+		}
+		return a;
+	}
+
+	private double[] unit(int n, int idx) {
+		var v = new double[n];
+		v[idx] = 1.0;
+		return v;
+	}
+}
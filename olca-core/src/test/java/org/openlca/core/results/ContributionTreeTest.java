@@ -2,6 +2,8 @@ package org.openlca.core.results;
 
 import static org.junit.Assert.*;
 
+import java.util.List;
+
 import org.junit.Test;
 import org.openlca.core.Tests;
 import org.openlca.core.matrix.Demand;
@@ -9,10 +11,14 @@ import org.openlca.core.matrix.index.EnviIndex;
 import org.openlca.core.matrix.index.EnviFlow;
 import org.openlca.core.matrix.index.LongPair;
 import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.format.HashPointMatrix;
 import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.matrix.index.TechIndex;
 import org.openlca.core.model.descriptors.FlowDescriptor;
 import org.openlca.core.model.descriptors.ProcessDescriptor;
+import org.openlca.core.results.providers.FactorizationSolver;
+import org.openlca.core.results.providers.InversionResult;
+import org.openlca.core.results.providers.SolverContext;
 
 public class ContributionTreeTest {
 
@@ -59,6 +65,51 @@ public class ContributionTreeTest {
 
 	}
 
+	@Test
+	public void testBlockSolves() {
+		var data = new MatrixData();
+		var techIndex = new TechIndex(provider(1, 1));
+		for (int i = 2; i <= 4; i++) {
+			techIndex.add(provider(i, i));
+			techIndex.putLink(LongPair.of(1, i), provider(i, i));
+		}
+		data.techIndex = techIndex;
+		data.demand = Demand.of(techIndex.at(0), 1.0);
+		var enviIndex = EnviIndex.create();
+		var outFlow = new FlowDescriptor();
+		outFlow.id = 5;
+		enviIndex.add(EnviFlow.outputOf(outFlow));
+		data.enviIndex = enviIndex;
+		data.techMatrix = HashPointMatrix.of(new double[][]{
+				{1, 0, 0, 0},
+				{-1, 1, 0, -0.5},
+				{-2, 0, 1, 0},
+				{-1, 0, 0, 1}});
+		data.enviMatrix = HashPointMatrix.of(new double[][]{
+				{1, 2, 3, 4}});
+		data.costVector = new double[]{1, 1, 2, 2};
+
+		var context = SolverContext.of(data);
+		var blocks = FactorizationSolver.solve(context);
+		var inverse = InversionResult.of(context).calculate().provider();
+		assertTrue(blocks.hasBlockSolves());
+		assertFalse(inverse.hasBlockSolves());
+
+		var expected = List.of(UpstreamTree.of(inverse, enviIndex.at(0)),
+				UpstreamTree.costsOf(inverse));
+		var actual = List.of(UpstreamTree.of(blocks, enviIndex.at(0)),
+				UpstreamTree.costsOf(blocks));
+		for (int t = 0; t < expected.size(); t++) {
+			var e = expected.get(t).childs(expected.get(t).root);
+			var a = actual.get(t).childs(actual.get(t).root);
+			assertEquals(3, a.size());
+			for (int i = 0; i < e.size(); i++) {
+				assertEquals(e.get(i).provider, a.get(i).provider);
+				assertEquals(e.get(i).result, a.get(i).result, 1e-10);
+			}
+		}
+	}
+
 	private TechFlow provider(long id, long flowId) {
 		ProcessDescriptor process = new ProcessDescriptor();
 		process.name = "Process " + id;
@@ -0,0 +1,80 @@
+package org.openlca.core.results;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RunningStatisticsTest {
+
+	@Test
+	public void testEmpty() {
+		var stats = new RunningStatistics(2);
+		assertEquals(0, stats.count());
+		assertEquals(0, stats.get(0).count);
+		assertEquals(0, stats.get(1).mean, 1e-16);
+	}
+
+	@Test
+	public void testExactForFewValues() {
+		var stats = new RunningStatistics(1);
+		stats.add(new double[]{3});
+		stats.add(new double[]{1});
+		stats.add(new double[]{2});
+		var s = stats.get(0);
+		assertEquals(3, s.count);
+		assertEquals(2, s.mean, 1e-16);
+		assertEquals(2, s.median, 1e-16);
+		assertEquals(1, s.min, 1e-16);
+		assertEquals(3, s.max, 1e-16);
+		assertEquals(1, s.standardDeviation, 1e-16);
+	}
+
+	@Test
+	public void testEstimates() {
+		var rand = new Random(42);
+		int n = 20_000;
+		var normal = new double[n];
+		var uniform = new double[n];
+		var stats = new RunningStatistics(2);
+		for (int i = 0; i < n; i++) {
+			normal[i] = 10 + 2 * rand.nextGaussian();
+			uniform[i] = rand.nextDouble();
+			stats.add(new double[]{normal[i], uniform[i]});
+		}
+		assertEquals(n, stats.count());
+
+		var expected = Statistics.of(normal);
+		var s = stats.get(0);
+		assertEquals(n, s.count);
+		assertEquals(expected.mean, s.mean, 1e-10);
+		assertEquals(expected.standardDeviation, s.standardDeviation, 1e-10);
+		assertEquals(expected.min, s.min, 1e-16);
+		assertEquals(expected.max, s.max, 1e-16);
+		assertEquals(expected.median, s.median, 0.05);
+		assertEquals(expected.getPercentileValue(5),
+				s.getPercentileValue(5), 0.05);
+		assertEquals(expected.getPercentileValue(95),
+				s.getPercentileValue(95), 0.05);
+
+		s = stats.get(1);
+		assertEquals(0.5, s.median, 0.01);
+		assertEquals(0.25, s.getPercentileValue(25), 0.01);
+		assertEquals(0.75, s.getPercentileValue(75), 0.01);
+	}
+
+	@Test
+	public void testNegate() {
+		var stats = new RunningStatistics(1);
+		for (int i = 1; i <= 100; i++) {
+			stats.add(new double[]{i});
+		}
+		var s = stats.get(0).negate();
+		assertEquals(-50.5, s.mean, 1e-10);
+		assertEquals(-100, s.min, 1e-16);
+		assertEquals(-1, s.max, 1e-16);
+		assertEquals(-50.5, s.median, 1);
+		assertEquals(-95, s.getPercentileValue(5), 1);
+	}
+}
@@ -31,6 +31,34 @@ public class LazyProviderTest {
 				new double[]{1.0, 1.0, 1.0}, scaling, 1e-10);
 	}
 
+	@Test
+	public void testSolutionsOf() {
+		int n = 50;
+		var data = new MatrixData();
+		var techMatrix = new HashPointMatrix(n, n);
+		data.techIndex = new TechIndex(product(0));
+		for (int i = 0; i < n; i++) {
+			techMatrix.set(i, i, 1.0);
+			if (i > 0) {
+				techMatrix.set(i, i - 1, -0.5);
+				data.techIndex.add(product(i));
+			}
+		}
+		data.techMatrix = techMatrix;
+		data.demand = Demand.of(data.techIndex.at(0), 1.0);
+
+		var bulk = FactorizationSolver.solve(SolverContext.of(data));
+		var single = FactorizationSolver.solve(SolverContext.of(data));
+		var techFlows = new int[]{1, 7, 7, 0, 42, n - 1, 3};
+		var solutions = bulk.solutionsOf(techFlows);
+		Assert.assertEquals(techFlows.length, solutions.length);
+		for (int k = 0; k < techFlows.length; k++) {
+			var expected = single.solutionOfOne(techFlows[k]);
+			Assert.assertArrayEquals(expected, solutions[k], 1e-12);
+			Assert.assertSame(solutions[k], bulk.solutionOfOne(techFlows[k]));
+		}
+	}
+
 	private TechFlow product(int i) {
 		var process = new ProcessDescriptor();
 		process.id = i;
@@ -0,0 +1,192 @@
+package org.openlca.core.results.providers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openlca.core.matrix.Demand;
+import org.openlca.core.matrix.MatrixData;
+import org.openlca.core.matrix.format.HashPointMatrix;
+import org.openlca.core.matrix.index.TechFlow;
+import org.openlca.core.matrix.index.TechIndex;
+import org.openlca.core.model.descriptors.FlowDescriptor;
+import org.openlca.core.model.descriptors.ProcessDescriptor;
+import org.openlca.core.results.providers.VectorCache.Slot;
+
+public class VectorCacheTest {
+
+	private final long vectorBytes = VectorCache.bytesOf(new double[10]);
+
+	@Test
+	public void testEvictLeastRecentlyUsed() {
+		var cache = VectorCache.bounded(3 * vectorBytes);
+		for (int i = 0; i < 3; i++) {
+			cache.put(Slot.SOLUTION, i, vector(i));
+		}
+		assertEquals(3, cache.size());
+		assertEquals(3 * vectorBytes, cache.heapBytes());
+
+		// touch the first vector so that the second one is removed
+		assertNotNull(cache.get(Slot.SOLUTION, 0));
+		cache.put(Slot.TOTAL_FLOWS, 0, vector(3));
+		assertEquals(3, cache.size());
+		assertEquals(3 * vectorBytes, cache.heapBytes());
+		assertNull(cache.get(Slot.SOLUTION, 1));
+		assertArrayEquals(vector(0), cache.get(Slot.SOLUTION, 0), 1e-16);
+		assertArrayEquals(vector(3), cache.get(Slot.TOTAL_FLOWS, 0), 1e-16);
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.heapBytes());
+	}
+
+	@Test
+	public void testUnbounded() {
+		var cache = VectorCache.unbounded();
+		for (int i = 0; i < 100; i++) {
+			cache.put(Slot.SOLUTION, i, vector(i));
+		}
+		assertEquals(100, cache.size());
+		assertEquals(100 * vectorBytes, cache.heapBytes());
+	}
+
+	@Test
+	public void testSpill() {
+		var cache = VectorCache.bounded(2 * vectorBytes, 1024);
+		for (int i = 0; i < 5; i++) {
+			cache.put(Slot.SOLUTION, i, vector(i));
+		}
+		assertEquals(2, cache.size());
+		assertEquals(3 * 80, cache.spilledBytes());
+
+		// spilled vectors are moved back to the heap
+		for (int i = 0; i < 5; i++) {
+			assertArrayEquals(vector(i), cache.get(Slot.SOLUTION, i), 1e-16);
+			assertTrue(cache.heapBytes() <= 2 * vectorBytes);
+		}
+
+		// when the spill area is full, it is reset
+		for (int i = 5; i < 30; i++) {
+			cache.put(Slot.SOLUTION, i, vector(i));
+		}
+		assertTrue(cache.spilledBytes() <= 1024);
+		assertArrayEquals(vector(29), cache.get(Slot.SOLUTION, 29), 1e-16);
+		assertNull(cache.get(Slot.SOLUTION, 0));
+	}
+
+	@Test
+	public void testBoundedProvider() {
+		var data = new MatrixData();
+		data.techMatrix = HashPointMatrix.of(new double[][]{
+				{1.0, 0.0, 0.0},
+				{-1.0, 1.0, 0.0},
+				{0.0, -0.5, 1.0},
+		});
+		data.techIndex = new TechIndex(product(1));
+		data.techIndex.add(product(2));
+		data.techIndex.add(product(3));
+		data.demand = Demand.of(data.techIndex.at(0), 1.0);
+
+		var provider = FactorizationSolver.solve(SolverContext.of(data)
+				.vectorCaches(() -> VectorCache.bounded(
+						VectorCache.bytesOf(new double[3]))));
+		for (int round = 0; round < 2; round++) {
+			assertArrayEquals(new double[]{1.0, 1.0, 0.5},
+					provider.solutionOfOne(0), 1e-10);
+			assertArrayEquals(new double[]{0.0, 1.0, 0.5},
+					provider.solutionOfOne(1), 1e-10);
+			assertArrayEquals(new double[]{0.0, 0.0, 1.0},
+					provider.solutionOfOne(2), 1e-10);
+		}
+		assertEquals(VectorCache.bytesOf(new double[3]), provider.cachedBytes());
+	}
+
+	@Test
+	public void testSharedPool() {
+		var pool = new SharedVectorCache.Pool(3 * vectorBytes);
+		var cache1 = new SharedVectorCache(pool);
+		var cache2 = new SharedVectorCache(pool);
+		cache1.put(Slot.SOLUTION, 0, vector(0));
+		cache1.put(Slot.SOLUTION, 1, vector(1));
+		cache2.put(Slot.SOLUTION, 0, vector(2));
+		assertEquals(3 * vectorBytes, pool.bytes());
+
+		// the same keys in different caches are different entries
+		assertArrayEquals(vector(0), cache1.get(Slot.SOLUTION, 0), 1e-16);
+		assertArrayEquals(vector(2), cache2.get(Slot.SOLUTION, 0), 1e-16);
+
+		// the least recently used vector of all caches is removed
+		cache2.put(Slot.SOLUTION, 1, vector(3));
+		assertNull(cache1.get(Slot.SOLUTION, 1));
+		assertEquals(1, cache1.size());
+		assertEquals(2, cache2.size());
+		assertEquals(2 * vectorBytes, cache2.heapBytes());
+		assertEquals(3 * vectorBytes, pool.bytes());
+
+		cache2.clear();
+		assertEquals(0, cache2.size());
+		assertEquals(vectorBytes, pool.bytes());
+		assertArrayEquals(vector(0), cache1.get(Slot.SOLUTION, 0), 1e-16);
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception {
+		var caches = List.of(
+				VectorCache.bounded(20 * vectorBytes),
+				VectorCache.bounded(20 * vectorBytes, 1024),
+				new SharedVectorCache(new SharedVectorCache.Pool(20 * vectorBytes)));
+		for (var cache : caches) {
+			var pool = Executors.newFixedThreadPool(8);
+			var tasks = new ArrayList<Future<?>>();
+			for (int t = 0; t < 8; t++) {
+				int seed = t;
+				tasks.add(pool.submit(() -> {
+					var rand = new Random(seed);
+					for (int k = 0; k < 20_000; k++) {
+						int i = rand.nextInt(50);
+						var v = cache.get(Slot.SOLUTION, i);
+						if (v == null) {
+							cache.put(Slot.SOLUTION, i, vector(i));
+						} else {
+							assertArrayEquals(vector(i), v, 1e-16);
+						}
+					}
+				}));
+			}
+			for (var task : tasks) {
+				task.get(60, TimeUnit.SECONDS);
+			}
+			pool.shutdown();
+			assertTrue(cache.size() <= 20);
+			assertEquals(cache.size() * vectorBytes, cache.heapBytes());
+		}
+	}
+
+	private double[] vector(int i) {
+		var v = new double[10];
+		for (int j = 0; j < v.length; j++) {
+			v[j] = i * 10 + j;
+		}
+		return v;
+	}
+
+	private TechFlow product(int i) {
+		var process = new ProcessDescriptor();
+		process.id = i;
+		process.name = "process " + i;
+		var flow = new FlowDescriptor();
+		flow.id = i;
+		flow.name = "product " + i;
+		return TechFlow.of(process, flow);
+	}
+}
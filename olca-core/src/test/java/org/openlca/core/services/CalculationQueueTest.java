@@ -1,6 +1,8 @@
 package org.openlca.core.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.HashSet;
@@ -11,12 +13,16 @@ import org.junit.Before;
 import org.junit.Test;
 import org.openlca.core.Tests;
 import org.openlca.core.database.IDatabase;
+import org.openlca.core.model.Actor;
 import org.openlca.core.model.CalculationSetup;
 import org.openlca.core.model.Flow;
 import org.openlca.core.model.FlowProperty;
 import org.openlca.core.model.Process;
 import org.openlca.core.model.RootEntity;
 import org.openlca.core.model.UnitGroup;
+import org.openlca.jsonld.MemStore;
+import org.openlca.jsonld.input.JsonImport;
+import org.openlca.jsonld.output.JsonExport;
 
 public class CalculationQueueTest {
 
@@ -83,4 +89,49 @@ public class CalculationQueueTest {
 		}
 	}
 
+	@Test
+	public void testCachedResults() throws Exception {
+		var cache = new ResultCache(10);
+		var queue = new CalculationQueue(db, 1).withCache(cache);
+		var setup = CalculationSetup.of(process);
+
+		var first = await(queue, queue.schedule(setup).id());
+		assertEquals(0, cache.hits());
+		assertEquals(1, cache.size());
+
+		// the same setup is served from the cache
+		var second = queue.schedule(CalculationSetup.of(process));
+		assertTrue(second.isReady());
+		assertSame(first.result(), second.result());
+		assertEquals(1, cache.hits());
+
+		// a change in the database invalidates the cache
+		process.description = "changed";
+		db.update(process);
+		assertEquals(0, cache.size());
+		var third = queue.schedule(setup);
+		assertFalse(third.isReady());
+		await(queue, third.id());
+		assertEquals(1, cache.size());
+
+		// a bulk import invalidates the cache
+		var actor = Actor.of("cached results test");
+		var store = new MemStore();
+		new JsonExport(db, store).write(actor);
+		new JsonImport(store, db).run();
+		assertEquals(0, cache.size());
+		db.delete(db.get(Actor.class, actor.refId));
+		queue.shutdown();
+	}
+
+	private ResultState await(CalculationQueue queue, String id)
+			throws InterruptedException {
+		var state = queue.get(id);
+		while (state.isScheduled()) {
+			Thread.sleep(50);
+			state = queue.get(id);
+		}
+		assertTrue(state.isReady());
+		return state;
+	}
 }
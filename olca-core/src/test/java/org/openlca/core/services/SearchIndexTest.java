@@ -0,0 +1,149 @@
+package org.openlca.core.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.model.Category;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.UnitGroup;
+import org.openlca.core.model.descriptors.RootDescriptor;
+import org.openlca.jsonld.MemStore;
+import org.openlca.jsonld.input.JsonImport;
+import org.openlca.jsonld.output.JsonExport;
+
+public class SearchIndexTest {
+
+	private IDatabase db;
+	private Category metals;
+	private Flow steel;
+	private Flow stainless;
+	private Process process;
+
+	@Before
+	public void setup() {
+		db = Derby.createInMemory();
+		var units = UnitGroup.of("Mass units", "kg");
+		var mass = FlowProperty.of("Mass", units);
+		metals = Category.of("Metals", ModelType.FLOW);
+		db.insert(units, mass, metals);
+
+		steel = Flow.product("Steel, hot rolled", mass);
+		steel.synonyms = "acier; Stahl";
+		steel.category = metals;
+		stainless = Flow.product("Stainless steel", mass);
+		stainless.category = metals;
+		var water = Flow.product("Waste water", mass);
+		var copper = Flow.product("Copper", mass);
+		copper.category = metals;
+		process = Process.of("Steel production", steel);
+		db.insert(steel, stainless, water, copper, process);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		db.close();
+	}
+
+	@Test
+	public void testRanking() {
+		var index = SearchIndex.of(db);
+		assertSame(index, SearchIndex.of(db));
+
+		// exact name matches first, shorter names first
+		assertEquals(
+			List.of("Stainless steel", "Steel production", "Steel, hot rolled"),
+			names(index.search("steel", null)));
+
+		// prefix matches of tokens; "waste" does not match
+		assertEquals(3, index.search("ste", null).size());
+		assertEquals("Steel, hot rolled",
+			index.search("stee hot", null).get(0).name);
+
+		// synonyms and categories
+		assertEquals(List.of("Steel, hot rolled"), names(index.search("acier", null)));
+		var inMetals = names(index.search("metals", null));
+		assertEquals("Metals", inMetals.get(0));
+		assertEquals(4, inMetals.size());
+
+		// type filter and IDs
+		assertEquals(
+			List.of("Steel production"),
+			names(index.search("steel", ModelType.PROCESS)));
+		assertEquals(
+			List.of("Stainless steel"),
+			names(index.search(stainless.refId.toUpperCase(), null)));
+	}
+
+	@Test
+	public void testPaging() {
+		var index = SearchIndex.of(db);
+		var all = index.search("steel", null);
+		for (int i = 0; i < all.size(); i++) {
+			var page = index.search("steel", null, i, 1);
+			assertEquals(1, page.size());
+			assertEquals(all.get(i), page.get(0));
+		}
+		assertTrue(index.search("steel", null, all.size(), 10).isEmpty());
+		assertEquals(all.subList(1, 3), index.search("steel", null, 1, 10));
+	}
+
+	@Test
+	public void testUpdates() {
+		var index = SearchIndex.of(db);
+		int size = index.size();
+
+		var wire = db.insert(Flow.product("Steel wire", steel.referenceFlowProperty));
+		assertEquals(size + 1, index.size());
+		assertEquals(List.of("Steel wire"), names(index.search("wire", null)));
+
+		wire.name = "Iron wire";
+		wire.synonyms = "Eisendraht";
+		wire = db.update(wire);
+		assertTrue(index.search("steel", null)
+			.stream()
+			.noneMatch(d -> d.name.equals("Steel wire")));
+		assertEquals(List.of("Iron wire"), names(index.search("eisen", null)));
+
+		db.delete(wire);
+		assertEquals(size, index.size());
+		assertTrue(index.search("wire", null).isEmpty());
+
+		// renaming a category updates the entries in that category
+		metals.name = "Ferrous metals";
+		metals = db.update(metals);
+		assertEquals(4, index.search("ferrous", null).size());
+	}
+
+	@Test
+	public void testImport() {
+		var index = SearchIndex.of(db);
+		int size = index.size();
+
+		// the import writes the flow without events for single models
+		var store = new MemStore();
+		var bar = Flow.product("Steel bar", steel.referenceFlowProperty);
+		bar.synonyms = "rebar";
+		new JsonExport(db, store).write(bar);
+		new JsonImport(store, db).run();
+
+		assertEquals(List.of("Steel bar"), names(index.search("rebar", null)));
+		assertEquals(size + 1, index.size());
+	}
+
+	private List<String> names(List<RootDescriptor> descriptors) {
+		return descriptors.stream()
+			.map(d -> d.name)
+			.toList();
+	}
+}
@@ -1,5 +1,6 @@
 package org.openlca.geo.calc;
 
+import java.util.HashMap;
 import java.util.List;
 
 import org.junit.Assert;
@@ -9,6 +10,7 @@ import org.openlca.geo.geojson.FeatureCollection;
 import org.openlca.geo.geojson.Geometry;
 import org.openlca.geo.geojson.LineString;
 import org.openlca.geo.geojson.Point;
+import org.openlca.geo.geojson.Polygon;
 import org.openlca.util.Pair;
 
 public class IntersectionTest {
@@ -60,4 +62,70 @@ public class IntersectionTest {
 		b.points.add(new Point(35, 60));
 		b.points.add(new Point(85, 40));
 	}
+
+	@Test
+	public void testGridShares() {
+		// a grid of 10 x 10 unit squares
+		var coll = new FeatureCollection();
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				var f = new Feature();
+				f.geometry = box(x, y, x + 1, y + 1);
+				f.properties = new HashMap<>();
+				f.properties.put("cell", x + "/" + y);
+				coll.features.add(f);
+			}
+		}
+		var calc = IntersectionCalculator.on(coll, Projection.identity());
+
+		// a box that overlaps with 3 x 2 cells
+		var shares = calc.shares(box(2.5, 2.5, 4.5, 3.5));
+		Assert.assertEquals(6, shares.size());
+		for (var share : shares) {
+			var cell = (String) share.first.properties.get("cell");
+			double expected = cell.startsWith("3/") ? 1.0 : 0.5;
+			Assert.assertEquals(expected, share.second, 1e-10);
+		}
+
+		// a box within a single cell
+		shares = calc.shares(box(7.2, 1.2, 7.8, 1.8));
+		Assert.assertEquals(1, shares.size());
+		Assert.assertEquals("7/1", shares.get(0).first.properties.get("cell"));
+		Assert.assertEquals(1.0, shares.get(0).second, 1e-10);
+
+		// a box outside of the grid
+		Assert.assertTrue(calc.shares(box(20, 20, 21, 21)).isEmpty());
+
+		// the batch calculation should give the same results
+		var boxes = List.of(
+				box(2.5, 2.5, 4.5, 3.5),
+				box(7.2, 1.2, 7.8, 1.8),
+				box(20, 20, 21, 21),
+				box(-1, -1, 11, 11));
+		var batch = calc.shares(boxes);
+		Assert.assertEquals(boxes.size(), batch.size());
+		for (int i = 0; i < boxes.size(); i++) {
+			var expected = calc.shares(boxes.get(i));
+			var actual = batch.get(i);
+			Assert.assertEquals(expected.size(), actual.size());
+			for (int j = 0; j < expected.size(); j++) {
+				Assert.assertSame(expected.get(j).first, actual.get(j).first);
+				Assert.assertEquals(
+						expected.get(j).second, actual.get(j).second, 1e-10);
+			}
+		}
+		Assert.assertEquals(100, batch.get(3).size());
+	}
+
+	private Polygon box(double minX, double minY, double maxX, double maxY) {
+		var ring = new LineString();
+		ring.points.add(new Point(minX, minY));
+		ring.points.add(new Point(maxX, minY));
+		ring.points.add(new Point(maxX, maxY));
+		ring.points.add(new Point(minX, maxY));
+		ring.points.add(new Point(minX, minY));
+		var polygon = new Polygon();
+		polygon.rings.add(ring);
+		return polygon;
+	}
 }
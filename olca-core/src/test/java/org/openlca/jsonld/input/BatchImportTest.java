@@ -0,0 +1,91 @@
+package org.openlca.jsonld.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.NativeSql;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.UnitGroup;
+import org.openlca.jsonld.MemStore;
+import org.openlca.jsonld.output.JsonExport;
+
+public class BatchImportTest {
+
+	// we use a separate database as this test writes many entities
+	private final IDatabase db = Derby.createInMemory();
+
+	@After
+	public void cleanup() throws Exception {
+		db.close();
+	}
+
+	/**
+	 * Imports a chain of processes where each process links to the next
+	 * process as provider. The processes are written in multiple batches by
+	 * multiple workers, and the provider links cross the batches.
+	 */
+	@Test
+	public void testProviderChain() {
+		int n = 350;
+		var units = UnitGroup.of("Mass units", "kg");
+		var mass = FlowProperty.of("Mass", units);
+		db.insert(units, mass);
+		var products = new ArrayList<Flow>();
+		for (int i = 0; i < n; i++) {
+			products.add(db.insert(Flow.product("p" + i, mass)));
+		}
+		var processes = new ArrayList<Process>();
+		for (int i = n - 1; i >= 0; i--) {
+			var process = Process.of("proc" + i, products.get(i));
+			if (i < n - 1) {
+				var provider = processes.get(processes.size() - 1);
+				process.input(products.get(i + 1), 1.0)
+					.defaultProviderId = provider.id;
+			}
+			processes.add(db.insert(process));
+		}
+
+		var store = new MemStore();
+		var export = new JsonExport(db, store);
+		processes.forEach(export::write);
+		processes.forEach(db::delete);
+
+		new JsonImport(store, db)
+			.setWorkers(3)
+			.run();
+
+		var imported = new HashMap<String, Process>();
+		for (var p : db.getAll(Process.class)) {
+			imported.put(p.name, p);
+		}
+		assertEquals(n, imported.size());
+		for (int i = 0; i < n - 1; i++) {
+			var process = imported.get("proc" + i);
+			var provider = imported.get("proc" + (i + 1));
+			var input = process.exchanges.stream()
+				.filter(e -> e.isInput)
+				.findAny()
+				.orElse(null);
+			assertNotNull(input);
+			assertEquals(provider.id, input.defaultProviderId);
+		}
+
+		// no exchanges without a process should be created
+		var count = new AtomicInteger(0);
+		NativeSql.on(db).query("select * from tbl_exchanges", r -> {
+			count.incrementAndGet();
+			return true;
+		});
+		assertEquals(2 * n - 1, count.get());
+	}
+}
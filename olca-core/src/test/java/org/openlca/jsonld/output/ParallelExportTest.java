@@ -0,0 +1,100 @@
+package org.openlca.jsonld.output;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openlca.core.database.Derby;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowProperty;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.Process;
+import org.openlca.core.model.UnitGroup;
+import org.openlca.core.model.descriptors.Descriptor;
+import org.openlca.core.model.descriptors.RootDescriptor;
+import org.openlca.jsonld.Json;
+import org.openlca.jsonld.MemStore;
+import org.openlca.jsonld.ZipStore;
+import org.openlca.jsonld.ZipWriter;
+import org.openlca.util.Dirs;
+
+public class ParallelExportTest {
+
+	private final IDatabase db = Derby.createInMemory();
+
+	@After
+	public void cleanup() throws Exception {
+		db.close();
+	}
+
+	@Test
+	public void testParallelExport() throws Exception {
+		var units = UnitGroup.of("Mass units", "kg");
+		var mass = FlowProperty.of("Mass", units);
+		db.insert(units, mass);
+		var descriptors = new ArrayList<RootDescriptor>();
+		for (int i = 0; i < 50; i++) {
+			var product = db.insert(Flow.product("p" + i, mass));
+			var process = db.insert(Process.of("proc" + i, product));
+			descriptors.add(Descriptor.of(process));
+		}
+
+		// sequential export as reference
+		var mem = new MemStore();
+		var seqExport = new JsonExport(db, mem);
+		descriptors.forEach(d -> seqExport.write(db.get(Process.class, d.id)));
+
+		var count = new AtomicInteger(0);
+		var tempDir = Files.createTempDirectory("_olca_tests_").toFile();
+		var zip = new File(tempDir, "test.zip");
+		try (var writer = ZipWriter.open(zip, 8)) {
+			new JsonExport(db, writer)
+				.writeAll(descriptors, 4, ($, e) -> count.incrementAndGet());
+		}
+
+		// the callback is only called for the processes, not their references
+		assertEquals(50, count.get());
+		try (var store = ZipStore.open(zip)) {
+			for (var type : new ModelType[]{
+				ModelType.UNIT_GROUP,
+				ModelType.FLOW_PROPERTY,
+				ModelType.FLOW,
+				ModelType.PROCESS}) {
+				var expected = mem.getRefIds(type);
+				var actual = store.getRefIds(type);
+				assertEquals(expected.size(), actual.size());
+				assertTrue(actual.containsAll(expected));
+				for (var refId : expected) {
+					var json = store.get(type, refId);
+					assertEquals(
+						Json.getString(mem.get(type, refId), "name"),
+						Json.getString(json, "name"));
+				}
+			}
+		}
+		Dirs.delete(tempDir);
+	}
+
+	@Test
+	public void testDuplicateEntries() throws Exception {
+		var tempDir = Files.createTempDirectory("_olca_tests_").toFile();
+		var zip = new File(tempDir, "test.zip");
+		var flow = Flow.product("p", null);
+		try (var writer = ZipWriter.open(zip)) {
+			writer.put(ModelType.FLOW, JsonExport.toJson(flow));
+			flow.name = "q";
+			writer.put(ModelType.FLOW, JsonExport.toJson(flow));
+		}
+		try (var store = ZipStore.open(zip)) {
+			var json = store.get(ModelType.FLOW, flow.refId);
+			assertEquals("p", Json.getString(json, "name"));
+		}
+		Dirs.delete(tempDir);
+	}
+}
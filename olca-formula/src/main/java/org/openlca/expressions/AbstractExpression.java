@@ -39,6 +39,44 @@ public abstract class AbstractExpression implements Expression {
 	public void check() throws ExpressionException {
 	}
 
+	/**
+	 * Compiles the arguments of this expression.
+	 */
+	protected CompiledExpression[] compileArguments()
+			throws ExpressionException {
+		var compiled = new CompiledExpression[arguments.size()];
+		for (int i = 0; i < compiled.length; i++) {
+			compiled[i] = arguments.get(i).compile();
+		}
+		return compiled;
+	}
+
+	@Override
+	public boolean isVolatile() {
+		for (var arg : arguments) {
+			if (arg.isVolatile())
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the given expression is known to evaluate to a number:
+	 * numeric expressions and variables (except the boolean constants).
+	 */
+	protected static boolean isNumeric(Expression e) {
+		if (e == null)
+			return false;
+		var type = e.getResultType();
+		if (type != null)
+			return Double.class.isAssignableFrom(type);
+		if (e instanceof VariableFunction v) {
+			var name = v.getVariableName();
+			return !"true".equals(name) && !"false".equals(name);
+		}
+		return false;
+	}
+
 	protected void checkArguments(Class<?>[] types) throws ExpressionException {
 		if (arguments.size() != types.length)
 			throw new ExpressionException(getName() + " requires "
@@ -0,0 +1,142 @@
+package org.openlca.expressions;
+
+import java.util.Arrays;
+
+/**
+ * An expression that is compiled into a tree of nodes which are evaluated to
+ * primitive values. Contrary to the evaluation of an {@link Expression}, no
+ * values are boxed, and variables are resolved without normalizing their
+ * names. Compiled expressions are immutable and can be shared between
+ * threads; the state of an evaluation is only stored in the scope in which it
+ * is evaluated. Compiled expressions are created with
+ * {@link Compiler#compile(String)}.
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+
+	/**
+	 * Evaluates this expression to a number in the given scope.
+	 */
+	double eval(Scope scope) throws ExpressionException;
+
+	/**
+	 * Evaluates this expression to a boolean value in the given scope.
+	 */
+	default boolean test(Scope scope) throws ExpressionException {
+		throw new ExpressionException(
+				"expression does not evaluate to a boolean value");
+	}
+
+	/**
+	 * Evaluates this expression column-wise for a batch of samples: variables
+	 * that are bound to sample vectors in the scope (see
+	 * {@link Scope#bind(String, double[])}) are resolved to these vectors and
+	 * the expression is evaluated for each sample. The returned vector must not
+	 * be modified as it can be the cached value of a variable. By default, the
+	 * expression is evaluated once and the value is used for all samples; this
+	 * fails if the expression depends on a variable with samples.
+	 */
+	default double[] evalBatch(Scope scope, int size)
+			throws ExpressionException {
+		var r = new double[size];
+		Arrays.fill(r, eval(scope));
+		return r;
+	}
+
+	/**
+	 * Evaluates this expression column-wise to boolean values for a batch of
+	 * samples; see {@link #evalBatch(Scope, int)}.
+	 */
+	default boolean[] testBatch(Scope scope, int size)
+			throws ExpressionException {
+		var r = new boolean[size];
+		Arrays.fill(r, test(scope));
+		return r;
+	}
+
+	/**
+	 * Returns false if it is known that this expression does not evaluate to
+	 * a number but to a boolean value.
+	 */
+	default boolean isNumeric() {
+		return true;
+	}
+
+	/**
+	 * Returns true if this expression can evaluate to different values in the
+	 * same scope; see {@link Expression#isVolatile()}.
+	 */
+	default boolean isVolatile() {
+		return false;
+	}
+
+	/**
+	 * Marks the given compiled expression as volatile.
+	 */
+	static CompiledExpression volatileOf(CompiledExpression e) {
+		return new CompiledExpression() {
+
+			@Override
+			public double eval(Scope scope) throws ExpressionException {
+				return e.eval(scope);
+			}
+
+			@Override
+			public boolean test(Scope scope) throws ExpressionException {
+				return e.test(scope);
+			}
+
+			@Override
+			public double[] evalBatch(Scope scope, int size)
+					throws ExpressionException {
+				return e.evalBatch(scope, size);
+			}
+
+			@Override
+			public boolean[] testBatch(Scope scope, int size)
+					throws ExpressionException {
+				return e.testBatch(scope, size);
+			}
+
+			@Override
+			public boolean isNumeric() {
+				return e.isNumeric();
+			}
+
+			@Override
+			public boolean isVolatile() {
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Wraps the given expression into a compiled expression that evaluates it
+	 * with the boxed values of {@link Expression#evaluate(Scope)}. This is used
+	 * for expressions that do not provide a specific compilation.
+	 */
+	static CompiledExpression boxed(Expression e) {
+		return new CompiledExpression() {
+
+			@Override
+			public double eval(Scope scope) throws ExpressionException {
+				var value = e.evaluate(scope);
+				if (value instanceof Double d)
+					return d;
+				throw new ExpressionException(
+						e.getName() + " does not evaluate to a number",
+						e.getLine(), e.getColumn());
+			}
+
+			@Override
+			public boolean test(Scope scope) throws ExpressionException {
+				var value = e.evaluate(scope);
+				if (value instanceof Boolean b)
+					return b;
+				throw new ExpressionException(
+						e.getName() + " does not evaluate to a boolean value",
+						e.getLine(), e.getColumn());
+			}
+		};
+	}
+}
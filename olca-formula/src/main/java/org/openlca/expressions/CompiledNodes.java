@@ -0,0 +1,403 @@
+package org.openlca.expressions;
+
+import java.util.Arrays;
+
+/**
+ * Factory methods for the nodes of compiled expressions. The nodes support
+ * the evaluation of single values as well as the column-wise evaluation of a
+ * batch of samples (see {@link CompiledExpression#evalBatch(Scope, int)}),
+ * where each operation is applied in a loop over the sample vectors of its
+ * arguments. The vectors that are passed between the nodes are never modified
+ * as they can be cached values of variables; each operation writes its
+ * result into a new vector.
+ */
+public final class CompiledNodes {
+
+	private CompiledNodes() {
+	}
+
+	/**
+	 * A numeric function with one argument.
+	 */
+	@FunctionalInterface
+	public interface Op1 {
+		double apply(double a) throws ExpressionException;
+	}
+
+	/**
+	 * A numeric function with two arguments.
+	 */
+	@FunctionalInterface
+	public interface Op2 {
+		double apply(double a, double b) throws ExpressionException;
+	}
+
+	/**
+	 * A numeric function with a variable number of arguments.
+	 */
+	@FunctionalInterface
+	public interface OpN {
+		double apply(double[] args) throws ExpressionException;
+	}
+
+	/**
+	 * A comparison of two numbers.
+	 */
+	@FunctionalInterface
+	public interface Cmp {
+		boolean test(double a, double b);
+	}
+
+	public static CompiledExpression constant(double value) {
+		return new CompiledExpression() {
+
+			@Override
+			public double eval(Scope scope) {
+				return value;
+			}
+
+			@Override
+			public double[] evalBatch(Scope scope, int size) {
+				var r = new double[size];
+				Arrays.fill(r, value);
+				return r;
+			}
+		};
+	}
+
+	public static CompiledExpression constant(boolean value) {
+		return new BooleanNode() {
+
+			@Override
+			public boolean test(Scope scope) {
+				return value;
+			}
+
+			@Override
+			public boolean[] testBatch(Scope scope, int size) {
+				var r = new boolean[size];
+				Arrays.fill(r, value);
+				return r;
+			}
+		};
+	}
+
+	/**
+	 * Creates a node that generates a random number in each evaluation.
+	 */
+	public static CompiledExpression random() {
+		return new CompiledExpression() {
+
+			@Override
+			public double eval(Scope scope) {
+				return Math.random();
+			}
+
+			@Override
+			public double[] evalBatch(Scope scope, int size) {
+				var r = new double[size];
+				for (int i = 0; i < size; i++) {
+					r[i] = Math.random();
+				}
+				return r;
+			}
+
+			@Override
+			public boolean isVolatile() {
+				return true;
+			}
+		};
+	}
+
+	public static CompiledExpression unary(CompiledExpression arg, Op1 op) {
+		return new CompiledExpression() {
+
+			@Override
+			public double eval(Scope scope) throws ExpressionException {
+				return op.apply(arg.eval(scope));
+			}
+
+			@Override
+			public double[] evalBatch(Scope scope, int size)
+					throws ExpressionException {
+				var a = arg.evalBatch(scope, size);
+				var r = new double[size];
+				for (int i = 0; i < size; i++) {
+					r[i] = op.apply(a[i]);
+				}
+				return r;
+			}
+		};
+	}
+
+	public static CompiledExpression binary(
+			CompiledExpression arg1, CompiledExpression arg2, Op2 op) {
+		return fold(new CompiledExpression[] { arg1, arg2 }, op);
+	}
+
+	/**
+	 * Creates a node that applies the given operation from left to right on
+	 * the values of the given arguments: {@code op(op(a1, a2), a3)...}.
+	 */
+	public static CompiledExpression fold(CompiledExpression[] args, Op2 op) {
+		return new CompiledExpression() {
+
+			@Override
+			public double eval(Scope scope) throws ExpressionException {
+				double r = args[0].eval(scope);
+				for (int i = 1; i < args.length; i++) {
+					r = op.apply(r, args[i].eval(scope));
+				}
+				return r;
+			}
+
+			@Override
+			public double[] evalBatch(Scope scope, int size)
+					throws ExpressionException {
+				var r = args[0].evalBatch(scope, size).clone();
+				for (int k = 1; k < args.length; k++) {
+					var b = args[k].evalBatch(scope, size);
+					for (int i = 0; i < size; i++) {
+						r[i] = op.apply(r[i], b[i]);
+					}
+				}
+				return r;
+			}
+		};
+	}
+
+	public static CompiledExpression nary(CompiledExpression[] args, OpN op) {
+		return new CompiledExpression() {
+
+			@Override
+			public double eval(Scope scope) throws ExpressionException {
+				var values = new double[args.length];
+				for (int i = 0; i < values.length; i++) {
+					values[i] = args[i].eval(scope);
+				}
+				return op.apply(values);
+			}
+
+			@Override
+			public double[] evalBatch(Scope scope, int size)
+					throws ExpressionException {
+				var columns = new double[args.length][];
+				for (int k = 0; k < args.length; k++) {
+					columns[k] = args[k].evalBatch(scope, size);
+				}
+				var r = new double[size];
+				var values = new double[args.length];
+				for (int i = 0; i < size; i++) {
+					for (int k = 0; k < args.length; k++) {
+						values[k] = columns[k][i];
+					}
+					r[i] = op.apply(values);
+				}
+				return r;
+			}
+		};
+	}
+
+	public static CompiledExpression compare(
+			CompiledExpression arg1, CompiledExpression arg2, Cmp cmp) {
+		return new BooleanNode() {
+
+			@Override
+			public boolean test(Scope scope) throws ExpressionException {
+				return cmp.test(arg1.eval(scope), arg2.eval(scope));
+			}
+
+			@Override
+			public boolean[] testBatch(Scope scope, int size)
+					throws ExpressionException {
+				var a = arg1.evalBatch(scope, size);
+				var b = arg2.evalBatch(scope, size);
+				var r = new boolean[size];
+				for (int i = 0; i < size; i++) {
+					r[i] = cmp.test(a[i], b[i]);
+				}
+				return r;
+			}
+		};
+	}
+
+	/**
+	 * Creates a node for the logical conjunction of the given arguments. In
+	 * the evaluation of a single value, the evaluation stops at the first
+	 * argument that is false. In a batch, it stops when all samples are false.
+	 */
+	public static CompiledExpression and(CompiledExpression[] args) {
+		return new BooleanNode() {
+
+			@Override
+			public boolean test(Scope scope) throws ExpressionException {
+				for (var arg : args) {
+					if (!arg.test(scope))
+						return false;
+				}
+				return true;
+			}
+
+			@Override
+			public boolean[] testBatch(Scope scope, int size)
+					throws ExpressionException {
+				var r = new boolean[size];
+				Arrays.fill(r, true);
+				for (var arg : args) {
+					var b = arg.testBatch(scope, size);
+					boolean any = false;
+					for (int i = 0; i < size; i++) {
+						r[i] = r[i] && b[i];
+						any |= r[i];
+					}
+					if (!any)
+						break;
+				}
+				return r;
+			}
+		};
+	}
+
+	/**
+	 * Creates a node for the logical disjunction of the given arguments; see
+	 * {@link #and(CompiledExpression[])}.
+	 */
+	public static CompiledExpression or(CompiledExpression[] args) {
+		return new BooleanNode() {
+
+			@Override
+			public boolean test(Scope scope) throws ExpressionException {
+				for (var arg : args) {
+					if (arg.test(scope))
+						return true;
+				}
+				return false;
+			}
+
+			@Override
+			public boolean[] testBatch(Scope scope, int size)
+					throws ExpressionException {
+				var r = new boolean[size];
+				for (var arg : args) {
+					var b = arg.testBatch(scope, size);
+					boolean all = true;
+					for (int i = 0; i < size; i++) {
+						r[i] = r[i] || b[i];
+						all &= r[i];
+					}
+					if (all)
+						break;
+				}
+				return r;
+			}
+		};
+	}
+
+	public static CompiledExpression xor(
+			CompiledExpression arg1, CompiledExpression arg2) {
+		return new BooleanNode() {
+
+			@Override
+			public boolean test(Scope scope) throws ExpressionException {
+				return arg1.test(scope) != arg2.test(scope);
+			}
+
+			@Override
+			public boolean[] testBatch(Scope scope, int size)
+					throws ExpressionException {
+				var a = arg1.testBatch(scope, size);
+				var b = arg2.testBatch(scope, size);
+				var r = new boolean[size];
+				for (int i = 0; i < size; i++) {
+					r[i] = a[i] != b[i];
+				}
+				return r;
+			}
+		};
+	}
+
+	public static CompiledExpression not(CompiledExpression arg) {
+		return new BooleanNode() {
+
+			@Override
+			public boolean test(Scope scope) throws ExpressionException {
+				return !arg.test(scope);
+			}
+
+			@Override
+			public boolean[] testBatch(Scope scope, int size)
+					throws ExpressionException {
+				var a = arg.testBatch(scope, size);
+				var r = new boolean[size];
+				for (int i = 0; i < size; i++) {
+					r[i] = !a[i];
+				}
+				return r;
+			}
+		};
+	}
+
+	/**
+	 * Creates a node for a conditional expression. In a batch, a branch is
+	 * only evaluated when the condition selects it for at least one sample.
+	 */
+	public static CompiledExpression condition(CompiledExpression condition,
+			CompiledExpression then, CompiledExpression otherwise) {
+		return new CompiledExpression() {
+
+			@Override
+			public double eval(Scope scope) throws ExpressionException {
+				return condition.test(scope)
+						? then.eval(scope)
+						: otherwise.eval(scope);
+			}
+
+			@Override
+			public double[] evalBatch(Scope scope, int size)
+					throws ExpressionException {
+				var c = condition.testBatch(scope, size);
+				int count = 0;
+				for (boolean b : c) {
+					if (b) {
+						count++;
+					}
+				}
+				if (count == size)
+					return then.evalBatch(scope, size);
+				if (count == 0)
+					return otherwise.evalBatch(scope, size);
+				var a = then.evalBatch(scope, size);
+				var b = otherwise.evalBatch(scope, size);
+				var r = new double[size];
+				for (int i = 0; i < size; i++) {
+					r[i] = c[i] ? a[i] : b[i];
+				}
+				return r;
+			}
+		};
+	}
+
+	/**
+	 * Base class of nodes with a boolean result.
+	 */
+	private static abstract class BooleanNode implements CompiledExpression {
+
+		@Override
+		public double eval(Scope scope) throws ExpressionException {
+			throw new ExpressionException(
+					"expression does not evaluate to a number");
+		}
+
+		@Override
+		public abstract boolean test(Scope scope) throws ExpressionException;
+
+		@Override
+		public abstract boolean[] testBatch(Scope scope, int size)
+				throws ExpressionException;
+
+		@Override
+		public boolean isNumeric() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package org.openlca.expressions;
+
+import java.io.StringReader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles expressions into {@link CompiledExpression}s. The compiled
+ * expressions are cached by their text, so that an expression is only parsed
+ * once, even when it is evaluated millions of times in different scopes (e.g.
+ * in a Monte-Carlo simulation). The cache is thread-safe and bounded; it is
+ * cleared when it exceeds its maximum size.
+ */
+public final class Compiler {
+
+	private static final int MAX_CACHE_SIZE = 100_000;
+
+	private static final ConcurrentHashMap<String, CompiledExpression> cache
+			= new ConcurrentHashMap<>();
+
+	private Compiler() {
+	}
+
+	/**
+	 * Returns the compiled version of the given expression from the cache or
+	 * compiles and caches it if it is not cached yet.
+	 */
+	public static CompiledExpression compile(String expression)
+			throws ExpressionException, ParseException {
+		if (expression == null)
+			throw new ExpressionException("expression is null");
+		var compiled = cache.get(expression);
+		if (compiled != null)
+			return compiled;
+		compiled = compileUncached(expression);
+		if (cache.size() >= MAX_CACHE_SIZE) {
+			cache.clear();
+		}
+		cache.put(expression, compiled);
+		return compiled;
+	}
+
+	/**
+	 * Parses and compiles the given expression without using the cache.
+	 */
+	public static CompiledExpression compileUncached(String expression)
+			throws ExpressionException, ParseException {
+		var parser = new FormulaParser(
+				new StringReader(expression.toLowerCase()));
+		parser.parse();
+		var e = parser.getExpression();
+		e.check();
+		var compiled = e.compile();
+		return e.isVolatile()
+				? CompiledExpression.volatileOf(compiled)
+				: compiled;
+	}
+
+	/**
+	 * Removes all compiled expressions from the cache.
+	 */
+	public static void clearCache() {
+		cache.clear();
+	}
+
+	/**
+	 * Returns the number of compiled expressions in the cache.
+	 */
+	public static int cacheSize() {
+		return cache.size();
+	}
+
+}
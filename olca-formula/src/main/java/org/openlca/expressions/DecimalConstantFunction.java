@@ -32,6 +32,11 @@ class DecimalConstantFunction implements Expression {
 	public void check() throws ExpressionException {
 	}
 
+	@Override
+	public CompiledExpression compile() {
+		return CompiledNodes.constant(value);
+	}
+
 	@Override
 	public Class<?> getResultType() {
 		return Double.class;
@@ -19,4 +19,22 @@ public interface Expression {
 	public void setPosition(int line, int column);
 
 	public String getName();
+
+	/**
+	 * Compiles this expression into a tree of nodes that are evaluated to
+	 * primitive values. By default, the expression is wrapped into a node that
+	 * evaluates it with boxed values.
+	 */
+	default CompiledExpression compile() throws ExpressionException {
+		return CompiledExpression.boxed(this);
+	}
+
+	/**
+	 * Returns true if this expression can evaluate to different values in the
+	 * same scope (e.g. when it contains a random number function). The values
+	 * of such expressions are not cached.
+	 */
+	default boolean isVolatile() {
+		return false;
+	}
 }
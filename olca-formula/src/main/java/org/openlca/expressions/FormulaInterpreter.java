@@ -1,6 +1,8 @@
 package org.openlca.expressions;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 public class FormulaInterpreter {
@@ -12,6 +14,36 @@ public class FormulaInterpreter {
 		globalScope = new Scope();
 	}
 
+	private FormulaInterpreter(Scope globalScope) {
+		this.globalScope = globalScope;
+	}
+
+	/**
+	 * Creates a copy of this interpreter with copies of all scopes and their
+	 * variable bindings. As the interpreter is not thread-safe, such a copy can
+	 * be used when formulas should be evaluated in parallel.
+	 */
+	public FormulaInterpreter copy() {
+		var copies = new IdentityHashMap<Scope, Scope>();
+		var copy = new FormulaInterpreter(copyOf(globalScope, copies));
+		for (var e : scopes.entrySet()) {
+			copy.scopes.put(e.getKey(), copyOf(e.getValue(), copies));
+		}
+		return copy;
+	}
+
+	private static Scope copyOf(Scope scope, Map<Scope, Scope> copies) {
+		var copy = copies.get(scope);
+		if (copy != null)
+			return copy;
+		var parent = scope.parent() != null
+				? copyOf(scope.parent(), copies)
+				: null;
+		copy = scope.copy(parent);
+		copies.put(scope, copy);
+		return copy;
+	}
+
 	/**
 	 * Removes all local scopes and all variable bindings of the global scope from
 	 * this interpreter.
@@ -44,6 +76,23 @@ public class FormulaInterpreter {
 		getGlobalScope().bind(variable, value);
 	}
 
+	/**
+	 * Binds the given variable to the given vector of samples in the global
+	 * scope of the interpreter; see {@link Scope#bind(String, double[])}.
+	 */
+	public void bind(String variable, double[] samples) {
+		getGlobalScope().bind(variable, samples);
+	}
+
+	/**
+	 * Evaluates the given expression for a batch of samples in the global scope
+	 * of the interpreter; see {@link Scope#evalBatch(String, int)}.
+	 */
+	public double[] evalBatch(String expression, int size)
+			throws InterpreterException {
+		return globalScope.evalBatch(expression, size);
+	}
+
 	/** Returns the global scope of the interpreter. */
 	public Scope getGlobalScope() {
 		return globalScope;
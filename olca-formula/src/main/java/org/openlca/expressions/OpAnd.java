@@ -31,6 +31,11 @@ class OpAnd extends AbstractExpression {
 		return Boolean.class;
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		return CompiledNodes.and(compileArguments());
+	}
+
 	@Override
 	public String getName() {
 		return "And function";
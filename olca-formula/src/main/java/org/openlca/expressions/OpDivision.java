@@ -15,6 +15,15 @@ class OpDivision extends AbstractNumericOperator {
 		return result;
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		return CompiledNodes.fold(compileArguments(), (a, b) -> {
+			if (b == 0)
+				throw new ExpressionException("Cannot divide by 0");
+			return a / b;
+		});
+	}
+
 	@Override
 	public String getName() {
 		return "/";
@@ -14,6 +14,14 @@ public class OpExponentiation extends AbstractExpression {
 		return Double.class;
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		return CompiledNodes.binary(
+				arguments.get(0).compile(),
+				arguments.get(1).compile(),
+				Math::pow);
+	}
+
 	@Override
 	public String getName() {
 		return "^";
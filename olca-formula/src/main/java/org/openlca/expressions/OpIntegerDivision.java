@@ -13,6 +13,12 @@ class OpIntegerDivision extends AbstractNumericOperator {
 		return result;
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		return CompiledNodes.fold(compileArguments(),
+				(a, b) -> (double) (Math.round(a) / Math.round(b)));
+	}
+
 	@Override
 	public String getName() {
 		return "div";
@@ -13,6 +13,16 @@ class OpLessThanOrEqual extends AbstractComparisonExpression {
 		return Boolean.FALSE;
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		if (!isNumeric(arguments.get(0)) || !isNumeric(arguments.get(1)))
+			return super.compile();
+		return CompiledNodes.compare(
+				arguments.get(0).compile(),
+				arguments.get(1).compile(),
+				(a, b) -> Double.compare(a, b) <= 0);
+	}
+
 	@Override
 	public String getName() {
 		return "<=";
@@ -30,6 +30,11 @@ class OpOr extends AbstractExpression {
 		return Boolean.class;
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		return CompiledNodes.or(compileArguments());
+	}
+
 	@Override
 	public String getName() {
 		return "||";
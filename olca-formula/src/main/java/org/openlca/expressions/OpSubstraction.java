@@ -12,6 +12,12 @@ class OpSubstraction extends AbstractNumericOperator {
 		return result;
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		return CompiledNodes.fold(compileArguments(),
+				(a, b) -> a - b);
+	}
+
 	@Override
 	public String getName() {
 		return "-";
@@ -25,6 +25,11 @@ class OpUnaryMinus extends AbstractExpression {
 					getColumn());
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		return CompiledNodes.unary(arguments.get(0).compile(), a -> -a);
+	}
+
 	@Override
 	public String getName() {
 		return "-";
@@ -14,6 +14,13 @@ class OpXor extends AbstractExpression {
 		return Boolean.class;
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		return CompiledNodes.xor(
+				arguments.get(0).compile(),
+				arguments.get(1).compile());
+	}
+
 	@Override
 	public String getName() {
 		return "xor";
@@ -1,19 +1,45 @@
 package org.openlca.expressions;
 
-import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 
 /**
  * A scope contains bindings of variable names to expressions. Each scope has a
  * reference to a parent scope except of the global scope. An expression can be
- * evaluated in a scope.
- *
+ * evaluated in a scope. Expressions are compiled and cached via the
+ * {@link Compiler}, so that the same expression is only parsed once.
+ * <p>
+ * The values of variables and evaluated expressions are cached between
+ * evaluations. For this, the scopes of an interpreter share a dependency
+ * graph that is recorded while the variables are evaluated: when a variable
+ * is resolved in the evaluation of another variable or expression, the
+ * latter is registered as dependent of that variable. Because variables are
+ * evaluated recursively and their values are then cached, each variable is
+ * evaluated once in topological order. When a variable is bound to a new
+ * value or expression, only the variables and expressions that depend on it
+ * (directly or indirectly) are evaluated again.
+ * <p>
+ * Variables can be also bound to vectors of samples (e.g. generated values
+ * of a Monte-Carlo simulation). Expressions that depend on such variables
+ * are evaluated column-wise for all samples in a batch with
+ * {@link #evalBatch(String, int)}, or for a single sample with
+ * {@link #evalSample(String, int)}.
  */
 public final class Scope {
 
+	/**
+	 * The maximum number of expressions of which the values are cached in a
+	 * scope.
+	 */
+	private static final int MAX_FORMULAS = 10_000;
+
 	private final Scope parent;
+	private final Graph graph;
 	private final HashMap<String, Variable> variables = new HashMap<>();
-	private final HashMap<String, Integer> evaluationCalls = new HashMap<>();
+	private final HashMap<String, Variable> formulas = new HashMap<>();
 
 	Scope() {
 		this(null);
@@ -21,6 +47,9 @@ public final class Scope {
 
 	Scope(Scope parent) {
 		this.parent = parent;
+		this.graph = parent != null
+				? parent.graph
+				: new Graph();
 	}
 
 	/**
@@ -30,8 +59,34 @@ public final class Scope {
 		if (variable == null)
 			return;
 		var symbol = variable.toLowerCase().trim();
-		var v = new Variable(symbol, value);
-		variables.put(symbol, v);
+		var v = variables.get(symbol);
+		if (v == null) {
+			add(new Variable(symbol, value));
+			return;
+		}
+		if (v.expression == null
+				&& v.samples == null
+				&& Double.compare(v.value, value) == 0)
+			return;
+		v.bind(value);
+	}
+
+	/**
+	 * Binds the given variable to the given vector of samples in this scope.
+	 * All variables with samples that are used in a batch evaluation need to
+	 * have the same number of samples, the size of the batch. The vector is
+	 * not copied and must not be modified after it was bound.
+	 */
+	public void bind(String variable, double[] samples) {
+		if (variable == null || samples == null)
+			return;
+		var symbol = variable.toLowerCase().trim();
+		var v = variables.get(symbol);
+		if (v == null) {
+			add(new Variable(symbol, samples));
+			return;
+		}
+		v.bind(samples);
 	}
 
 	/**
@@ -41,48 +96,160 @@ public final class Scope {
 		if (variable == null || expression == null)
 			return;
 		var symbol = variable.toLowerCase().trim();
-		var v = new Variable(symbol, expression);
-		variables.put(symbol, v);
+		var v = variables.get(symbol);
+		if (v == null) {
+			add(new Variable(symbol, expression));
+			return;
+		}
+		if (expression.equals(v.expression))
+			return;
+		v.bind(expression);
+	}
+
+	private void add(Variable v) {
+		// a new variable can hide a variable of a parent scope or a constant
+		// that was resolved before in this scope
+		var hidden = parent != null
+				? parent.lookup(v.name)
+				: null;
+		if (hidden != null) {
+			graph.invalidateDependents(hidden);
+		} else if (Constants.get(v.name) != null) {
+			graph.invalidateAll();
+		}
+		variables.put(v.name, v);
+	}
+
+	private Variable lookup(String symbol) {
+		var v = variables.get(symbol);
+		if (v != null)
+			return v;
+		return parent != null
+				? parent.lookup(symbol)
+				: null;
+	}
+
+	/**
+	 * Creates a copy of this scope with copies of its variable bindings. The
+	 * copy is attached to the given parent scope. Cached values of variables
+	 * that are bound to expressions are not copied.
+	 */
+	Scope copy(Scope parent) {
+		var copy = new Scope(parent);
+		for (var v : variables.values()) {
+			Variable vc;
+			if (v.expression != null) {
+				vc = copy.new Variable(v.name, v.expression);
+				vc.compiled = v.compiled;
+			} else if (v.samples != null) {
+				vc = copy.new Variable(v.name, v.samples);
+			} else {
+				vc = copy.new Variable(v.name, v.value);
+			}
+			copy.variables.put(v.name, vc);
+		}
+		return copy;
+	}
+
+	Scope parent() {
+		return parent;
 	}
 
 	/**
 	 * Removes all variable bindings from the scope.
 	 */
 	public void clear() {
+		drop(variables.values());
+		drop(formulas.values());
 		variables.clear();
-		evaluationCalls.clear();
+		formulas.clear();
+		graph.invalidateAll();
 	}
 
 	/**
-	 * Evaluates the given expression in this scope.
+	 * Removes the given variables or expressions of this scope from the
+	 * dependency graph: they are removed from the volatile values and from
+	 * the dependents of the variables that they could have resolved, which
+	 * are the variables of this scope and its parent scopes.
 	 */
-	public double eval(String expression) throws InterpreterException {
-		// reset the evaluation calls and values for variables
-		evaluationCalls.clear();
-		for (Variable variable : variables.values()) {
-			if (variable.expression != null) {
-				variable.value = null;
+	private void drop(Collection<Variable> dropped) {
+		if (dropped.isEmpty())
+			return;
+		var set = new HashSet<>(dropped);
+		graph.volatiles.removeAll(set);
+		for (var scope = this; scope != null; scope = scope.parent) {
+			for (var v : scope.variables.values()) {
+				if (v.dependents != null) {
+					v.dependents.removeAll(set);
+				}
 			}
 		}
+	}
+
+	/**
+	 * Evaluates the given expression in this scope. The value of the
+	 * expression is cached until a variable on which it depends changes.
+	 */
+	public double eval(String expression) throws InterpreterException {
+		if (expression == null)
+			throw new InterpreterException("expression is null");
+		graph.startEvaluation();
+		return formulaOf(expression).eval();
+	}
+
+	/**
+	 * Evaluates the given expression column-wise for a batch of samples. The
+	 * variables that are bound to sample vectors are resolved to these
+	 * vectors; all other variables have the same value for each sample. The
+	 * evaluation fails when a sample vector has not the given size or when the
+	 * evaluation fails for any of the samples. In the latter case, the
+	 * expression can be evaluated sample by sample with
+	 * {@link #evalSample(String, int)}.
+	 *
+	 * @param expression the expression that should be evaluated
+	 * @param size       the number of samples in the batch
+	 * @return the values of the expression for each sample
+	 */
+	public double[] evalBatch(String expression, int size)
+			throws InterpreterException {
+		if (expression == null)
+			throw new InterpreterException("expression is null");
+		graph.startEvaluation();
+		return formulaOf(expression).evalBatch(size).clone();
+	}
+
+	/**
+	 * Evaluates the given expression for the sample with the given index: the
+	 * variables that are bound to sample vectors are resolved to their values
+	 * at that index.
+	 */
+	public double evalSample(String expression, int sample)
+			throws InterpreterException {
+		if (expression == null)
+			throw new InterpreterException("expression is null");
+		if (sample < 0)
+			throw new InterpreterException("invalid sample index: " + sample);
+		graph.startEvaluation();
+		graph.sample = sample;
+		graph.sampleEpoch++;
 		try {
-			return tryEval(expression);
-		} catch (Throwable e) {
-			throw new InterpreterException("Evaluation of expression "
-					+ expression + " failed: " + e.getMessage(), e);
-		}
-	}
-
-	private double tryEval(String expression) throws Exception {
-		var reader = new StringReader(expression.toLowerCase());
-		var parser = new FormulaParser(reader);
-		parser.parse();
-		var e = parser.getExpression();
-		e.check();
-		var result = e.evaluate(this);
-		if (result instanceof Double)
-			return (Double) result;
-		throw new InterpreterException("The expression " + expression
-				+ " does not evaluate to a number.");
+			return formulaOf(expression).eval();
+		} finally {
+			graph.sample = -1;
+		}
+	}
+
+	private Variable formulaOf(String expression) {
+		var formula = formulas.get(expression);
+		if (formula == null) {
+			if (formulas.size() >= MAX_FORMULAS) {
+				drop(formulas.values());
+				formulas.clear();
+			}
+			formula = new Variable(null, expression);
+			formulas.put(expression, formula);
+		}
+		return formula;
 	}
 
 	public Object resolveVariable(String name) throws InterpreterException {
@@ -90,40 +257,121 @@ public final class Scope {
 			return null;
 		var symbol = name.trim().toLowerCase();
 		var v = variables.get(symbol);
-		if (v != null) {
-			// variable is bound in this scope
-			return v.isEvaluated()
-					? v.value
-					: eval(v);
-		}
+		if (v != null)
+			return v.eval();
 		// search in parent scope or constants
 		return parent != null
 				? parent.resolveVariable(symbol)
-				: Constants.get(name);
+				: Constants.get(symbol);
 	}
 
-	private Object eval(Variable var) throws InterpreterException {
-		Integer call = evaluationCalls.get(var.name);
-		if (call != null && call > 0)
-			throw new InterpreterException(
-					"Second evaluation call on variable "
-							+ var.name + ". Cyclic dependencies?");
-		evaluationCalls.put(var.name, 1);
-		try {
-			var.value = tryEval(var.expression);
-			return var.value;
-		} catch (Throwable e) {
-			throw new InterpreterException("Evaluation of variable "
-					+ var.name + " failed: " + e.getMessage(), e);
-		}
+	/**
+	 * Resolves the numeric value of the variable with the given name. Contrary
+	 * to {@link #resolveVariable(String)}, the name must be already normalized
+	 * (trimmed and in lower case) and the value is not boxed.
+	 */
+	double resolveNumber(String symbol) throws InterpreterException {
+		var v = variables.get(symbol);
+		if (v != null)
+			return v.eval();
+		if (parent != null)
+			return parent.resolveNumber(symbol);
+		var c = Constants.get(symbol);
+		if (c instanceof Double d)
+			return d;
+		if (c == null)
+			throw new InterpreterException("Unknown variable " + symbol);
+		throw new InterpreterException("Variable " + symbol
+				+ " does not evaluate to a number.");
+	}
+
+	/**
+	 * Resolves the values of the variable with the given name for a batch of
+	 * samples; see {@link #evalBatch(String, int)}.
+	 */
+	double[] resolveBatch(String symbol, int size) throws InterpreterException {
+		var v = variables.get(symbol);
+		if (v != null)
+			return v.evalBatch(size);
+		if (parent != null)
+			return parent.resolveBatch(symbol, size);
+		var r = new double[size];
+		Arrays.fill(r, resolveNumber(symbol));
+		return r;
+	}
+
+	/**
+	 * Resolves the boolean value of the variable with the given name; see
+	 * {@link #resolveNumber(String)}.
+	 */
+	boolean resolveBoolean(String symbol) throws InterpreterException {
+		var v = variables.get(symbol);
+		if (v != null)
+			throw new InterpreterException("Variable " + symbol
+					+ " does not evaluate to a boolean value.");
+		if (parent != null)
+			return parent.resolveBoolean(symbol);
+		var c = Constants.get(symbol);
+		if (c instanceof Boolean b)
+			return b;
+		if (c == null)
+			throw new InterpreterException("Unknown variable " + symbol);
+		throw new InterpreterException("Variable " + symbol
+				+ " does not evaluate to a boolean value.");
+	}
+
+	/**
+	 * Returns the number of variables and expressions that depend on the
+	 * given variable of this scope; used in tests.
+	 */
+	int dependentsOf(String variable) {
+		var v = variables.get(variable.toLowerCase().trim());
+		return v != null && v.dependents != null
+				? v.dependents.size()
+				: 0;
+	}
+
+	/**
+	 * Returns the number of volatile variables and expressions in the
+	 * dependency graph of this scope; used in tests.
+	 */
+	int volatileCount() {
+		return graph.volatiles.size();
 	}
 
+	/**
+	 * A node in the dependency graph: a variable or an evaluated expression
+	 * (a formula) which has no name. A variable is bound to a value, a vector
+	 * of samples, or an expression.
+	 */
 	private class Variable {
 
 		final String name;
-		final String expression;
 
-		private Double value;
+		private String expression;
+		private CompiledExpression compiled;
+		private double[] samples;
+
+		/** The cached value of a single evaluation. */
+		private double value;
+		private boolean evaluated;
+		private long generation;
+
+		/** The cached values of a batch evaluation. */
+		private double[] vector;
+		private long vectorGeneration;
+
+		/** The cached value of an evaluation of a single sample. */
+		private double sampleValue;
+		private long sampleEpoch;
+
+		private boolean evaluating;
+
+		/**
+		 * The variables and expressions that resolved this variable in their
+		 * evaluation; initialized when needed.
+		 */
+		private HashSet<Variable> dependents;
 
 		Variable(String name, String expression) {
 			this.name = name;
@@ -133,11 +381,263 @@ public final class Scope {
 		Variable(String name, double value) {
 			this.name = name;
 			this.value = value;
+			this.evaluated = true;
+		}
+
+		Variable(String name, double[] samples) {
+			this.name = name;
+			this.samples = samples;
+		}
+
+		void bind(double value) {
+			this.value = value;
+			this.expression = null;
+			this.compiled = null;
+			this.samples = null;
+			this.evaluated = true;
+			this.vector = null;
+			graph.volatiles.remove(this);
+			graph.invalidateDependents(this);
+		}
+
+		void bind(String expression) {
+			this.expression = expression;
+			this.compiled = null;
+			this.samples = null;
+			this.evaluated = false;
+			this.vector = null;
+			graph.volatiles.remove(this);
+			graph.invalidateDependents(this);
+		}
+
+		void bind(double[] samples) {
+			this.samples = samples;
 			this.expression = null;
+			this.compiled = null;
+			this.evaluated = false;
+			this.vector = null;
+			graph.volatiles.remove(this);
+			graph.invalidateDependents(this);
+		}
+
+		boolean isValid() {
+			return evaluated
+					&& (expression == null || generation == graph.generation);
+		}
+
+		boolean hasVector(int size) {
+			return vector != null
+					&& vector.length == size
+					&& (expression == null || vectorGeneration == graph.generation);
+		}
+
+		double eval() throws InterpreterException {
+			graph.registerDependent(this);
+			if (samples != null)
+				return sampleOf(graph.sample);
+			if (expression == null || isValid())
+				return value;
+			boolean inSample = graph.sample >= 0;
+			if (inSample && sampleEpoch == graph.sampleEpoch)
+				return sampleValue;
+			enter();
+			try {
+				var c = compiled();
+				double v;
+				try {
+					v = c.eval(Scope.this);
+				} catch (ExpressionException e) {
+					throw notNumeric(c, e);
+				}
+				if (inSample) {
+					sampleValue = v;
+					sampleEpoch = graph.sampleEpoch;
+				} else {
+					value = v;
+					evaluated = true;
+					generation = graph.generation;
+				}
+				return v;
+			} catch (Throwable e) {
+				throw failed(e);
+			} finally {
+				exit();
+			}
+		}
+
+		double[] evalBatch(int size) throws InterpreterException {
+			graph.registerDependent(this);
+			if (samples != null) {
+				if (samples.length != size)
+					throw new InterpreterException("Variable " + name + " has "
+							+ samples.length + " samples but the batch size is "
+							+ size);
+				return samples;
+			}
+			if (hasVector(size))
+				return vector;
+			if (expression == null) {
+				vector = new double[size];
+				Arrays.fill(vector, value);
+				return vector;
+			}
+			enter();
+			try {
+				var c = compiled();
+				try {
+					vector = c.evalBatch(Scope.this, size);
+				} catch (ExpressionException e) {
+					throw notNumeric(c, e);
+				}
+				vectorGeneration = graph.generation;
+				return vector;
+			} catch (Throwable e) {
+				throw failed(e);
+			} finally {
+				exit();
+			}
+		}
+
+		private double sampleOf(int i) throws InterpreterException {
+			if (i < 0)
+				throw new InterpreterException("Variable " + name
+						+ " is bound to samples; it can only be evaluated"
+						+ " in a batch or for a single sample");
+			if (i >= samples.length)
+				throw new InterpreterException("Variable " + name
+						+ " has no sample with index " + i);
+			return samples[i];
+		}
+
+		private CompiledExpression compiled() throws Exception {
+			if (compiled == null) {
+				compiled = Compiler.compile(expression);
+			}
+			if (compiled.isVolatile()) {
+				graph.volatiles.add(this);
+			}
+			return compiled;
+		}
+
+		private void enter() throws InterpreterException {
+			if (evaluating)
+				throw new InterpreterException(
+						"Second evaluation call on variable "
+								+ name + ". Cyclic dependencies?");
+			evaluating = true;
+			graph.stack.push(this);
+		}
+
+		private void exit() {
+			evaluating = false;
+			graph.stack.pop();
+		}
+
+		private Exception notNumeric(CompiledExpression c, ExpressionException e) {
+			return c.isNumeric()
+					? e
+					: new InterpreterException("The expression " + expression
+							+ " does not evaluate to a number.");
+		}
+
+		private InterpreterException failed(Throwable e) {
+			var prefix = name != null
+					? "Evaluation of variable " + name
+					: "Evaluation of expression " + expression;
+			return new InterpreterException(
+					prefix + " failed: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * The dependency graph that is shared by the scopes of an interpreter.
+	 */
+	private static final class Graph {
+
+		/**
+		 * The variables and expressions that are currently evaluated.
+		 */
+		private final ArrayDeque<Variable> stack = new ArrayDeque<>();
+
+		/**
+		 * The variables and expressions with volatile values, e.g. random
+		 * numbers. These are evaluated again in each evaluation.
+		 */
+		private final HashSet<Variable> volatiles = new HashSet<>();
+
+		/**
+		 * The index of the sample that is evaluated in a single sample
+		 * evaluation, or -1 if no single sample is evaluated.
+		 */
+		private int sample = -1;
+
+		/**
+		 * Identifies the current single sample evaluation; the values that
+		 * were cached in previous sample evaluations are invalid.
+		 */
+		private long sampleEpoch;
+
+		/**
+		 * The current generation of cached values. Values of a previous
+		 * generation are invalid.
+		 */
+		private long generation;
+
+		/**
+		 * Registers the currently evaluated variable or expression as
+		 * dependent of the given variable.
+		 */
+		void registerDependent(Variable v) {
+			var current = stack.peek();
+			if (current == null || current == v)
+				return;
+			if (v.dependents == null) {
+				v.dependents = new HashSet<>();
+			}
+			v.dependents.add(current);
+		}
+
+		/**
+		 * Called before an expression is evaluated from outside. Invalidates
+		 * the volatile values so that they are evaluated again.
+		 */
+		void startEvaluation() {
+			if (!stack.isEmpty() || volatiles.isEmpty())
+				return;
+			for (var v : volatiles) {
+				v.evaluated = false;
+				v.vector = null;
+				invalidateDependents(v);
+			}
+		}
+
+		/**
+		 * Invalidates the cached values of the variables and expressions that
+		 * depend directly or indirectly on the given variable. Dependents that
+		 * are already invalid are not followed, as their dependents are then
+		 * invalid too.
+		 */
+		void invalidateDependents(Variable v) {
+			if (v.dependents == null)
+				return;
+			var queue = new ArrayDeque<>(v.dependents);
+			while (!queue.isEmpty()) {
+				var next = queue.poll();
+				// variables that were bound to values in the meantime are
+				// not dependents anymore
+				if (next.expression == null
+						|| (!next.isValid() && next.vector == null))
+					continue;
+				next.evaluated = false;
+				next.vector = null;
+				if (next.dependents != null) {
+					queue.addAll(next.dependents);
+				}
+			}
 		}
 
-		public boolean isEvaluated() {
-			return value != null;
+		void invalidateAll() {
+			generation++;
 		}
 	}
 }
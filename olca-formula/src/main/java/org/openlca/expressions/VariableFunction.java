@@ -44,6 +44,44 @@ public class VariableFunction implements Expression {
 	public void check() throws ExpressionException {
 	}
 
+	@Override
+	public CompiledExpression compile() {
+		var symbol = variableName.trim().toLowerCase();
+		return new CompiledExpression() {
+
+			@Override
+			public double eval(Scope scope) throws ExpressionException {
+				try {
+					return scope.resolveNumber(symbol);
+				} catch (Exception e) {
+					throw new ExpressionException(
+							e.getMessage(), getLine(), getColumn());
+				}
+			}
+
+			@Override
+			public boolean test(Scope scope) throws ExpressionException {
+				try {
+					return scope.resolveBoolean(symbol);
+				} catch (Exception e) {
+					throw new ExpressionException(
+							e.getMessage(), getLine(), getColumn());
+				}
+			}
+
+			@Override
+			public double[] evalBatch(Scope scope, int size)
+					throws ExpressionException {
+				try {
+					return scope.resolveBatch(symbol, size);
+				} catch (Exception e) {
+					throw new ExpressionException(
+							e.getMessage(), getLine(), getColumn());
+				}
+			}
+		};
+	}
+
 	@Override
 	public Class<?> getResultType() {
 		return null;
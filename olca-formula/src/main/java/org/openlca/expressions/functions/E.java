@@ -1,6 +1,8 @@
 package org.openlca.expressions.functions;
 
 import org.openlca.expressions.AbstractExpression;
+import org.openlca.expressions.CompiledExpression;
+import org.openlca.expressions.CompiledNodes;
 import org.openlca.expressions.ExpressionException;
 import org.openlca.expressions.Scope;
 
@@ -11,6 +13,11 @@ class E extends AbstractExpression {
 		return Math.E;
 	}
 
+	@Override
+	public CompiledExpression compile() {
+		return CompiledNodes.constant(Math.E);
+	}
+
 	@Override
 	public Class<?> getResultType() {
 		return Double.class;
@@ -1,6 +1,8 @@
 package org.openlca.expressions.functions;
 
 import org.openlca.expressions.AbstractExpression;
+import org.openlca.expressions.CompiledExpression;
+import org.openlca.expressions.CompiledNodes;
 import org.openlca.expressions.ExpressionException;
 import org.openlca.expressions.Scope;
 
@@ -11,6 +13,11 @@ class False extends AbstractExpression {
 		return Boolean.FALSE;
 	}
 
+	@Override
+	public CompiledExpression compile() {
+		return CompiledNodes.constant(false);
+	}
+
 	@Override
 	public Class<?> getResultType() {
 		return Boolean.class;
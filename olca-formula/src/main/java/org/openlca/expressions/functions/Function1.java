@@ -1,6 +1,8 @@
 package org.openlca.expressions.functions;
 
 import org.openlca.expressions.AbstractExpression;
+import org.openlca.expressions.CompiledExpression;
+import org.openlca.expressions.CompiledNodes;
 import org.openlca.expressions.ExpressionException;
 import org.openlca.expressions.Scope;
 
@@ -14,6 +16,11 @@ abstract class Function1 extends AbstractExpression {
 		return eval(arg);
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		return CompiledNodes.unary(arguments.get(0).compile(), this::eval);
+	}
+
 	@Override
 	public Class<?> getResultType() {
 		return Double.class;
@@ -1,6 +1,8 @@
 package org.openlca.expressions.functions;
 
 import org.openlca.expressions.AbstractExpression;
+import org.openlca.expressions.CompiledExpression;
+import org.openlca.expressions.CompiledNodes;
 import org.openlca.expressions.ExpressionException;
 import org.openlca.expressions.Scope;
 
@@ -15,6 +17,14 @@ abstract class Function2 extends AbstractExpression {
 		return eval(arg1, arg2);
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		return CompiledNodes.binary(
+				arguments.get(0).compile(),
+				arguments.get(1).compile(),
+				this::eval);
+	}
+
 	@Override
 	public Class<?> getResultType() {
 		return Double.class;
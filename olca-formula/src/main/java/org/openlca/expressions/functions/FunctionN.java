@@ -1,6 +1,8 @@
 package org.openlca.expressions.functions;
 
 import org.openlca.expressions.AbstractExpression;
+import org.openlca.expressions.CompiledExpression;
+import org.openlca.expressions.CompiledNodes;
 import org.openlca.expressions.ExpressionException;
 import org.openlca.expressions.Scope;
 
@@ -25,6 +27,13 @@ abstract class FunctionN extends AbstractExpression {
 		return eval(args);
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		if (arguments == null || arguments.size() == 0)
+			return CompiledNodes.constant(getDefault());
+		return CompiledNodes.nary(compileArguments(), this::eval);
+	}
+
 	@Override
 	public Class<?> getResultType() {
 		return Double.class;
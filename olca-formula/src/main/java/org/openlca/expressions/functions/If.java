@@ -1,6 +1,8 @@
 package org.openlca.expressions.functions;
 
 import org.openlca.expressions.AbstractExpression;
+import org.openlca.expressions.CompiledExpression;
+import org.openlca.expressions.CompiledNodes;
 import org.openlca.expressions.ExpressionException;
 import org.openlca.expressions.Scope;
 
@@ -15,6 +17,16 @@ public class If extends AbstractExpression {
 		return arguments.get(2).evaluate(context);
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		if (!isNumeric(arguments.get(1)) || !isNumeric(arguments.get(2)))
+			return super.compile();
+		return CompiledNodes.condition(
+				arguments.get(0).compile(),
+				arguments.get(1).compile(),
+				arguments.get(2).compile());
+	}
+
 	@Override
 	public void check() throws ExpressionException {
 		checkArguments(new Class<?>[] { Boolean.class, Double.class,
@@ -1,6 +1,8 @@
 package org.openlca.expressions.functions;
 
 import org.openlca.expressions.AbstractExpression;
+import org.openlca.expressions.CompiledExpression;
+import org.openlca.expressions.CompiledNodes;
 import org.openlca.expressions.ExpressionException;
 import org.openlca.expressions.Scope;
 
@@ -18,6 +20,13 @@ class Not extends AbstractExpression {
 		return Boolean.TRUE;
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		if (arguments == null || arguments.size() == 0)
+			return CompiledNodes.constant(false);
+		return CompiledNodes.not(arguments.get(0).compile());
+	}
+
 	@Override
 	public void check() throws ExpressionException {
 		if (arguments != null && arguments.size() > 0)
@@ -3,6 +3,8 @@ package org.openlca.expressions.functions;
 import java.util.Iterator;
 
 import org.openlca.expressions.AbstractExpression;
+import org.openlca.expressions.CompiledExpression;
+import org.openlca.expressions.CompiledNodes;
 import org.openlca.expressions.Expression;
 import org.openlca.expressions.ExpressionException;
 import org.openlca.expressions.Scope;
@@ -20,6 +22,11 @@ public class Or extends AbstractExpression {
 		return result;
 	}
 
+	@Override
+	public CompiledExpression compile() throws ExpressionException {
+		return CompiledNodes.or(compileArguments());
+	}
+
 	@Override
 	public void check() throws ExpressionException {
 		checkArgument(0, Boolean.class);
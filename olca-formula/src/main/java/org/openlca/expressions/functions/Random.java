@@ -1,6 +1,8 @@
 package org.openlca.expressions.functions;
 
 import org.openlca.expressions.AbstractExpression;
+import org.openlca.expressions.CompiledExpression;
+import org.openlca.expressions.CompiledNodes;
 import org.openlca.expressions.ExpressionException;
 import org.openlca.expressions.Scope;
 
@@ -11,6 +13,16 @@ class Random extends AbstractExpression {
 		return Math.random();
 	}
 
+	@Override
+	public boolean isVolatile() {
+		return true;
+	}
+
+	@Override
+	public CompiledExpression compile() {
+		return CompiledNodes.random();
+	}
+
 	@Override
 	public Class<?> getResultType() {
 		return Double.class;
@@ -0,0 +1,143 @@
+package org.openlca.expressions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BatchEvalTest {
+
+	private final String[] formulas = {
+			"a * b + 2",
+			"-a / b",
+			"a^2 + sqrt(abs(b))",
+			"if(a > b; a; b)",
+			"if(a >= 0.5 && b < 0.5 || not(a < b); 1; 0)",
+			"max(a; b; c) + min(a; b) + sum(a; b; c)",
+			"c * d",
+			"d",
+			"42",
+	};
+
+	@Test
+	public void testBatchEqualsSingleEvaluation() throws Exception {
+		int n = 100;
+		var rand = new Random(42);
+		var a = new double[n];
+		var b = new double[n];
+		for (int i = 0; i < n; i++) {
+			a[i] = rand.nextDouble();
+			b[i] = 0.1 + rand.nextDouble();
+		}
+
+		var batch = new FormulaInterpreter();
+		batch.bind("a", a);
+		batch.bind("b", b);
+		batch.bind("c", 3);
+		var scope = batch.createScope(1);
+		scope.bind("d", "a * b * c");
+
+		for (var formula : formulas) {
+			var values = scope.evalBatch(formula, n);
+			assertEquals(n, values.length);
+			for (int i = 0; i < n; i++) {
+				var single = new FormulaInterpreter();
+				single.bind("a", a[i]);
+				single.bind("b", b[i]);
+				single.bind("c", 3);
+				var s = single.createScope(1);
+				s.bind("d", "a * b * c");
+				double expected = s.eval(formula);
+				assertEquals(formula, expected, values[i], 1e-12);
+				assertEquals(formula, expected, scope.evalSample(formula, i), 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testRebindSamples() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", new double[] { 1, 2, 3 });
+		interpreter.bind("b", "a * 2");
+		assertArrayEquals(new double[] { 2, 4, 6 },
+				interpreter.evalBatch("b", 3), 1e-16);
+		interpreter.bind("a", new double[] { 4, 5, 6 });
+		assertArrayEquals(new double[] { 8, 10, 12 },
+				interpreter.evalBatch("b", 3), 1e-16);
+
+		// switch back to single values
+		interpreter.bind("a", 7);
+		assertEquals(14, interpreter.eval("b"), 1e-16);
+		assertArrayEquals(new double[] { 14, 14 },
+				interpreter.evalBatch("b", 2), 1e-16);
+	}
+
+	@Test
+	public void testSingleEvaluationFails() {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", new double[] { 1, 2, 3 });
+		try {
+			interpreter.eval("a + 1");
+			fail("a is bound to samples");
+		} catch (InterpreterException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testSizeMismatch() {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", new double[] { 1, 2, 3 });
+		try {
+			interpreter.evalBatch("a + 1", 4);
+			fail("a has 3 samples");
+		} catch (InterpreterException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testFallbackToSamples() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", new double[] { 1, 0, 2 });
+		try {
+			interpreter.evalBatch("1 / a", 3);
+			fail("division by zero in sample 2");
+		} catch (InterpreterException e) {
+			// expected
+		}
+		var scope = interpreter.getGlobalScope();
+		assertEquals(1, scope.evalSample("1 / a", 0), 1e-16);
+		assertEquals(0.5, scope.evalSample("1 / a", 2), 1e-16);
+		try {
+			scope.evalSample("1 / a", 1);
+			fail("division by zero in sample 2");
+		} catch (InterpreterException e) {
+			// expected
+		}
+
+		// a branch is evaluated for all samples when it is selected for at
+		// least one sample; then the expression needs to be evaluated sample
+		// by sample
+		var guarded = "if(a = 0; 0; 1 / a)";
+		try {
+			interpreter.evalBatch(guarded, 3);
+			fail("division by zero in sample 2");
+		} catch (InterpreterException e) {
+			// expected
+		}
+		var values = new double[3];
+		for (int i = 0; i < 3; i++) {
+			values[i] = scope.evalSample(guarded, i);
+		}
+		assertArrayEquals(new double[] { 1, 0, 0.5 }, values, 1e-16);
+
+		// the branch with the division is not evaluated if it is not selected
+		interpreter.bind("a", new double[] { 0, 0 });
+		assertArrayEquals(new double[] { 0, 0 },
+				interpreter.evalBatch(guarded, 2), 1e-16);
+	}
+}
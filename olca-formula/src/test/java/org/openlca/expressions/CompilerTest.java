@@ -0,0 +1,108 @@
+package org.openlca.expressions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public class CompilerTest {
+
+	private final String[] formulas = {
+			"1 + 2 * 3 - 4 / 5",
+			"2^3^2",
+			"-a + b * 2",
+			"7 div 2 + 7 mod 3",
+			"if(a < b; a; b)",
+			"if(a >= 2 && b <> 3; 1; 0)",
+			"if(a = 2 || not(b > 1); sqrt(16); abs(-1))",
+			"if(a != a; 1; 0)",
+			"if(true; pi; e)",
+			"max(a; b; 42) + min(a; b) + avg(a; b) + sum(a; b)",
+			"sin(a) * cos(b) + ln(exp(2)) + pow(2; 10)",
+			"round(2.5) + int(3.7) + ceil(1.1) + floor(1.9)",
+			"c * 2",
+	};
+
+	@Test
+	public void testCompiledEqualsInterpreted() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 2);
+		interpreter.bind("b", "a + 1");
+		interpreter.bind("c", "a * b");
+		for (var formula : formulas) {
+			var compiled = Compiler.compileUncached(formula);
+			var parser = new FormulaParser(
+					new StringReader(formula.toLowerCase()));
+			parser.parse();
+			var boxed = (Double) parser.getExpression()
+					.evaluate(interpreter.getGlobalScope());
+			double value = compiled.eval(interpreter.getGlobalScope());
+			assertEquals(formula, boxed, value, 1e-16);
+			assertEquals(formula, value, interpreter.eval(formula), 1e-16);
+		}
+	}
+
+	@Test
+	public void testBooleanExpression() throws Exception {
+		var scope = new FormulaInterpreter().getGlobalScope();
+		var e = Compiler.compile("1 < 2 && not(false)");
+		assertFalse(e.isNumeric());
+		assertTrue(e.test(scope));
+	}
+
+	@Test
+	public void testCache() throws Exception {
+		Compiler.clearCache();
+		var e1 = Compiler.compile("x * 2");
+		var e2 = Compiler.compile("x * 2");
+		assertSame(e1, e2);
+		assertEquals(1, Compiler.cacheSize());
+
+		// the same compiled expression is evaluated in different scopes
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("x", 2);
+		var scope = interpreter.createScope(1);
+		scope.bind("x", 21);
+		assertEquals(4, e1.eval(interpreter.getGlobalScope()), 1e-16);
+		assertEquals(42, e1.eval(scope), 1e-16);
+	}
+
+	@Test
+	public void testParallelEvaluation() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 2);
+		interpreter.bind("b", "a^2");
+		var tasks = new ArrayList<Callable<Double>>();
+		for (int i = 0; i < 100; i++) {
+			var copy = interpreter.copy();
+			copy.bind("a", i);
+			tasks.add(() -> copy.eval("b + 1"));
+		}
+		var pool = Executors.newFixedThreadPool(4);
+		try {
+			var results = pool.invokeAll(tasks);
+			for (int i = 0; i < results.size(); i++) {
+				assertEquals(i * i + 1, results.get(i).get(), 1e-16);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test(expected = InterpreterException.class)
+	public void testUnknownVariable() throws Exception {
+		new FormulaInterpreter().eval("1 + unknown_var");
+	}
+
+	@Test(expected = InterpreterException.class)
+	public void testDivisionByZero() throws Exception {
+		new FormulaInterpreter().eval("1 / (2 - 2)");
+	}
+}
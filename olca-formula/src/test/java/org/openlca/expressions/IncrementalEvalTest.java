@@ -0,0 +1,142 @@
+package org.openlca.expressions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class IncrementalEvalTest {
+
+	@Test
+	public void testRebindValue() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 1);
+		interpreter.bind("b", "a * 2");
+		interpreter.bind("c", "b + 1");
+		assertEquals(3, interpreter.eval("c"), 1e-16);
+		interpreter.bind("a", 2);
+		assertEquals(5, interpreter.eval("c"), 1e-16);
+		assertEquals(4, interpreter.eval("b"), 1e-16);
+	}
+
+	@Test
+	public void testRebindExpression() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 2);
+		interpreter.bind("b", "a * 2");
+		interpreter.bind("c", "b + 1");
+		assertEquals(5, interpreter.eval("c"), 1e-16);
+		interpreter.bind("b", "a * 3");
+		assertEquals(7, interpreter.eval("c"), 1e-16);
+		interpreter.bind("b", 10);
+		assertEquals(11, interpreter.eval("c"), 1e-16);
+		interpreter.bind("b", "a");
+		assertEquals(3, interpreter.eval("c"), 1e-16);
+	}
+
+	@Test
+	public void testChangesAcrossScopes() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("x", 1);
+		interpreter.bind("y", "x * 2");
+		var scope = interpreter.createScope(1);
+		scope.bind("z", "y + x");
+		assertEquals(6, scope.eval("z * 2"), 1e-16);
+
+		// change a parameter in the parent scope
+		interpreter.bind("x", 2);
+		assertEquals(12, scope.eval("z * 2"), 1e-16);
+
+		// hide a parameter of the parent scope
+		scope.bind("x", 10);
+		assertEquals(28, scope.eval("z * 2"), 1e-16);
+		assertEquals(4, interpreter.eval("y"), 1e-16);
+	}
+
+	@Test
+	public void testHideConstant() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		var scope = interpreter.createScope(1);
+		assertEquals(2 * Math.PI, scope.eval("2 * pi"), 1e-16);
+		interpreter.bind("pi", 3);
+		assertEquals(6, scope.eval("2 * pi"), 1e-16);
+	}
+
+	@Test
+	public void testVolatileValues() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("r", "rand()");
+		interpreter.bind("s", "r + 1");
+		double first = interpreter.eval("s");
+		double second = interpreter.eval("s");
+		assertNotEquals(first, second, 1e-16);
+		assertEquals(interpreter.eval("r - r"), 0, 1e-16);
+	}
+
+	@Test
+	public void testFixCycle() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", "b");
+		interpreter.bind("b", "a");
+		try {
+			interpreter.eval("a");
+			fail("cycle not detected");
+		} catch (InterpreterException e) {
+			// expected
+		}
+		interpreter.bind("b", 42);
+		assertEquals(42, interpreter.eval("a"), 1e-16);
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 2);
+		assertEquals(4, interpreter.eval("a * 2"), 1e-16);
+		interpreter.clear();
+		try {
+			interpreter.eval("a * 2");
+			fail("variable a should be unknown");
+		} catch (InterpreterException e) {
+			// expected
+		}
+		interpreter.bind("a", 3);
+		assertEquals(6, interpreter.eval("a * 2"), 1e-16);
+	}
+
+	@Test
+	public void testCopy() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 2);
+		interpreter.bind("b", "a * 2");
+		assertEquals(4, interpreter.eval("b"), 1e-16);
+		var copy = interpreter.copy();
+		copy.bind("a", 3);
+		assertEquals(6, copy.eval("b"), 1e-16);
+		assertEquals(4, interpreter.eval("b"), 1e-16);
+	}
+
+	@Test
+	public void testFormulaLimit() throws Exception {
+		var interpreter = new FormulaInterpreter();
+		interpreter.bind("a", 1);
+		var scope = interpreter.getGlobalScope();
+		for (int i = 0; i < 25_000; i++) {
+			assertEquals(1 + i, scope.eval("a + " + i), 1e-16);
+			scope.eval("a * rand() + " + i);
+		}
+
+		// the dropped formulas are removed from the dependency graph
+		assertTrue(scope.dependentsOf("a") <= 10_000);
+		assertTrue(scope.volatileCount() <= 10_000);
+
+		interpreter.bind("a", 2);
+		assertEquals(3, scope.eval("a + 1"), 1e-16);
+		assertEquals(24_001, scope.eval("a + 23999"), 1e-16);
+
+		scope.clear();
+		assertEquals(0, scope.volatileCount());
+	}
+}
@@ -46,4 +46,25 @@ public class ScopingTest {
 		Assert.assertEquals(18.0, scope.eval("c"), 1e-16);
 	}
 
+	@Test
+	public void testCopy() throws Exception {
+		FormulaInterpreter interpreter = new FormulaInterpreter();
+		interpreter.bind("a", "b + 5");
+		interpreter.bind("b", "4");
+		Scope scope = interpreter.createScope(1);
+		scope.bind("c", "a * 2");
+		var copy = interpreter.copy();
+
+		// changes in the original are not visible in the copy
+		interpreter.bind("b", 5);
+		Assert.assertEquals(20.0, scope.eval("c"), 1e-16);
+		var copyScope = copy.getScope(1).orElseThrow();
+		Assert.assertEquals(18.0, copyScope.eval("c"), 1e-16);
+
+		// and the other way around
+		copy.bind("b", 6);
+		Assert.assertEquals(11.0, copy.eval("a"), 1e-16);
+		Assert.assertEquals(10.0, interpreter.eval("a"), 1e-16);
+	}
+
 }
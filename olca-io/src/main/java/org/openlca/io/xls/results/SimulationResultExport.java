@@ -118,8 +118,8 @@ public class SimulationResultExport {
 
 		for (var impact : items().impacts()) {
 			writer.impactRow(sheet, row, 1, impact);
-			double[] values = result.getAll(impact);
-			writeValues(sheet, row, IMPACT_HEADER.length + 1, values);
+			writeValues(sheet, row, IMPACT_HEADER.length + 1,
+					result.getStatistics(impact), result.getAll(impact));
 			row++;
 		}
 		Excel.autoSize(sheet, 0, IMPACT_HEADER.length + 6);
@@ -151,8 +151,8 @@ public class SimulationResultExport {
 			if (flow.isInput() != forInputs)
 				continue;
 			writer.flowRow(sheet, row, 1, flow);
-			double[] values = result.getAll(flow);
-			writeValues(sheet, row, FLOW_HEADER.length + 1, values);
+			writeValues(sheet, row, FLOW_HEADER.length + 1,
+					result.getStatistics(flow), result.getAll(flow));
 			row++;
 		}
 	}
@@ -194,8 +194,9 @@ public class SimulationResultExport {
 			writeValueHeaders(sheet, row++, valCol);
 			for (var impact : items().impacts()) {
 				writer.impactRow(sheet, row, 1, impact);
-				double[] values = result.getAllDirect(pp, impact);
-				writeValues(sheet, row, IMPACT_HEADER.length + 1, values);
+				writeValues(sheet, row, IMPACT_HEADER.length + 1,
+						result.getDirectStatistics(pp, impact),
+						result.getAllDirect(pp, impact));
 				row++;
 			}
 			row++;
@@ -205,8 +206,9 @@ public class SimulationResultExport {
 			writeValueHeaders(sheet, row++, valCol);
 			for (var impact : items().impacts()) {
 				writer.impactRow(sheet, row, 1, impact);
-				double[] values = result.getAllUpstream(pp, impact);
-				writeValues(sheet, row, IMPACT_HEADER.length + 1, values);
+				writeValues(sheet, row, IMPACT_HEADER.length + 1,
+						result.getUpstreamStatistics(pp, impact),
+						result.getAllUpstream(pp, impact));
 				row++;
 			}
 			row++;
@@ -215,18 +217,22 @@ public class SimulationResultExport {
 		List<EnviFlow> flows = items().enviFlows();
 
 		writer.headerRow(sheet, row++, 1, "Direct LCI contributions - Inputs");
-		writeFlowContributions(flows, pp, true, result::getAllDirect, sheet);
+		writeFlowContributions(flows, pp, true,
+				result::getDirectStatistics, result::getAllDirect, sheet);
 
 		writer.headerRow(sheet, row++, 1, "Direct LCI contributions - Outputs");
-		writeFlowContributions(flows, pp, false, result::getAllDirect, sheet);
+		writeFlowContributions(flows, pp, false,
+				result::getDirectStatistics, result::getAllDirect, sheet);
 
 		writer.headerRow(sheet, row++, 1,
 				"Upstream LCI contributions - Inputs");
-		writeFlowContributions(flows, pp, true, result::getAllUpstream, sheet);
+		writeFlowContributions(flows, pp, true,
+				result::getUpstreamStatistics, result::getAllUpstream, sheet);
 
 		writer.headerRow(sheet, row++, 1,
 				"Upstream LCI contributions - Outputs");
-		writeFlowContributions(flows, pp, false, result::getAllUpstream, sheet);
+		writeFlowContributions(flows, pp, false,
+				result::getUpstreamStatistics, result::getAllUpstream, sheet);
 
 	}
 
@@ -234,7 +240,8 @@ public class SimulationResultExport {
 			List<EnviFlow> flows,
 			TechFlow pp,
 			boolean forInputs,
-			BiFunction<TechFlow, EnviFlow, double[]> fn,
+			BiFunction<TechFlow, EnviFlow, Statistics> statsFn,
+			BiFunction<TechFlow, EnviFlow, double[]> valuesFn,
 			Sheet sheet) {
 		writer.headerRow(sheet, row, 1, FLOW_HEADER);
 		int valCol = FLOW_HEADER.length + 1;
@@ -243,8 +250,8 @@ public class SimulationResultExport {
 			if (flow.isInput() != forInputs)
 				continue;
 			writer.flowRow(sheet, row, 1, flow);
-			double[] values = fn.apply(pp, flow);
-			writeValues(sheet, row, valCol, values);
+			writeValues(sheet, row, valCol,
+					statsFn.apply(pp, flow), valuesFn.apply(pp, flow));
 			row++;
 		}
 		row++;
@@ -255,17 +262,18 @@ public class SimulationResultExport {
 				"Median", "5% Percentile", "95% Percentile" };
 		for (int i = 0; i < vals.length; i++)
 			writer.cell(sheet, row, startCol + i, vals[i], true);
+		if (result.isStreaming())
+			return;
 		int nextCol = startCol + vals.length;
 		for (int i = 0; i < result.getNumberOfRuns(); i++)
 			writer.cell(sheet, row, nextCol++, "Run " + (i + 1), true);
 	}
 
 	private void writeValues(Sheet sheet, int row, int startCol,
-			double[] values) {
-		if (values == null)
+			Statistics stats, double[] values) {
+		if (stats == null)
 			return;
 		int col = startCol;
-		Statistics stats = Statistics.of(values);
 		Excel.cell(sheet, row, col++, stats.mean);
 		Excel.cell(sheet, row, col++, stats.standardDeviation);
 		Excel.cell(sheet, row, col++, stats.min);
@@ -273,6 +281,8 @@ public class SimulationResultExport {
 		Excel.cell(sheet, row, col++, stats.median);
 		Excel.cell(sheet, row, col++, stats.getPercentileValue(5));
 		Excel.cell(sheet, row, col++, stats.getPercentileValue(95));
+		if (values == null)
+			return;
 		for (double value : values) {
 			Excel.cell(sheet, row, col++, value);
 		}
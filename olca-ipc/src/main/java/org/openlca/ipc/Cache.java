@@ -1,21 +1,234 @@
 package org.openlca.ipc;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
 
+import org.openlca.core.matrix.solvers.Factorization;
+import org.openlca.core.matrix.solvers.SparseLU;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A thread-safe cache of objects (e.g. matrix factorizations) that are shared
+ * between the requests of the IPC server. The cache is bounded by a maximum
+ * number of entries and a maximum weight (an estimate of the memory size of
+ * the cached objects). When one of these limits is exceeded, the least
+ * recently used entries are evicted. Optionally, entries expire when they were
+ * not accessed within a time-to-live. Evicted and expired objects are passed
+ * to an eviction callback which disposes factorizations by default. Objects
+ * that are removed explicitly via {@link #remove(String)} are not disposed as
+ * they are handed over to the caller.
+ */
 public class Cache {
 
-	private final HashMap<String, Object> cache = new HashMap<>();
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong weight = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	private int maxSize = 1000;
+	private long maxWeight = Runtime.getRuntime().maxMemory() / 4;
+	private long ttl = 0;
+	private ToLongFunction<Object> weigher = Cache::weightOf;
+	private BiConsumer<String, Object> onEvict = Cache::dispose;
+
+	/**
+	 * Sets the maximum number of entries in the cache; defaults to 1000.
+	 */
+	public Cache withMaxSize(int maxSize) {
+		this.maxSize = Math.max(1, maxSize);
+		return this;
+	}
+
+	/**
+	 * Sets the maximum weight of the cached objects; defaults to a quarter of
+	 * the maximum heap size.
+	 */
+	public Cache withMaxWeight(long maxWeight) {
+		this.maxWeight = Math.max(1, maxWeight);
+		return this;
+	}
+
+	/**
+	 * Sets the time after which entries expire when they were not accessed.
+	 * A value {@code <= 0} means that entries do not expire, which is the
+	 * default.
+	 */
+	public Cache withTimeToLive(long time, TimeUnit unit) {
+		this.ttl = time > 0 ? unit.toMillis(time) : 0;
+		return this;
+	}
+
+	/**
+	 * Sets the function that estimates the weight of a cached object; by
+	 * default the memory size of factorizations and vectors is estimated.
+	 */
+	public Cache withWeigher(ToLongFunction<Object> weigher) {
+		if (weigher != null) {
+			this.weigher = weigher;
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the callback that is called when an entry is evicted or expired;
+	 * by default, factorizations are disposed.
+	 */
+	public Cache onEvict(BiConsumer<String, Object> onEvict) {
+		if (onEvict != null) {
+			this.onEvict = onEvict;
+		}
+		return this;
+	}
 
 	public Object get(String id) {
-		return cache.get(id);
+		if (id == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		var entry = entries.get(id);
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		long now = System.currentTimeMillis();
+		if (isExpired(entry, now)) {
+			if (entries.remove(id, entry)) {
+				evict(id, entry);
+			}
+			misses.incrementAndGet();
+			return null;
+		}
+		entry.lastAccess = now;
+		hits.incrementAndGet();
+		return entry.value;
 	}
 
 	public void put(String id, Object obj) {
-		cache.put(id, obj);
+		if (id == null || obj == null)
+			return;
+		var entry = new Entry(obj, Math.max(0, weigher.applyAsLong(obj)));
+		weight.addAndGet(entry.weight);
+		var old = entries.put(id, entry);
+		if (old != null && old.value != obj) {
+			evict(id, old);
+		} else if (old != null) {
+			weight.addAndGet(-old.weight);
+		}
+		cleanUp();
 	}
 
 	public Object remove(String id) {
-		return cache.remove(id);
+		if (id == null)
+			return null;
+		var entry = entries.remove(id);
+		if (entry == null)
+			return null;
+		weight.addAndGet(-entry.weight);
+		return entry.value;
+	}
+
+	/**
+	 * Removes the expired entries and evicts the least recently used entries
+	 * until the cache is within its limits again.
+	 */
+	public synchronized void cleanUp() {
+		long now = System.currentTimeMillis();
+		if (ttl > 0) {
+			for (var e : entries.entrySet()) {
+				if (isExpired(e.getValue(), now)
+						&& entries.remove(e.getKey(), e.getValue())) {
+					evict(e.getKey(), e.getValue());
+				}
+			}
+		}
+		if (entries.size() <= maxSize && weight.get() <= maxWeight)
+			return;
+
+		var lru = new ArrayList<>(entries.entrySet());
+		lru.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+		for (var e : lru) {
+			if (entries.size() <= maxSize && weight.get() <= maxWeight)
+				break;
+			if (entries.remove(e.getKey(), e.getValue())) {
+				evict(e.getKey(), e.getValue());
+			}
+		}
 	}
 
+	/**
+	 * Returns the current statistics of this cache.
+	 */
+	public Stats stats() {
+		return new Stats(entries.size(), weight.get(),
+				hits.get(), misses.get(), evictions.get());
+	}
+
+	private boolean isExpired(Entry entry, long now) {
+		return ttl > 0 && now - entry.lastAccess > ttl;
+	}
+
+	private void evict(String id, Entry entry) {
+		weight.addAndGet(-entry.weight);
+		evictions.incrementAndGet();
+		try {
+			onEvict.accept(id, entry.value);
+		} catch (Exception e) {
+			var log = LoggerFactory.getLogger(getClass());
+			log.error("failed to evict cache entry " + id, e);
+		}
+	}
+
+	private static void dispose(String id, Object obj) {
+		if (obj instanceof Factorization f && !f.isDisposed()) {
+			f.dispose();
+		}
+	}
+
+	/**
+	 * Estimates the memory size of the given object in bytes.
+	 */
+	static long weightOf(Object obj) {
+		if (obj instanceof SparseLU lu)
+			return lu.nonZeros() * 12 + (long) lu.size() * 16;
+		if (obj instanceof Factorization f)
+			return (long) f.size() * f.size() * 8;
+		if (obj instanceof double[] v)
+			return (long) v.length * 8;
+		if (obj instanceof Map<?, ?> m)
+			return m.size() * 64L;
+		return 1024;
+	}
+
+	private static class Entry {
+
+		final Object value;
+		final long weight;
+		volatile long lastAccess;
+
+		Entry(Object value, long weight) {
+			this.value = value;
+			this.weight = weight;
+			this.lastAccess = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * The statistics of the cache.
+	 *
+	 * @param size      the number of cached objects
+	 * @param weight    the estimated memory size of the cached objects
+	 * @param hits      the number of successful look-ups
+	 * @param misses    the number of look-ups without a cached object
+	 * @param evictions the number of evicted and expired entries
+	 */
+	public record Stats(
+			int size, long weight, long hits, long misses, long evictions) {
+	}
 }
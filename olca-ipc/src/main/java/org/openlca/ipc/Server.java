@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class Server {
 
@@ -43,7 +44,8 @@ public class Server {
 
 	public Server withDefaultHandlers() {
 		log.info("Register default handlers");
-		var cache = new Cache();
+		var cache = new Cache()
+				.withTimeToLive(config.timeout(), TimeUnit.MINUTES);
 		var results = JsonResultService.of(config);
 		var context = new HandlerContext(this, config, results, cache);
 		register(new DataHandler(context));
@@ -61,6 +61,26 @@ public class DataHandler {
 		});
 	}
 
+	/**
+	 * Searches data sets by name, synonyms, category, or ID. The parameters
+	 * are the search {@code query}, an optional {@code @type} filter, and the
+	 * {@code page} (starting with 1) and {@code pageSize} of the results.
+	 */
+	@Rpc("data/search")
+	public RpcResponse search(RpcRequest req) {
+		var r = req.requireJsonObject();
+		if (r.isError())
+			return Responses.badRequest(r.error(), req);
+		var json = r.value();
+		var query = Json.getString(json, "query");
+		if (Strings.nullOrEmpty(query))
+			return Responses.invalidParams("no search query provided", req);
+		var resp = service.search(query, JsonRef.typeOf(json),
+				Json.getInt(json, "page", 1),
+				Json.getInt(json, "pageSize", 50));
+		return Responses.of(resp, req);
+	}
+
 	@Rpc("data/get/all")
 	public RpcResponse getAll(RpcRequest req) {
 		return withTypedParam(req, (json, type) -> {
@@ -1,5 +1,6 @@
 package org.openlca.ipc.handlers;
 
+import com.google.gson.JsonObject;
 import org.openlca.ipc.Responses;
 import org.openlca.ipc.Rpc;
 import org.openlca.ipc.RpcRequest;
@@ -27,4 +28,16 @@ public class RuntimeHandler {
 			return Responses.serverError(e, req);
 		}
 	}
+
+	@Rpc("runtime/cache")
+	public RpcResponse cacheStats(RpcRequest req) {
+		var stats = context.cache().stats();
+		var obj = new JsonObject();
+		obj.addProperty("size", stats.size());
+		obj.addProperty("weight", stats.weight());
+		obj.addProperty("hits", stats.hits());
+		obj.addProperty("misses", stats.misses());
+		obj.addProperty("evictions", stats.evictions());
+		return Responses.ok(obj, req);
+	}
 }
@@ -0,0 +1,78 @@
+package org.openlca.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openlca.core.matrix.format.HashPointMatrix;
+import org.openlca.core.matrix.solvers.SparseLU;
+
+public class CacheTest {
+
+	@Test
+	public void testLeastRecentlyUsed() throws Exception {
+		var evicted = new ArrayList<String>();
+		var cache = new Cache()
+				.withMaxSize(2)
+				.onEvict((id, obj) -> evicted.add(id));
+		cache.put("a", "A");
+		Thread.sleep(5);
+		cache.put("b", "B");
+		Thread.sleep(5);
+		assertEquals("A", cache.get("a"));
+		cache.put("c", "C");
+
+		assertEquals(List.of("b"), evicted);
+		assertNull(cache.get("b"));
+		assertEquals("A", cache.get("a"));
+		assertEquals("C", cache.get("c"));
+
+		var stats = cache.stats();
+		assertEquals(2, stats.size());
+		assertEquals(3, stats.hits());
+		assertEquals(1, stats.misses());
+		assertEquals(1, stats.evictions());
+	}
+
+	@Test
+	public void testMaxWeight() {
+		var cache = new Cache()
+				.withMaxWeight(100)
+				.withWeigher(obj -> ((double[]) obj).length * 8L);
+		cache.put("a", new double[10]);
+		cache.put("b", new double[10]);
+		assertEquals(1, cache.stats().size());
+		assertEquals(80, cache.stats().weight());
+		assertTrue(cache.remove("b") instanceof double[]);
+		assertEquals(0, cache.stats().weight());
+	}
+
+	@Test
+	public void testExpiredFactorization() throws Exception {
+		var lu = SparseLU.of(HashPointMatrix.of(new double[][]{
+				{1.0, 0.0},
+				{-0.5, 1.0}}));
+		var cache = new Cache().withTimeToLive(1, TimeUnit.MILLISECONDS);
+		cache.put("lu", lu);
+		Thread.sleep(10);
+		assertNull(cache.get("lu"));
+		assertTrue(lu.isDisposed());
+	}
+
+	@Test
+	public void testRemoveDoesNotDispose() {
+		var lu = SparseLU.of(HashPointMatrix.of(new double[][]{{2.0}}));
+		var cache = new Cache();
+		cache.put("lu", lu);
+		assertSame(lu, cache.remove("lu"));
+		assertFalse(lu.isDisposed());
+		assertEquals(0, cache.stats().evictions());
+	}
+}
@@ -64,35 +64,41 @@ public class ProtoImport implements Runnable, EntityResolver {
 
 	@Override
 	public void run() {
-		new UnitGroupImport(this).importAll();
-		var typeOrder = new ModelType[]{
-			ModelType.ACTOR,
-			ModelType.SOURCE,
-			ModelType.CURRENCY,
-			ModelType.DQ_SYSTEM,
-			ModelType.LOCATION,
-			ModelType.FLOW_PROPERTY,
-			ModelType.FLOW,
-			ModelType.SOCIAL_INDICATOR,
-			ModelType.PARAMETER,
-			ModelType.PROCESS,
-			ModelType.IMPACT_CATEGORY,
-			ModelType.IMPACT_METHOD,
-			ModelType.PRODUCT_SYSTEM,
-			ModelType.PROJECT,
-			ModelType.RESULT,
-			ModelType.EPD,
-		};
-		for (var type : typeOrder) {
-			var batchSize = BatchImport.batchSizeOf(type);
-			if (batchSize > 1) {
-				var clazz = type.getModelClass();
-				new BatchImport<>(this, clazz, batchSize).run();
-			} else {
-				for (var id : reader.getIds(type)) {
-					run(type, id);
+		try {
+			new UnitGroupImport(this).importAll();
+			var typeOrder = new ModelType[]{
+				ModelType.ACTOR,
+				ModelType.SOURCE,
+				ModelType.CURRENCY,
+				ModelType.DQ_SYSTEM,
+				ModelType.LOCATION,
+				ModelType.FLOW_PROPERTY,
+				ModelType.FLOW,
+				ModelType.SOCIAL_INDICATOR,
+				ModelType.PARAMETER,
+				ModelType.PROCESS,
+				ModelType.IMPACT_CATEGORY,
+				ModelType.IMPACT_METHOD,
+				ModelType.PRODUCT_SYSTEM,
+				ModelType.PROJECT,
+				ModelType.RESULT,
+				ModelType.EPD,
+			};
+			for (var type : typeOrder) {
+				var batchSize = BatchImport.batchSizeOf(type);
+				if (batchSize > 1) {
+					var clazz = type.getModelClass();
+					new BatchImport<>(this, clazz, batchSize).run();
+				} else {
+					for (var id : reader.getIds(type)) {
+						run(type, id);
+					}
 				}
 			}
+		} finally {
+			// the batch imports write the models directly, without events
+			// for the listeners of the database
+			db.listeners().fireChanged();
 		}
 	}
 